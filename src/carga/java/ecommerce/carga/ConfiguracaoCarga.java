@@ -0,0 +1,78 @@
+package ecommerce.carga;
+
+import java.time.Duration;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Parâmetros do teste de carga, lidos das propriedades {@code carga.*} (por
+ * exemplo {@code -Dcarga.modo=aberto -Dcarga.taxa=5000}).
+ *
+ * @param produtos         produtos semeados
+ * @param clientes         clientes semeados
+ * @param carrinhos        carrinhos semeados, distribuídos entre os clientes
+ * @param itensPorCarrinho itens de cada carrinho
+ * @param tamanhoLote      linhas por lote JDBC na semeadura
+ * @param modo             {@code fechado}: {@code usuarios} clientes, cada um
+ *                         enviando a próxima compra ao receber a resposta;
+ *                         {@code aberto}: chegadas a {@code taxa} por segundo,
+ *                         independentes das respostas
+ * @param usuarios         concorrência do modo fechado
+ * @param taxa             requisições por segundo do modo aberto
+ * @param maximoPendentes  requisições em voo no modo aberto; acima disso a
+ *                         chegada é contada como falha do gerador
+ * @param aquecimento      tempo de carga descartado antes da medição
+ * @param duracao          tempo de medição
+ * @param timeout          tempo limite de cada requisição
+ * @param semente          semente dos dados e da escolha dos carrinhos
+ */
+record ConfiguracaoCarga(int produtos, int clientes, int carrinhos, int itensPorCarrinho, int tamanhoLote,
+		String modo, int usuarios, int taxa, int maximoPendentes, Duration aquecimento, Duration duracao,
+		Duration timeout, long semente)
+{
+	static final String FECHADO = "fechado";
+	static final String ABERTO = "aberto";
+
+	ConfiguracaoCarga
+	{
+		if (produtos <= 0 || clientes <= 0 || carrinhos <= 0 || itensPorCarrinho <= 0 || tamanhoLote <= 0)
+		{
+			throw new IllegalArgumentException("Volumes da massa de dados devem ser positivos.");
+		}
+		if (!FECHADO.equals(modo) && !ABERTO.equals(modo))
+		{
+			throw new IllegalArgumentException("Modo de carga desconhecido: " + modo + " (use fechado ou aberto).");
+		}
+		if (usuarios <= 0 || taxa <= 0 || maximoPendentes <= 0)
+		{
+			throw new IllegalArgumentException("Usuários, taxa e máximo de pendentes devem ser positivos.");
+		}
+		if (duracao.isZero() || duracao.isNegative() || aquecimento.isNegative())
+		{
+			throw new IllegalArgumentException("Duração deve ser positiva e aquecimento não negativo.");
+		}
+	}
+
+	static ConfiguracaoCarga de(Environment env)
+	{
+		return new ConfiguracaoCarga(
+				env.getProperty("carga.produtos", Integer.class, 1_000_000),
+				env.getProperty("carga.clientes", Integer.class, 10_000),
+				env.getProperty("carga.carrinhos", Integer.class, 100_000),
+				env.getProperty("carga.itens-por-carrinho", Integer.class, 3),
+				env.getProperty("carga.tamanho-lote", Integer.class, 1_000),
+				env.getProperty("carga.modo", FECHADO),
+				env.getProperty("carga.usuarios", Integer.class, 64),
+				env.getProperty("carga.taxa", Integer.class, 1_000),
+				env.getProperty("carga.maximo-pendentes", Integer.class, 10_000),
+				env.getProperty("carga.aquecimento", Duration.class, Duration.ofSeconds(10)),
+				env.getProperty("carga.duracao", Duration.class, Duration.ofSeconds(60)),
+				env.getProperty("carga.timeout", Duration.class, Duration.ofSeconds(5)),
+				env.getProperty("carga.semente", Long.class, 42L));
+	}
+
+	boolean abertoNaTaxa()
+	{
+		return ABERTO.equals(modo);
+	}
+}
@@ -0,0 +1,244 @@
+package ecommerce.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Dispara {@code POST /finalizar} contra a aplicação em execução, sorteando
+ * carrinhos da massa semeada, e mede a latência de cada requisição em um
+ * {@link Recorder} do HdrHistogram.
+ * <p>
+ * No modo aberto a latência conta a partir do instante em que a requisição
+ * deveria ter saído, e não de quando saiu: se o serviço atrasa, o atraso entra
+ * na medição em vez de simplesmente reduzir a taxa (omissão coordenada).
+ */
+class GeradorDeCarga
+{
+	/** Maior latência registrável no histograma, em microssegundos. */
+	private static final long LATENCIA_MAXIMA_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final ConfiguracaoCarga config;
+	private final URI finalizar;
+	private final HttpClient http;
+	private final ExecutorService executorHttp;
+
+	private final Recorder latencias = new Recorder(LATENCIA_MAXIMA_MICROS, 3);
+	private final LongAdder sucessos = new LongAdder();
+	private final LongAdder recusadas = new LongAdder();
+	private final LongAdder errosCliente = new LongAdder();
+	private final LongAdder errosServidor = new LongAdder();
+	private final LongAdder falhas = new LongAdder();
+
+	GeradorDeCarga(ConfiguracaoCarga config, URI base)
+	{
+		this.config = config;
+		this.finalizar = base.resolve("/finalizar");
+		this.executorHttp = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+		this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(config.timeout())
+				.executor(executorHttp).build();
+	}
+
+	ResultadoCarga executar() throws InterruptedException
+	{
+		try
+		{
+			long inicio = System.nanoTime();
+			long fimAquecimento = inicio + config.aquecimento().toNanos();
+			long fim = fimAquecimento + config.duracao().toNanos();
+
+			Thread controle = config.abertoNaTaxa() ? iniciar("carga-chegadas", () -> cicloAberto(inicio, fim))
+					: null;
+			List<Thread> usuarios = new ArrayList<>();
+			if (controle == null)
+			{
+				for (int u = 0; u < config.usuarios(); u++)
+				{
+					SplittableRandom random = new SplittableRandom(config.semente() + u);
+					usuarios.add(iniciar("carga-usuario-" + u, () -> cicloFechado(random, fim)));
+				}
+			}
+
+			dormirAte(fimAquecimento);
+			latencias.getIntervalHistogram();
+			zerarContadores();
+			long inicioMedicao = System.nanoTime();
+
+			if (controle != null)
+			{
+				controle.join();
+			}
+			for (Thread usuario : usuarios)
+			{
+				usuario.join();
+			}
+			long fimMedicao = System.nanoTime();
+
+			Histogram histograma = latencias.getIntervalHistogram();
+			return new ResultadoCarga(config, fimMedicao - inicioMedicao, histograma, sucessos.sum(),
+					recusadas.sum(), errosCliente.sum(), errosServidor.sum(), falhas.sum());
+		}
+		finally
+		{
+			executorHttp.shutdownNow();
+		}
+	}
+
+	private void cicloFechado(SplittableRandom random, long fim)
+	{
+		while (System.nanoTime() < fim)
+		{
+			HttpRequest requisicao = requisicao(random);
+			long envio = System.nanoTime();
+			try
+			{
+				HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+				registrar(envio, resposta.statusCode());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (Exception e)
+			{
+				registrarFalha(envio);
+			}
+		}
+	}
+
+	/**
+	 * Agenda as chegadas em instantes fixos ({@code 1/taxa} segundos). Se o
+	 * gerador ficar para trás, dispara as atrasadas de imediato; o atraso já
+	 * conta na latência porque ela parte do instante agendado.
+	 */
+	private void cicloAberto(long inicio, long fim)
+	{
+		SplittableRandom random = new SplittableRandom(config.semente());
+		Semaphore pendentes = new Semaphore(config.maximoPendentes());
+		double intervaloNanos = TimeUnit.SECONDS.toNanos(1) / (double) config.taxa();
+
+		for (long n = 0;; n++)
+		{
+			long agendado = inicio + (long) (n * intervaloNanos);
+			if (agendado >= fim)
+			{
+				break;
+			}
+			dormirAte(agendado);
+
+			if (!pendentes.tryAcquire())
+			{
+				registrarFalha(agendado);
+				continue;
+			}
+			http.sendAsync(requisicao(random), HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, erro) -> {
+				pendentes.release();
+				if (erro != null)
+				{
+					registrarFalha(agendado);
+				}
+				else
+				{
+					registrar(agendado, resposta.statusCode());
+				}
+			});
+		}
+
+		// Espera as requisições em voo, limitadas pelo timeout de cada uma
+		try
+		{
+			if (pendentes.tryAcquire(config.maximoPendentes(), config.timeout().toNanos() * 2, TimeUnit.NANOSECONDS))
+			{
+				pendentes.release(config.maximoPendentes());
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private HttpRequest requisicao(SplittableRandom random)
+	{
+		long carrinhoId = random.nextLong(1, config.carrinhos() + 1L);
+		long clienteId = SemeadorDeDados.donoDoCarrinho(carrinhoId, config.clientes());
+		URI uri = URI.create(finalizar + "?carrinhoId=" + carrinhoId + "&clienteId=" + clienteId);
+
+		return HttpRequest.newBuilder(uri).timeout(config.timeout()).POST(HttpRequest.BodyPublishers.noBody())
+				.build();
+	}
+
+	/** 409 é recusa de negócio (sem estoque, pagamento recusado); os demais não-2xx são erros. */
+	private void registrar(long inicioNanos, int status)
+	{
+		gravarLatencia(inicioNanos);
+		if (status >= 200 && status < 300)
+		{
+			sucessos.increment();
+		}
+		else if (status == 409)
+		{
+			recusadas.increment();
+		}
+		else if (status < 500)
+		{
+			errosCliente.increment();
+		}
+		else
+		{
+			errosServidor.increment();
+		}
+	}
+
+	private void registrarFalha(long inicioNanos)
+	{
+		gravarLatencia(inicioNanos);
+		falhas.increment();
+	}
+
+	private void gravarLatencia(long inicioNanos)
+	{
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicioNanos);
+		latencias.recordValue(Math.min(Math.max(micros, 0), LATENCIA_MAXIMA_MICROS));
+	}
+
+	private void zerarContadores()
+	{
+		sucessos.reset();
+		recusadas.reset();
+		errosCliente.reset();
+		errosServidor.reset();
+		falhas.reset();
+	}
+
+	private static Thread iniciar(String nome, Runnable tarefa)
+	{
+		Thread thread = new Thread(tarefa, nome);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private static void dormirAte(long instanteNanos)
+	{
+		long restante;
+		while ((restante = instanteNanos - System.nanoTime()) > 0)
+		{
+			LockSupport.parkNanos(restante);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package ecommerce.carga;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/** Resultado da janela de medição; latências em microssegundos. */
+record ResultadoCarga(ConfiguracaoCarga config, long duracaoNanos, Histogram latencias, long sucessos,
+		long recusadas, long errosCliente, long errosServidor, long falhas)
+{
+	long total()
+	{
+		return sucessos + recusadas + errosCliente + errosServidor + falhas;
+	}
+
+	double vazao()
+	{
+		return total() / (duracaoNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	double taxa(long quantidade)
+	{
+		return total() == 0 ? 0 : 100.0 * quantidade / total();
+	}
+
+	void imprimir(PrintStream saida)
+	{
+		saida.println();
+		saida.println("=== Teste de carga: POST /finalizar ===");
+		saida.printf("Modo            : %s%n", config.abertoNaTaxa()
+				? "aberto, " + config.taxa() + " req/s"
+				: "fechado, " + config.usuarios() + " usuários");
+		saida.printf("Massa           : %,d produtos, %,d clientes, %,d carrinhos x %d itens%n", config.produtos(),
+				config.clientes(), config.carrinhos(), config.itensPorCarrinho());
+		saida.printf("Medição         : %.1f s (após %d s de aquecimento)%n", duracaoNanos / 1e9,
+				config.aquecimento().toSeconds());
+		saida.printf("Requisições     : %,d%n", total());
+		saida.printf("Vazão           : %,.1f req/s%n", vazao());
+		saida.printf("Latência (ms)   : p50 %.2f | p99 %.2f | p99.9 %.2f | máx %.2f%n", ms(50), ms(99), ms(99.9),
+				latencias.getMaxValue() / 1000.0);
+		saida.printf("Sucesso         : %,d (%.2f%%)%n", sucessos, taxa(sucessos));
+		saida.printf("Recusadas (409) : %,d (%.2f%%)%n", recusadas, taxa(recusadas));
+		saida.printf("Erros 4xx       : %,d (%.2f%%)%n", errosCliente, taxa(errosCliente));
+		saida.printf("Erros 5xx       : %,d (%.2f%%)%n", errosServidor, taxa(errosServidor));
+		saida.printf("Falhas de rede  : %,d (%.2f%%)%n", falhas, taxa(falhas));
+		saida.printf("Taxa de erro    : %.2f%%%n", taxa(errosCliente + errosServidor + falhas));
+	}
+
+	/** Grava a distribuição completa no formato .hgrm, aceito pelo HdrHistogram plotter. */
+	void gravarDistribuicao(Path arquivo) throws IOException
+	{
+		Files.createDirectories(arquivo.toAbsolutePath().getParent());
+		try (PrintStream saida = new PrintStream(Files.newOutputStream(arquivo)))
+		{
+			latencias.outputPercentileDistribution(saida, 1000.0);
+		}
+	}
+
+	private double ms(double percentil)
+	{
+		return latencias.getValueAtPercentile(percentil) / 1000.0;
+	}
+}
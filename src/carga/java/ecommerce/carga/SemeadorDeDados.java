@@ -0,0 +1,202 @@
+package ecommerce.carga;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.entity.TotaisCarrinho;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Popula o H2 com a massa do teste de carga em lotes JDBC, nas mesmas tabelas
+ * dos repositórios JPA. As entidades usam ids {@code IDENTITY}, com os quais o
+ * Hibernate não agrupa inserts; por isso os ids são atribuídos aqui e os
+ * repositórios só conferem as contagens. Os totais de cada carrinho são
+ * gravados já calculados, como se os itens tivessem entrado pelo carrinho.
+ * <p>
+ * A massa é determinística para a semente: o carrinho {@code c} pertence ao
+ * cliente {@code (c - 1) % clientes + 1}, o que permite ao gerador de carga
+ * montar requisições válidas sem consultar o banco.
+ */
+class SemeadorDeDados
+{
+	private final JdbcTemplate jdbcTemplate;
+	private final ClienteRepository clienteRepository;
+	private final ProdutoRepository produtoRepository;
+	private final CarrinhoDeComprasRepository carrinhoRepository;
+
+	SemeadorDeDados(JdbcTemplate jdbcTemplate, ClienteRepository clienteRepository,
+			ProdutoRepository produtoRepository, CarrinhoDeComprasRepository carrinhoRepository)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+		this.clienteRepository = clienteRepository;
+		this.produtoRepository = produtoRepository;
+		this.carrinhoRepository = carrinhoRepository;
+	}
+
+	static long donoDoCarrinho(long carrinhoId, int clientes)
+	{
+		return (carrinhoId - 1) % clientes + 1;
+	}
+
+	void semear(ConfiguracaoCarga config)
+	{
+		if (clienteRepository.count() > 0 || produtoRepository.count() > 0 || carrinhoRepository.count() > 0)
+		{
+			throw new IllegalStateException("O banco já tem dados; o teste de carga precisa de um banco vazio.");
+		}
+
+		SplittableRandom random = new SplittableRandom(config.semente());
+		int lote = config.tamanhoLote();
+
+		Regiao[] regioes = Regiao.values();
+		TipoCliente[] tipos = TipoCliente.values();
+		inserirEmLotes("insert into cliente (id, nome, regiao, tipo) values (?, ?, ?, ?)", config.clientes(), lote,
+				(ps, id) -> {
+					ps.setLong(1, id);
+					ps.setString(2, "Cliente " + id);
+					ps.setInt(3, regioes[random.nextInt(regioes.length)].ordinal());
+					ps.setString(4, tipos[random.nextInt(tipos.length)].name());
+				});
+
+		// Preço (centavos), peso (centésimos de kg), fragilidade e tipo de cada
+		// produto, guardados para calcular os totais dos carrinhos
+		TipoProduto[] tiposProduto = TipoProduto.values();
+		long[] precos = new long[config.produtos() + 1];
+		long[] pesos = new long[config.produtos() + 1];
+		boolean[] frageis = new boolean[config.produtos() + 1];
+		byte[] tiposDosProdutos = new byte[config.produtos() + 1];
+		for (int id = 1; id <= config.produtos(); id++)
+		{
+			boolean pesado = random.nextInt(4) == 0;
+			// Preço entre R$ 1,00 e R$ 300,00; peso leve até 2 kg, pesado até 30 kg
+			precos[id] = random.nextLong(100, 30_000);
+			pesos[id] = pesado ? random.nextLong(500, 3_000) : random.nextLong(5, 200);
+			frageis[id] = random.nextInt(3) == 0;
+			tiposDosProdutos[id] = (byte) random.nextInt(tiposProduto.length);
+		}
+
+		inserirEmLotes("insert into produto (id, nome, descricao, preco, peso_fisico, comprimento, largura, altura,"
+				+ " fragil, tipo, versao) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", config.produtos(), lote, (ps, id) -> {
+					int i = (int) id;
+					ps.setLong(1, id);
+					ps.setString(2, "Produto " + id);
+					ps.setString(3, null);
+					ps.setBigDecimal(4, BigDecimal.valueOf(precos[i], 2));
+					ps.setBigDecimal(5, BigDecimal.valueOf(pesos[i], 2));
+					ps.setBigDecimal(6, BigDecimal.TEN);
+					ps.setBigDecimal(7, BigDecimal.TEN);
+					ps.setBigDecimal(8, BigDecimal.TEN);
+					ps.setBoolean(9, frageis[i]);
+					ps.setString(10, tiposProduto[tiposDosProdutos[i]].name());
+				});
+
+		// Itens de cada carrinho (o item i pertence ao carrinho (i - 1) / itensPorCarrinho + 1)
+		int itensPorCarrinho = config.itensPorCarrinho();
+		int totalItens = config.carrinhos() * itensPorCarrinho;
+		int[] produtosDosItens = new int[totalItens + 1];
+		byte[] quantidadesDosItens = new byte[totalItens + 1];
+		for (int i = 1; i <= totalItens; i++)
+		{
+			produtosDosItens[i] = random.nextInt(1, config.produtos() + 1);
+			quantidadesDosItens[i] = (byte) random.nextInt(1, 4);
+		}
+
+		// Totais (e a assinatura deles) calculados pelo próprio TotaisCarrinho,
+		// como se os itens tivessem entrado pelo carrinho
+		Produto[] modelos = new Produto[config.produtos() + 1];
+		for (int id = 1; id <= config.produtos(); id++)
+		{
+			modelos[id] = new Produto((long) id, null, null, BigDecimal.valueOf(precos[id], 2),
+					BigDecimal.valueOf(pesos[id], 2), null, null, null, frageis[id], tiposProduto[tiposDosProdutos[id]]);
+		}
+		Date hoje = Date.valueOf(LocalDate.now());
+		inserirEmLotes("insert into carrinho_de_compras (id, cliente_id, data, subtotal, peso_total,"
+				+ " quantidade_frageis, itens_incompletos, assinatura, versao)"
+				+ " values (?, ?, ?, ?, ?, ?, 0, ?, 0)",
+				config.carrinhos(), lote, (ps, id) -> {
+					List<ItemCompra> itens = new ArrayList<>(itensPorCarrinho);
+					for (int i = (int) (id - 1) * itensPorCarrinho + 1, fim = i + itensPorCarrinho; i < fim; i++)
+					{
+						itens.add(new ItemCompra(null, modelos[produtosDosItens[i]], (long) quantidadesDosItens[i]));
+					}
+					TotaisCarrinho totais = TotaisCarrinho.de(itens);
+					ps.setLong(1, id);
+					ps.setLong(2, donoDoCarrinho(id, config.clientes()));
+					ps.setDate(3, hoje);
+					ps.setBigDecimal(4, totais.getSubtotal());
+					ps.setBigDecimal(5, totais.getPesoTotal());
+					ps.setLong(6, totais.getQuantidadeFrageis());
+					ps.setLong(7, totais.getAssinatura());
+				});
+
+		inserirEmLotes("insert into item_compra (id, carrinho_id, produto_id, quantidade) values (?, ?, ?, ?)",
+				totalItens, lote, (ps, id) -> {
+					ps.setLong(1, id);
+					ps.setLong(2, (id - 1) / itensPorCarrinho + 1);
+					ps.setLong(3, produtosDosItens[(int) id]);
+					ps.setLong(4, quantidadesDosItens[(int) id]);
+				});
+
+		// Inserts posteriores pela aplicação não devem colidir com os ids atribuídos aqui
+		reiniciarIdentidade("cliente", config.clientes());
+		reiniciarIdentidade("produto", config.produtos());
+		reiniciarIdentidade("carrinho_de_compras", config.carrinhos());
+		reiniciarIdentidade("item_compra", totalItens);
+
+		if (clienteRepository.count() != config.clientes() || produtoRepository.count() != config.produtos()
+				|| carrinhoRepository.count() != config.carrinhos())
+		{
+			throw new IllegalStateException("Contagens após a semeadura não conferem com a configuração.");
+		}
+	}
+
+	private void inserirEmLotes(String sql, int total, int tamanhoLote, Linha linha)
+	{
+		for (int inicio = 0; inicio < total; inicio += tamanhoLote)
+		{
+			int primeiroId = inicio + 1;
+			int tamanho = Math.min(tamanhoLote, total - inicio);
+			jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter()
+			{
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException
+				{
+					linha.preencher(ps, primeiroId + i);
+				}
+
+				@Override
+				public int getBatchSize()
+				{
+					return tamanho;
+				}
+			});
+		}
+	}
+
+	private void reiniciarIdentidade(String tabela, long ultimoId)
+	{
+		jdbcTemplate.execute("alter table " + tabela + " alter column id restart with " + (ultimoId + 1));
+	}
+
+	@FunctionalInterface
+	private interface Linha
+	{
+		void preencher(PreparedStatement ps, long id) throws SQLException;
+	}
+}
@@ -0,0 +1,57 @@
+package ecommerce.carga;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ecommerce.CompraApplication;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Teste de carga de {@code POST /finalizar} numa única máquina: sobe a
+ * aplicação com H2 e os serviços externos simulados, semeia a massa de dados e
+ * executa a carga em modo fechado ou aberto (ver {@link ConfiguracaoCarga}).
+ * Gerador e aplicação dividem a mesma JVM; a vazão medida é um piso do que a
+ * aplicação sozinha sustenta.
+ * <p>
+ * {@code mvn -Pcarga test-compile exec:java -Dcarga.produtos=100000}
+ */
+public final class TesteDeCarga
+{
+	/** Perfil com os padrões da aplicação durante a carga ({@code application-carga.properties}). */
+	private static final String PERFIL = "carga";
+
+	private TesteDeCarga()
+	{
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(CompraApplication.class)
+				.profiles(PERFIL).run(args))
+		{
+			Environment env = contexto.getEnvironment();
+			ConfiguracaoCarga config = ConfiguracaoCarga.de(env);
+
+			long inicio = System.nanoTime();
+			new SemeadorDeDados(contexto.getBean(JdbcTemplate.class), contexto.getBean(ClienteRepository.class),
+					contexto.getBean(ProdutoRepository.class), contexto.getBean(CarrinhoDeComprasRepository.class))
+					.semear(config);
+			System.out.printf("Massa semeada em %.1f s.%n", (System.nanoTime() - inicio) / 1e9);
+
+			URI base = URI.create("http://localhost:" + env.getRequiredProperty("local.server.port"));
+			ResultadoCarga resultado = new GeradorDeCarga(config, base).executar();
+
+			resultado.imprimir(System.out);
+			Path distribuicao = Path.of(env.getProperty("carga.saida", "target/carga-latencias.hgrm"));
+			resultado.gravarDistribuicao(distribuicao);
+			System.out.println("Distribuição de latências: " + distribuicao.toAbsolutePath());
+		}
+	}
+}
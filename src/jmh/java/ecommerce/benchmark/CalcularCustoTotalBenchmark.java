@@ -0,0 +1,109 @@
+package ecommerce.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.CompraService;
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.MotorPrecificacaoPontoFixo;
+
+/**
+ * Mede {@link CompraService#calcularCustoTotal} para carrinhos sintéticos de
+ * vários tamanhos, em todas as combinações de {@link Regiao} e
+ * {@link TipoCliente}, com cada motor de precificação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalcularCustoTotalBenchmark
+{
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int quantidadeItens;
+
+	@Param({ "SUDESTE", "SUL", "CENTRO_OESTE", "NORDESTE", "NORTE" })
+	private Regiao regiao;
+
+	@Param({ "BRONZE", "PRATA", "OURO" })
+	private TipoCliente tipoCliente;
+
+	@Param({ "bigdecimal", "ponto-fixo" })
+	private String motor;
+
+	private CompraService compraService;
+	private CarrinhoDeCompras carrinho;
+
+	@Setup
+	public void setup()
+	{
+		compraService = CompraService.construtor(null, null, null, null)
+				.motorPrecificacao(
+						"ponto-fixo".equals(motor) ? new MotorPrecificacaoPontoFixo() : new MotorPrecificacaoBigDecimal())
+				.construir();
+		carrinho = CarrinhosSinteticos.criar(quantidadeItens, new Cliente(1L, "Bench", regiao, tipoCliente));
+	}
+
+	@Benchmark
+	public BigDecimal calcularCustoTotal()
+	{
+		return compraService.calcularCustoTotal(carrinho, regiao, tipoCliente);
+	}
+
+	/** Gera carrinhos determinísticos com mistura de produtos leves, pesados e frágeis. */
+	static final class CarrinhosSinteticos
+	{
+		private static final long SEMENTE = 42L;
+
+		private CarrinhosSinteticos()
+		{
+		}
+
+		static CarrinhoDeCompras criar(int quantidadeItens, Cliente cliente)
+		{
+			SplittableRandom random = new SplittableRandom(SEMENTE);
+			TipoProduto[] tipos = TipoProduto.values();
+			List<ItemCompra> itens = new ArrayList<>(quantidadeItens);
+
+			for (int i = 0; i < quantidadeItens; i++)
+			{
+				boolean pesado = random.nextInt(4) == 0;
+				boolean fragil = random.nextInt(3) == 0;
+
+				// Preço entre R$ 1,00 e R$ 300,00; peso leve até 2 kg, pesado até 30 kg
+				BigDecimal preco = BigDecimal.valueOf(random.nextLong(100, 30_000), 2);
+				BigDecimal peso = BigDecimal.valueOf(pesado ? random.nextLong(5_000, 30_000) : random.nextLong(50, 2_000), 3);
+
+				Produto produto = new Produto((long) i, "Produto " + i, null, preco, peso, BigDecimal.TEN,
+						BigDecimal.TEN, BigDecimal.TEN, fragil, tipos[random.nextInt(tipos.length)]);
+				itens.add(new ItemCompra((long) i, produto, random.nextLong(1, 4)));
+			}
+
+			return new CarrinhoDeCompras(1L, cliente, itens, LocalDate.now());
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package ecommerce.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.external.fake.ServidorExternoSimulado;
+import ecommerce.external.http.ClientesHttp;
+
+/**
+ * Mede as chamadas externas de um checkout (reserva, autorização do pagamento
+ * e confirmação da reserva) contra os serviços simulados. Elas são feitas
+ * direto em memória ({@code direto}), pelos clientes HTTP com o pool de
+ * conexões ({@code http}) ou abrindo uma conexão por chamada
+ * ({@code http-sem-reuso}). A diferença entre {@code direto} e {@code http} é
+ * o custo de serialização e transporte. A diferença entre {@code http} e
+ * {@code http-sem-reuso} é o que o reuso de conexões economiza.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientesHttpBenchmark
+{
+	@Param({ "direto", "http", "http-sem-reuso" })
+	private String transporte;
+
+	@Param({ "3", "50" })
+	private int itens;
+
+	/** Corpo mínimo, em bytes, para o servidor compactar a resposta. */
+	@Param({ "256", "2147483647" })
+	private int tamanhoMinimoCompressao;
+
+	private ServidorExternoSimulado servidor;
+	private ClientesHttp clientes;
+	private IEstoqueExternal estoque;
+	private IPagamentoExternal pagamento;
+	private LoteEstoqueDTO lote;
+
+	@Setup
+	public void setup()
+	{
+		EstoqueSimulado estoqueSimulado = new EstoqueSimulado(1024, Long.MAX_VALUE / 4);
+		PagamentoSimulado pagamentoSimulado = new PagamentoSimulado();
+		lote = new LoteEstoqueDTO(itens);
+		for (int i = 1; i <= itens; i++)
+		{
+			lote.adicionar(i, 1 + i % 3);
+		}
+
+		if ("direto".equals(transporte))
+		{
+			estoque = estoqueSimulado;
+			pagamento = pagamentoSimulado;
+			return;
+		}
+
+		ObjectMapper json = new ObjectMapper();
+		servidor = new ServidorExternoSimulado(estoqueSimulado, pagamentoSimulado, json, tamanhoMinimoCompressao)
+				.iniciar(0, 4);
+		clientes = new ClientesHttp(json, Duration.ofMillis(500), 64, 64, Duration.ofSeconds(30),
+				"http".equals(transporte));
+		estoque = clientes.estoque(servidor.getUrl(), Duration.ofSeconds(2));
+		pagamento = clientes.pagamento(servidor.getUrl(), Duration.ofSeconds(2));
+	}
+
+	@TearDown
+	public void encerrar()
+	{
+		if (servidor != null)
+		{
+			System.out.printf("%n%d requisições em %d conexões%n", servidor.getRequisicoes(), servidor.getConexoes());
+			clientes.encerrar();
+			servidor.encerrar();
+		}
+	}
+
+	@Benchmark
+	public EstoqueBaixaDTO chamadasDoCheckout()
+	{
+		ReservaEstoqueDTO reserva = estoque.reservar(lote, Duration.ofMinutes(1));
+		pagamento.autorizarPagamento(1L, 100.0);
+		return estoque.confirmarReserva(reserva);
+	}
+}
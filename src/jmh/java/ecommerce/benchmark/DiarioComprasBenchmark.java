@@ -0,0 +1,96 @@
+package ecommerce.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.service.diario.DiarioCompras;
+import ecommerce.service.metricas.ResultadoCompra;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Mede o diário de compras sustentado: cada operação é um
+ * {@link DiarioCompras#registrar} repetido até o anel aceitar, então a vazão
+ * só se mantém se a thread do diário gravar nos segmentos mapeados no mesmo
+ * ritmo. Os percentis de {@code sample} são o custo na thread da requisição.
+ * O diário é recriado e apagado a cada iteração, para limitar o disco usado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class DiarioComprasBenchmark
+{
+	@Param({ "65536" })
+	private int capacidadeAnel;
+
+	private Path diretorio;
+	private DiarioCompras diario;
+
+	@Setup(Level.Iteration)
+	public void abrir() throws IOException
+	{
+		diretorio = Files.createTempDirectory("diario-benchmark");
+		diario = new DiarioCompras(diretorio, DataSize.ofMegabytes(64), capacidadeAnel, Duration.ofSeconds(1),
+				new SimpleMeterRegistry());
+	}
+
+	@TearDown(Level.Iteration)
+	public void encerrar() throws IOException
+	{
+		diario.encerrar();
+		System.out.printf("%n%d registros gravados%n", diario.getGravados());
+		try (Stream<Path> arquivos = Files.walk(diretorio))
+		{
+			arquivos.sorted(Comparator.reverseOrder()).forEach(DiarioComprasBenchmark::apagar);
+		}
+	}
+
+	@Benchmark
+	public int registrar()
+	{
+		int tentativas = 1;
+		while (!diario.registrar(42L, 7L, 55_600L, 987L, ResultadoCompra.SUCESSO, 1_500_000L))
+		{
+			Thread.onSpinWait();
+			tentativas++;
+		}
+		return tentativas;
+	}
+
+	private static void apagar(Path arquivo)
+	{
+		try
+		{
+			Files.delete(arquivo);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Caches em processo (Caffeine, despejo W-TinyLFU). As estatísticas ficam
+ * ligadas para que o actuator publique acertos, faltas e despejos em
+ * {@code cache.gets} e {@code cache.evictions}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig
+{
+	public static final String PRODUTOS = "produtos";
+	public static final String CLIENTES = "clientes";
+	public static final String PRECOS = "precos";
+
+	@Bean
+	public CacheManager cacheManager(@Value("${ecommerce.cache.produtos.tamanho-maximo:10000}") long tamanhoProdutos,
+			@Value("${ecommerce.cache.produtos.ttl:1m}") Duration ttlProdutos,
+			@Value("${ecommerce.cache.clientes.tamanho-maximo:100000}") long tamanhoClientes,
+			@Value("${ecommerce.cache.clientes.ttl:10m}") Duration ttlClientes,
+			@Value("${ecommerce.cache.clientes.ttl-negativo:30s}") Duration ttlNegativoClientes,
+			@Value("${ecommerce.cache.precos.tamanho-maximo:100000}") long tamanhoPrecos)
+	{
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager()
+		{
+			/**
+			 * Produtos: invalidações e inclusões feitas dentro de uma transação só
+			 * chegam ao cache depois do commit (e não chegam se houver rollback).
+			 */
+			@Override
+			protected Cache adaptCaffeineCache(String nome, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache)
+			{
+				Cache adaptado = super.adaptCaffeineCache(nome, cache);
+				return PRODUTOS.equals(nome) ? new TransactionAwareCacheDecorator(adaptado) : adaptado;
+			}
+		};
+		// Expiração curta: limita o tempo em que uma leitura concorrente ao commit fica desatualizada
+		cacheManager.registerCustomCache(PRODUTOS, Caffeine.newBuilder().maximumSize(tamanhoProdutos)
+				.expireAfterWrite(ttlProdutos).recordStats().build());
+		cacheManager.registerCustomCache(CLIENTES, Caffeine.newBuilder().maximumSize(tamanhoClientes)
+				.expireAfter(expiracao(ttlClientes, ttlNegativoClientes)).recordStats().build());
+		// Sem expiração: as chaves de preço mudam a cada versão e as antigas saem pelo despejo
+		cacheManager.registerCustomCache(PRECOS,
+				Caffeine.newBuilder().maximumSize(tamanhoPrecos).recordStats().build());
+		return cacheManager;
+	}
+
+	/**
+	 * Entradas negativas (id inexistente, guardado pelo Spring como
+	 * {@link NullValue}) expiram antes das positivas.
+	 */
+	static Expiry<Object, Object> expiracao(Duration ttl, Duration ttlNegativo)
+	{
+		long nanos = ttl.toNanos();
+		long nanosNegativo = ttlNegativo.toNanos();
+
+		return new Expiry<>()
+		{
+			@Override
+			public long expireAfterCreate(Object chave, Object valor, long agora)
+			{
+				return valor instanceof NullValue ? nanosNegativo : nanos;
+			}
+
+			@Override
+			public long expireAfterUpdate(Object chave, Object valor, long agora, long duracaoAtual)
+			{
+				return expireAfterCreate(chave, valor, agora);
+			}
+
+			@Override
+			public long expireAfterRead(Object chave, Object valor, long agora, long duracaoAtual)
+			{
+				return duracaoAtual;
+			}
+		};
+	}
+}
@@ -0,0 +1,50 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.external.http.ClientesHttp;
+import ecommerce.external.http.EstoqueHttp;
+import ecommerce.external.http.PagamentoHttp;
+
+/**
+ * Clientes HTTP de estoque e pagamento ({@code ecommerce.externo.http.habilitado}).
+ * Quando existem, {@link EstoqueConfig} e {@link PagamentoConfig} os usam no
+ * lugar dos simulados. O tempo de leitura de cada serviço fica abaixo do tempo
+ * limite da proteção, para o socket desistir antes e devolver a conexão ao pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.externo.http.habilitado", havingValue = "true")
+public class ClientesHttpConfig
+{
+	@Bean
+	public ClientesHttp clientesHttp(ObjectMapper json,
+			@Value("${ecommerce.externo.http.tempo-conexao:500ms}") Duration tempoConexao,
+			@Value("${ecommerce.externo.http.maximo-conexoes:200}") int maximoConexoes,
+			@Value("${ecommerce.externo.http.maximo-conexoes-por-rota:64}") int maximoConexoesPorRota,
+			@Value("${ecommerce.externo.http.ociosidade-maxima:30s}") Duration ociosidadeMaxima)
+	{
+		return new ClientesHttp(json, tempoConexao, maximoConexoes, maximoConexoesPorRota, ociosidadeMaxima, true);
+	}
+
+	@Bean
+	public EstoqueHttp estoqueHttp(ClientesHttp clientes, @Value("${ecommerce.externo.http.estoque.url}") String url,
+			@Value("${ecommerce.externo.http.estoque.tempo-leitura:1500ms}") Duration tempoLeitura)
+	{
+		return clientes.estoque(url, tempoLeitura);
+	}
+
+	@Bean
+	public PagamentoHttp pagamentoHttp(ClientesHttp clientes,
+			@Value("${ecommerce.externo.http.pagamento.url}") String url,
+			@Value("${ecommerce.externo.http.pagamento.tempo-leitura:4s}") Duration tempoLeitura)
+	{
+		return clientes.pagamento(url, tempoLeitura);
+	}
+}
@@ -0,0 +1,88 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import ecommerce.external.EstoqueAgrupado;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.http.EstoqueHttp;
+import ecommerce.external.resiliencia.ConfiguracaoProtecao;
+import ecommerce.external.resiliencia.EstoqueResiliente;
+import ecommerce.external.resiliencia.Protecao;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Monta o {@link IEstoqueExternal} injetado nos serviços: o estoque
+ * configurado (o {@link EstoqueHttp} quando há clientes HTTP, senão o
+ * simulado), opcionalmente atrás de um {@link EstoqueAgrupado}
+ * ({@code ecommerce.estoque.agrupamento.habilitado}), e por fora a
+ * {@link Protecao} ({@code ecommerce.resiliencia.habilitado}).
+ * <p>
+ * O agrupamento só vale para estoques sem reserva nativa, em que a reserva do
+ * checkout é uma verificação de disponibilidade. Com reserva nativa ele é
+ * ignorado, com um aviso no log, e o agrupador nem chega a ser criado.
+ */
+@Configuration
+public class EstoqueConfig
+{
+	private static final Logger log = LoggerFactory.getLogger(EstoqueConfig.class);
+
+	@Bean
+	@Lazy
+	@ConditionalOnProperty(name = "ecommerce.estoque.agrupamento.habilitado", havingValue = "true")
+	public EstoqueAgrupado estoqueAgrupado(@Qualifier("estoqueSimulado") IEstoqueExternal simulado,
+			ObjectProvider<EstoqueHttp> http,
+			@Value("${ecommerce.estoque.agrupamento.janela:2ms}") Duration janela,
+			@Value("${ecommerce.estoque.agrupamento.maximo-por-lote:64}") int maximoPorLote,
+			@Value("${ecommerce.estoque.agrupamento.capacidade-fila:1024}") int capacidadeFila,
+			@Value("${ecommerce.estoque.agrupamento.threads:4}") int threads, MeterRegistry registry)
+	{
+		return new EstoqueAgrupado(configurado(simulado, http), janela, maximoPorLote, capacidadeFila, threads,
+				registry);
+	}
+
+	@Bean
+	@Primary
+	public IEstoqueExternal estoqueExternal(@Qualifier("estoqueSimulado") IEstoqueExternal simulado,
+			ObjectProvider<EstoqueHttp> http, ObjectProvider<EstoqueAgrupado> agrupado,
+			@Value("${ecommerce.resiliencia.habilitado:true}") boolean resiliencia, Environment env,
+			MeterRegistry registry)
+	{
+		IEstoqueExternal alvo = configurado(simulado, http);
+		if (env.getProperty("ecommerce.estoque.agrupamento.habilitado", Boolean.class, false))
+		{
+			if (alvo.reservaNativa())
+			{
+				log.warn("Agrupamento de estoque ignorado: o estoque tem reserva nativa e o checkout não "
+						+ "verifica disponibilidade.");
+			}
+			else
+			{
+				alvo = agrupado.getObject();
+			}
+		}
+		if (!resiliencia)
+		{
+			return alvo;
+		}
+		return new EstoqueResiliente(alvo,
+				new Protecao("estoque", ConfiguracaoProtecao.de(env, "estoque", Duration.ofSeconds(2)), registry));
+	}
+
+	private static IEstoqueExternal configurado(IEstoqueExternal simulado, ObjectProvider<EstoqueHttp> http)
+	{
+		EstoqueHttp remoto = http.getIfAvailable();
+		return remoto != null ? remoto : simulado;
+	}
+}
@@ -0,0 +1,56 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.http.PagamentoHttp;
+import ecommerce.external.resiliencia.ConfiguracaoProtecao;
+import ecommerce.external.resiliencia.PagamentoResiliente;
+import ecommerce.external.resiliencia.Protecao;
+import ecommerce.service.outbox.FilaCompensacao;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Monta o {@link IPagamentoExternal} injetado nos serviços: o gateway
+ * configurado (o {@link PagamentoHttp} quando há clientes HTTP, senão o
+ * simulado) atrás da {@link Protecao} ({@code ecommerce.resiliencia.habilitado}).
+ * Autorizações que chegam depois do tempo limite vão para a
+ * {@link FilaCompensacao} quando ela está ligada.
+ */
+@Configuration
+public class PagamentoConfig
+{
+	@Bean
+	@Primary
+	public IPagamentoExternal pagamentoExternal(@Qualifier("pagamentoSimulado") IPagamentoExternal simulado,
+			ObjectProvider<PagamentoHttp> http, ObjectProvider<FilaCompensacao> compensacoes,
+			@Value("${ecommerce.resiliencia.habilitado:true}") boolean resiliencia, Environment env,
+			MeterRegistry registry)
+	{
+		IPagamentoExternal pagamento = http.getIfAvailable();
+		if (pagamento == null)
+		{
+			pagamento = simulado;
+		}
+		if (!resiliencia)
+		{
+			return pagamento;
+		}
+		// Com a fila de compensação, a autorização tardia é cancelada com as
+		// mesmas tentativas de um cancelamento do checkout
+		FilaCompensacao fila = compensacoes.getIfAvailable();
+		return new PagamentoResiliente(pagamento,
+				new Protecao("pagamento", ConfiguracaoProtecao.de(env, "pagamento", Duration.ofSeconds(5)), registry),
+				fila == null ? null
+						: (clienteId, transacaoId) -> fila.agendar(clienteId, transacaoId,
+								"Autorização recebida depois do tempo limite."));
+	}
+}
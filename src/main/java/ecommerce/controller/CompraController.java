@@ -6,7 +6,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import ecommerce.dto.CompraDTO;
+import ecommerce.service.CompraRecusadaException;
 import ecommerce.service.CompraService;
+import ecommerce.service.IdempotenciaService;
 
 @RestController
 @RequestMapping("/")
@@ -14,33 +16,81 @@ public class CompraController
 {
 
 	private final CompraService compraService;
+	private final IdempotenciaService idempotenciaService;
 
 	@Autowired
-	public CompraController(CompraService compraService)
+	public CompraController(CompraService compraService, IdempotenciaService idempotenciaService)
 	{
 		this.compraService = compraService;
+		this.idempotenciaService = idempotenciaService;
 	}
 
+	/**
+	 * Com o cabeçalho {@code Idempotency-Key}, repetições da mesma compra
+	 * recebem a resposta da primeira execução (ou esperam por ela) sem repetir
+	 * estoque e pagamento. Só desfechos definitivos são guardados: a compra
+	 * concluída, o pedido inválido (400) e a recusa de negócio
+	 * ({@link CompraRecusadaException}). Falhas passageiras (tempo limite,
+	 * circuito aberto, bulkhead cheio, erro interno) liberam a chave, e a
+	 * repetição executa de novo.
+	 */
 	@PostMapping("/finalizar")
-	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId)
+	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			@RequestHeader(name = "Idempotency-Key", required = false) String chaveIdempotencia)
 	{
+		if (chaveIdempotencia == null || chaveIdempotencia.isBlank())
+		{
+			return processar(carrinhoId, clienteId);
+		}
+
 		try
 		{
-			CompraDTO compraDTO = compraService.finalizarCompra(carrinhoId, clienteId);
-			return ResponseEntity.ok(compraDTO);
+			return idempotenciaService.executar(chaveIdempotencia, carrinhoId + ":" + clienteId,
+					() -> executar(carrinhoId, clienteId), Desfecho::definitivo).resposta();
 		}
 		catch (IllegalArgumentException e)
 		{
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new CompraDTO(false, null, e.getMessage()));
+			return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(new CompraDTO(false, null, e.getMessage()));
 		}
 		catch (IllegalStateException e)
 		{
 			return ResponseEntity.status(HttpStatus.CONFLICT).body(new CompraDTO(false, null, e.getMessage()));
 		}
+	}
+
+	private ResponseEntity<CompraDTO> processar(Long carrinhoId, Long clienteId)
+	{
+		return executar(carrinhoId, clienteId).resposta();
+	}
+
+	private Desfecho executar(Long carrinhoId, Long clienteId)
+	{
+		try
+		{
+			CompraDTO compraDTO = compraService.finalizarCompra(carrinhoId, clienteId);
+			return new Desfecho(ResponseEntity.ok(compraDTO), true);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return new Desfecho(
+					ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new CompraDTO(false, null, e.getMessage())), true);
+		}
+		catch (IllegalStateException e)
+		{
+			// Recusa de negócio é definitiva; as demais (tempo limite, proteção) são passageiras
+			return new Desfecho(
+					ResponseEntity.status(HttpStatus.CONFLICT).body(new CompraDTO(false, null, e.getMessage())),
+					e instanceof CompraRecusadaException);
+		}
 		catch (Exception e)
 		{
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body(new CompraDTO(false, null, "Erro ao processar compra."));
+			return new Desfecho(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(new CompraDTO(false, null, "Erro ao processar compra.")), false);
 		}
 	}
+
+	/** Resposta da compra e se ela pode ser repetida para a mesma chave de idempotência. */
+	private record Desfecho(ResponseEntity<CompraDTO> resposta, boolean definitivo)
+	{
+	}
 }
@@ -0,0 +1,40 @@
+package ecommerce.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.SolicitacaoCotacaoDTO;
+import ecommerce.service.CotacaoService;
+
+@RestController
+@RequestMapping("/")
+public class CotacaoController
+{
+
+	private final CotacaoService cotacaoService;
+
+	@Autowired
+	public CotacaoController(CotacaoService cotacaoService)
+	{
+		this.cotacaoService = cotacaoService;
+	}
+
+	@PostMapping("/cotacoes")
+	public ResponseEntity<List<CotacaoDTO>> cotar(@RequestBody List<SolicitacaoCotacaoDTO> solicitacoes)
+	{
+		try
+		{
+			return ResponseEntity.ok(cotacaoService.cotar(solicitacoes));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.body(List.of(new CotacaoDTO(null, null, null, e.getMessage())));
+		}
+	}
+}
@@ -0,0 +1,6 @@
+package ecommerce.dto;
+
+/** Corpo da chamada HTTP de cancelamento de pagamento. */
+public record CancelamentoPagamentoDTO(Long clienteId, Long transacaoId)
+{
+}
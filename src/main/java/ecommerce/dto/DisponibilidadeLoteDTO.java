@@ -0,0 +1,51 @@
+package ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Disponibilidade de um {@link LoteEstoqueDTO}: os bits ligados em
+ * {@code posicoesIndisponiveis} são as posições do lote sem saldo (todas as
+ * ocorrências de um id repetido).
+ */
+public record DisponibilidadeLoteDTO(boolean disponivel, LoteEstoqueDTO lote, BitSet posicoesIndisponiveis)
+{
+	/** Adapta a resposta de um serviço que só informa os ids indisponíveis. */
+	public static DisponibilidadeLoteDTO de(LoteEstoqueDTO lote, DisponibilidadeDTO disponibilidade)
+	{
+		BitSet posicoes = new BitSet(lote.tamanho());
+		List<Long> ids = disponibilidade.idsProdutosIndisponiveis();
+		if (ids != null && !ids.isEmpty())
+		{
+			Set<Long> indisponiveis = new HashSet<>(ids);
+			for (int i = 0; i < lote.tamanho(); i++)
+			{
+				if (indisponiveis.contains(lote.id(i)))
+				{
+					posicoes.set(i);
+				}
+			}
+		}
+		return new DisponibilidadeLoteDTO(Boolean.TRUE.equals(disponibilidade.disponivel()), lote, posicoes);
+	}
+
+	/** Ids indisponíveis sem repetição, na ordem em que aparecem no lote. */
+	public List<Long> idsIndisponiveis()
+	{
+		Set<Long> ids = new LinkedHashSet<>();
+		for (int i = posicoesIndisponiveis.nextSetBit(0); i >= 0; i = posicoesIndisponiveis.nextSetBit(i + 1))
+		{
+			ids.add(lote.id(i));
+		}
+		return new ArrayList<>(ids);
+	}
+
+	public DisponibilidadeDTO paraDTO()
+	{
+		return new DisponibilidadeDTO(disponivel, idsIndisponiveis());
+	}
+}
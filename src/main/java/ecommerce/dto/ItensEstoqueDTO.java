@@ -0,0 +1,8 @@
+package ecommerce.dto;
+
+import java.util.List;
+
+/** Corpo das chamadas HTTP de verificação e baixa de estoque. */
+public record ItensEstoqueDTO(List<Long> produtosIds, List<Long> produtosQuantidades)
+{
+}
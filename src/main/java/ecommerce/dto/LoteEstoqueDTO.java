@@ -0,0 +1,145 @@
+package ecommerce.dto;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Produtos e quantidades de uma chamada ao serviço de estoque em duas colunas
+ * de {@code long}, sem boxing. Pode ser reaproveitado com {@link #limpar()},
+ * desde que nenhuma chamada em andamento ainda o use.
+ * <p>
+ * {@link #produtosIds()} e {@link #produtosQuantidades()} são visões
+ * {@code List<Long>} do lote para os serviços que só implementam as
+ * assinaturas com listas; {@link #de(List, List)} reconhece essas visões e
+ * devolve o lote original sem copiar.
+ */
+public final class LoteEstoqueDTO
+{
+	private long[] ids;
+	private long[] quantidades;
+	private int tamanho;
+
+	public LoteEstoqueDTO(int capacidade)
+	{
+		this.ids = new long[Math.max(capacidade, 1)];
+		this.quantidades = new long[ids.length];
+	}
+
+	/**
+	 * Lote com os mesmos produtos e quantidades das listas.
+	 *
+	 * @throws IllegalArgumentException se as listas forem nulas, de tamanhos
+	 *                                  diferentes ou tiverem elementos nulos
+	 */
+	public static LoteEstoqueDTO de(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		if (produtosIds instanceof Coluna colunaIds && produtosQuantidades instanceof Coluna colunaQuantidades
+				&& colunaIds.lote == colunaQuantidades.lote && !colunaIds.quantidades && colunaQuantidades.quantidades)
+		{
+			return colunaIds.lote;
+		}
+		if (produtosIds == null || produtosQuantidades == null || produtosIds.size() != produtosQuantidades.size())
+		{
+			throw new IllegalArgumentException("Listas de produtos e quantidades inconsistentes.");
+		}
+
+		LoteEstoqueDTO lote = new LoteEstoqueDTO(produtosIds.size());
+		for (int i = 0; i < produtosIds.size(); i++)
+		{
+			Long id = produtosIds.get(i);
+			Long quantidade = produtosQuantidades.get(i);
+			if (id == null)
+			{
+				throw new IllegalArgumentException("Id de produto nulo.");
+			}
+			if (quantidade == null)
+			{
+				throw new IllegalArgumentException("Quantidade inválida: null");
+			}
+			lote.adicionar(id, quantidade);
+		}
+		return lote;
+	}
+
+	public LoteEstoqueDTO adicionar(long produtoId, long quantidade)
+	{
+		if (tamanho == ids.length)
+		{
+			ids = Arrays.copyOf(ids, tamanho * 2);
+			quantidades = Arrays.copyOf(quantidades, tamanho * 2);
+		}
+		ids[tamanho] = produtoId;
+		quantidades[tamanho] = quantidade;
+		tamanho++;
+		return this;
+	}
+
+	public void limpar()
+	{
+		tamanho = 0;
+	}
+
+	public int tamanho()
+	{
+		return tamanho;
+	}
+
+	public long id(int posicao)
+	{
+		return ids[Objects.checkIndex(posicao, tamanho)];
+	}
+
+	public long quantidade(int posicao)
+	{
+		return quantidades[Objects.checkIndex(posicao, tamanho)];
+	}
+
+	public List<Long> produtosIds()
+	{
+		return new Coluna(this, false);
+	}
+
+	public List<Long> produtosQuantidades()
+	{
+		return new Coluna(this, true);
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder texto = new StringBuilder("LoteEstoqueDTO[");
+		for (int i = 0; i < tamanho; i++)
+		{
+			texto.append(i == 0 ? "" : ", ").append(ids[i]).append('x').append(quantidades[i]);
+		}
+		return texto.append(']').toString();
+	}
+
+	/** Visão somente leitura de uma coluna; o boxing acontece só na leitura. */
+	private static final class Coluna extends AbstractList<Long> implements RandomAccess
+	{
+		private final LoteEstoqueDTO lote;
+		private final boolean quantidades;
+
+		Coluna(LoteEstoqueDTO lote, boolean quantidades)
+		{
+			this.lote = lote;
+			this.quantidades = quantidades;
+		}
+
+		@Override
+		public Long get(int posicao)
+		{
+			return quantidades ? lote.quantidade(posicao) : lote.id(posicao);
+		}
+
+		@Override
+		public int size()
+		{
+			return lote.tamanho;
+		}
+	}
+}
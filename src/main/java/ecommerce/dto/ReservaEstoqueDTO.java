@@ -0,0 +1,13 @@
+package ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de uma reserva de estoque. {@code token} identifica a reserva no
+ * serviço de estoque e é {@code null} quando o serviço não reserva de fato
+ * (ver {@link ecommerce.external.IEstoqueExternal#reservar}).
+ */
+public record ReservaEstoqueDTO(Boolean reservado, String token, List<Long> idsProdutosIndisponiveis,
+		List<Long> produtosIds, List<Long> produtosQuantidades)
+{
+}
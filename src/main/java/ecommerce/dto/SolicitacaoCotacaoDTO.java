@@ -0,0 +1,5 @@
+package ecommerce.dto;
+
+public record SolicitacaoCotacaoDTO(Long carrinhoId, Long clienteId)
+{
+}
@@ -0,0 +1,6 @@
+package ecommerce.dto;
+
+/** Corpo da chamada HTTP de autorização de pagamento. */
+public record SolicitacaoPagamentoDTO(Long clienteId, Double custoTotal)
+{
+}
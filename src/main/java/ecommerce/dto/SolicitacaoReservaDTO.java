@@ -0,0 +1,8 @@
+package ecommerce.dto;
+
+import java.util.List;
+
+/** Corpo da chamada HTTP de reserva de estoque; a reserva expira após {@code ttlMillis}. */
+public record SolicitacaoReservaDTO(List<Long> produtosIds, List<Long> produtosQuantidades, Long ttlMillis)
+{
+}
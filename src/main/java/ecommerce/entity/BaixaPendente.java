@@ -0,0 +1,220 @@
+package ecommerce.entity;
+
+import java.time.Instant;
+import java.util.List;
+
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Baixa de estoque de uma compra paga, gravada no outbox na mesma transação do
+ * checkout e despachada depois ao serviço de estoque. Guarda o necessário para
+ * confirmar a reserva ou, se a baixa falhar de vez, cancelar o pagamento.
+ * <p>
+ * Os itens ficam numa coluna de texto, {@code id=quantidade} separados por
+ * vírgula, e são lidos de novo como {@link LoteEstoqueDTO}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_baixa_pendente_situacao", columnList = "situacao, id"))
+public class BaixaPendente
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "baixa_pendente_seq")
+	@SequenceGenerator(name = "baixa_pendente_seq", sequenceName = "baixa_pendente_seq", allocationSize = 50)
+	private Long id;
+
+	private Long carrinhoId;
+
+	private Long clienteId;
+
+	private Long transacaoId;
+
+	private String tokenReserva;
+
+	@Column(length = 100_000)
+	private String itens;
+
+	@Enumerated(EnumType.STRING)
+	private SituacaoBaixa situacao;
+
+	private int tentativas;
+
+	/**
+	 * Nulo até a primeira falha; antes disso a baixa pode ser despachada a
+	 * qualquer momento. Em andamento, é o fim do prazo da reivindicação.
+	 */
+	private Instant proximaTentativa;
+
+	private Instant criadaEm;
+
+	@Column(length = 1000)
+	private String ultimoErro;
+
+	/**
+	 * Versão otimista: o resultado gravado por um despachante cuja reivindicação
+	 * expirou é recusado se outro já retomou a baixa.
+	 */
+	@Version
+	private Long versao;
+
+	public BaixaPendente()
+	{
+	}
+
+	public BaixaPendente(Long carrinhoId, Long clienteId, Long transacaoId, ReservaEstoqueDTO reserva,
+			Instant criadaEm)
+	{
+		this.carrinhoId = carrinhoId;
+		this.clienteId = clienteId;
+		this.transacaoId = transacaoId;
+		this.tokenReserva = reserva.token();
+		this.itens = codificar(LoteEstoqueDTO.de(reserva.produtosIds(), reserva.produtosQuantidades()));
+		this.situacao = SituacaoBaixa.PENDENTE;
+		this.criadaEm = criadaEm;
+	}
+
+	/** Itens da baixa; cada chamada lê a coluna de novo. */
+	public LoteEstoqueDTO getItens()
+	{
+		LoteEstoqueDTO lote = new LoteEstoqueDTO(8);
+		if (itens == null || itens.isEmpty())
+		{
+			return lote;
+		}
+		for (String par : itens.split(","))
+		{
+			int separador = par.indexOf('=');
+			if (separador < 0)
+			{
+				throw new IllegalArgumentException("Item de baixa malformado: " + par);
+			}
+			lote.adicionar(Long.parseLong(par.substring(0, separador)), Long.parseLong(par.substring(separador + 1)));
+		}
+		return lote;
+	}
+
+	/** Reserva a confirmar, refeita a partir do token e dos itens gravados. */
+	public ReservaEstoqueDTO getReserva()
+	{
+		LoteEstoqueDTO lote = getItens();
+		return new ReservaEstoqueDTO(true, tokenReserva, List.of(), lote.produtosIds(), lote.produtosQuantidades());
+	}
+
+	/** Reserva a baixa para um despachante até {@code ate}. */
+	public void reivindicar(Instant ate)
+	{
+		situacao = SituacaoBaixa.EM_ANDAMENTO;
+		proximaTentativa = ate;
+	}
+
+	/** Devolve sem tentar uma baixa reivindicada: fica pendente, disponível para o próximo lote. */
+	public void devolver()
+	{
+		situacao = SituacaoBaixa.PENDENTE;
+		proximaTentativa = null;
+	}
+
+	public void concluir()
+	{
+		situacao = SituacaoBaixa.CONCLUIDA;
+		proximaTentativa = null;
+	}
+
+	/** Registra uma falha passageira e agenda a próxima tentativa. */
+	public void reagendar(Instant quando, String erro)
+	{
+		tentativas++;
+		situacao = SituacaoBaixa.PENDENTE;
+		proximaTentativa = quando;
+		ultimoErro = resumir(erro);
+	}
+
+	/** Encerra a baixa sem estoque: {@code pagamentoCancelado} diz se a compensação deu certo. */
+	public void compensar(boolean pagamentoCancelado, String erro)
+	{
+		tentativas++;
+		situacao = pagamentoCancelado ? SituacaoBaixa.COMPENSADA : SituacaoBaixa.FALHA_COMPENSACAO;
+		proximaTentativa = null;
+		ultimoErro = resumir(erro);
+	}
+
+	private static String codificar(LoteEstoqueDTO lote)
+	{
+		StringBuilder texto = new StringBuilder(lote.tamanho() * 8);
+		for (int i = 0; i < lote.tamanho(); i++)
+		{
+			if (i > 0)
+			{
+				texto.append(',');
+			}
+			texto.append(lote.id(i)).append('=').append(lote.quantidade(i));
+		}
+		return texto.toString();
+	}
+
+	private static String resumir(String erro)
+	{
+		return erro != null && erro.length() > 1000 ? erro.substring(0, 1000) : erro;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	public String getTokenReserva()
+	{
+		return tokenReserva;
+	}
+
+	public SituacaoBaixa getSituacao()
+	{
+		return situacao;
+	}
+
+	public int getTentativas()
+	{
+		return tentativas;
+	}
+
+	public Instant getProximaTentativa()
+	{
+		return proximaTentativa;
+	}
+
+	public Instant getCriadaEm()
+	{
+		return criadaEm;
+	}
+
+	public String getUltimoErro()
+	{
+		return ultimoErro;
+	}
+}
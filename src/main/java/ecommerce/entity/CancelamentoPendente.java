@@ -0,0 +1,133 @@
+package ecommerce.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Cancelamento de pagamento a fazer, gravado na fila de compensação quando a
+ * compra não pode ser concluída depois do pagamento autorizado.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_cancelamento_pendente_situacao", columnList = "situacao, proximaTentativa"))
+public class CancelamentoPendente
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cancelamento_pendente_seq")
+	@SequenceGenerator(name = "cancelamento_pendente_seq", sequenceName = "cancelamento_pendente_seq", allocationSize = 50)
+	private Long id;
+
+	private Long clienteId;
+
+	private Long transacaoId;
+
+	@Column(length = 1000)
+	private String motivo;
+
+	@Enumerated(EnumType.STRING)
+	private SituacaoCancelamento situacao;
+
+	private int tentativas;
+
+	/** Quando o cancelamento pode ser tentado; começa na criação. */
+	private Instant proximaTentativa;
+
+	private Instant criadoEm;
+
+	@Column(length = 1000)
+	private String ultimoErro;
+
+	public CancelamentoPendente()
+	{
+	}
+
+	public CancelamentoPendente(Long clienteId, Long transacaoId, String motivo, Instant criadoEm)
+	{
+		this.clienteId = clienteId;
+		this.transacaoId = transacaoId;
+		this.motivo = resumir(motivo);
+		this.situacao = SituacaoCancelamento.PENDENTE;
+		this.proximaTentativa = criadoEm;
+		this.criadoEm = criadoEm;
+	}
+
+	public void concluir()
+	{
+		tentativas++;
+		situacao = SituacaoCancelamento.CONCLUIDO;
+	}
+
+	/** Registra uma falha e agenda a próxima tentativa. */
+	public void reagendar(Instant quando, String erro)
+	{
+		tentativas++;
+		proximaTentativa = quando;
+		ultimoErro = resumir(erro);
+	}
+
+	public void abandonar(String erro)
+	{
+		tentativas++;
+		situacao = SituacaoCancelamento.ABANDONADO;
+		ultimoErro = resumir(erro);
+	}
+
+	private static String resumir(String texto)
+	{
+		return texto != null && texto.length() > 1000 ? texto.substring(0, 1000) : texto;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	public String getMotivo()
+	{
+		return motivo;
+	}
+
+	public SituacaoCancelamento getSituacao()
+	{
+		return situacao;
+	}
+
+	public int getTentativas()
+	{
+		return tentativas;
+	}
+
+	public Instant getProximaTentativa()
+	{
+		return proximaTentativa;
+	}
+
+	public Instant getCriadoEm()
+	{
+		return criadoEm;
+	}
+
+	public String getUltimoErro()
+	{
+		return ultimoErro;
+	}
+}
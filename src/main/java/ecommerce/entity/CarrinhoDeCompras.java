@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -12,7 +13,29 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
-
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+
+/**
+ * Carrinho com os {@link TotaisCarrinho} mantidos pelos métodos que alteram
+ * os itens: inclua, remova e altere itens por {@link #adicionarItem},
+ * {@link #removerItem}, {@link #alterarQuantidade} ou {@link #setItens}.
+ * Mudanças feitas por fora (na lista de {@link #getItens()}, no item ou no
+ * produto em memória) não são percebidas; depois delas, chame
+ * {@link #recalcularTotais()}. {@link #getTotais()} só lê os totais.
+ * <p>
+ * Ao carregar o carrinho, a assinatura dos totais gravados é conferida contra
+ * os itens. Se um produto mudou depois da gravação, os totais corrigidos ficam
+ * só em memória, sem sujar a entidade: ler o carrinho não gera UPDATE nem
+ * muda a versão. A correção é gravada com a próxima alteração de itens.
+ * <p>
+ * {@link #getVersao()} é a versão otimista da última gravação; alterações em
+ * memória feitas pelos métodos acima só mudam a versão ao serem gravadas, e
+ * até lá {@link #isAlteradoEmMemoria()} é verdadeiro.
+ */
 @Entity
 public class CarrinhoDeCompras
 {
@@ -31,6 +54,20 @@ public class CarrinhoDeCompras
 
 	private LocalDate data;
 
+	/** Nulo só em linhas gravadas antes dos totais existirem; corrigido ao carregar. */
+	@Embedded
+	private TotaisCarrinho totais = new TotaisCarrinho();
+
+	/** Totais recalculados ao carregar, quando os gravados não conferem com os itens. */
+	@Transient
+	private TotaisCarrinho totaisCorrigidos;
+
+	@Version
+	private Long versao;
+
+	@Transient
+	private boolean alteradoEmMemoria;
+
 	public CarrinhoDeCompras()
 	{
 	}
@@ -41,6 +78,97 @@ public class CarrinhoDeCompras
 		this.cliente = cliente;
 		this.itens = itens;
 		this.data = data;
+		this.totais = TotaisCarrinho.de(itens);
+	}
+
+	public void adicionarItem(ItemCompra item)
+	{
+		itens.add(item);
+		totaisMantidos().somar(item);
+		alteradoEmMemoria = true;
+	}
+
+	public void removerItem(ItemCompra item)
+	{
+		if (itens.remove(item))
+		{
+			TotaisCarrinho totaisAtuais = totaisMantidos();
+			totaisAtuais.subtrair(item);
+			totaisAtuais.refazerPesoSomadoEmDouble(itens);
+			alteradoEmMemoria = true;
+		}
+	}
+
+	/** @param item um item deste carrinho */
+	public void alterarQuantidade(ItemCompra item, Long quantidade)
+	{
+		TotaisCarrinho totaisAtuais = totaisMantidos();
+		totaisAtuais.subtrair(item);
+		item.setQuantidade(quantidade);
+		totaisAtuais.somar(item);
+		totaisAtuais.refazerPesoSomadoEmDouble(itens);
+		alteradoEmMemoria = true;
+	}
+
+	/** Totais dos itens, sem percorrê-los. */
+	public TotaisCarrinho getTotais()
+	{
+		return totaisCorrigidos != null ? totaisCorrigidos : totais;
+	}
+
+	/** Totais a atualizar; a correção feita ao carregar passa a ser gravada. */
+	private TotaisCarrinho totaisMantidos()
+	{
+		if (totaisCorrigidos != null)
+		{
+			totais = totaisCorrigidos;
+			totaisCorrigidos = null;
+		}
+		return totais;
+	}
+
+	/** Recalcula os totais a partir dos itens, depois de mudanças feitas por fora. */
+	public void recalcularTotais()
+	{
+		this.totais = TotaisCarrinho.de(itens);
+		this.totaisCorrigidos = null;
+		this.alteradoEmMemoria = true;
+	}
+
+	public Long getVersao()
+	{
+		return versao;
+	}
+
+	/**
+	 * Se o carrinho mudou desde que foi lido ou gravado, ainda sem nova versão,
+	 * ou se os totais gravados não conferiam com os itens ao carregar.
+	 */
+	public boolean isAlteradoEmMemoria()
+	{
+		return alteradoEmMemoria || totaisCorrigidos != null;
+	}
+
+	@PostLoad
+	void carregado()
+	{
+		this.alteradoEmMemoria = false;
+		if (totais == null || totais.getAssinatura() != TotaisCarrinho.assinatura(itens))
+		{
+			this.totaisCorrigidos = TotaisCarrinho.de(itens);
+		}
+		else
+		{
+			this.totaisCorrigidos = null;
+			totais.refazerPesoSomadoEmDouble(itens);
+		}
+	}
+
+	@PostPersist
+	@PostUpdate
+	void sincronizado()
+	{
+		this.alteradoEmMemoria = false;
 	}
 
 	// Getters e Setters
@@ -72,6 +200,9 @@ public class CarrinhoDeCompras
 	public void setItens(List<ItemCompra> itens)
 	{
 		this.itens = itens;
+		this.totais = TotaisCarrinho.de(itens);
+		this.totaisCorrigidos = null;
+		this.alteradoEmMemoria = true;
 	}
 
 	public LocalDate getData()
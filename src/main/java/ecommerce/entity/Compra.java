@@ -0,0 +1,167 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * Registro de uma compra concluída, gravado na transação do checkout: o
+ * carrinho como estava na compra ({@link LinhaCompra}), a composição do preço
+ * e a transação de pagamento.
+ * <p>
+ * Compra e linhas usam ids de sequência com alocação em blocos: o Hibernate
+ * conhece o id antes do insert e pode agrupar as linhas em lotes JDBC
+ * ({@code hibernate.jdbc.batch_size}), o que {@code IDENTITY} impede. O
+ * {@code allocationSize} deve ser igual ao incremento da sequência no banco.
+ */
+@Entity
+public class Compra
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compra_seq")
+	@SequenceGenerator(name = "compra_seq", sequenceName = "compra_seq", allocationSize = 50)
+	private Long id;
+
+	private Long carrinhoId;
+
+	private Long clienteId;
+
+	@Column(unique = true)
+	private Long transacaoId;
+
+	@Enumerated(EnumType.STRING)
+	private Regiao regiao;
+
+	@Enumerated(EnumType.STRING)
+	private TipoCliente tipoCliente;
+
+	/** Soma de preço × quantidade das linhas. */
+	@Column(precision = 38, scale = 2)
+	private BigDecimal subtotal;
+
+	@Column(precision = 38, scale = 2)
+	private BigDecimal desconto;
+
+	/** Frete com a taxa de frágeis, a região e o nível do cliente. */
+	@Column(precision = 38, scale = 2)
+	private BigDecimal frete;
+
+	/**
+	 * Valor cobrado. Desconto e frete são arredondados separadamente, então
+	 * {@code subtotal - desconto + frete} pode diferir do total em um centavo.
+	 */
+	@Column(precision = 38, scale = 2)
+	private BigDecimal total;
+
+	private Instant criadaEm;
+
+	@OneToMany(mappedBy = "compra", cascade = CascadeType.ALL)
+	@OrderBy("id")
+	private List<LinhaCompra> linhas = new ArrayList<>();
+
+	public Compra()
+	{
+	}
+
+	public Compra(Long carrinhoId, Cliente cliente, Long transacaoId, BigDecimal subtotal, BigDecimal desconto,
+			BigDecimal frete, BigDecimal total, Instant criadaEm)
+	{
+		this.carrinhoId = carrinhoId;
+		this.clienteId = cliente.getId();
+		this.regiao = cliente.getRegiao();
+		this.tipoCliente = cliente.getTipo();
+		this.transacaoId = transacaoId;
+		this.subtotal = centavos(subtotal);
+		this.desconto = centavos(desconto);
+		this.frete = centavos(frete);
+		this.total = centavos(total);
+		this.criadaEm = criadaEm;
+	}
+
+	/** Copia o item do carrinho, com preço e peso do produto neste momento. */
+	public LinhaCompra adicionarLinha(ItemCompra item)
+	{
+		LinhaCompra linha = new LinhaCompra(this, item);
+		linhas.add(linha);
+		return linha;
+	}
+
+	private static BigDecimal centavos(BigDecimal valor)
+	{
+		return valor == null ? null : valor.setScale(2, RoundingMode.HALF_UP);
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Long getCarrinhoId()
+	{
+		return carrinhoId;
+	}
+
+	public Long getClienteId()
+	{
+		return clienteId;
+	}
+
+	public Long getTransacaoId()
+	{
+		return transacaoId;
+	}
+
+	public Regiao getRegiao()
+	{
+		return regiao;
+	}
+
+	public TipoCliente getTipoCliente()
+	{
+		return tipoCliente;
+	}
+
+	public BigDecimal getSubtotal()
+	{
+		return subtotal;
+	}
+
+	public BigDecimal getDesconto()
+	{
+		return desconto;
+	}
+
+	public BigDecimal getFrete()
+	{
+		return frete;
+	}
+
+	public BigDecimal getTotal()
+	{
+		return total;
+	}
+
+	public Instant getCriadaEm()
+	{
+		return criadaEm;
+	}
+
+	public List<LinhaCompra> getLinhas()
+	{
+		return linhas;
+	}
+}
@@ -0,0 +1,102 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * Item de uma {@link Compra}: cópia do {@link ItemCompra} com os dados do
+ * produto no momento da compra, para que alterações posteriores no catálogo
+ * não mudem o registro.
+ */
+@Entity
+public class LinhaCompra
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "linha_compra_seq")
+	@SequenceGenerator(name = "linha_compra_seq", sequenceName = "linha_compra_seq", allocationSize = 50)
+	private Long id;
+
+	// Lado dono da associação: a chave estrangeira vai no próprio insert, sem update depois
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "compra_id")
+	private Compra compra;
+
+	private Long produtoId;
+
+	private String nomeProduto;
+
+	@Column(precision = 38, scale = 2)
+	private BigDecimal precoUnitario;
+
+	@Column(precision = 38, scale = 3)
+	private BigDecimal pesoUnitario;
+
+	private Boolean fragil;
+
+	private Long quantidade;
+
+	public LinhaCompra()
+	{
+	}
+
+	LinhaCompra(Compra compra, ItemCompra item)
+	{
+		Produto produto = item.getProduto();
+		this.compra = compra;
+		this.produtoId = produto.getId();
+		this.nomeProduto = produto.getNome();
+		this.precoUnitario = produto.getPreco();
+		this.pesoUnitario = produto.getPesoFisico();
+		this.fragil = produto.isFragil();
+		this.quantidade = item.getQuantidade();
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public Compra getCompra()
+	{
+		return compra;
+	}
+
+	public Long getProdutoId()
+	{
+		return produtoId;
+	}
+
+	public String getNomeProduto()
+	{
+		return nomeProduto;
+	}
+
+	public BigDecimal getPrecoUnitario()
+	{
+		return precoUnitario;
+	}
+
+	public BigDecimal getPesoUnitario()
+	{
+		return pesoUnitario;
+	}
+
+	public Boolean getFragil()
+	{
+		return fragil;
+	}
+
+	public Long getQuantidade()
+	{
+		return quantidade;
+	}
+}
@@ -1,6 +1,7 @@
 package ecommerce.entity;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -8,10 +9,15 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 @Entity
 public class Produto
 {
+	/** Valor das cópias em ponto fixo quando o original não cabe em centavos/gramas. */
+	public static final long NAO_REPRESENTAVEL = Long.MIN_VALUE;
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,6 +44,19 @@ public class Produto
 	@Enumerated(EnumType.STRING)
 	private TipoProduto tipo;
 
+	/**
+	 * Versão otimista: duas edições concorrentes do mesmo produto (preço, peso)
+	 * não se sobrepõem em silêncio.
+	 */
+	@Version
+	private Long versao;
+
+	/** Cópias de {@link #preco} em centavos e de {@link #pesoFisico} em gramas. */
+	@Transient
+	private long precoCentavos = NAO_REPRESENTAVEL;
+	@Transient
+	private long pesoGramas = NAO_REPRESENTAVEL;
+
 	public Produto()
 	{
 	}
@@ -55,6 +74,7 @@ public class Produto
 		this.altura = altura;
 		this.fragil = fragil;
 		this.tipo = tipo;
+		atualizarPontoFixo();
 	}
 
 	// Getters e Setters
@@ -96,6 +116,7 @@ public class Produto
 	public void setPreco(BigDecimal preco)
 	{
 		this.preco = preco;
+		this.precoCentavos = paraPontoFixo(preco, 2);
 	}
 
 	public BigDecimal getPesoFisico()
@@ -106,6 +127,7 @@ public class Produto
 	public void setPesoFisico(BigDecimal pesoFisico)
 	{
 		this.pesoFisico = pesoFisico;
+		this.pesoGramas = paraPontoFixo(pesoFisico, 3);
 	}
 
 	public BigDecimal getComprimento()
@@ -157,4 +179,43 @@ public class Produto
 	{
 		this.tipo = tipo;
 	}
-}
\ No newline at end of file
+
+	public Long getVersao()
+	{
+		return versao;
+	}
+
+	public long getPrecoCentavos()
+	{
+		return precoCentavos;
+	}
+
+	public long getPesoGramas()
+	{
+		return pesoGramas;
+	}
+
+	@PostLoad
+	void atualizarPontoFixo()
+	{
+		this.precoCentavos = paraPontoFixo(preco, 2);
+		this.pesoGramas = paraPontoFixo(pesoFisico, 3);
+	}
+
+	static long paraPontoFixo(BigDecimal valor, int escala)
+	{
+		if (valor == null)
+		{
+			return NAO_REPRESENTAVEL;
+		}
+		try
+		{
+			long unidades = valor.setScale(escala, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+			return unidades == NAO_REPRESENTAVEL ? NAO_REPRESENTAVEL : unidades;
+		}
+		catch (ArithmeticException e)
+		{
+			return NAO_REPRESENTAVEL;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package ecommerce.entity;
+
+/** Situação de uma {@link BaixaPendente} no outbox. */
+public enum SituacaoBaixa
+{
+	/** Aguardando o despacho, inclusive entre novas tentativas. */
+	PENDENTE,
+	/**
+	 * Reivindicada por um despachante, que está chamando o estoque. A
+	 * reivindicação vale até {@link BaixaPendente#getProximaTentativa()}; se o
+	 * despachante cair, outro a retoma depois desse prazo.
+	 */
+	EM_ANDAMENTO,
+	/** Baixa confirmada pelo serviço de estoque. */
+	CONCLUIDA,
+	/** Baixa recusada ou tentativas esgotadas; pagamento cancelado ou entregue à fila de compensação. */
+	COMPENSADA,
+	/** Baixa recusada e o cancelamento do pagamento também falhou. */
+	FALHA_COMPENSACAO
+}
@@ -0,0 +1,12 @@
+package ecommerce.entity;
+
+/** Situação de um {@link CancelamentoPendente} na fila de compensação. */
+public enum SituacaoCancelamento
+{
+	/** Aguardando o cancelamento, inclusive entre novas tentativas. */
+	PENDENTE,
+	/** Pagamento cancelado no gateway. */
+	CONCLUIDO,
+	/** Tentativas esgotadas; o cancelamento exige intervenção manual. */
+	ABANDONADO
+}
@@ -0,0 +1,276 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Transient;
+
+/**
+ * Totais do carrinho mantidos a cada alteração de item, para que a
+ * precificação não faça as contas decimais item a item.
+ * <p>
+ * Preço, peso e fragilidade são os do produto no momento em que o item entrou
+ * no carrinho. Por isso os totais guardam uma {@link #getAssinatura()
+ * assinatura} das entradas de cada item (preço em centavos, peso em gramas,
+ * fragilidade, tipo e quantidade); ao ler o carrinho,
+ * {@link CarrinhoDeCompras} a confere contra os itens e recalcula os totais se
+ * um produto mudou depois da gravação.
+ * <p>
+ * O {@link #getPesoSomadoEmDouble() peso somado em double}, que é o que decide
+ * a faixa de frete no cálculo original, não é gravado: ele é refeito a partir
+ * dos itens ao ler o carrinho e depois de remover ou alterar um item, já que
+ * subtrair em {@code double} não devolve a soma feita na ordem dos itens.
+ * <p>
+ * Itens sem produto, quantidade, preço ou peso, ou com preço fora de centavos
+ * ou peso fora de gramas, não entram nas somas e são apenas contados: as
+ * colunas do subtotal (escala 2) e do peso (escala 3) arredondariam esses
+ * valores. Enquanto houver algum, {@link #isCompleto()} é falso e a
+ * precificação percorre os itens como antes.
+ */
+@Embeddable
+public class TotaisCarrinho
+{
+	private static final long INCOMPLETO = 0x9E3779B97F4A7C15L;
+
+	/** Soma de preço × quantidade, em reais. */
+	@Column(precision = 38, scale = 2)
+	private BigDecimal subtotal = BigDecimal.ZERO;
+
+	/** Soma de peso × quantidade, em quilogramas. */
+	@Column(precision = 38, scale = 3)
+	private BigDecimal pesoTotal = BigDecimal.ZERO;
+
+	/** Unidades de produtos frágeis. */
+	private long quantidadeFrageis;
+
+	private int itensIncompletos;
+
+	/** Soma, com estouro, de {@link #assinatura(ItemCompra)} × quantidade de cada item. */
+	private long assinatura;
+
+	/** Soma de peso × quantidade em {@code double}, na ordem dos itens. */
+	@Transient
+	private double pesoSomadoEmDouble;
+
+	public TotaisCarrinho()
+	{
+	}
+
+	/** Calcula os totais do zero, percorrendo os itens. */
+	public static TotaisCarrinho de(List<ItemCompra> itens)
+	{
+		TotaisCarrinho totais = new TotaisCarrinho();
+		if (itens != null)
+		{
+			for (int i = 0, n = itens.size(); i < n; i++)
+			{
+				totais.somar(itens.get(i));
+			}
+		}
+		return totais;
+	}
+
+	/** Assinatura que os totais dos itens informados teriam; compare com {@link #getAssinatura()}. */
+	public static long assinatura(List<ItemCompra> itens)
+	{
+		long soma = 0;
+		if (itens != null)
+		{
+			for (int i = 0, n = itens.size(); i < n; i++)
+			{
+				ItemCompra item = itens.get(i);
+				soma += assinatura(item) * quantidade(item);
+			}
+		}
+		return soma;
+	}
+
+	/** Soma o item, que deve ser o último da lista. */
+	void somar(ItemCompra item)
+	{
+		if (acumular(item, 1))
+		{
+			pesoSomadoEmDouble += item.getProduto().getPesoFisico().doubleValue() * item.getQuantidade();
+		}
+	}
+
+	/** Subtrai o item; o peso em double fica pendente de {@link #refazerPesoSomadoEmDouble}. */
+	void subtrair(ItemCompra item)
+	{
+		acumular(item, -1);
+	}
+
+	/** Refaz a soma do peso em {@code double}, na ordem dos itens, como no cálculo original. */
+	void refazerPesoSomadoEmDouble(List<ItemCompra> itens)
+	{
+		double peso = 0.0;
+		if (itens != null)
+		{
+			for (int i = 0, n = itens.size(); i < n; i++)
+			{
+				ItemCompra item = itens.get(i);
+				if (completo(item))
+				{
+					peso += item.getProduto().getPesoFisico().doubleValue() * item.getQuantidade();
+				}
+			}
+		}
+		pesoSomadoEmDouble = peso;
+	}
+
+	/** @return se o item entrou nas somas */
+	private boolean acumular(ItemCompra item, int sinal)
+	{
+		assinatura += sinal * assinatura(item) * quantidade(item);
+		if (!completo(item))
+		{
+			itensIncompletos += sinal;
+			return false;
+		}
+
+		Produto produto = item.getProduto();
+		long quantidade = sinal * item.getQuantidade();
+		BigDecimal multiplicador = BigDecimal.valueOf(quantidade);
+		subtotal = subtotal.add(produto.getPreco().multiply(multiplicador));
+		pesoTotal = pesoTotal.add(produto.getPesoFisico().multiply(multiplicador));
+		if (Boolean.TRUE.equals(produto.isFragil()))
+		{
+			quantidadeFrageis += quantidade;
+		}
+		return true;
+	}
+
+	private static boolean completo(ItemCompra item)
+	{
+		Produto produto = item == null ? null : item.getProduto();
+		return produto != null && item.getQuantidade() != null && centavos(produto) != Produto.NAO_REPRESENTAVEL
+				&& gramas(produto) != Produto.NAO_REPRESENTAVEL;
+	}
+
+	/*
+	 * Convertidos aqui, e não lidos de Produto#getPrecoCentavos(): ao carregar o
+	 * carrinho, o @PostLoad dele pode rodar antes do @PostLoad dos produtos.
+	 */
+	private static long centavos(Produto produto)
+	{
+		return Produto.paraPontoFixo(produto.getPreco(), 2);
+	}
+
+	private static long gramas(Produto produto)
+	{
+		return Produto.paraPontoFixo(produto.getPesoFisico(), 3);
+	}
+
+	/** Quantidade que multiplica a assinatura do item; 1 para itens sem quantidade. */
+	private static long quantidade(ItemCompra item)
+	{
+		return item == null || item.getQuantidade() == null ? 1 : item.getQuantidade();
+	}
+
+	/**
+	 * Embaralha as entradas do item que afetam os totais (finalizador do
+	 * SplitMix64). Itens incompletos têm uma assinatura fixa: só importa que ela
+	 * mude quando o item passa a ser completo.
+	 */
+	private static long assinatura(ItemCompra item)
+	{
+		if (!completo(item))
+		{
+			return INCOMPLETO;
+		}
+		Produto produto = item.getProduto();
+		long h = misturar(centavos(produto));
+		h = misturar(h ^ gramas(produto));
+		h = misturar(h ^ (Boolean.TRUE.equals(produto.isFragil()) ? 1 : 0));
+		return misturar(h ^ (produto.getTipo() == null ? -1 : produto.getTipo().ordinal()));
+	}
+
+	private static long misturar(long h)
+	{
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+
+	/** Se os totais descrevem o carrinho inteiro e podem substituir a varredura dos itens. */
+	public boolean isCompleto()
+	{
+		return itensIncompletos == 0;
+	}
+
+	public BigDecimal getSubtotal()
+	{
+		return subtotal;
+	}
+
+	public BigDecimal getPesoTotal()
+	{
+		return pesoTotal;
+	}
+
+	/** Subtotal em centavos, ou {@link Produto#NAO_REPRESENTAVEL}. */
+	public long getSubtotalCentavos()
+	{
+		return Produto.paraPontoFixo(subtotal, 2);
+	}
+
+	/** Peso total em gramas, ou {@link Produto#NAO_REPRESENTAVEL}. */
+	public long getPesoTotalGramas()
+	{
+		return Produto.paraPontoFixo(pesoTotal, 3);
+	}
+
+	public long getQuantidadeFrageis()
+	{
+		return quantidadeFrageis;
+	}
+
+	/**
+	 * Peso total em quilogramas somado em {@code double}, na ordem dos itens,
+	 * como no cálculo original; só vale com {@link #isCompleto()}.
+	 */
+	public double getPesoSomadoEmDouble()
+	{
+		return pesoSomadoEmDouble;
+	}
+
+	public long getAssinatura()
+	{
+		return assinatura;
+	}
+
+	/** Igualdade numérica, sem considerar a escala dos valores decimais. */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof TotaisCarrinho outro))
+		{
+			return false;
+		}
+		return subtotal.compareTo(outro.subtotal) == 0 && pesoTotal.compareTo(outro.pesoTotal) == 0
+				&& quantidadeFrageis == outro.quantidadeFrageis && itensIncompletos == outro.itensIncompletos
+				&& assinatura == outro.assinatura
+				&& Double.compare(pesoSomadoEmDouble, outro.pesoSomadoEmDouble) == 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (Long.hashCode(quantidadeFrageis) * 31 + Long.hashCode(assinatura)) * 31
+				+ Double.hashCode(pesoSomadoEmDouble);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "TotaisCarrinho[subtotal=" + subtotal + ", pesoTotal=" + pesoTotal + ", quantidadeFrageis="
+				+ quantidadeFrageis + ", itensIncompletos=" + itensIncompletos + ", assinatura=" + assinatura
+				+ ", pesoSomadoEmDouble=" + pesoSomadoEmDouble + "]";
+	}
+}
@@ -0,0 +1,461 @@
+package ecommerce.external;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Agrupa verificações de disponibilidade concorrentes numa única chamada ao
+ * serviço de estoque.
+ * <p>
+ * Cada verificação entra numa fila limitada. Um despachante junta os pedidos
+ * até {@code maximoPorLote} ou até vencer a janela do pedido mais antigo, o que
+ * vier primeiro, e entrega o grupo a um pool que faz a chamada combinada; assim
+ * a espera pelo agrupamento nunca passa da janela. Com a fila cheia (ou depois
+ * de {@link #encerrar()}) a verificação vai direto ao serviço. Com as threads
+ * do pool ocupadas e a fila delas cheia, o grupo é devolvido e cada pedido faz
+ * a verificação direto na própria thread, sob o mesmo tempo limite de qualquer
+ * chamada ao estoque; o despachante nunca faz chamadas e segue formando os
+ * próximos grupos.
+ * <p>
+ * A chamada combinada envia cada id uma única vez. Como o serviço só diz se o
+ * saldo cobre a quantidade pedida, cada id vai primeiro com a maior demanda
+ * entre os carrinhos; se faltar e houver carrinhos pedindo menos, novas rodadas
+ * fazem uma busca binária entre as demandas distintas, todos os ids pendentes
+ * na mesma chamada. Com demandas iguais (o caso comum numa promoção) basta uma
+ * chamada.
+ * <p>
+ * Reservas, baixas e confirmações são repassadas sem agrupamento, porque
+ * precisam ser atômicas por carrinho. Se o serviço não tem reserva nativa, a
+ * reserva é a verificação de disponibilidade e, portanto, é agrupada. Por isso
+ * o agrupamento só é montado sobre serviços sem reserva nativa: com ela, o
+ * checkout só reserva e nada passaria pelo agrupador (ver
+ * {@code EstoqueConfig}).
+ */
+public class EstoqueAgrupado implements IEstoqueExternal
+{
+	private final IEstoqueExternal estoque;
+	private final long janelaNanos;
+	private final int maximoPorLote;
+	private final BlockingQueue<Pedido> fila;
+	private final ExecutorService executor;
+	private final Thread despachante;
+	private volatile boolean encerrado;
+
+	private final DistributionSummary tamanhoLote;
+	private final Counter desvios;
+
+	/**
+	 * @param janela         espera máxima de um pedido pelo agrupamento
+	 * @param maximoPorLote  verificações por chamada combinada
+	 * @param capacidadeFila pedidos aguardando agrupamento; acima disso a
+	 *                       verificação é feita direto
+	 * @param threads        chamadas combinadas simultâneas
+	 */
+	public EstoqueAgrupado(IEstoqueExternal estoque, Duration janela, int maximoPorLote, int capacidadeFila,
+			int threads, MeterRegistry registry)
+	{
+		if (janela.isNegative() || maximoPorLote < 1 || capacidadeFila < 1 || threads < 1)
+		{
+			throw new IllegalArgumentException("Configuração de agrupamento de estoque inválida.");
+		}
+
+		this.estoque = estoque;
+		this.janelaNanos = janela.toNanos();
+		this.maximoPorLote = maximoPorLote;
+		this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+		CustomizableThreadFactory fabrica = new CustomizableThreadFactory("estoque-agrupado-");
+		fabrica.setDaemon(true);
+		// Sem CallerRunsPolicy: o despachante não pode ficar preso numa chamada, ou
+		// todos os pedidos da fila esperariam além da janela
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads), fabrica, new ThreadPoolExecutor.AbortPolicy());
+
+		this.tamanhoLote = DistributionSummary.builder("estoque.agrupamento.lote")
+				.description("Verificações de disponibilidade atendidas por chamada combinada").register(registry);
+		this.desvios = Counter.builder("estoque.agrupamento.desvios")
+				.description("Verificações feitas direto por fila cheia ou threads ocupadas").register(registry);
+
+		this.despachante = new Thread(this::despachar, "estoque-agrupador");
+		despachante.setDaemon(true);
+		despachante.start();
+	}
+
+	@Override
+	public DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote)
+	{
+		Pedido pedido = new Pedido(lote, System.nanoTime(), new CompletableFuture<>());
+		if (encerrado || !fila.offer(pedido))
+		{
+			desvios.increment();
+			return estoque.verificarDisponibilidade(lote);
+		}
+		// Entrou na fila depois que encerrar() a esvaziou: ninguém mais vai atendê-lo
+		if (encerrado && fila.remove(pedido))
+		{
+			return estoque.verificarDisponibilidade(lote);
+		}
+		DisponibilidadeLoteDTO resposta = aguardar(pedido.resposta());
+		if (resposta == null)
+		{
+			// Grupo devolvido pelo pool: verifica direto, nesta thread
+			desvios.increment();
+			return estoque.verificarDisponibilidade(lote);
+		}
+		return resposta;
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return verificarDisponibilidade(LoteEstoqueDTO.de(produtosIds, produtosQuantidades)).paraDTO();
+	}
+
+	@Override
+	public boolean reservaNativa()
+	{
+		return estoque.reservaNativa();
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(LoteEstoqueDTO lote, Duration ttl)
+	{
+		return estoque.reservaNativa() ? estoque.reservar(lote, ttl) : IEstoqueExternal.super.reservar(lote, ttl);
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl)
+	{
+		return estoque.reservaNativa() ? estoque.reservar(produtosIds, produtosQuantidades, ttl)
+				: IEstoqueExternal.super.reservar(produtosIds, produtosQuantidades, ttl);
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva)
+	{
+		return estoque.confirmarReserva(reserva);
+	}
+
+	@Override
+	public void liberarReserva(ReservaEstoqueDTO reserva)
+	{
+		estoque.liberarReserva(reserva);
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoqueDTO lote)
+	{
+		return estoque.darBaixa(lote);
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return estoque.darBaixa(produtosIds, produtosQuantidades);
+	}
+
+	/** Para o despachante; pedidos ainda na fila são verificados direto. */
+	@PreDestroy
+	public void encerrar()
+	{
+		encerrado = true;
+		despachante.interrupt();
+		try
+		{
+			despachante.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		executor.shutdown();
+
+		List<Pedido> restantes = new ArrayList<>();
+		fila.drainTo(restantes);
+		for (Pedido pedido : restantes)
+		{
+			resolver(List.of(pedido));
+		}
+	}
+
+	private void despachar()
+	{
+		List<Pedido> grupo = new ArrayList<>(maximoPorLote);
+		while (!encerrado)
+		{
+			try
+			{
+				grupo.add(fila.take());
+				long prazo = grupo.get(0).chegada() + janelaNanos;
+				while (grupo.size() < maximoPorLote)
+				{
+					long restante = prazo - System.nanoTime();
+					Pedido proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+					if (proximo == null)
+					{
+						break;
+					}
+					grupo.add(proximo);
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// encerrar(): o grupo em formação é resolvido abaixo e o restante da fila por encerrar()
+				encerrado = true;
+			}
+
+			if (!grupo.isEmpty())
+			{
+				List<Pedido> pronto = List.copyOf(grupo);
+				grupo.clear();
+				if (encerrado)
+				{
+					resolver(pronto);
+				}
+				else
+				{
+					try
+					{
+						executor.execute(() -> resolver(pronto));
+					}
+					catch (RejectedExecutionException e)
+					{
+						devolver(pronto);
+					}
+				}
+			}
+		}
+	}
+
+	/** Responde {@code null}: cada pedido faz a verificação direto, na própria thread. */
+	private static void devolver(List<Pedido> grupo)
+	{
+		for (Pedido pedido : grupo)
+		{
+			pedido.resposta().complete(null);
+		}
+	}
+
+	private void resolver(List<Pedido> grupo)
+	{
+		tamanhoLote.record(grupo.size());
+		try
+		{
+			if (grupo.size() == 1)
+			{
+				Pedido pedido = grupo.get(0);
+				pedido.resposta().complete(estoque.verificarDisponibilidade(pedido.lote()));
+				return;
+			}
+
+			List<DisponibilidadeLoteDTO> respostas = consultarCombinado(grupo);
+			for (int i = 0; i < grupo.size(); i++)
+			{
+				grupo.get(i).resposta().complete(respostas.get(i));
+			}
+		}
+		catch (RuntimeException | Error e)
+		{
+			for (Pedido pedido : grupo)
+			{
+				pedido.resposta().completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Resolve o grupo com chamadas que enviam cada id uma vez. Para cada id,
+	 * {@code niveis} são as demandas distintas em ordem crescente e a busca
+	 * descobre quantas delas o saldo cobre (a disponibilidade é monotônica na
+	 * quantidade).
+	 */
+	private List<DisponibilidadeLoteDTO> consultarCombinado(List<Pedido> grupo)
+	{
+		List<Map<Long, Long>> demandas = new ArrayList<>(grupo.size());
+		Map<Long, TreeSet<Long>> distintas = new HashMap<>();
+		for (Pedido pedido : grupo)
+		{
+			Map<Long, Long> demanda = demandaPorId(pedido.lote());
+			demandas.add(demanda);
+			demanda.forEach((id, quantidade) -> distintas.computeIfAbsent(id, k -> new TreeSet<>()).add(quantidade));
+		}
+
+		Map<Long, Busca> buscas = new HashMap<>(distintas.size() * 2);
+		distintas.forEach((id, quantidades) -> buscas.put(id,
+				new Busca(quantidades.stream().mapToLong(Long::longValue).toArray())));
+
+		List<Long> pendentes = new ArrayList<>(buscas.keySet());
+		boolean primeiraRodada = true;
+		while (!pendentes.isEmpty())
+		{
+			LoteEstoqueDTO combinado = new LoteEstoqueDTO(pendentes.size());
+			for (Long id : pendentes)
+			{
+				combinado.adicionar(id, buscas.get(id).nivelConsultado(primeiraRodada));
+			}
+
+			DisponibilidadeLoteDTO resposta = estoque.verificarDisponibilidade(combinado);
+			BitSet faltas = resposta.posicoesIndisponiveis();
+			if (!resposta.disponivel() && faltas.isEmpty())
+			{
+				// Serviço que recusa sem dizer quais ids: não há como repartir a resposta
+				return consultarIndividualmente(grupo);
+			}
+
+			List<Long> aindaPendentes = new ArrayList<>();
+			for (int i = 0; i < pendentes.size(); i++)
+			{
+				Busca busca = buscas.get(pendentes.get(i));
+				busca.registrar(!faltas.get(i));
+				if (!busca.resolvida())
+				{
+					aindaPendentes.add(pendentes.get(i));
+				}
+			}
+			pendentes = aindaPendentes;
+			primeiraRodada = false;
+		}
+
+		List<DisponibilidadeLoteDTO> respostas = new ArrayList<>(grupo.size());
+		for (int p = 0; p < grupo.size(); p++)
+		{
+			LoteEstoqueDTO lote = grupo.get(p).lote();
+			Map<Long, Long> demanda = demandas.get(p);
+			BitSet indisponiveis = new BitSet(lote.tamanho());
+			for (int i = 0; i < lote.tamanho(); i++)
+			{
+				Long quantidade = demanda.get(lote.id(i));
+				if (quantidade != null && !buscas.get(lote.id(i)).cobre(quantidade))
+				{
+					indisponiveis.set(i);
+				}
+			}
+			respostas.add(new DisponibilidadeLoteDTO(indisponiveis.isEmpty(), lote, indisponiveis));
+		}
+		return respostas;
+	}
+
+	private List<DisponibilidadeLoteDTO> consultarIndividualmente(List<Pedido> grupo)
+	{
+		List<DisponibilidadeLoteDTO> respostas = new ArrayList<>(grupo.size());
+		for (Pedido pedido : grupo)
+		{
+			respostas.add(estoque.verificarDisponibilidade(pedido.lote()));
+		}
+		return respostas;
+	}
+
+	/** Demanda somada por id, sem as quantidades zero (sempre disponíveis). */
+	private static Map<Long, Long> demandaPorId(LoteEstoqueDTO lote)
+	{
+		Map<Long, Long> demanda = new HashMap<>(lote.tamanho() * 2);
+		for (int i = 0; i < lote.tamanho(); i++)
+		{
+			if (lote.quantidade(i) < 0)
+			{
+				throw new IllegalArgumentException("Quantidade inválida: " + lote.quantidade(i));
+			}
+			if (lote.quantidade(i) > 0)
+			{
+				demanda.merge(lote.id(i), lote.quantidade(i), Long::sum);
+			}
+		}
+		return demanda;
+	}
+
+	private static <T> T aguardar(CompletableFuture<T> futuro)
+	{
+		try
+		{
+			return futuro.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException causa)
+			{
+				throw causa;
+			}
+			if (e.getCause() instanceof Error erro)
+			{
+				throw erro;
+			}
+			throw e;
+		}
+	}
+
+	private record Pedido(LoteEstoqueDTO lote, long chegada, CompletableFuture<DisponibilidadeLoteDTO> resposta)
+	{
+	}
+
+	/**
+	 * Busca binária de quantos níveis o saldo cobre: {@code cobertos} está
+	 * sempre em {@code [minimo, maximo]}.
+	 */
+	private static final class Busca
+	{
+		private final long[] niveis;
+		private int minimo;
+		private int maximo;
+		private int consultado;
+
+		Busca(long[] niveis)
+		{
+			this.niveis = niveis;
+			this.maximo = niveis.length;
+		}
+
+		/** Na primeira rodada consulta a maior demanda; depois, o meio do intervalo. */
+		long nivelConsultado(boolean primeiraRodada)
+		{
+			consultado = primeiraRodada ? maximo : (minimo + maximo + 1) / 2;
+			return niveis[consultado - 1];
+		}
+
+		void registrar(boolean disponivel)
+		{
+			if (disponivel)
+			{
+				minimo = consultado;
+			}
+			else
+			{
+				maximo = consultado - 1;
+			}
+		}
+
+		boolean resolvida()
+		{
+			return minimo == maximo;
+		}
+
+		boolean cobre(long quantidade)
+		{
+			return minimo > 0 && quantidade <= niveis[minimo - 1];
+		}
+	}
+}
@@ -1,10 +1,19 @@
 package ecommerce.external;
 
+import java.time.Duration;
 import java.util.List;
 
 import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 
+/**
+ * Serviço de estoque. As variantes com {@link LoteEstoqueDTO} evitam o boxing
+ * de ids e quantidades; por padrão elas delegam às variantes com listas, então
+ * um serviço que só implementa estas continua funcionando.
+ */
 public interface IEstoqueExternal
 {
 
@@ -12,4 +21,52 @@ public interface IEstoqueExternal
 
 	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades);
 
+	public default EstoqueBaixaDTO darBaixa(LoteEstoqueDTO lote)
+	{
+		return darBaixa(lote.produtosIds(), lote.produtosQuantidades());
+	}
+
+	public default DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote)
+	{
+		return DisponibilidadeLoteDTO.de(lote,
+				verificarDisponibilidade(lote.produtosIds(), lote.produtosQuantidades()));
+	}
+
+	/**
+	 * Separa as quantidades por até {@code ttl}; depois disso a reserva expira e o
+	 * estoque volta a ficar disponível. A implementação padrão apenas verifica a
+	 * disponibilidade, sem reservar, para serviços que não têm reserva.
+	 */
+	public default ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl)
+	{
+		DisponibilidadeDTO disponibilidade = verificarDisponibilidade(produtosIds, produtosQuantidades);
+		return new ReservaEstoqueDTO(disponibilidade.disponivel(), null, disponibilidade.idsProdutosIndisponiveis(),
+				produtosIds, produtosQuantidades);
+	}
+
+	public default ReservaEstoqueDTO reservar(LoteEstoqueDTO lote, Duration ttl)
+	{
+		return reservar(lote.produtosIds(), lote.produtosQuantidades(), ttl);
+	}
+
+	/**
+	 * Indica se {@link #reservar} separa o estoque de fato; do contrário a
+	 * reserva é só a verificação de disponibilidade da implementação padrão.
+	 */
+	public default boolean reservaNativa()
+	{
+		return false;
+	}
+
+	/** Efetiva a baixa das quantidades reservadas. */
+	public default EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva)
+	{
+		return darBaixa(reserva.produtosIds(), reserva.produtosQuantidades());
+	}
+
+	/** Devolve ao estoque as quantidades de uma reserva não confirmada. */
+	public default void liberarReserva(ReservaEstoqueDTO reserva)
+	{
+	}
+
 }
@@ -1,28 +1,406 @@
 package ecommerce.external.fake;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 import ecommerce.external.IEstoqueExternal;
 
+/**
+ * Estoque em memória para testes de carga locais, sem trava global.
+ * <p>
+ * Os ids ficam num índice de endereçamento aberto ({@link AtomicLongArray},
+ * sondagem linear, inserção por CAS) e cada posição tem seu saldo num segundo
+ * {@link AtomicLongArray}. A baixa de vários produtos é tudo-ou-nada: cada saldo
+ * é decrementado por CAS somente se cobre a quantidade e, se algum não cobrir,
+ * os decrementos já aplicados são devolvidos. O saldo nunca fica negativo;
+ * durante a devolução outra compra pode ver um saldo momentaneamente menor e
+ * ser recusada, mas nunca vendida a mais.
+ * <p>
+ * Reservas usam o mesmo decremento; ficam num mapa por token até serem
+ * confirmadas, liberadas ou varridas por {@link #expirarReservas()}.
+ * <p>
+ * As operações trabalham sobre {@link LoteEstoqueDTO}; as variantes com listas
+ * apenas convertem (ou desembrulham) o lote.
+ */
 @Service
 public class EstoqueSimulado implements IEstoqueExternal
 {
+	/** Marca de posição livre no índice; por isso {@code Long.MIN_VALUE} não é um id válido. */
+	private static final long VAZIO = Long.MIN_VALUE;
+
+	/** Resultado de {@link #posicao(long, boolean)} quando o id não está no índice. */
+	private static final int AUSENTE = -1;
+
+	private final AtomicLongArray ids;
+	private final AtomicLongArray saldos;
+	private final int mascara;
+	private final long saldoInicial;
+
+	private final Map<String, Reserva> reservas = new ConcurrentHashMap<>();
+	private final AtomicLong proximaReserva = new AtomicLong(1);
+
+	public EstoqueSimulado()
+	{
+		this(1 << 16, 0);
+	}
+
+	/**
+	 * @param capacidade   número previsto de produtos distintos (o índice
+	 *                     comporta até o dobro, com desempenho pior)
+	 * @param saldoInicial saldo atribuído a um produto na primeira vez em que é
+	 *                     consultado; com 0 produtos desconhecidos ficam indisponíveis
+	 */
+	@Autowired
+	public EstoqueSimulado(@Value("${ecommerce.estoque.simulado.capacidade:65536}") int capacidade,
+			@Value("${ecommerce.estoque.simulado.saldo-inicial:0}") long saldoInicial)
+	{
+		if (capacidade <= 0 || capacidade > 1 << 29)
+		{
+			throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+		}
+		if (saldoInicial < 0)
+		{
+			throw new IllegalArgumentException("Saldo inicial não pode ser negativo.");
+		}
+
+		// Fator de carga de no máximo 50% mantém as sondagens curtas
+		int tamanho = Integer.highestOneBit(capacidade * 2 - 1) << 1;
+		this.ids = new AtomicLongArray(tamanho);
+		this.saldos = new AtomicLongArray(tamanho);
+		this.mascara = tamanho - 1;
+		this.saldoInicial = saldoInicial;
+
+		for (int i = 0; i < tamanho; i++)
+		{
+			ids.set(i, VAZIO);
+		}
+	}
 
 	@Override
 	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		return darBaixa(LoteEstoqueDTO.de(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoqueDTO lote)
+	{
+		validar(lote);
+
+		return new EstoqueBaixaDTO(decrementarTodos(lote) != null);
+	}
+
+	/**
+	 * Reserva nativa: as quantidades saem do saldo na hora e só voltam se a
+	 * reserva for liberada ou expirar, de modo que a confirmação não pode faltar
+	 * estoque.
+	 */
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl)
+	{
+		return reservar(LoteEstoqueDTO.de(produtosIds, produtosQuantidades), ttl);
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(LoteEstoqueDTO lote, Duration ttl)
+	{
+		validar(lote);
+
+		int[] posicoes = decrementarTodos(lote);
+		if (posicoes == null)
+		{
+			List<Long> indisponiveis = verificarDisponibilidade(lote).idsIndisponiveis();
+			return new ReservaEstoqueDTO(false, null, indisponiveis, lote.produtosIds(), lote.produtosQuantidades());
+		}
+
+		String token = "R" + proximaReserva.getAndIncrement();
+		long[] quantidades = new long[lote.tamanho()];
+		for (int i = 0; i < quantidades.length; i++)
+		{
+			quantidades[i] = lote.quantidade(i);
+		}
+		reservas.put(token, new Reserva(posicoes, quantidades, System.nanoTime() + ttl.toNanos()));
+
+		return new ReservaEstoqueDTO(true, token, List.of(), lote.produtosIds(), lote.produtosQuantidades());
+	}
+
+	@Override
+	public boolean reservaNativa()
+	{
+		return true;
+	}
+
+	/**
+	 * Confirma a reserva. Se ela já expirou (ou foi liberada), tenta a baixa
+	 * direta, que só dá certo se ainda houver saldo.
+	 */
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva)
+	{
+		if (reserva.token() != null && reservas.remove(reserva.token()) != null)
+		{
+			return new EstoqueBaixaDTO(true);
+		}
+		return darBaixa(LoteEstoqueDTO.de(reserva.produtosIds(), reserva.produtosQuantidades()));
+	}
+
+	@Override
+	public void liberarReserva(ReservaEstoqueDTO reserva)
+	{
+		if (reserva.token() == null)
+		{
+			return;
+		}
+		Reserva removida = reservas.remove(reserva.token());
+		if (removida != null)
+		{
+			devolver(removida.posicoes(), removida.quantidades(), removida.posicoes().length);
+		}
+	}
+
+	/** Devolve ao saldo as reservas vencidas. */
+	@Scheduled(fixedDelayString = "${ecommerce.estoque.simulado.intervalo-varredura-ms:1000}")
+	public void expirarReservas()
+	{
+		long agora = System.nanoTime();
+		for (Map.Entry<String, Reserva> entrada : reservas.entrySet())
+		{
+			Reserva reserva = entrada.getValue();
+			// remove(chave, valor) garante que confirmação e expiração não disputem a mesma reserva
+			if (agora - reserva.expiraEm() >= 0 && reservas.remove(entrada.getKey(), reserva))
+			{
+				devolver(reserva.posicoes(), reserva.quantidades(), reserva.posicoes().length);
+			}
+		}
+	}
+
+	public int getQuantidadeReservasAtivas()
+	{
+		return reservas.size();
 	}
 
 	@Override
 	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		return verificarDisponibilidade(LoteEstoqueDTO.de(produtosIds, produtosQuantidades)).paraDTO();
+	}
+
+	/**
+	 * Ids repetidos somam as quantidades: os ids distintos são ordenados e a
+	 * demanda de cada um é acumulada pela posição na ordenação, sem mapa.
+	 */
+	@Override
+	public DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote)
+	{
+		validar(lote);
+
+		int n = lote.tamanho();
+		long[] distintos = new long[n];
+		for (int i = 0; i < n; i++)
+		{
+			distintos[i] = lote.id(i);
+		}
+		Arrays.sort(distintos);
+		int m = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (m == 0 || distintos[m - 1] != distintos[i])
+			{
+				distintos[m++] = distintos[i];
+			}
+		}
+
+		long[] demanda = new long[m];
+		for (int i = 0; i < n; i++)
+		{
+			demanda[Arrays.binarySearch(distintos, 0, m, lote.id(i))] += lote.quantidade(i);
+		}
+
+		BitSet semSaldo = new BitSet(m);
+		for (int k = 0; k < m; k++)
+		{
+			if (demanda[k] > 0 && saldo(distintos[k]) < demanda[k])
+			{
+				semSaldo.set(k);
+			}
+		}
+
+		BitSet indisponiveis = new BitSet(n);
+		if (!semSaldo.isEmpty())
+		{
+			for (int i = 0; i < n; i++)
+			{
+				if (semSaldo.get(Arrays.binarySearch(distintos, 0, m, lote.id(i))))
+				{
+					indisponiveis.set(i);
+				}
+			}
+		}
+
+		return new DisponibilidadeLoteDTO(indisponiveis.isEmpty(), lote, indisponiveis);
+	}
+
+	/** Soma {@code quantidade} ao saldo do produto, cadastrando-o se preciso. */
+	public void repor(Long produtoId, long quantidade)
+	{
+		if (quantidade < 0)
+		{
+			throw new IllegalArgumentException("Quantidade de reposição não pode ser negativa.");
+		}
+		saldos.addAndGet(posicao(produtoId, true), quantidade);
+	}
+
+	/** Saldo atual do produto; 0 se nunca foi cadastrado. */
+	public long saldo(Long produtoId)
+	{
+		int posicao = posicao(produtoId, saldoInicial > 0);
+		return posicao == AUSENTE ? 0 : saldos.get(posicao);
+	}
+
+	/**
+	 * Decrementa todos os produtos ou nenhum. Retorna as posições decrementadas,
+	 * ou {@code null} se algum saldo não cobriu a quantidade. Ids repetidos são
+	 * decrementados uma vez por ocorrência, o que já soma as quantidades.
+	 */
+	private int[] decrementarTodos(LoteEstoqueDTO lote)
+	{
+		int n = lote.tamanho();
+		int[] posicoes = new int[n];
+		long[] quantidades = new long[n];
+
+		for (int i = 0; i < n; i++)
+		{
+			quantidades[i] = lote.quantidade(i);
+			posicoes[i] = posicao(lote.id(i), saldoInicial > 0);
+			if (posicoes[i] == AUSENTE && quantidades[i] > 0)
+			{
+				return null;
+			}
+		}
+
+		for (int i = 0; i < n; i++)
+		{
+			if (quantidades[i] > 0 && !decrementar(posicoes[i], quantidades[i]))
+			{
+				devolver(posicoes, quantidades, i);
+				return null;
+			}
+		}
+
+		return posicoes;
+	}
+
+	/** Devolve as quantidades das primeiras {@code ate} posições. */
+	private void devolver(int[] posicoes, long[] quantidades, int ate)
+	{
+		for (int i = 0; i < ate; i++)
+		{
+			if (quantidades[i] > 0)
+			{
+				saldos.addAndGet(posicoes[i], quantidades[i]);
+			}
+		}
+	}
+
+	private boolean decrementar(int posicao, long quantidade)
+	{
+		while (true)
+		{
+			long atual = saldos.get(posicao);
+			if (atual < quantidade)
+			{
+				return false;
+			}
+			if (saldos.compareAndSet(posicao, atual, atual - quantidade))
+			{
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Localiza o id por sondagem linear. Com {@code cadastrar}, ocupa a primeira
+	 * posição livre por CAS; se outra thread cadastrar o mesmo id ao mesmo tempo,
+	 * ambas ficam com a mesma posição.
+	 */
+	private int posicao(long produtoId, boolean cadastrar)
+	{
+		if (produtoId == VAZIO)
+		{
+			throw new IllegalArgumentException("Id de produto inválido: " + produtoId);
+		}
+
+		int i = espalhar(produtoId) & mascara;
+		for (int sondagens = 0; sondagens <= mascara;)
+		{
+			long atual = ids.get(i);
+			if (atual == produtoId)
+			{
+				return i;
+			}
+			if (atual == VAZIO)
+			{
+				if (!cadastrar)
+				{
+					return AUSENTE;
+				}
+				if (ids.compareAndSet(i, VAZIO, produtoId))
+				{
+					saldos.addAndGet(i, saldoInicial);
+					return i;
+				}
+				// Perdeu a corrida pela posição: relê a mesma posição
+				continue;
+			}
+			i = (i + 1) & mascara;
+			sondagens++;
+		}
+
+		if (!cadastrar)
+		{
+			return AUSENTE;
+		}
+		throw new IllegalStateException("Capacidade do estoque simulado esgotada.");
+	}
+
+	private static int espalhar(long id)
+	{
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private static void validar(LoteEstoqueDTO lote)
+	{
+		if (lote == null)
+		{
+			throw new IllegalArgumentException("Lote de produtos nulo.");
+		}
+		for (int i = 0; i < lote.tamanho(); i++)
+		{
+			if (lote.quantidade(i) < 0)
+			{
+				throw new IllegalArgumentException("Quantidade inválida: " + lote.quantidade(i));
+			}
+		}
+	}
+
+	private record Reserva(int[] posicoes, long[] quantidades, long expiraEm)
+	{
 	}
 }
@@ -0,0 +1,97 @@
+package ecommerce.external.fake;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribuição de latência de um serviço externo simulado. Cada chamada sorteia
+ * quanto tempo a resposta leva, em nanossegundos.
+ */
+@FunctionalInterface
+public interface ModeloLatencia
+{
+	long amostrarNanos(RandomGenerator random);
+
+	/** Sempre a mesma latência; {@code Duration.ZERO} responde imediatamente. */
+	static ModeloLatencia fixa(Duration latencia)
+	{
+		long nanos = naoNegativa(latencia, "latência").toNanos();
+		return random -> nanos;
+	}
+
+	/** Latência uniforme em {@code [minima, maxima]}. */
+	static ModeloLatencia uniforme(Duration minima, Duration maxima)
+	{
+		long min = naoNegativa(minima, "latência mínima").toNanos();
+		long max = naoNegativa(maxima, "latência máxima").toNanos();
+		if (max < min)
+		{
+			throw new IllegalArgumentException("Latência máxima menor que a mínima.");
+		}
+		return random -> min == max ? min : random.nextLong(min, max + 1);
+	}
+
+	/**
+	 * Log-normal com a mediana e o desvio (em escala logarítmica) informados,
+	 * somada de um pico com a probabilidade dada, para reproduzir a cauda longa
+	 * de um gateway real (GC, retransmissões, filas).
+	 */
+	static ModeloLatencia logNormal(Duration mediana, double sigma, double probabilidadePico, Duration pico)
+	{
+		double mu = Math.log(Math.max(1, naoNegativa(mediana, "mediana").toNanos()));
+		long nanosPico = naoNegativa(pico, "pico").toNanos();
+		if (sigma < 0)
+		{
+			throw new IllegalArgumentException("Sigma não pode ser negativo.");
+		}
+		validarProbabilidade(probabilidadePico, "probabilidade de pico");
+
+		return random -> {
+			long nanos = (long) Math.exp(mu + sigma * random.nextGaussian());
+			if (probabilidadePico > 0 && random.nextDouble() < probabilidadePico)
+			{
+				nanos += nanosPico;
+			}
+			return nanos;
+		};
+	}
+
+	/**
+	 * Monta o modelo a partir do nome da distribuição ({@code fixa},
+	 * {@code uniforme} ou {@code log-normal}); só os parâmetros da distribuição
+	 * escolhida são usados.
+	 */
+	static ModeloLatencia porNome(String distribuicao, Duration fixa, Duration minima, Duration maxima,
+			Duration mediana, double sigma, double probabilidadePico, Duration pico)
+	{
+		switch (distribuicao.trim().toLowerCase(Locale.ROOT))
+		{
+		case "fixa":
+			return fixa(fixa);
+		case "uniforme":
+			return uniforme(minima, maxima);
+		case "log-normal":
+			return logNormal(mediana, sigma, probabilidadePico, pico);
+		default:
+			throw new IllegalArgumentException("Distribuição de latência desconhecida: " + distribuicao);
+		}
+	}
+
+	static void validarProbabilidade(double probabilidade, String nome)
+	{
+		if (!(probabilidade >= 0 && probabilidade <= 1))
+		{
+			throw new IllegalArgumentException("A " + nome + " deve estar entre 0 e 1: " + probabilidade);
+		}
+	}
+
+	private static Duration naoNegativa(Duration duracao, String nome)
+	{
+		if (duracao == null || duracao.isNegative())
+		{
+			throw new IllegalArgumentException("A " + nome + " não pode ser negativa.");
+		}
+		return duracao;
+	}
+}
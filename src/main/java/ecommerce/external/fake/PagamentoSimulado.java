@@ -1,25 +1,145 @@
 package ecommerce.external.fake;
 
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.external.IPagamentoExternal;
 
+/**
+ * Gateway de pagamento simulado para testes de carga locais: cada autorização
+ * espera uma latência sorteada de um {@link ModeloLatencia}, pode ser recusada
+ * com a taxa configurada ou estourar o tempo limite, e as autorizadas recebem
+ * {@code transacaoId} crescentes. Com a configuração padrão autoriza tudo, sem
+ * latência.
+ */
 @Service
 public class PagamentoSimulado implements IPagamentoExternal
 {
+	private final ModeloLatencia latencia;
+	private final double taxaRecusa;
+	private final double taxaTimeout;
+	private final long timeoutNanos;
+
+	private final AtomicLong proximaTransacao = new AtomicLong(1);
+	private final Set<Long> cancelamentos = ConcurrentHashMap.newKeySet();
+
+	public PagamentoSimulado()
+	{
+		this(ModeloLatencia.fixa(Duration.ZERO), 0, 0, Duration.ZERO);
+	}
+
+	@Autowired
+	public PagamentoSimulado(@Value("${ecommerce.pagamento.simulado.latencia.distribuicao:fixa}") String distribuicao,
+			@Value("${ecommerce.pagamento.simulado.latencia.fixa:0ms}") Duration fixa,
+			@Value("${ecommerce.pagamento.simulado.latencia.minima:5ms}") Duration minima,
+			@Value("${ecommerce.pagamento.simulado.latencia.maxima:50ms}") Duration maxima,
+			@Value("${ecommerce.pagamento.simulado.latencia.mediana:20ms}") Duration mediana,
+			@Value("${ecommerce.pagamento.simulado.latencia.sigma:0.5}") double sigma,
+			@Value("${ecommerce.pagamento.simulado.latencia.probabilidade-pico:0.0}") double probabilidadePico,
+			@Value("${ecommerce.pagamento.simulado.latencia.pico:500ms}") Duration pico,
+			@Value("${ecommerce.pagamento.simulado.taxa-recusa:0.0}") double taxaRecusa,
+			@Value("${ecommerce.pagamento.simulado.taxa-timeout:0.0}") double taxaTimeout,
+			@Value("${ecommerce.pagamento.simulado.timeout:0ms}") Duration timeout)
+	{
+		this(ModeloLatencia.porNome(distribuicao, fixa, minima, maxima, mediana, sigma, probabilidadePico, pico),
+				taxaRecusa, taxaTimeout, timeout);
+	}
+
+	/**
+	 * @param taxaRecusa  fração das autorizações recusadas
+	 * @param taxaTimeout fração das autorizações que esperam {@code timeout} e
+	 *                    falham, como um gateway que não responde
+	 * @param timeout     tempo limite; latências sorteadas acima dele também
+	 *                    falham. {@code Duration.ZERO} desliga o tempo limite
+	 */
+	public PagamentoSimulado(ModeloLatencia latencia, double taxaRecusa, double taxaTimeout, Duration timeout)
+	{
+		ModeloLatencia.validarProbabilidade(taxaRecusa, "taxa de recusa");
+		ModeloLatencia.validarProbabilidade(taxaTimeout, "taxa de timeout");
+		if (timeout.isNegative() || (taxaTimeout > 0 && timeout.isZero()))
+		{
+			throw new IllegalArgumentException("Injeção de timeout exige um tempo limite positivo.");
+		}
+
+		this.latencia = latencia;
+		this.taxaRecusa = taxaRecusa;
+		this.taxaTimeout = taxaTimeout;
+		this.timeoutNanos = timeout.toNanos();
+	}
 
 	@Override
 	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		if (taxaTimeout > 0 && random.nextDouble() < taxaTimeout)
+		{
+			esperarTimeout();
+		}
+
+		long nanos = latencia.amostrarNanos(random);
+		if (timeoutNanos > 0 && nanos >= timeoutNanos)
+		{
+			esperarTimeout();
+		}
+		esperar(nanos);
+
+		if (taxaRecusa > 0 && random.nextDouble() < taxaRecusa)
+		{
+			return new PagamentoDTO(false, null);
+		}
+
+		return new PagamentoDTO(true, proximaTransacao.getAndIncrement());
 	}
 
 	@Override
 	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
 	{
-		// TODO Auto-generated method stub
+		if (pagamentoTransacaoId != null)
+		{
+			cancelamentos.add(pagamentoTransacaoId);
+		}
+	}
 
+	public boolean foiCancelado(Long transacaoId)
+	{
+		return cancelamentos.contains(transacaoId);
+	}
+
+	public int getQuantidadeCancelamentos()
+	{
+		return cancelamentos.size();
+	}
+
+	private void esperarTimeout()
+	{
+		esperar(timeoutNanos);
+		throw new IllegalStateException("Tempo limite do gateway de pagamento excedido.");
+	}
+
+	private static void esperar(long nanos)
+	{
+		if (nanos <= 0)
+		{
+			return;
+		}
+		try
+		{
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Autorização de pagamento interrompida.", e);
+		}
 	}
 }
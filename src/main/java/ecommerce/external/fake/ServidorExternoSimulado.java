@@ -0,0 +1,264 @@
+package ecommerce.external.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.dto.SolicitacaoPagamentoDTO;
+import ecommerce.dto.SolicitacaoReservaDTO;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.http.EstoqueClient;
+import ecommerce.external.http.PagamentoClient;
+
+/**
+ * Servidor HTTP local para testes e benchmarks dos clientes HTTP. Expõe um
+ * {@link IEstoqueExternal} e um {@link IPagamentoExternal}, normalmente os
+ * simulados, pelos contratos {@link EstoqueClient} e {@link PagamentoClient}.
+ * <ul>
+ * <li>Usa o servidor HTTP do JDK, que mantém as conexões abertas entre
+ * requisições.</li>
+ * <li>Responde em JSON, compactado com gzip quando o cliente aceita e o corpo
+ * tem pelo menos {@code tamanhoMinimoCompressao} bytes.</li>
+ * <li>Trata erros como o controller: {@link IllegalArgumentException} vira
+ * 400 e {@link IllegalStateException} vira 409, com a mensagem no corpo.</li>
+ * </ul>
+ * Conta as requisições, as respostas compactadas e as conexões distintas
+ * (pelo endereço e porta do cliente), para medir o reuso de conexões.
+ */
+public class ServidorExternoSimulado
+{
+	private static final String JSON = "application/json";
+	private static final String TEXTO = "text/plain; charset=UTF-8";
+	/**
+	 * Sem TCP_NODELAY, o servidor do JDK manda cabeçalhos e corpo em escritas
+	 * separadas, e numa conexão reusada o Nagle segura o corpo até o ACK
+	 * atrasado do cliente (~40 ms por chamada). A propriedade é lida uma vez por
+	 * JVM, na criação do primeiro servidor.
+	 */
+	private static final String SEM_ATRASO = "sun.net.httpserver.nodelay";
+
+	private final IEstoqueExternal estoque;
+	private final IPagamentoExternal pagamento;
+	private final ObjectMapper json;
+	private final int tamanhoMinimoCompressao;
+
+	private final LongAdder requisicoes = new LongAdder();
+	private final LongAdder respostasCompactadas = new LongAdder();
+	private final Set<InetSocketAddress> conexoes = ConcurrentHashMap.newKeySet();
+
+	private HttpServer servidor;
+	private ExecutorService executor;
+
+	public ServidorExternoSimulado(IEstoqueExternal estoque, IPagamentoExternal pagamento, ObjectMapper json,
+			int tamanhoMinimoCompressao)
+	{
+		this.estoque = estoque;
+		this.pagamento = pagamento;
+		this.json = json;
+		this.tamanhoMinimoCompressao = tamanhoMinimoCompressao;
+	}
+
+	/** Sobe o servidor no endereço de loopback; com porta 0 o sistema escolhe uma livre. */
+	public synchronized ServidorExternoSimulado iniciar(int porta, int threads)
+	{
+		if (servidor != null)
+		{
+			throw new IllegalStateException("Servidor já iniciado.");
+		}
+		if (System.getProperty(SEM_ATRASO) == null)
+		{
+			System.setProperty(SEM_ATRASO, "true");
+		}
+		try
+		{
+			servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Não foi possível abrir a porta " + porta, e);
+		}
+
+		rota(EstoqueClient.DISPONIBILIDADE, ItensEstoqueDTO.class,
+				i -> estoque.verificarDisponibilidade(i.produtosIds(), i.produtosQuantidades()));
+		rota(EstoqueClient.BAIXA, ItensEstoqueDTO.class, i -> estoque.darBaixa(i.produtosIds(), i.produtosQuantidades()));
+		rota(EstoqueClient.RESERVAS, SolicitacaoReservaDTO.class,
+				s -> estoque.reservar(s.produtosIds(), s.produtosQuantidades(), Duration.ofMillis(s.ttlMillis())));
+		rota(EstoqueClient.CONFIRMACAO, ReservaEstoqueDTO.class, estoque::confirmarReserva);
+		rota(EstoqueClient.LIBERACAO, ReservaEstoqueDTO.class, r -> {
+			estoque.liberarReserva(r);
+			return null;
+		});
+		rota(PagamentoClient.AUTORIZACAO, SolicitacaoPagamentoDTO.class,
+				s -> pagamento.autorizarPagamento(s.clienteId(), s.custoTotal()));
+		rota(PagamentoClient.CANCELAMENTO, CancelamentoPagamentoDTO.class, c -> {
+			pagamento.cancelarPagamento(c.clienteId(), c.transacaoId());
+			return null;
+		});
+
+		executor = Executors.newFixedThreadPool(threads);
+		servidor.setExecutor(executor);
+		servidor.start();
+		return this;
+	}
+
+	public synchronized void encerrar()
+	{
+		if (servidor != null)
+		{
+			servidor.stop(0);
+			executor.shutdownNow();
+			servidor = null;
+		}
+	}
+
+	public synchronized String getUrl()
+	{
+		InetSocketAddress endereco = servidor.getAddress();
+		return "http://" + endereco.getHostString() + ":" + endereco.getPort();
+	}
+
+	public long getRequisicoes()
+	{
+		return requisicoes.sum();
+	}
+
+	public long getRespostasCompactadas()
+	{
+		return respostasCompactadas.sum();
+	}
+
+	/** Conexões distintas que fizeram ao menos uma requisição. */
+	public int getConexoes()
+	{
+		return conexoes.size();
+	}
+
+	private <T> void rota(String caminho, Class<T> tipo, Function<T, Object> acao)
+	{
+		servidor.createContext(caminho, troca -> {
+			try
+			{
+				requisicoes.increment();
+				conexoes.add(troca.getRemoteAddress());
+				// Lê o corpo inteiro para a conexão poder ser reusada
+				byte[] corpo = troca.getRequestBody().readAllBytes();
+				if (!caminho.equals(troca.getRequestURI().getPath()))
+				{
+					responder(troca, 404, TEXTO, texto("Caminho desconhecido."));
+				}
+				else if (!"POST".equals(troca.getRequestMethod()))
+				{
+					responder(troca, 405, TEXTO, texto("Use POST."));
+				}
+				else
+				{
+					executar(troca, () -> acao.apply(ler(corpo, tipo)));
+				}
+			}
+			finally
+			{
+				troca.close();
+			}
+		});
+	}
+
+	private <T> T ler(byte[] corpo, Class<T> tipo)
+	{
+		try
+		{
+			return json.readValue(corpo, tipo);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("JSON inválido: " + e.getMessage(), e);
+		}
+	}
+
+	private void executar(HttpExchange troca, Supplier<Object> acao) throws IOException
+	{
+		Object resposta;
+		try
+		{
+			resposta = acao.get();
+		}
+		catch (IllegalArgumentException e)
+		{
+			responder(troca, 400, TEXTO, texto(e.getMessage()));
+			return;
+		}
+		catch (IllegalStateException e)
+		{
+			responder(troca, 409, TEXTO, texto(e.getMessage()));
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			responder(troca, 500, TEXTO, texto(e.toString()));
+			return;
+		}
+
+		if (resposta == null)
+		{
+			troca.sendResponseHeaders(204, -1);
+		}
+		else
+		{
+			responder(troca, 200, JSON, json.writeValueAsBytes(resposta));
+		}
+	}
+
+	private void responder(HttpExchange troca, int status, String tipo, byte[] corpo) throws IOException
+	{
+		troca.getResponseHeaders().set("Content-Type", tipo);
+		if (corpo.length >= tamanhoMinimoCompressao && aceitaGzip(troca))
+		{
+			corpo = gzip(corpo);
+			troca.getResponseHeaders().set("Content-Encoding", "gzip");
+			respostasCompactadas.increment();
+		}
+		troca.sendResponseHeaders(status, corpo.length);
+		troca.getResponseBody().write(corpo);
+	}
+
+	private static boolean aceitaGzip(HttpExchange troca)
+	{
+		List<String> aceitas = troca.getRequestHeaders().get("Accept-Encoding");
+		return aceitas != null && aceitas.stream().anyMatch(v -> v.toLowerCase().contains("gzip"));
+	}
+
+	private static byte[] gzip(byte[] corpo) throws IOException
+	{
+		ByteArrayOutputStream saida = new ByteArrayOutputStream(corpo.length / 2 + 32);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(saida))
+		{
+			gzip.write(corpo);
+		}
+		return saida.toByteArray();
+	}
+
+	private static byte[] texto(String mensagem)
+	{
+		return (mensagem == null ? "" : mensagem).getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,103 @@
+package ecommerce.external.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import feign.hc5.ApacheHttp5Client;
+import feign.jackson.JacksonDecoder;
+import feign.jackson.JacksonEncoder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Monta os clientes Feign de estoque e pagamento sobre um único pool de
+ * conexões do Apache HttpClient 5.
+ * <ul>
+ * <li>As conexões continuam abertas entre as chamadas (keep-alive) e são
+ * fechadas depois de {@code ociosidadeMaxima} sem uso.</li>
+ * <li>O HttpClient anuncia {@code Accept-Encoding: gzip, deflate} e
+ * descompacta as respostas antes do JSON ser lido.</li>
+ * <li>Não há repetição automática, nem do HttpClient nem do Feign: quem
+ * decide repetir é a {@link ecommerce.external.resiliencia.Protecao}.</li>
+ * </ul>
+ * Com {@code reusarConexoes = false}, cada chamada abre e fecha a própria
+ * conexão, o que serve para medir o custo do reuso.
+ */
+public class ClientesHttp
+{
+	private final CloseableHttpClient http;
+	private final ObjectMapper json;
+	private final Duration tempoConexao;
+
+	public ClientesHttp(ObjectMapper json, Duration tempoConexao, int maximoConexoes, int maximoConexoesPorRota,
+			Duration ociosidadeMaxima, boolean reusarConexoes)
+	{
+		if (maximoConexoes <= 0 || maximoConexoesPorRota <= 0)
+		{
+			throw new IllegalArgumentException("Limites do pool de conexões devem ser positivos.");
+		}
+
+		HttpClientBuilder builder = HttpClients.custom()
+				.setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+						.setMaxConnTotal(maximoConexoes)
+						.setMaxConnPerRoute(maximoConexoesPorRota)
+						.setDefaultConnectionConfig(ConnectionConfig.custom()
+								.setConnectTimeout(Timeout.ofMilliseconds(tempoConexao.toMillis()))
+								.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+								.build())
+						.build())
+				.evictIdleConnections(TimeValue.ofMilliseconds(ociosidadeMaxima.toMillis()))
+				.disableAutomaticRetries()
+				.disableCookieManagement();
+		if (!reusarConexoes)
+		{
+			builder.setConnectionReuseStrategy((requisicao, resposta, contexto) -> false);
+		}
+
+		this.http = builder.build();
+		this.json = json;
+		this.tempoConexao = tempoConexao;
+	}
+
+	public EstoqueHttp estoque(String url, Duration tempoLeitura)
+	{
+		return new EstoqueHttp(cliente(EstoqueClient.class, "estoque", url, tempoLeitura));
+	}
+
+	public PagamentoHttp pagamento(String url, Duration tempoLeitura)
+	{
+		return new PagamentoHttp(cliente(PagamentoClient.class, "pagamento", url, tempoLeitura));
+	}
+
+	private <T> T cliente(Class<T> contrato, String servico, String url, Duration tempoLeitura)
+	{
+		return Feign.builder()
+				.client(new ApacheHttp5Client(http))
+				.encoder(new JacksonEncoder(json))
+				.decoder(new JacksonDecoder(json))
+				.errorDecoder(new ErrosHttp(servico))
+				.retryer(Retryer.NEVER_RETRY)
+				.options(new Request.Options(tempoConexao.toMillis(), TimeUnit.MILLISECONDS, tempoLeitura.toMillis(),
+						TimeUnit.MILLISECONDS, false))
+				.target(contrato, url);
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		http.close(CloseMode.GRACEFUL);
+	}
+}
@@ -0,0 +1,81 @@
+package ecommerce.external.http;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import feign.FeignException;
+import feign.Response;
+import feign.Util;
+import feign.codec.ErrorDecoder;
+
+/**
+ * Traduz as falhas das chamadas HTTP para as exceções que o checkout já trata:
+ * 400 e 422 viram {@link IllegalArgumentException}; os demais status e as
+ * falhas de conexão, leitura ou decodificação viram
+ * {@link IllegalStateException} (409 no controller). A mensagem de erro vem
+ * do corpo da resposta quando houver.
+ */
+final class ErrosHttp implements ErrorDecoder
+{
+	private final String servico;
+
+	ErrosHttp(String servico)
+	{
+		this.servico = servico;
+	}
+
+	@Override
+	public Exception decode(String metodo, Response resposta)
+	{
+		String mensagem = corpo(resposta);
+		int status = resposta.status();
+		if (status == 400 || status == 422)
+		{
+			return new IllegalArgumentException(
+					mensagem.isEmpty() ? "Pedido recusado pelo serviço de " + servico + "." : mensagem);
+		}
+		if (status == 409 && !mensagem.isEmpty())
+		{
+			return new IllegalStateException(mensagem);
+		}
+		return new IllegalStateException("Serviço de " + servico + " respondeu com status " + status + ".");
+	}
+
+	<T> T chamar(Supplier<T> chamada)
+	{
+		try
+		{
+			return chamada.get();
+		}
+		catch (FeignException e)
+		{
+			throw new IllegalStateException("Falha na chamada ao serviço de " + servico + ".", e);
+		}
+	}
+
+	void chamar(Runnable chamada)
+	{
+		chamar(() -> {
+			chamada.run();
+			return null;
+		});
+	}
+
+	private static String corpo(Response resposta)
+	{
+		if (resposta.body() == null)
+		{
+			return "";
+		}
+		try (Reader leitor = resposta.body().asReader(StandardCharsets.UTF_8))
+		{
+			return Util.toString(leitor).trim();
+		}
+		catch (IOException e)
+		{
+			return "";
+		}
+	}
+}
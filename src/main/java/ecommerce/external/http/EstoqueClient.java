@@ -0,0 +1,39 @@
+package ecommerce.external.http;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.dto.SolicitacaoReservaDTO;
+import feign.Headers;
+import feign.RequestLine;
+
+/**
+ * Contrato HTTP do serviço de estoque. Os caminhos ficam em constantes para o
+ * {@link ecommerce.external.fake.ServidorExternoSimulado} servir o mesmo
+ * contrato.
+ */
+@Headers({ "Content-Type: application/json", "Accept: application/json" })
+public interface EstoqueClient
+{
+	String DISPONIBILIDADE = "/estoque/disponibilidade";
+	String BAIXA = "/estoque/baixa";
+	String RESERVAS = "/estoque/reservas";
+	String CONFIRMACAO = "/estoque/reservas/confirmacao";
+	String LIBERACAO = "/estoque/reservas/liberacao";
+
+	@RequestLine("POST " + DISPONIBILIDADE)
+	DisponibilidadeDTO verificarDisponibilidade(ItensEstoqueDTO itens);
+
+	@RequestLine("POST " + BAIXA)
+	EstoqueBaixaDTO darBaixa(ItensEstoqueDTO itens);
+
+	@RequestLine("POST " + RESERVAS)
+	ReservaEstoqueDTO reservar(SolicitacaoReservaDTO solicitacao);
+
+	@RequestLine("POST " + CONFIRMACAO)
+	EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva);
+
+	@RequestLine("POST " + LIBERACAO)
+	void liberarReserva(ReservaEstoqueDTO reserva);
+}
@@ -0,0 +1,65 @@
+package ecommerce.external.http;
+
+import java.time.Duration;
+import java.util.List;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.dto.SolicitacaoReservaDTO;
+import ecommerce.external.IEstoqueExternal;
+
+/**
+ * Serviço de estoque remoto, chamado pelo {@link EstoqueClient}. As variantes
+ * com lote usam as visões de lista do {@link ecommerce.dto.LoteEstoqueDTO},
+ * serializadas sem cópia intermediária. Falhas seguem {@link ErrosHttp}.
+ */
+public class EstoqueHttp implements IEstoqueExternal
+{
+	private final EstoqueClient cliente;
+	private final ErrosHttp erros = new ErrosHttp("estoque");
+
+	public EstoqueHttp(EstoqueClient cliente)
+	{
+		this.cliente = cliente;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return erros.chamar(() -> cliente.darBaixa(new ItensEstoqueDTO(produtosIds, produtosQuantidades)));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return erros.chamar(
+				() -> cliente.verificarDisponibilidade(new ItensEstoqueDTO(produtosIds, produtosQuantidades)));
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl)
+	{
+		return erros.chamar(() -> cliente
+				.reservar(new SolicitacaoReservaDTO(produtosIds, produtosQuantidades, ttl.toMillis())));
+	}
+
+	@Override
+	public boolean reservaNativa()
+	{
+		return true;
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva)
+	{
+		return erros.chamar(() -> cliente.confirmarReserva(reserva));
+	}
+
+	@Override
+	public void liberarReserva(ReservaEstoqueDTO reserva)
+	{
+		erros.chamar(() -> cliente.liberarReserva(reserva));
+	}
+}
@@ -0,0 +1,21 @@
+package ecommerce.external.http;
+
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.SolicitacaoPagamentoDTO;
+import feign.Headers;
+import feign.RequestLine;
+
+/** Contrato HTTP do gateway de pagamento (ver {@link EstoqueClient}). */
+@Headers({ "Content-Type: application/json", "Accept: application/json" })
+public interface PagamentoClient
+{
+	String AUTORIZACAO = "/pagamentos/autorizacao";
+	String CANCELAMENTO = "/pagamentos/cancelamento";
+
+	@RequestLine("POST " + AUTORIZACAO)
+	PagamentoDTO autorizarPagamento(SolicitacaoPagamentoDTO solicitacao);
+
+	@RequestLine("POST " + CANCELAMENTO)
+	void cancelarPagamento(CancelamentoPagamentoDTO cancelamento);
+}
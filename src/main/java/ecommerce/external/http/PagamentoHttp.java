@@ -0,0 +1,30 @@
+package ecommerce.external.http;
+
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.SolicitacaoPagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+
+/** Gateway de pagamento remoto, chamado pelo {@link PagamentoClient}. Falhas seguem {@link ErrosHttp}. */
+public class PagamentoHttp implements IPagamentoExternal
+{
+	private final PagamentoClient cliente;
+	private final ErrosHttp erros = new ErrosHttp("pagamento");
+
+	public PagamentoHttp(PagamentoClient cliente)
+	{
+		this.cliente = cliente;
+	}
+
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
+	{
+		return erros.chamar(() -> cliente.autorizarPagamento(new SolicitacaoPagamentoDTO(clienteId, custoTotal)));
+	}
+
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
+	{
+		erros.chamar(() -> cliente.cancelarPagamento(new CancelamentoPagamentoDTO(clienteId, pagamentoTransacaoId)));
+	}
+}
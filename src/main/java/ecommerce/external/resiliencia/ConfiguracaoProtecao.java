@@ -0,0 +1,39 @@
+package ecommerce.external.resiliencia;
+
+import java.time.Duration;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Parâmetros da {@link Protecao} de uma dependência, lidos de
+ * {@code ecommerce.resiliencia.<dependencia>.*}.
+ *
+ * @param tempoLimite        espera máxima da thread da requisição pela chamada
+ * @param concorrenciaMaxima chamadas simultâneas à dependência (bulkhead)
+ * @param capacidadeFila     chamadas aguardando uma thread do bulkhead; acima
+ *                           disso a chamada é rejeitada na hora
+ * @param limiarFalhas       percentual de falhas na janela que abre o circuito
+ * @param janela             últimas chamadas consideradas pelo circuito
+ * @param minimoChamadas     chamadas necessárias antes de calcular o percentual
+ * @param esperaAberto       tempo com o circuito aberto antes de testar de novo
+ * @param chamadasMeioAberto chamadas de teste com o circuito meio aberto
+ */
+public record ConfiguracaoProtecao(Duration tempoLimite, int concorrenciaMaxima, int capacidadeFila,
+		float limiarFalhas, int janela, int minimoChamadas, Duration esperaAberto, int chamadasMeioAberto)
+{
+	public static final String PREFIXO = "ecommerce.resiliencia.";
+
+	public static ConfiguracaoProtecao de(Environment env, String dependencia, Duration tempoLimitePadrao)
+	{
+		String prefixo = PREFIXO + dependencia + ".";
+		return new ConfiguracaoProtecao(
+				env.getProperty(prefixo + "tempo-limite", Duration.class, tempoLimitePadrao),
+				env.getProperty(prefixo + "concorrencia-maxima", Integer.class, 32),
+				env.getProperty(prefixo + "capacidade-fila", Integer.class, 64),
+				env.getProperty(prefixo + "limiar-falhas", Float.class, 50f),
+				env.getProperty(prefixo + "janela", Integer.class, 50),
+				env.getProperty(prefixo + "minimo-chamadas", Integer.class, 20),
+				env.getProperty(prefixo + "espera-aberto", Duration.class, Duration.ofSeconds(10)),
+				env.getProperty(prefixo + "chamadas-meio-aberto", Integer.class, 5));
+	}
+}
@@ -0,0 +1,113 @@
+package ecommerce.external.resiliencia;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.external.IEstoqueExternal;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Serviço de estoque com todas as chamadas passando pela {@link Protecao}. A
+ * baixa e a confirmação de reserva não têm como ser desfeitas, então esperam o
+ * desfecho real em vez de desistir no tempo limite: uma baixa tardia depois da
+ * compra já compensada perderia estoque.
+ * <p>
+ * Já a reserva desiste no tempo limite; uma reserva que chega depois disso
+ * ficaria presa até vencer o prazo dela, então é liberada na thread do
+ * bulkhead, como as autorizações tardias do {@link PagamentoResiliente}.
+ */
+public class EstoqueResiliente implements IEstoqueExternal
+{
+	private static final Logger log = LoggerFactory.getLogger(EstoqueResiliente.class);
+
+	private final IEstoqueExternal estoque;
+	private final Protecao protecao;
+
+	public EstoqueResiliente(IEstoqueExternal estoque, Protecao protecao)
+	{
+		this.estoque = estoque;
+		this.protecao = protecao;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return protecao.executarSemTempoLimite(() -> estoque.darBaixa(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoqueDTO lote)
+	{
+		return protecao.executarSemTempoLimite(() -> estoque.darBaixa(lote));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return protecao.executar(() -> estoque.verificarDisponibilidade(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote)
+	{
+		return protecao.executar(() -> estoque.verificarDisponibilidade(lote));
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl)
+	{
+		return protecao.executar(() -> estoque.reservar(produtosIds, produtosQuantidades, ttl), this::liberarTardia);
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(LoteEstoqueDTO lote, Duration ttl)
+	{
+		return protecao.executar(() -> estoque.reservar(lote, ttl), this::liberarTardia);
+	}
+
+	private void liberarTardia(ReservaEstoqueDTO tardia)
+	{
+		if (tardia != null && Boolean.TRUE.equals(tardia.reservado()) && tardia.token() != null)
+		{
+			log.warn("Reserva {} chegou depois do tempo limite; liberando.", tardia.token());
+			estoque.liberarReserva(tardia);
+		}
+	}
+
+	@Override
+	public boolean reservaNativa()
+	{
+		return estoque.reservaNativa();
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva)
+	{
+		return protecao.executarSemTempoLimite(() -> estoque.confirmarReserva(reserva));
+	}
+
+	@Override
+	public void liberarReserva(ReservaEstoqueDTO reserva)
+	{
+		protecao.executar(() -> estoque.liberarReserva(reserva));
+	}
+
+	public Protecao getProtecao()
+	{
+		return protecao;
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		protecao.encerrar();
+	}
+}
@@ -0,0 +1,74 @@
+package ecommerce.external.resiliencia;
+
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gateway de pagamento com as chamadas passando pela {@link Protecao}.
+ * <p>
+ * Uma autorização que chega depois do tempo limite cobraria o cliente por uma
+ * compra que já falhou; ela é entregue ao cancelamento tardio, que por padrão
+ * cancela direto no gateway, na thread do bulkhead.
+ */
+public class PagamentoResiliente implements IPagamentoExternal
+{
+	private static final Logger log = LoggerFactory.getLogger(PagamentoResiliente.class);
+
+	private final IPagamentoExternal pagamento;
+	private final Protecao protecao;
+	private final BiConsumer<Long, Long> cancelamentoTardio;
+
+	public PagamentoResiliente(IPagamentoExternal pagamento, Protecao protecao)
+	{
+		this(pagamento, protecao, null);
+	}
+
+	/**
+	 * @param cancelamentoTardio recebe cliente e transação de uma autorização
+	 *                           tardia; {@code null} cancela direto no gateway
+	 */
+	public PagamentoResiliente(IPagamentoExternal pagamento, Protecao protecao,
+			BiConsumer<Long, Long> cancelamentoTardio)
+	{
+		this.pagamento = pagamento;
+		this.protecao = protecao;
+		this.cancelamentoTardio = cancelamentoTardio != null ? cancelamentoTardio : pagamento::cancelarPagamento;
+	}
+
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
+	{
+		return protecao.executar(() -> pagamento.autorizarPagamento(clienteId, custoTotal), tardia ->
+		{
+			if (tardia != null && Boolean.TRUE.equals(tardia.autorizado()))
+			{
+				log.warn("Autorização {} do cliente {} chegou depois do tempo limite; cancelando.",
+						tardia.transacaoId(), clienteId);
+				cancelamentoTardio.accept(clienteId, tardia.transacaoId());
+			}
+		});
+	}
+
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
+	{
+		protecao.executar(() -> pagamento.cancelarPagamento(clienteId, pagamentoTransacaoId));
+	}
+
+	public Protecao getProtecao()
+	{
+		return protecao;
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		protecao.encerrar();
+	}
+}
@@ -0,0 +1,311 @@
+package ecommerce.external.resiliencia;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedThreadPoolBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tempo limite, bulkhead e circuit breaker de uma dependência externa.
+ * <p>
+ * A chamada roda num pool próprio e limitado (bulkhead); a thread da requisição
+ * espera no máximo o tempo limite e segue. Uma chamada lenta continua ocupando
+ * a thread do bulkhead até terminar, de modo que uma dependência travada
+ * esgota só o próprio pool e as próximas chamadas são rejeitadas na hora, sem
+ * prender threads do servlet. Tempos limite e falhas contam para o circuito;
+ * aberto, ele rejeita sem chamar a dependência até o tempo de espera passar.
+ * {@link IllegalArgumentException} (erro do pedido) e rejeições do bulkhead não
+ * contam como falha da dependência.
+ * <p>
+ * Quem desiste no tempo limite não vê o resultado da chamada, que ainda pode ter
+ * efeito: {@link #executar(Supplier, Consumer)} entrega esse resultado tardio
+ * para ser desfeito, e {@link #executarSemTempoLimite(Supplier)} espera o
+ * desfecho das operações que não têm como ser desfeitas.
+ * <p>
+ * Toda rejeição vira {@link IllegalStateException}, que {@code CompraController}
+ * já responde com 409. Além das métricas {@code resilience4j.*}, publica
+ * {@code resiliencia.rejeicoes{dependencia, motivo}} e
+ * {@code resiliencia.circuito.transicoes{dependencia, de, para}}.
+ */
+public class Protecao
+{
+	private static final Logger log = LoggerFactory.getLogger(Protecao.class);
+
+	private final String dependencia;
+	private final CircuitBreaker circuito;
+	private final ThreadPoolBulkhead bulkhead;
+	private final TimeLimiter tempoLimite;
+
+	private final Counter rejeicoesCircuitoAberto;
+	private final Counter rejeicoesBulkheadCheio;
+	private final Counter rejeicoesTempoLimite;
+
+	public Protecao(String dependencia, ConfiguracaoProtecao configuracao, MeterRegistry registry)
+	{
+		this.dependencia = dependencia;
+
+		CircuitBreakerRegistry circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.failureRateThreshold(configuracao.limiarFalhas())
+				.slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+				.slidingWindowSize(configuracao.janela())
+				.minimumNumberOfCalls(configuracao.minimoChamadas())
+				.waitDurationInOpenState(configuracao.esperaAberto())
+				.permittedNumberOfCallsInHalfOpenState(configuracao.chamadasMeioAberto())
+				.ignoreExceptions(IllegalArgumentException.class, BulkheadFullException.class)
+				.build());
+		ThreadPoolBulkheadRegistry bulkheads = ThreadPoolBulkheadRegistry.of(ThreadPoolBulkheadConfig.custom()
+				.coreThreadPoolSize(configuracao.concorrenciaMaxima())
+				.maxThreadPoolSize(configuracao.concorrenciaMaxima())
+				.queueCapacity(configuracao.capacidadeFila())
+				.build());
+		// O futuro é cancelado, mas a chamada já iniciada não é interrompida: o
+		// cliente HTTP da dependência é quem decide quando desistir
+		TimeLimiterRegistry limites = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+				.timeoutDuration(configuracao.tempoLimite())
+				.cancelRunningFuture(true)
+				.build());
+
+		this.circuito = circuitos.circuitBreaker(dependencia);
+		this.bulkhead = bulkheads.bulkhead(dependencia);
+		this.tempoLimite = limites.timeLimiter(dependencia);
+
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitos).bindTo(registry);
+		TaggedThreadPoolBulkheadMetrics.ofThreadPoolBulkheadRegistry(bulkheads).bindTo(registry);
+		TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(limites).bindTo(registry);
+
+		this.rejeicoesCircuitoAberto = rejeicoes(registry, "circuito-aberto");
+		this.rejeicoesBulkheadCheio = rejeicoes(registry, "bulkhead-cheio");
+		this.rejeicoesTempoLimite = rejeicoes(registry, "tempo-limite");
+
+		circuito.getEventPublisher().onStateTransition(evento -> Counter.builder("resiliencia.circuito.transicoes")
+				.description("Mudanças de estado do circuit breaker")
+				.tag("dependencia", dependencia)
+				.tag("de", nome(evento.getStateTransition().getFromState()))
+				.tag("para", nome(evento.getStateTransition().getToState()))
+				.register(registry).increment());
+	}
+
+	public <T> T executar(Supplier<T> chamada)
+	{
+		return executar(chamada, null);
+	}
+
+	/**
+	 * Como {@link #executar(Supplier)}, mas um resultado que chegue depois do
+	 * tempo limite, quando a requisição já desistiu, é entregue a
+	 * {@code tardia} na thread do bulkhead. Serve para desfazer um efeito que a
+	 * requisição não vai mais ver, como uma autorização de pagamento. Se o
+	 * resultado chegou junto com o tempo limite, ele é devolvido normalmente.
+	 */
+	public <T> T executar(Supplier<T> chamada, Consumer<? super T> tardia)
+	{
+		adquirirPermissao();
+
+		ChamadaRastreada<T> rastreada = tardia != null ? new ChamadaRastreada<>(chamada, tardia) : null;
+		long inicio = System.nanoTime();
+		try
+		{
+			CompletableFuture<T> futuro = bulkhead.executeSupplier(rastreada != null ? rastreada : chamada)
+					.toCompletableFuture();
+			T resultado = tempoLimite.executeFutureSupplier(() -> futuro);
+			circuito.onResult(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, resultado);
+			return resultado;
+		}
+		catch (TimeoutException e)
+		{
+			if (rastreada != null && !rastreada.abandonar())
+			{
+				T resultado = rastreada.resultado;
+				circuito.onResult(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, resultado);
+				return resultado;
+			}
+			circuito.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+			rejeicoesTempoLimite.increment();
+			throw new IllegalStateException("Tempo limite do serviço de " + dependencia + " excedido.", e);
+		}
+		catch (Exception e)
+		{
+			throw falha(e, inicio);
+		}
+		catch (Error e)
+		{
+			circuito.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Circuito e bulkhead, sem tempo limite: a requisição espera o desfecho real,
+	 * limitado só pelo cliente HTTP da dependência. Para operações que não têm
+	 * como ser desfeitas se o resultado chegar depois que a requisição desistiu,
+	 * como a confirmação de uma reserva de estoque.
+	 */
+	public <T> T executarSemTempoLimite(Supplier<T> chamada)
+	{
+		adquirirPermissao();
+
+		long inicio = System.nanoTime();
+		try
+		{
+			T resultado = bulkhead.executeSupplier(chamada).toCompletableFuture().get();
+			circuito.onResult(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, resultado);
+			return resultado;
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Error erro)
+			{
+				circuito.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, erro);
+				throw erro;
+			}
+			throw falha(e.getCause() instanceof Exception causa ? causa : e, inicio);
+		}
+		catch (Exception e)
+		{
+			throw falha(e, inicio);
+		}
+	}
+
+	private void adquirirPermissao()
+	{
+		if (!circuito.tryAcquirePermission())
+		{
+			rejeicoesCircuitoAberto.increment();
+			throw new IllegalStateException(
+					"Serviço de " + dependencia + " indisponível no momento (circuito aberto).");
+		}
+	}
+
+	/** Registra a falha no circuito e devolve a exceção a lançar. */
+	private RuntimeException falha(Exception e, long inicio)
+	{
+		if (e instanceof BulkheadFullException)
+		{
+			circuito.releasePermission();
+			rejeicoesBulkheadCheio.increment();
+			return new IllegalStateException("Serviço de " + dependencia + " saturado; tente novamente.", e);
+		}
+
+		circuito.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+		if (e instanceof RuntimeException runtime)
+		{
+			return runtime;
+		}
+		if (e instanceof InterruptedException)
+		{
+			Thread.currentThread().interrupt();
+		}
+		return new IllegalStateException("Falha na chamada ao serviço de " + dependencia + ".", e);
+	}
+
+	public void executar(Runnable chamada)
+	{
+		executar(() ->
+		{
+			chamada.run();
+			return null;
+		});
+	}
+
+	public CircuitBreaker.State getEstadoCircuito()
+	{
+		return circuito.getState();
+	}
+
+	public void encerrar()
+	{
+		try
+		{
+			bulkhead.close();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Falha ao encerrar o bulkhead de " + dependencia + ".", e);
+		}
+	}
+
+	private Counter rejeicoes(MeterRegistry registry, String motivo)
+	{
+		return Counter.builder("resiliencia.rejeicoes")
+				.description("Chamadas rejeitadas sem resposta da dependência")
+				.tag("dependencia", dependencia)
+				.tag("motivo", motivo)
+				.register(registry);
+	}
+
+	private static String nome(CircuitBreaker.State estado)
+	{
+		return estado.name().toLowerCase(Locale.ROOT).replace('_', '-');
+	}
+
+	/**
+	 * Chamada que decide, com um único CAS, quem fica com o resultado: a
+	 * requisição, se ele chegar antes do tempo limite, ou o tratamento tardio.
+	 */
+	private static final class ChamadaRastreada<T> implements Supplier<T>
+	{
+		private final Supplier<T> chamada;
+		private final Consumer<? super T> tardia;
+		private final AtomicBoolean decidida = new AtomicBoolean();
+		private volatile T resultado;
+
+		ChamadaRastreada(Supplier<T> chamada, Consumer<? super T> tardia)
+		{
+			this.chamada = chamada;
+			this.tardia = tardia;
+		}
+
+		@Override
+		public T get()
+		{
+			T obtido = chamada.get();
+			resultado = obtido;
+			if (!decidida.compareAndSet(false, true))
+			{
+				entregarTardia(obtido);
+			}
+			return obtido;
+		}
+
+		/** {@code false} se o resultado já chegou e fica com a requisição. */
+		boolean abandonar()
+		{
+			return decidida.compareAndSet(false, true);
+		}
+
+		private void entregarTardia(T obtido)
+		{
+			try
+			{
+				tardia.accept(obtido);
+			}
+			catch (RuntimeException e)
+			{
+				log.error("Falha ao tratar um resultado que chegou depois do tempo limite: {}", obtido, e);
+			}
+		}
+	}
+}
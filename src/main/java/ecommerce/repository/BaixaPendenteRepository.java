@@ -0,0 +1,42 @@
+package ecommerce.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.BaixaPendente;
+import ecommerce.entity.SituacaoBaixa;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface BaixaPendenteRepository extends JpaRepository<BaixaPendente, Long>
+{
+
+	/**
+	 * Baixas nas situações que já podem ser tentadas (sem espera pendente ou com
+	 * a reivindicação vencida), na ordem em que foram gravadas, travadas para
+	 * escrita até o fim da transação. Linhas já travadas por outro despachante
+	 * são puladas ({@code SKIP LOCKED}) onde o banco suporta; nos demais, a
+	 * consulta espera a transação de reivindicação dele, que é curta.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+	@Query("select b from BaixaPendente b where b.situacao in :situacoes"
+			+ " and (b.proximaTentativa is null or b.proximaTentativa <= :agora) order by b.id")
+	List<BaixaPendente> buscarDespachaveis(@Param("situacoes") Collection<SituacaoBaixa> situacoes,
+			@Param("agora") Instant agora, Pageable pagina);
+
+	/** Baixas nas situações com id até {@code id}, na ordem de gravação, para a ordem por produto. */
+	List<BaixaPendente> findBySituacaoInAndIdLessThanEqualOrderByIdAsc(Collection<SituacaoBaixa> situacoes, Long id);
+
+	long countBySituacaoIn(Collection<SituacaoBaixa> situacoes);
+}
@@ -0,0 +1,26 @@
+package ecommerce.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.CancelamentoPendente;
+import ecommerce.entity.SituacaoCancelamento;
+
+@Repository
+public interface CancelamentoPendenteRepository extends JpaRepository<CancelamentoPendente, Long>
+{
+
+	/** Cancelamentos na situação que já podem ser tentados, os mais atrasados primeiro. */
+	List<CancelamentoPendente> findBySituacaoAndProximaTentativaLessThanEqualOrderByProximaTentativaAsc(
+			SituacaoCancelamento situacao, Instant agora, Pageable pagina);
+
+	long countBySituacao(SituacaoCancelamento situacao);
+
+	/** O cancelamento mais antigo na situação, para medir a idade da fila. */
+	Optional<CancelamentoPendente> findFirstBySituacaoOrderByCriadoEmAsc(SituacaoCancelamento situacao);
+}
@@ -1,7 +1,10 @@
 package ecommerce.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,5 +15,11 @@ import ecommerce.entity.Cliente;
 public interface CarrinhoDeComprasRepository extends JpaRepository<CarrinhoDeCompras, Long>
 {
 
+	/** Carrega o carrinho com cliente, itens e produtos numa única consulta. */
+	@EntityGraph(attributePaths = { "cliente", "itens", "itens.produto" })
 	Optional<CarrinhoDeCompras> findByIdAndCliente(Long id, Cliente cliente);
+
+	/** Carrega os carrinhos com cliente, itens e produtos numa única consulta. */
+	@EntityGraph(attributePaths = { "cliente", "itens", "itens.produto" })
+	List<CarrinhoDeCompras> findByIdIn(Collection<Long> ids);
 }
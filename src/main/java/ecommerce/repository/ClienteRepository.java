@@ -1,11 +1,77 @@
 package ecommerce.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ecommerce.config.CacheConfig;
 import ecommerce.entity.Cliente;
 
+/**
+ * {@link #buscarDados(Long)} passa pelo cache {@link CacheConfig#CLIENTES},
+ * inclusive para ids inexistentes; toda gravação ou remoção invalida as
+ * entradas afetadas. O cache guarda {@link DadosCliente}, e não a entidade,
+ * para que threads diferentes não compartilhem a mesma instância mutável.
+ */
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long>
 {
-}
\ No newline at end of file
+
+	@Cacheable(cacheNames = CacheConfig.CLIENTES, key = "#p0")
+	@Query("select new ecommerce.repository.DadosCliente(c.id, c.nome, c.regiao, c.tipo) from Cliente c where c.id = :id")
+	Optional<DadosCliente> buscarDados(@Param("id") Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, key = "#result.id")
+	<S extends Cliente> S save(S cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, key = "#result.id")
+	<S extends Cliente> S saveAndFlush(S cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	<S extends Cliente> List<S> saveAll(Iterable<S> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	<S extends Cliente> List<S> saveAllAndFlush(Iterable<S> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, key = "#p0")
+	void deleteById(Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, key = "#p0.id")
+	void delete(Cliente cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAll(Iterable<? extends Cliente> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAllById(Iterable<? extends Long> ids);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAll();
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAllInBatch();
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAllInBatch(Iterable<Cliente> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, allEntries = true)
+	void deleteAllByIdInBatch(Iterable<Long> ids);
+}
@@ -0,0 +1,15 @@
+package ecommerce.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.Compra;
+
+@Repository
+public interface CompraRepository extends JpaRepository<Compra, Long>
+{
+
+	Optional<Compra> findByTransacaoId(Long transacaoId);
+}
@@ -0,0 +1,18 @@
+package ecommerce.repository;
+
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Campos de um {@link Cliente}, imutáveis, como ficam no cache de clientes:
+ * cada leitura monta um {@link Cliente} novo a partir deles, e nenhuma
+ * requisição altera o que outra vai ler.
+ */
+public record DadosCliente(Long id, String nome, Regiao regiao, TipoCliente tipo)
+{
+	public Cliente novoCliente()
+	{
+		return new Cliente(id, nome, regiao, tipo);
+	}
+}
@@ -0,0 +1,20 @@
+package ecommerce.repository;
+
+import java.math.BigDecimal;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Campos de um {@link Produto}, imutáveis, como ficam no cache de produtos:
+ * cada leitura monta um {@link Produto} novo a partir deles, e nenhuma
+ * requisição altera o que outra vai ler.
+ */
+public record DadosProduto(Long id, String nome, String descricao, BigDecimal preco, BigDecimal pesoFisico,
+		BigDecimal comprimento, BigDecimal largura, BigDecimal altura, Boolean fragil, TipoProduto tipo)
+{
+	public Produto novoProduto()
+	{
+		return new Produto(id, nome, descricao, preco, pesoFisico, comprimento, largura, altura, fragil, tipo);
+	}
+}
@@ -1,11 +1,80 @@
 package ecommerce.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ecommerce.config.CacheConfig;
 import ecommerce.entity.Produto;
 
+/**
+ * {@link #buscarDados(Long)} passa pelo cache {@link CacheConfig#PRODUTOS},
+ * inclusive para ids inexistentes; toda gravação ou remoção invalida as
+ * entradas afetadas. Dentro de uma transação a invalidação só acontece depois
+ * do commit, e as entradas expiram em {@code ecommerce.cache.produtos.ttl}. O
+ * cache guarda {@link DadosProduto}, e não a entidade, para que threads
+ * diferentes não compartilhem a mesma instância mutável.
+ */
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long>
 {
+
+	@Cacheable(cacheNames = CacheConfig.PRODUTOS, key = "#p0")
+	@Query("select new ecommerce.repository.DadosProduto(p.id, p.nome, p.descricao, p.preco, p.pesoFisico,"
+			+ " p.comprimento, p.largura, p.altura, p.fragil, p.tipo) from Produto p where p.id = :id")
+	Optional<DadosProduto> buscarDados(@Param("id") Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#result.id")
+	<S extends Produto> S save(S produto);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#result.id")
+	<S extends Produto> S saveAndFlush(S produto);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	<S extends Produto> List<S> saveAll(Iterable<S> produtos);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	<S extends Produto> List<S> saveAllAndFlush(Iterable<S> produtos);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#p0")
+	void deleteById(Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#p0.id")
+	void delete(Produto produto);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAll(Iterable<? extends Produto> produtos);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAllById(Iterable<? extends Long> ids);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAll();
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAllInBatch();
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAllInBatch(Iterable<Produto> produtos);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+	void deleteAllByIdInBatch(Iterable<Long> ids);
 }
@@ -1,5 +1,10 @@
 package ecommerce.service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -23,4 +28,11 @@ public class CarrinhoDeComprasService
 		return repository.findByIdAndCliente(carrinhoId, cliente)
 				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
 	}
+
+	/** Carrega vários carrinhos (com itens e produtos) de uma vez, indexados pelo id. */
+	public Map<Long, CarrinhoDeCompras> buscarPorIds(Collection<Long> carrinhoIds)
+	{
+		return repository.findByIdIn(carrinhoIds).stream()
+				.collect(Collectors.toMap(CarrinhoDeCompras::getId, Function.identity()));
+	}
 }
@@ -1,10 +1,18 @@
 package ecommerce.service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
+import ecommerce.config.CacheConfig;
 import ecommerce.entity.Cliente;
 import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.DadosCliente;
 
 @Service
 public class ClienteService
@@ -18,9 +26,30 @@ public class ClienteService
 		this.repository = repository;
 	}
 
+	/** Cliente lido do cache; cada chamada recebe uma instância própria, fora do contexto de persistência. */
 	public Cliente buscarPorId(Long clienteId)
 	{
-		return repository.findById(clienteId).orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+		return repository.buscarDados(clienteId).map(DadosCliente::novoCliente)
+				.orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+	}
+
+	/** Grava as alterações do cliente; o repositório invalida a entrada em cache. */
+	public Cliente atualizar(Cliente cliente)
+	{
+		return repository.save(cliente);
+	}
+
+	/** Descarta o cliente do cache (ex.: quando alterado fora desta aplicação). */
+	@CacheEvict(cacheNames = CacheConfig.CLIENTES, key = "#p0")
+	public void invalidar(Long clienteId)
+	{
+	}
+
+	/** Carrega vários clientes de uma vez, indexados pelo id. */
+	public Map<Long, Cliente> buscarPorIds(Collection<Long> clienteIds)
+	{
+		return repository.findAllById(clienteIds).stream()
+				.collect(Collectors.toMap(Cliente::getId, Function.identity()));
 	}
 
 }
@@ -0,0 +1,26 @@
+package ecommerce.service;
+
+import ecommerce.service.metricas.ResultadoCompra;
+
+/**
+ * Recusa de negócio no checkout (falta de estoque, pagamento recusado, baixa
+ * compensada). Continua sendo uma {@link IllegalStateException}, tratada como
+ * conflito pelo controller; o desfecho só alimenta as métricas.
+ */
+public class CompraRecusadaException extends IllegalStateException
+{
+	private static final long serialVersionUID = 1L;
+
+	private final ResultadoCompra resultado;
+
+	public CompraRecusadaException(ResultadoCompra resultado, String mensagem)
+	{
+		super(mensagem);
+		this.resultado = resultado;
+	}
+
+	public ResultadoCompra getResultado()
+	{
+		return resultado;
+	}
+}
@@ -1,27 +1,59 @@
 package ecommerce.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import ecommerce.dto.CompraDTO;
-import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
 import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
 import ecommerce.entity.Regiao;
 import ecommerce.entity.TipoCliente;
 import ecommerce.external.IEstoqueExternal;
 import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.diario.DiarioCompras;
+import ecommerce.service.diario.RegistroDiario;
+import ecommerce.service.metricas.CompraEvento;
+import ecommerce.service.metricas.EtapaCompra;
+import ecommerce.service.metricas.MetricasCompra;
+import ecommerce.service.metricas.PrecificacaoEvento;
+import ecommerce.service.metricas.ResultadoCompra;
+import ecommerce.service.outbox.FilaCompensacao;
+import ecommerce.service.outbox.OutboxBaixas;
+import ecommerce.service.precificacao.MotorPrecificacao;
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.PrecoDetalhado;
+import ecommerce.service.precificacao.PrecosMemorizados;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 
 @Service
 public class CompraService
 {
+	private static final Logger log = LoggerFactory.getLogger(CompraService.class);
+
+	public static final Duration TTL_RESERVA_PADRAO = Duration.ofSeconds(30);
 
 	private final CarrinhoDeComprasService carrinhoService;
 	private final ClienteService clienteService;
@@ -29,49 +61,343 @@ public class CompraService
 	private final IEstoqueExternal estoqueExternal;
 	private final IPagamentoExternal pagamentoExternal;
 
+	private final MotorPrecificacao motorPrecificacao;
+
+	/**
+	 * Executor da reserva de estoque no modo pipeline; {@code null} mantém a
+	 * reserva sequencial, antes da precificação.
+	 */
+	private final ExecutorService executorEstoque;
+
+	/** Prazo da reserva de estoque até a confirmação da baixa. */
+	private final Duration ttlReserva;
+
+	private final MetricasCompra metricas;
+
+	/** Custos já calculados por versão do carrinho e das regras. */
+	private final PrecosMemorizados precos;
+
+	/**
+	 * Outbox da baixa de estoque; {@code null} confirma a reserva durante a
+	 * requisição.
+	 */
+	private final OutboxBaixas outbox;
+
+	/**
+	 * Fila de compensação dos pagamentos a cancelar; {@code null} cancela no
+	 * gateway durante a requisição.
+	 */
+	private final FilaCompensacao compensacoes;
+
+	/** Grava a compra concluída; {@code null} não grava nada além do outbox. */
+	private final RegistroCompras registro;
+
+	/** Diário local dos desfechos; {@code null} não registra nada. */
+	private final DiarioCompras diario;
+
 	@Autowired
 	public CompraService(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
+			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal, MotorPrecificacao motorPrecificacao,
+			@Value("${ecommerce.compra.pipeline.habilitado:false}") boolean pipeline,
+			@Value("${ecommerce.compra.pipeline.threads:16}") int threads,
+			@Value("${ecommerce.compra.pipeline.capacidade-fila:256}") int capacidadeFila,
+			@Value("${ecommerce.compra.reserva.ttl:30s}") Duration ttlReserva,
+			ObjectProvider<MetricasCompra> metricas, ObjectProvider<PrecosMemorizados> precos,
+			ObjectProvider<OutboxBaixas> outbox, ObjectProvider<FilaCompensacao> compensacoes,
+			ObjectProvider<RegistroCompras> registro, ObjectProvider<DiarioCompras> diario)
+	{
+		this(construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+				.motorPrecificacao(motorPrecificacao)
+				.executorEstoque(pipeline ? criarExecutorEstoque(threads, capacidadeFila) : null)
+				.ttlReserva(ttlReserva)
+				.metricas(metricas.getIfAvailable(MetricasCompra::desligadas))
+				.precos(precos.getIfAvailable(PrecosMemorizados::desligados))
+				.outbox(outbox.getIfAvailable())
+				.compensacoes(compensacoes.getIfAvailable())
+				.registro(registro.getIfAvailable())
+				.diario(diario.getIfAvailable()));
+	}
+
+	private CompraService(Construtor construtor)
+	{
+		this.carrinhoService = construtor.carrinhoService;
+		this.clienteService = construtor.clienteService;
+
+		this.estoqueExternal = construtor.estoqueExternal;
+		this.pagamentoExternal = construtor.pagamentoExternal;
+
+		this.motorPrecificacao = construtor.motorPrecificacao;
+		this.executorEstoque = construtor.executorEstoque;
+		this.ttlReserva = construtor.ttlReserva;
+		this.metricas = construtor.metricas;
+		this.precos = construtor.precos;
+		this.outbox = construtor.outbox;
+		this.compensacoes = construtor.compensacoes;
+		this.registro = construtor.registro;
+		this.diario = construtor.diario;
+	}
+
+	/**
+	 * Monta o serviço fora do contexto Spring (testes e benchmarks). As partes
+	 * não informadas ficam como no contexto sem as funcionalidades opcionais:
+	 * motor {@link MotorPrecificacaoBigDecimal}, reserva sequencial, TTL
+	 * {@link #TTL_RESERVA_PADRAO}, métricas e memorização desligadas, sem
+	 * outbox, fila de compensação, registro da compra nem diário.
+	 */
+	public static Construtor construtor(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
 			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal)
 	{
-		this.carrinhoService = carrinhoService;
-		this.clienteService = clienteService;
+		return new Construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal);
+	}
+
+	public static final class Construtor
+	{
+		private final CarrinhoDeComprasService carrinhoService;
+		private final ClienteService clienteService;
+		private final IEstoqueExternal estoqueExternal;
+		private final IPagamentoExternal pagamentoExternal;
+
+		private MotorPrecificacao motorPrecificacao = new MotorPrecificacaoBigDecimal();
+		private ExecutorService executorEstoque;
+		private Duration ttlReserva = TTL_RESERVA_PADRAO;
+		private MetricasCompra metricas = MetricasCompra.desligadas();
+		private PrecosMemorizados precos = PrecosMemorizados.desligados();
+		private OutboxBaixas outbox;
+		private FilaCompensacao compensacoes;
+		private RegistroCompras registro;
+		private DiarioCompras diario;
+
+		private Construtor(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
+				IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal)
+		{
+			this.carrinhoService = carrinhoService;
+			this.clienteService = clienteService;
+			this.estoqueExternal = estoqueExternal;
+			this.pagamentoExternal = pagamentoExternal;
+		}
+
+		public Construtor motorPrecificacao(MotorPrecificacao motorPrecificacao)
+		{
+			this.motorPrecificacao = motorPrecificacao;
+			return this;
+		}
+
+		/** Executor da reserva no modo pipeline; {@code null} mantém a reserva sequencial. */
+		public Construtor executorEstoque(ExecutorService executorEstoque)
+		{
+			this.executorEstoque = executorEstoque;
+			return this;
+		}
+
+		public Construtor ttlReserva(Duration ttlReserva)
+		{
+			this.ttlReserva = ttlReserva;
+			return this;
+		}
+
+		public Construtor metricas(MetricasCompra metricas)
+		{
+			this.metricas = metricas;
+			return this;
+		}
+
+		public Construtor precos(PrecosMemorizados precos)
+		{
+			this.precos = precos;
+			return this;
+		}
 
-		this.estoqueExternal = estoqueExternal;
-		this.pagamentoExternal = pagamentoExternal;
+		public Construtor outbox(OutboxBaixas outbox)
+		{
+			this.outbox = outbox;
+			return this;
+		}
+
+		public Construtor compensacoes(FilaCompensacao compensacoes)
+		{
+			this.compensacoes = compensacoes;
+			return this;
+		}
+
+		public Construtor registro(RegistroCompras registro)
+		{
+			this.registro = registro;
+			return this;
+		}
+
+		public Construtor diario(DiarioCompras diario)
+		{
+			this.diario = diario;
+			return this;
+		}
+
+		public CompraService construir()
+		{
+			return new CompraService(this);
+		}
 	}
 
 	@Transactional
 	public CompraDTO finalizarCompra(Long carrinhoId, Long clienteId)
 	{
-		Cliente cliente = clienteService.buscarPorId(clienteId);
-		CarrinhoDeCompras carrinho = carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente);
-
-		List<Long> produtosIds = carrinho.getItens().stream().map(i -> i.getProduto().getId())
-				.collect(Collectors.toList());
-		List<Long> produtosQtds = carrinho.getItens().stream().map(i -> i.getQuantidade()).collect(Collectors.toList());
+		long inicio = System.nanoTime();
+		CompraEvento evento = new CompraEvento(carrinhoId, clienteId);
+		Andamento andamento = new Andamento();
+		evento.begin();
+		try
+		{
+			CompraDTO compraDTO = finalizar(carrinhoId, clienteId, evento, andamento);
+			registrarCompra(ResultadoCompra.SUCESSO, inicio, evento, carrinhoId, clienteId, andamento);
+			return compraDTO;
+		}
+		catch (CompraRecusadaException e)
+		{
+			registrarCompra(e.getResultado(), inicio, evento, carrinhoId, clienteId, andamento);
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			registrarCompra(ResultadoCompra.ERRO, inicio, evento, carrinhoId, clienteId, andamento);
+			throw e;
+		}
+	}
 
-		DisponibilidadeDTO disponibilidade = estoqueExternal.verificarDisponibilidade(produtosIds, produtosQtds);
+	private void registrarCompra(ResultadoCompra resultado, long inicio, CompraEvento evento, Long carrinhoId,
+			Long clienteId, Andamento andamento)
+	{
+		metricas.registrarCompra(resultado, inicio);
+		evento.concluir(resultado);
+		if (diario == null)
+		{
+			return;
+		}
 
-		if (!disponibilidade.disponivel())
+		if (resultado == ResultadoCompra.SUCESSO && TransactionSynchronizationManager.isSynchronizationActive())
 		{
-			throw new IllegalStateException("Itens fora de estoque.");
+			// O sucesso só vale depois do commit; se a transação for desfeita, o
+			// diário registra o erro
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCompletion(int status)
+				{
+					registrarNoDiario(status == STATUS_COMMITTED ? ResultadoCompra.SUCESSO : ResultadoCompra.ERRO,
+							inicio, carrinhoId, clienteId, andamento);
+				}
+			});
+			return;
 		}
+		registrarNoDiario(resultado, inicio, carrinhoId, clienteId, andamento);
+	}
+
+	private void registrarNoDiario(ResultadoCompra resultado, long inicio, Long carrinhoId, Long clienteId,
+			Andamento andamento)
+	{
+		diario.registrar(carrinhoId, clienteId, andamento.totalCentavos, andamento.transacaoId, resultado,
+				System.nanoTime() - inicio);
+	}
+
+	/** O que o checkout já sabia quando terminou, para o diário. */
+	private static final class Andamento
+	{
+		long totalCentavos = RegistroDiario.AUSENTE;
+		long transacaoId = RegistroDiario.AUSENTE;
+	}
+
+	private CompraDTO finalizar(Long carrinhoId, Long clienteId, CompraEvento evento, Andamento andamento)
+	{
+		Cliente cliente = metricas.medir(EtapaCompra.CLIENTE, () -> clienteService.buscarPorId(clienteId));
+		CarrinhoDeCompras carrinho = metricas.medir(EtapaCompra.CARRINHO,
+				() -> carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente));
+		evento.descreverCarrinho(carrinho);
+
+		LoteEstoqueDTO lote = loteDoCarrinho(carrinho);
+
+		ReservaEstoqueDTO reserva;
+		PrecoDetalhado preco;
 
-		BigDecimal custoTotal = calcularCustoTotal(carrinho, cliente.getRegiao(), cliente.getTipo());
+		if (executorEstoque == null)
+		{
+			reserva = exigirReserva(reservar(lote, evento));
+			try
+			{
+				preco = precificar(carrinho, cliente);
+			}
+			catch (RuntimeException e)
+			{
+				liberar(reserva);
+				throw e;
+			}
+		}
+		else
+		{
+			CompletableFuture<ReservaEstoqueDTO> reservaFutura = CompletableFuture
+					.supplyAsync(() -> reservar(lote, evento), executorEstoque);
+			preco = precificarEnquantoReserva(carrinho, cliente, reservaFutura);
+			reserva = exigirReserva(aguardar(reservaFutura));
+		}
 
-		PagamentoDTO pagamento = pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue());
+		BigDecimal custoTotal = preco.total();
+		andamento.totalCentavos = custoTotal.movePointRight(2).longValue();
+		double valorPagamento = custoTotal.doubleValue();
+		PagamentoDTO pagamento;
+		try
+		{
+			pagamento = metricas.medir(EtapaCompra.AUTORIZACAO_PAGAMENTO, evento,
+					() -> pagamentoExternal.autorizarPagamento(cliente.getId(), valorPagamento));
+		}
+		catch (RuntimeException e)
+		{
+			liberar(reserva);
+			throw e;
+		}
 
+		if (pagamento.transacaoId() != null)
+		{
+			andamento.transacaoId = pagamento.transacaoId();
+		}
 		if (!pagamento.autorizado())
 		{
-			throw new IllegalStateException("Pagamento não autorizado.");
+			liberar(reserva);
+			throw new CompraRecusadaException(ResultadoCompra.PAGAMENTO_RECUSADO, "Pagamento não autorizado.");
 		}
 
-		EstoqueBaixaDTO baixaDTO = estoqueExternal.darBaixa(produtosIds, produtosQtds);
+		EstoqueBaixaDTO baixaDTO;
+		try
+		{
+			// A compra é gravada antes da baixa: se a gravação falhar, nada foi
+			// confirmado no estoque; se a baixa falhar, o rollback a desfaz
+			if (registro != null)
+			{
+				registro.registrar(carrinho, cliente, preco, pagamento.transacaoId());
+			}
+			baixaDTO = metricas.medir(EtapaCompra.BAIXA_ESTOQUE, evento,
+					() -> baixar(carrinhoId, cliente, pagamento, reserva));
+		}
+		catch (RuntimeException e)
+		{
+			// Sem resposta da baixa (tempo limite, circuito aberto, falha ao gravar a
+			// compra ou o outbox): desfaz o pagamento como numa baixa recusada, sem encobrir o erro
+			// original
+			try
+			{
+				cancelarPagamento(cliente, pagamento, "Erro na baixa de estoque: " + e.getMessage());
+			}
+			catch (RuntimeException falhaCancelamento)
+			{
+				log.error("Falha ao cancelar o pagamento {} após erro na baixa de estoque.", pagamento.transacaoId(),
+						falhaCancelamento);
+				e.addSuppressed(falhaCancelamento);
+			}
+			liberar(reserva);
+			throw e;
+		}
 
 		if (!baixaDTO.sucesso())
 		{
-			pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId());
-			throw new IllegalStateException("Erro ao dar baixa no estoque.");
+			cancelarPagamento(cliente, pagamento, "Baixa de estoque recusada.");
+			liberar(reserva);
+			throw new CompraRecusadaException(ResultadoCompra.BAIXA_COMPENSADA, "Erro ao dar baixa no estoque.");
 		}
 
 		CompraDTO compraDTO = new CompraDTO(true, pagamento.transacaoId(), "Compra finalizada com sucesso.");
@@ -79,61 +405,172 @@ public class CompraService
 		return compraDTO;
 	} 
 
-	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente){
-		if (carrinho == null|| carrinho.getItens() == null || carrinho.getItens().isEmpty()){
-			return BigDecimal.ZERO;
+	/** Confirma a reserva agora ou, no modo outbox, grava a baixa para depois. */
+	private EstoqueBaixaDTO baixar(Long carrinhoId, Cliente cliente, PagamentoDTO pagamento,
+			ReservaEstoqueDTO reserva)
+	{
+		if (outbox != null)
+		{
+			return outbox.registrar(carrinhoId, cliente.getId(), pagamento.transacaoId(), reserva);
 		}
+		return estoqueExternal.confirmarReserva(reserva);
+	}
 
-		// 1. Calcular Subtotal (Soma: Preço * Quantidade)
-		BigDecimal subtotal = BigDecimal.ZERO;
-		double pesoTotal = 0.0;
-		long quantidadeFrageis = 0;
-
-		for (var item : carrinho.getItens()) {
-			BigDecimal preco = item.getProduto().getPreco();
-			BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
+	/**
+	 * Desfaz o pagamento de uma compra que não vai ser concluída: agenda o
+	 * cancelamento na fila de compensação, que sobrevive ao rollback da compra e
+	 * não prende a requisição no gateway, ou, sem a fila, cancela na hora.
+	 */
+	private void cancelarPagamento(Cliente cliente, PagamentoDTO pagamento, String motivo)
+	{
+		if (compensacoes != null)
+		{
+			compensacoes.agendar(cliente.getId(), pagamento.transacaoId(), motivo);
+			return;
+		}
+		pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId());
+	}
 
-			subtotal = subtotal.add(preco.multiply(quantidade));
+	/**
+	 * Modo pipeline: a reserva remota de estoque corre no executor dedicado
+	 * enquanto o carrinho é precificado nesta thread. A falta de estoque continua
+	 * tendo precedência sobre qualquer erro de precificação, como no fluxo
+	 * sequencial; se a precificação falhar, a reserva obtida é liberada.
+	 */
+	private PrecoDetalhado precificarEnquantoReserva(CarrinhoDeCompras carrinho, Cliente cliente,
+			CompletableFuture<ReservaEstoqueDTO> reservaFutura)
+	{
+		try
+		{
+			return precificar(carrinho, cliente);
+		}
+		catch (RuntimeException e)
+		{
+			liberar(exigirReserva(aguardar(reservaFutura)));
+			throw e;
+		}
+	}
 
-			// Acumulara peso físcio total
-			pesoTotal += item.getProduto().getPesoFisico().doubleValue() * item.getQuantidade();
+	private ReservaEstoqueDTO reservar(LoteEstoqueDTO lote, CompraEvento evento)
+	{
+		return metricas.medir(EtapaCompra.RESERVA_ESTOQUE, evento, () -> estoqueExternal.reservar(lote, ttlReserva));
+	}
 
-			// Contar itens frágeis
-			if (Boolean.TRUE.equals(item.getProduto().isFragil())) {
-				quantidadeFrageis += item.getQuantidade();
+	private static LoteEstoqueDTO loteDoCarrinho(CarrinhoDeCompras carrinho)
+	{
+		List<ItemCompra> itens = carrinho.getItens();
+		LoteEstoqueDTO lote = new LoteEstoqueDTO(itens.size());
+		for (ItemCompra item : itens)
+		{
+			if (item.getProduto().getId() == null || item.getQuantidade() == null)
+			{
+				throw new IllegalArgumentException("Item do carrinho sem produto ou quantidade.");
 			}
+			lote.adicionar(item.getProduto().getId(), item.getQuantidade());
 		}
+		return lote;
+	}
 
-		// 2. Aplicar Desconto por Valor Total
-		// >= 1000: 20% | >= 500 e < 1000: 10% | Outros: 0%
-		BigDecimal desconto = BigDecimal.ZERO;
-		if (subtotal.compareTo(BigDecimal.valueOf(1000.00)) >= 0) {
-			desconto = subtotal.multiply(BigDecimal.valueOf(0.20));
-		} else if (subtotal.compareTo(BigDecimal.valueOf(500.00)) >= 0) {
-			desconto = subtotal.multiply(BigDecimal.valueOf(0.10));
-		}
+	private PrecoDetalhado precificar(CarrinhoDeCompras carrinho, Cliente cliente)
+	{
+		return metricas.medir(EtapaCompra.PRECIFICACAO,
+				() -> detalharCustoTotal(carrinho, cliente.getRegiao(), cliente.getTipo()));
+	}
 
-		BigDecimal subtotalComDesconto = subtotal.subtract(desconto);
+	private static ReservaEstoqueDTO exigirReserva(ReservaEstoqueDTO reserva)
+	{
+		if (!reserva.reservado())
+		{
+			throw new CompraRecusadaException(ResultadoCompra.FORA_DE_ESTOQUE, "Itens fora de estoque.");
+		}
+		return reserva;
+	}
 
-		// 3. Calcular Frete por Peso
-		BigDecimal Valorfrete = BigDecimal.ZERO;
+	/**
+	 * Libera a reserva durante uma compensação. Uma falha aqui não pode encobrir o
+	 * erro original; a reserva expira sozinha pelo TTL.
+	 */
+	private void liberar(ReservaEstoqueDTO reserva)
+	{
+		try
+		{
+			estoqueExternal.liberarReserva(reserva);
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Falha ao liberar a reserva de estoque {}; ela expira pelo TTL.", reserva.token(), e);
+		}
+	}
 
-		if (pesoTotal > 50){
-			Valorfrete = BigDecimal.valueOf(pesoTotal).multiply(new BigDecimal("7.00")); // Faixa D (50 ou mais)
-		} else if (pesoTotal > 10){
-			Valorfrete = BigDecimal.valueOf(pesoTotal).multiply(new BigDecimal("4.00")); // Faixa C (10-50kg)
-		} else if (pesoTotal > 5){
-			Valorfrete = BigDecimal.valueOf(pesoTotal).multiply(new BigDecimal("2.00")); // Faixa B (5-10kg)
+	/** Aguarda a reserva e relança a exceção original do cliente de estoque. */
+	private static <T> T aguardar(CompletableFuture<T> futuro)
+	{
+		try
+		{
+			return futuro.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException causa)
+			{
+				throw causa;
+			}
+			if (e.getCause() instanceof Error erro)
+			{
+				throw erro;
+			}
+			throw e;
 		}
-		// Faixa de A (0-5kg) está isenta de frete
+	}
+
+	/**
+	 * Pool fixo com fila limitada; com a fila cheia a reserva roda na própria
+	 * thread da requisição, o que degrada para o fluxo sequencial em vez de
+	 * rejeitar a compra.
+	 */
+	private static ExecutorService criarExecutorEstoque(int threads, int capacidadeFila)
+	{
+		CustomizableThreadFactory fabrica = new CustomizableThreadFactory("reserva-estoque-");
+		fabrica.setDaemon(true);
 
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(capacidadeFila), fabrica, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		if (executorEstoque != null)
+		{
+			executorEstoque.shutdown();
+		}
+	}
 
-		BigDecimal adicionalFragil = BigDecimal.valueOf(quantidadeFrageis).multiply(new BigDecimal("5.00"));
-		Valorfrete = Valorfrete.add(adicionalFragil);
-		
+	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		return detalharCustoTotal(carrinho, regiao, tipoCliente).total();
+	}
 
-		//4. Total Final arrendodado
-		BigDecimal totalFinal = subtotalComDesconto.add(Valorfrete);
-		return totalFinal.setScale(2, java.math.RoundingMode.HALF_UP);
+	/**
+	 * Custo total com subtotal, desconto e frete, calculados uma única vez pelo
+	 * motor configurado; o checkout cobra o total e grava a compra com as mesmas
+	 * parcelas.
+	 */
+	public PrecoDetalhado detalharCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		PrecificacaoEvento evento = new PrecificacaoEvento();
+		evento.begin();
+		boolean sucesso = false;
+		try
+		{
+			PrecoDetalhado preco = precos.calcular(carrinho, regiao, tipoCliente,
+					() -> motorPrecificacao.detalhar(carrinho, regiao, tipoCliente));
+			sucesso = true;
+			return preco;
+		}
+		finally
+		{
+			evento.concluir(carrinho, regiao, tipoCliente, motorPrecificacao, sucesso);
+		}
 	}
 }
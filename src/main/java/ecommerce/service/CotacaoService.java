@@ -0,0 +1,180 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.SolicitacaoCotacaoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cota vários carrinhos de uma vez: carrega clientes e carrinhos em lote e
+ * calcula os totais em paralelo num {@link ForkJoinPool} de tamanho fixo.
+ * <p>
+ * Solicitações repetidas no lote são cotadas uma vez e a cotação é repetida
+ * nas posições delas. Como só o dono do carrinho tem o custo calculado, cada
+ * carrinho chega a no máximo um worker: as entidades carregadas não são
+ * compartilhadas entre threads.
+ */
+@Service
+public class CotacaoService
+{
+	/** Abaixo deste tamanho a tarefa não é mais dividida. */
+	private static final int LIMIAR_DIVISAO = 16;
+
+	private final CarrinhoDeComprasService carrinhoService;
+	private final ClienteService clienteService;
+	private final CompraService compraService;
+
+	private final ForkJoinPool pool;
+	private final int tamanhoMaximoLote;
+
+	@Autowired
+	public CotacaoService(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
+			CompraService compraService, @Value("${ecommerce.cotacao.paralelismo:0}") int paralelismo,
+			@Value("${ecommerce.cotacao.tamanho-maximo-lote:1000}") int tamanhoMaximoLote)
+	{
+		this.carrinhoService = carrinhoService;
+		this.clienteService = clienteService;
+		this.compraService = compraService;
+
+		this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+		this.tamanhoMaximoLote = tamanhoMaximoLote;
+	}
+
+	public List<CotacaoDTO> cotar(List<SolicitacaoCotacaoDTO> solicitacoes)
+	{
+		if (solicitacoes == null || solicitacoes.isEmpty())
+		{
+			throw new IllegalArgumentException("Nenhum carrinho informado.");
+		}
+		if (solicitacoes.size() > tamanhoMaximoLote)
+		{
+			throw new IllegalArgumentException("Lote acima do limite de " + tamanhoMaximoLote + " carrinhos.");
+		}
+		if (solicitacoes.stream().anyMatch(Objects::isNull))
+		{
+			throw new IllegalArgumentException("Carrinho nulo no lote.");
+		}
+
+		Set<Long> clienteIds = solicitacoes.stream().map(SolicitacaoCotacaoDTO::clienteId).filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+		Set<Long> carrinhoIds = solicitacoes.stream().map(SolicitacaoCotacaoDTO::carrinhoId).filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+
+		Map<Long, Cliente> clientes = clienteService.buscarPorIds(clienteIds);
+		Map<Long, CarrinhoDeCompras> carrinhos = carrinhoService.buscarPorIds(carrinhoIds);
+
+		Map<SolicitacaoCotacaoDTO, Integer> indices = new HashMap<>();
+		List<SolicitacaoCotacaoDTO> distintas = new ArrayList<>();
+		int[] posicoes = new int[solicitacoes.size()];
+		for (int i = 0; i < posicoes.length; i++)
+		{
+			posicoes[i] = indices.computeIfAbsent(solicitacoes.get(i), solicitacao -> {
+				distintas.add(solicitacao);
+				return distintas.size() - 1;
+			});
+		}
+
+		CotacaoDTO[] cotadas = new CotacaoDTO[distintas.size()];
+		pool.invoke(new TarefaCotacao(distintas, clientes, carrinhos, cotadas, 0, cotadas.length));
+
+		CotacaoDTO[] resultado = new CotacaoDTO[posicoes.length];
+		for (int i = 0; i < posicoes.length; i++)
+		{
+			resultado[i] = cotadas[posicoes[i]];
+		}
+		return Arrays.asList(resultado);
+	}
+
+	private CotacaoDTO cotar(SolicitacaoCotacaoDTO solicitacao, Map<Long, Cliente> clientes,
+			Map<Long, CarrinhoDeCompras> carrinhos)
+	{
+		Long carrinhoId = solicitacao.carrinhoId();
+		Long clienteId = solicitacao.clienteId();
+
+		Cliente cliente = clienteId == null ? null : clientes.get(clienteId);
+		if (cliente == null)
+		{
+			return new CotacaoDTO(carrinhoId, clienteId, null, "Cliente não encontrado");
+		}
+
+		CarrinhoDeCompras carrinho = carrinhoId == null ? null : carrinhos.get(carrinhoId);
+		if (carrinho == null || carrinho.getCliente() == null || !clienteId.equals(carrinho.getCliente().getId()))
+		{
+			return new CotacaoDTO(carrinhoId, clienteId, null, "Carrinho não encontrado.");
+		}
+
+		try
+		{
+			BigDecimal custoTotal = compraService.calcularCustoTotal(carrinho, cliente.getRegiao(), cliente.getTipo());
+			return new CotacaoDTO(carrinhoId, clienteId, custoTotal, null);
+		}
+		catch (RuntimeException e)
+		{
+			return new CotacaoDTO(carrinhoId, clienteId, null, "Erro ao calcular o custo do carrinho.");
+		}
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		pool.shutdown();
+	}
+
+	/** Divide o intervalo [inicio, fim) ao meio até o limiar e cota cada posição. */
+	private final class TarefaCotacao extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<SolicitacaoCotacaoDTO> solicitacoes;
+		private final Map<Long, Cliente> clientes;
+		private final Map<Long, CarrinhoDeCompras> carrinhos;
+		private final CotacaoDTO[] resultado;
+		private final int inicio;
+		private final int fim;
+
+		TarefaCotacao(List<SolicitacaoCotacaoDTO> solicitacoes, Map<Long, Cliente> clientes,
+				Map<Long, CarrinhoDeCompras> carrinhos, CotacaoDTO[] resultado, int inicio, int fim)
+		{
+			this.solicitacoes = solicitacoes;
+			this.clientes = clientes;
+			this.carrinhos = carrinhos;
+			this.resultado = resultado;
+			this.inicio = inicio;
+			this.fim = fim;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (fim - inicio <= LIMIAR_DIVISAO)
+			{
+				for (int i = inicio; i < fim; i++)
+				{
+					resultado[i] = cotar(solicitacoes.get(i), clientes, carrinhos);
+				}
+				return;
+			}
+
+			int meio = (inicio + fim) >>> 1;
+			invokeAll(new TarefaCotacao(solicitacoes, clientes, carrinhos, resultado, inicio, meio),
+					new TarefaCotacao(solicitacoes, clientes, carrinhos, resultado, meio, fim));
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Deduplica requisições repetidas pela mesma chave de idempotência. Execuções em
+ * andamento e concluídas ficam num mapa limitado em tamanho e com expiração
+ * (Caffeine); uma repetição que chega enquanto a original roda espera o
+ * resultado dela em vez de executar de novo.
+ * <p>
+ * Se a entrada for despejada por tamanho antes de a execução terminar, uma
+ * repetição posterior executa de novo; o limite deve cobrir o pico de chaves
+ * distintas dentro do TTL.
+ */
+@Service
+public class IdempotenciaService
+{
+	private final Cache<String, Execucao> execucoes;
+	private final long esperaMaximaMillis;
+
+	@Autowired
+	public IdempotenciaService(@Value("${ecommerce.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+			@Value("${ecommerce.idempotencia.ttl:24h}") Duration ttl,
+			@Value("${ecommerce.idempotencia.espera-maxima:30s}") Duration esperaMaxima)
+	{
+		this.execucoes = Caffeine.newBuilder().maximumSize(tamanhoMaximo).expireAfterWrite(ttl).build();
+		this.esperaMaximaMillis = esperaMaxima.toMillis();
+	}
+
+	/**
+	 * Executa {@code operacao} uma única vez por chave, devolvendo o mesmo
+	 * resultado às repetições.
+	 *
+	 * @param impressao identifica o conteúdo da requisição; a mesma chave com
+	 *                  outra impressão é rejeitada
+	 * @param guardar   diz se o resultado pode ser reaproveitado; resultados
+	 *                  recusados (ex.: erro interno) liberam a chave para nova
+	 *                  tentativa
+	 * @throws IllegalArgumentException se a chave já foi usada com outra impressão
+	 * @throws IllegalStateException    se a execução original não terminar dentro
+	 *                                  da espera máxima
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T executar(String chave, String impressao, Supplier<T> operacao, Predicate<T> guardar)
+	{
+		Execucao nova = new Execucao(impressao, new CompletableFuture<>());
+		Execucao existente = execucoes.asMap().putIfAbsent(chave, nova);
+
+		if (existente != null)
+		{
+			if (!existente.impressao().equals(impressao))
+			{
+				throw new IllegalArgumentException("Chave de idempotência já usada em outra requisição.");
+			}
+			return (T) aguardar(existente.resultado());
+		}
+
+		try
+		{
+			T resultado = operacao.get();
+			if (!guardar.test(resultado))
+			{
+				execucoes.asMap().remove(chave, nova);
+			}
+			nova.resultado().complete(resultado);
+			return resultado;
+		}
+		catch (RuntimeException | Error e)
+		{
+			execucoes.asMap().remove(chave, nova);
+			nova.resultado().completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private Object aguardar(CompletableFuture<Object> resultado)
+	{
+		try
+		{
+			return resultado.get(esperaMaximaMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException causa)
+			{
+				throw causa;
+			}
+			throw new IllegalStateException("Falha na execução original.", e.getCause());
+		}
+		catch (TimeoutException e)
+		{
+			throw new IllegalStateException("Requisição com esta chave ainda em processamento.");
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Espera pela requisição original interrompida.");
+		}
+	}
+
+	private record Execucao(String impressao, CompletableFuture<Object> resultado)
+	{
+	}
+}
@@ -0,0 +1,55 @@
+package ecommerce.service;
+
+import java.time.Clock;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Compra;
+import ecommerce.entity.ItemCompra;
+import ecommerce.repository.CompraRepository;
+import ecommerce.service.precificacao.PrecoDetalhado;
+
+/**
+ * Grava a {@link Compra} de um checkout concluído na transação corrente com o
+ * {@link PrecoDetalhado} que produziu o valor cobrado, sem precificar de novo.
+ */
+@Service
+public class RegistroCompras
+{
+	private final CompraRepository repositorio;
+	private final Clock relogio;
+
+	@Autowired
+	public RegistroCompras(CompraRepository repositorio)
+	{
+		this(repositorio, Clock.systemUTC());
+	}
+
+	public RegistroCompras(CompraRepository repositorio, Clock relogio)
+	{
+		this.repositorio = repositorio;
+		this.relogio = relogio;
+	}
+
+	/**
+	 * Grava a compra e as linhas. O flush envia os inserts agora, em lotes, para
+	 * que uma falha apareça antes da baixa de estoque e seja compensada como
+	 * ela.
+	 */
+	public Compra registrar(CarrinhoDeCompras carrinho, Cliente cliente, PrecoDetalhado preco, Long transacaoId)
+	{
+		Compra compra = new Compra(carrinho.getId(), cliente, transacaoId, preco.subtotal(), preco.desconto(),
+				preco.frete(), preco.total(), relogio.instant());
+
+		List<ItemCompra> itens = carrinho.getItens();
+		for (int i = 0, n = itens.size(); i < n; i++)
+		{
+			compra.adicionarLinha(itens.get(i));
+		}
+		return repositorio.saveAndFlush(compra);
+	}
+}
@@ -0,0 +1,132 @@
+package ecommerce.service.diario;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fila circular de tamanho fixo entre as threads das requisições (várias
+ * produtoras) e a thread do diário (única consumidora). Os campos ficam em
+ * vetores pré-alocados, um por coluna, e nada é alocado por registro.
+ * <p>
+ * A produtora reserva uma posição com CAS em {@code cabeca}, preenche as
+ * colunas e publica a posição em {@code publicados} com escrita release; a
+ * consumidora só lê a posição depois de ver a publicação (acquire) e devolve
+ * as posições lidas avançando {@code cauda}. Com a fila cheia, {@link #oferecer}
+ * falha em vez de esperar: a requisição nunca bloqueia no diário.
+ */
+final class AnelDiario
+{
+	/** Recebe os campos de cada registro drenado, sem objeto intermediário. */
+	@FunctionalInterface
+	interface Consumidor
+	{
+		void aceitar(long carrinhoId, long clienteId, long totalCentavos, long transacaoId, int resultado,
+				long concluidaEmMillis, int duracaoMicros);
+	}
+
+	private final int capacidade;
+	private final int mascara;
+
+	private final long[] carrinhos;
+	private final long[] clientes;
+	private final long[] totais;
+	private final long[] transacoes;
+	private final long[] conclusoes;
+	private final int[] duracoes;
+	private final byte[] resultados;
+
+	/** Sequência + 1 do registro publicado em cada posição; 0 se nunca publicada. */
+	private final AtomicLongArray publicados;
+
+	/** Próxima sequência a reservar. */
+	private final AtomicLong cabeca = new AtomicLong();
+
+	/** Próxima sequência a drenar; só a consumidora escreve. */
+	private final AtomicLong cauda = new AtomicLong();
+
+	AnelDiario(int capacidade)
+	{
+		if (capacidade <= 0 || Integer.bitCount(capacidade) != 1)
+		{
+			throw new IllegalArgumentException("Capacidade do anel deve ser uma potência de 2: " + capacidade);
+		}
+		this.capacidade = capacidade;
+		this.mascara = capacidade - 1;
+		this.carrinhos = new long[capacidade];
+		this.clientes = new long[capacidade];
+		this.totais = new long[capacidade];
+		this.transacoes = new long[capacidade];
+		this.conclusoes = new long[capacidade];
+		this.duracoes = new int[capacidade];
+		this.resultados = new byte[capacidade];
+		this.publicados = new AtomicLongArray(capacidade);
+	}
+
+	/** Enfileira um registro; {@code false} se o anel estiver cheio. */
+	boolean oferecer(long carrinhoId, long clienteId, long totalCentavos, long transacaoId, int resultado,
+			long concluidaEmMillis, int duracaoMicros)
+	{
+		long sequencia;
+		do
+		{
+			sequencia = cabeca.get();
+			if (sequencia - cauda.get() >= capacidade)
+			{
+				return false;
+			}
+		}
+		while (!cabeca.compareAndSet(sequencia, sequencia + 1));
+
+		int i = (int) sequencia & mascara;
+		carrinhos[i] = carrinhoId;
+		clientes[i] = clienteId;
+		totais[i] = totalCentavos;
+		transacoes[i] = transacaoId;
+		conclusoes[i] = concluidaEmMillis;
+		duracoes[i] = duracaoMicros;
+		resultados[i] = (byte) resultado;
+		publicados.setRelease(i, sequencia + 1);
+		return true;
+	}
+
+	/**
+	 * Entrega ao consumidor até {@code maximo} registros publicados, na ordem de
+	 * reserva. Para no primeiro ainda não publicado, mesmo que os seguintes já
+	 * estejam. Só a thread consumidora pode chamar.
+	 *
+	 * @return quantos registros foram entregues
+	 */
+	int drenar(Consumidor consumidor, int maximo)
+	{
+		long sequencia = cauda.get();
+		int entregues = 0;
+		while (entregues < maximo)
+		{
+			int i = (int) sequencia & mascara;
+			if (publicados.getAcquire(i) != sequencia + 1)
+			{
+				break;
+			}
+			consumidor.aceitar(carrinhos[i], clientes[i], totais[i], transacoes[i], resultados[i], conclusoes[i],
+					duracoes[i]);
+			sequencia++;
+			entregues++;
+		}
+		if (entregues > 0)
+		{
+			cauda.setRelease(sequencia);
+		}
+		return entregues;
+	}
+
+	/** Registros reservados e ainda não drenados (aproximado sob concorrência). */
+	long pendentes()
+	{
+		return Math.max(0, cabeca.get() - cauda.get());
+	}
+
+	int capacidade()
+	{
+		return capacidade;
+	}
+}
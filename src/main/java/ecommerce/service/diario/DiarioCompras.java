@@ -0,0 +1,214 @@
+package ecommerce.service.diario;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.service.metricas.ResultadoCompra;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Diário local dos desfechos de {@code finalizarCompra}, para auditoria e
+ * recuperação após uma queda ({@code ecommerce.compra.diario.habilitado}).
+ * <ul>
+ * <li><b>Requisição.</b> {@link #registrar} só copia os campos para o
+ * {@link AnelDiario}: sem alocação, sem trava e sem E/S. Com o anel cheio o
+ * registro é descartado e contado, em vez de segurar a requisição.</li>
+ * <li><b>Escrita.</b> Uma única thread drena o anel em lotes para o
+ * {@link EscritorDiario}, que grava registros de 64 bytes em segmentos
+ * mapeados em memória, e força as páginas ao disco a cada
+ * {@code intervaloSincronizacao}.</li>
+ * <li><b>Reprodução.</b> {@link ReproducaoDiario} reconstrói o estado a partir
+ * dos segmentos.</li>
+ * </ul>
+ * O que já foi copiado para o mapa sobrevive a uma queda do processo; uma
+ * queda do sistema operacional perde no máximo o último intervalo de
+ * sincronização.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.compra.diario.habilitado", havingValue = "true")
+public class DiarioCompras
+{
+	private static final Logger log = LoggerFactory.getLogger(DiarioCompras.class);
+
+	/** Registros drenados por vez antes de conferir a sincronização. */
+	private static final int LOTE = 1024;
+	/** Voltas sem registros antes de a thread do diário dormir. */
+	private static final int VOLTAS_OCIOSAS = 64;
+	private static final long ESPERA_OCIOSA_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+	private final AnelDiario anel;
+	private final EscritorDiario escritor;
+	private final long intervaloSincronizacaoNanos;
+	private final Thread thread;
+
+	private final LongAdder gravados = new LongAdder();
+	private final LongAdder descartados = new LongAdder();
+
+	private volatile boolean ativo = true;
+
+	@Autowired
+	public DiarioCompras(@Value("${ecommerce.compra.diario.diretorio:diario}") Path diretorio,
+			@Value("${ecommerce.compra.diario.tamanho-segmento:64MB}") DataSize tamanhoSegmento,
+			@Value("${ecommerce.compra.diario.capacidade-anel:65536}") int capacidadeAnel,
+			@Value("${ecommerce.compra.diario.intervalo-sincronizacao:1s}") Duration intervaloSincronizacao,
+			MeterRegistry registry)
+	{
+		this(diretorio, Math.toIntExact(tamanhoSegmento.toBytes()), capacidadeAnel, intervaloSincronizacao);
+		FunctionCounter.builder("compra.diario.registros", gravados, LongAdder::sum)
+				.description("Desfechos de checkout enviados ao diário, por destino")
+				.tag("destino", "gravado")
+				.register(registry);
+		FunctionCounter.builder("compra.diario.registros", descartados, LongAdder::sum)
+				.description("Desfechos de checkout enviados ao diário, por destino")
+				.tag("destino", "descartado")
+				.register(registry);
+		Gauge.builder("compra.diario.pendentes", anel, AnelDiario::pendentes)
+				.description("Desfechos no anel aguardando a thread do diário")
+				.register(registry);
+	}
+
+	public DiarioCompras(Path diretorio, int tamanhoSegmento, int capacidadeAnel, Duration intervaloSincronizacao)
+	{
+		this.anel = new AnelDiario(capacidadeAnel);
+		this.escritor = new EscritorDiario(diretorio, tamanhoSegmento);
+		this.intervaloSincronizacaoNanos = intervaloSincronizacao.toNanos();
+		this.thread = new Thread(this::escrever, "diario-compras");
+		thread.setDaemon(true);
+		thread.start();
+		log.info("Diário de compras em {}, a partir da sequência {}.", diretorio.toAbsolutePath(),
+				escritor.getProximaSequencia());
+	}
+
+	/**
+	 * Enfileira o desfecho de um checkout. Ids nulos e valores ainda
+	 * desconhecidos vão como {@link RegistroDiario#AUSENTE}.
+	 *
+	 * @return {@code false} se o registro foi descartado (anel cheio ou diário parado)
+	 */
+	public boolean registrar(Long carrinhoId, Long clienteId, long totalCentavos, long transacaoId,
+			ResultadoCompra resultado, long duracaoNanos)
+	{
+		boolean aceito = ativo && anel.oferecer(id(carrinhoId), id(clienteId), totalCentavos, transacaoId,
+				resultado.ordinal(), System.currentTimeMillis(), micros(duracaoNanos));
+		if (!aceito)
+		{
+			descartados.increment();
+		}
+		return aceito;
+	}
+
+	private static long id(Long id)
+	{
+		return id == null ? RegistroDiario.AUSENTE : id;
+	}
+
+	private static int micros(long nanos)
+	{
+		return (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	private void escrever()
+	{
+		long proximaSincronizacao = System.nanoTime() + intervaloSincronizacaoNanos;
+		int ociosas = 0;
+		try
+		{
+			while (ativo || anel.pendentes() > 0)
+			{
+				int drenados = anel.drenar(escritor, LOTE);
+				if (drenados > 0)
+				{
+					gravados.add(drenados);
+					ociosas = 0;
+				}
+				else if (++ociosas < VOLTAS_OCIOSAS)
+				{
+					Thread.onSpinWait();
+				}
+				else
+				{
+					LockSupport.parkNanos(ESPERA_OCIOSA_NANOS);
+				}
+
+				long agora = System.nanoTime();
+				if (agora - proximaSincronizacao >= 0)
+				{
+					escritor.forcar();
+					proximaSincronizacao = agora + intervaloSincronizacaoNanos;
+				}
+			}
+		}
+		catch (RuntimeException | Error e)
+		{
+			// Disco cheio ou segmento inacessível: os próximos desfechos são descartados e contados
+			ativo = false;
+			log.error("Diário de compras parado após falha na escrita.", e);
+		}
+		finally
+		{
+			// O escritor não é thread-safe: só esta thread o usa, inclusive para fechar
+			fechar();
+		}
+	}
+
+	private void fechar()
+	{
+		try
+		{
+			escritor.close();
+		}
+		catch (RuntimeException e)
+		{
+			log.error("Falha ao fechar o diário de compras.", e);
+		}
+	}
+
+	/**
+	 * Para de aceitar registros e espera até 5s a thread do diário gravar o que
+	 * estiver no anel, forçar os segmentos ao disco e fechá-los. Se ela ainda
+	 * estiver drenando, continua e fecha o escritor ao terminar.
+	 */
+	@PreDestroy
+	public void encerrar()
+	{
+		ativo = false;
+		LockSupport.unpark(thread);
+		try
+		{
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if (thread.isAlive())
+		{
+			log.warn("Diário de compras ainda gravando {} registros; os segmentos serão fechados ao fim da drenagem.",
+					anel.pendentes());
+		}
+	}
+
+	public long getGravados()
+	{
+		return gravados.sum();
+	}
+
+	public long getDescartados()
+	{
+		return descartados.sum();
+	}
+}
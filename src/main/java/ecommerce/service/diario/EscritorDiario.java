@@ -0,0 +1,161 @@
+package ecommerce.service.diario;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Grava os registros do diário em segmentos de tamanho fixo mapeados em
+ * memória ({@code diario-<n>.seg}). Cada registro é copiado para o mapa com
+ * uma escrita de 64 bytes, sem chamada de sistema; o sistema operacional leva
+ * as páginas ao disco, e {@link #forcar()} o obriga. Um segmento cheio é
+ * forçado e fechado, e o seguinte é criado já no tamanho final.
+ * <p>
+ * Ao abrir um diário existente, o último segmento é percorrido até o primeiro
+ * registro que não esteja íntegro: a escrita continua dali, com a sequência
+ * seguinte à do último registro válido, sobrescrevendo um registro cortado
+ * por uma queda. Não é thread-safe; só a thread do diário escreve.
+ */
+final class EscritorDiario implements AnelDiario.Consumidor, Closeable
+{
+	private final Path diretorio;
+	private final int tamanhoSegmento;
+	private final FormatoDiario formato = new FormatoDiario();
+
+	private FileChannel canal;
+	private MappedByteBuffer mapa;
+	private long indiceSegmento;
+	private int posicao;
+	private long proximaSequencia;
+	private boolean pendenteDeForca;
+
+	EscritorDiario(Path diretorio, int tamanhoSegmento)
+	{
+		if (tamanhoSegmento < FormatoDiario.TAMANHO_REGISTRO)
+		{
+			throw new IllegalArgumentException("Segmento menor que um registro: " + tamanhoSegmento);
+		}
+		this.diretorio = diretorio;
+		// Múltiplo do registro, para nenhum registro atravessar dois segmentos
+		this.tamanhoSegmento = tamanhoSegmento - tamanhoSegmento % FormatoDiario.TAMANHO_REGISTRO;
+		try
+		{
+			Files.createDirectories(diretorio);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Não foi possível criar o diretório do diário " + diretorio, e);
+		}
+		retomar();
+	}
+
+	private void retomar()
+	{
+		List<Path> segmentos = LeitorDiario.segmentos(diretorio);
+		if (segmentos.isEmpty())
+		{
+			abrir(1);
+			return;
+		}
+
+		// Percorre do último para trás só até achar um segmento com registros
+		long ultimaSequencia = -1;
+		int posicaoFinal = 0;
+		for (int i = segmentos.size() - 1; i >= 0 && ultimaSequencia < 0; i--)
+		{
+			long[] ultima = { -1 };
+			int fim = LeitorDiario.lerSegmento(segmentos.get(i), formato, r -> ultima[0] = r.sequencia());
+			ultimaSequencia = ultima[0];
+			if (i == segmentos.size() - 1)
+			{
+				posicaoFinal = fim;
+			}
+		}
+
+		abrir(LeitorDiario.indice(segmentos.get(segmentos.size() - 1)));
+		posicao = posicaoFinal;
+		proximaSequencia = ultimaSequencia + 1;
+	}
+
+	private void abrir(long indice)
+	{
+		Path arquivo = diretorio.resolve(LeitorDiario.nome(indice));
+		try
+		{
+			canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			// Segmento existente mantém o tamanho com que foi criado
+			long tamanho = Math.max(canal.size(), tamanhoSegmento);
+			mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Não foi possível abrir o segmento do diário " + arquivo, e);
+		}
+		indiceSegmento = indice;
+		posicao = 0;
+	}
+
+	@Override
+	public void aceitar(long carrinhoId, long clienteId, long totalCentavos, long transacaoId, int resultado,
+			long concluidaEmMillis, int duracaoMicros)
+	{
+		if (posicao + FormatoDiario.TAMANHO_REGISTRO > mapa.capacity())
+		{
+			rotacionar();
+		}
+		mapa.put(posicao, formato.montar(proximaSequencia, carrinhoId, clienteId, totalCentavos, transacaoId,
+				resultado, concluidaEmMillis, duracaoMicros));
+		proximaSequencia++;
+		posicao += FormatoDiario.TAMANHO_REGISTRO;
+		pendenteDeForca = true;
+	}
+
+	private void rotacionar()
+	{
+		pendenteDeForca = true;
+		forcar();
+		fecharCanal();
+		abrir(indiceSegmento + 1);
+	}
+
+	/** Leva ao disco o que foi escrito desde a última chamada. */
+	void forcar()
+	{
+		if (pendenteDeForca)
+		{
+			mapa.force();
+			pendenteDeForca = false;
+		}
+	}
+
+	long getProximaSequencia()
+	{
+		return proximaSequencia;
+	}
+
+	@Override
+	public void close()
+	{
+		forcar();
+		fecharCanal();
+	}
+
+	private void fecharCanal()
+	{
+		try
+		{
+			canal.close();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Falha ao fechar o segmento do diário", e);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package ecommerce.service.diario;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import ecommerce.service.metricas.ResultadoCompra;
+
+/**
+ * Estado dos checkouts reconstruído a partir do diário, registro a registro:
+ * o último desfecho de cada carrinho, as compras concluídas por transação, as
+ * contagens por resultado e o total vendido. Lacunas na sequência indicam
+ * registros perdidos (segmento apagado ou corrompido).
+ */
+public class EstadoCompras
+{
+	private final Map<Long, RegistroDiario> ultimoPorCarrinho = new HashMap<>();
+	private final Map<Long, RegistroDiario> concluidasPorTransacao = new HashMap<>();
+	private final EnumMap<ResultadoCompra, Long> porResultado = new EnumMap<>(ResultadoCompra.class);
+
+	private long registros;
+	private long totalVendidoCentavos;
+	private long ultimaSequencia = -1;
+	private long lacunas;
+
+	public void aplicar(RegistroDiario registro)
+	{
+		if (ultimaSequencia >= 0 && registro.sequencia() != ultimaSequencia + 1)
+		{
+			lacunas++;
+		}
+		ultimaSequencia = registro.sequencia();
+		registros++;
+		porResultado.merge(registro.resultado(), 1L, Long::sum);
+
+		if (registro.carrinhoId() != RegistroDiario.AUSENTE)
+		{
+			ultimoPorCarrinho.put(registro.carrinhoId(), registro);
+		}
+		if (registro.resultado() == ResultadoCompra.SUCESSO)
+		{
+			concluidasPorTransacao.put(registro.transacaoId(), registro);
+			totalVendidoCentavos += registro.totalCentavos();
+		}
+	}
+
+	/** O último desfecho registrado para o carrinho. */
+	public Optional<RegistroDiario> ultimo(long carrinhoId)
+	{
+		return Optional.ofNullable(ultimoPorCarrinho.get(carrinhoId));
+	}
+
+	/** A compra concluída com a transação de pagamento, se houver. */
+	public Optional<RegistroDiario> concluida(long transacaoId)
+	{
+		return Optional.ofNullable(concluidasPorTransacao.get(transacaoId));
+	}
+
+	public long quantidade(ResultadoCompra resultado)
+	{
+		return porResultado.getOrDefault(resultado, 0L);
+	}
+
+	public Map<ResultadoCompra, Long> getPorResultado()
+	{
+		return Collections.unmodifiableMap(porResultado);
+	}
+
+	public long getRegistros()
+	{
+		return registros;
+	}
+
+	public long getTotalVendidoCentavos()
+	{
+		return totalVendidoCentavos;
+	}
+
+	/** Sequência do último registro aplicado, ou -1 se nenhum. */
+	public long getUltimaSequencia()
+	{
+		return ultimaSequencia;
+	}
+
+	public long getLacunas()
+	{
+		return lacunas;
+	}
+
+	public int getCarrinhos()
+	{
+		return ultimoPorCarrinho.size();
+	}
+}
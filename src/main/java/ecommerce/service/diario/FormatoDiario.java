@@ -0,0 +1,92 @@
+package ecommerce.service.diario;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+import ecommerce.service.metricas.ResultadoCompra;
+
+/**
+ * Layout fixo de 64 bytes de um registro do diário, little-endian:
+ *
+ * <pre>
+ *  0 int   mágico          16 long  carrinho      40 long transação
+ *  4 int   CRC-32C de 8-63 24 long  cliente       48 long concluída em (ms)
+ *  8 long  sequência       32 long  total (cent.) 56 int  duração (µs)
+ *                                                 60 byte resultado, 61-63 livres
+ * </pre>
+ *
+ * O arquivo mapeado começa zerado, então um mágico zero marca o fim dos
+ * registros do segmento; um CRC que não confere marca um registro cortado por
+ * uma queda no meio da escrita.
+ */
+final class FormatoDiario
+{
+	static final int TAMANHO_REGISTRO = 64;
+	static final int MAGICO = 0x31504344;
+
+	private static final int CRC = 4;
+	private static final int SEQUENCIA = 8;
+	private static final int CARRINHO = 16;
+	private static final int CLIENTE = 24;
+	private static final int TOTAL = 32;
+	private static final int TRANSACAO = 40;
+	private static final int CONCLUSAO = 48;
+	private static final int DURACAO = 56;
+	private static final int RESULTADO = 60;
+
+	private static final ResultadoCompra[] RESULTADOS = ResultadoCompra.values();
+
+	private final byte[] bytes = new byte[TAMANHO_REGISTRO];
+	private final ByteBuffer registro = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+	private final CRC32C crc = new CRC32C();
+
+	/** Monta o registro no buffer interno; o resultado vale até a próxima chamada. */
+	byte[] montar(long sequencia, long carrinhoId, long clienteId, long totalCentavos, long transacaoId,
+			int resultado, long concluidaEmMillis, int duracaoMicros)
+	{
+		registro.putLong(SEQUENCIA, sequencia)
+				.putLong(CARRINHO, carrinhoId)
+				.putLong(CLIENTE, clienteId)
+				.putLong(TOTAL, totalCentavos)
+				.putLong(TRANSACAO, transacaoId)
+				.putLong(CONCLUSAO, concluidaEmMillis)
+				.putInt(DURACAO, duracaoMicros)
+				.put(RESULTADO, (byte) resultado);
+		registro.putInt(CRC, crc(bytes));
+		registro.putInt(0, MAGICO);
+		return bytes;
+	}
+
+	/**
+	 * Lê o registro em {@code posicao}, ou {@code null} se ali não houver um
+	 * registro íntegro.
+	 */
+	RegistroDiario ler(ByteBuffer segmento, int posicao)
+	{
+		if (posicao + TAMANHO_REGISTRO > segmento.limit())
+		{
+			return null;
+		}
+		segmento.get(posicao, bytes);
+		if (registro.getInt(0) != MAGICO || registro.getInt(CRC) != crc(bytes))
+		{
+			return null;
+		}
+		int resultado = registro.get(RESULTADO);
+		if (resultado < 0 || resultado >= RESULTADOS.length)
+		{
+			return null;
+		}
+		return new RegistroDiario(registro.getLong(SEQUENCIA), registro.getLong(CARRINHO), registro.getLong(CLIENTE),
+				registro.getLong(TOTAL), registro.getLong(TRANSACAO), RESULTADOS[resultado], registro.getLong(CONCLUSAO),
+				registro.getInt(DURACAO));
+	}
+
+	private int crc(byte[] dados)
+	{
+		crc.reset();
+		crc.update(dados, SEQUENCIA, TAMANHO_REGISTRO - SEQUENCIA);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,103 @@
+package ecommerce.service.diario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Lê os segmentos do diário em ordem, entregando os registros íntegros de cada
+ * um até o primeiro que não esteja (fim dos registros ou registro cortado).
+ */
+public final class LeitorDiario
+{
+	private static final String PREFIXO = "diario-";
+	private static final String SUFIXO = ".seg";
+
+	private LeitorDiario()
+	{
+	}
+
+	/**
+	 * Entrega todos os registros do diário em {@code diretorio}, na ordem em que
+	 * foram gravados.
+	 *
+	 * @return quantos registros foram lidos
+	 */
+	public static long ler(Path diretorio, Consumer<RegistroDiario> consumidor)
+	{
+		FormatoDiario formato = new FormatoDiario();
+		long[] lidos = { 0 };
+		for (Path segmento : segmentos(diretorio))
+		{
+			lerSegmento(segmento, formato, r -> {
+				lidos[0]++;
+				consumidor.accept(r);
+			});
+		}
+		return lidos[0];
+	}
+
+	/** @return a posição, em bytes, logo após o último registro íntegro */
+	static int lerSegmento(Path segmento, FormatoDiario formato, Consumer<RegistroDiario> consumidor)
+	{
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ))
+		{
+			MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+			int posicao = 0;
+			RegistroDiario registro;
+			while ((registro = formato.ler(mapa, posicao)) != null)
+			{
+				consumidor.accept(registro);
+				posicao += FormatoDiario.TAMANHO_REGISTRO;
+			}
+			return posicao;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Falha ao ler o segmento do diário " + segmento, e);
+		}
+	}
+
+	/** Segmentos do diário, em ordem de criação; vazio se o diretório não existir. */
+	static List<Path> segmentos(Path diretorio)
+	{
+		if (!Files.isDirectory(diretorio))
+		{
+			return List.of();
+		}
+		try (Stream<Path> arquivos = Files.list(diretorio))
+		{
+			return arquivos.filter(LeitorDiario::ehSegmento).sorted().toList();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Falha ao listar o diário em " + diretorio, e);
+		}
+	}
+
+	/** Nome do segmento; o índice com zeros à esquerda mantém a ordem alfabética igual à de criação. */
+	static String nome(long indice)
+	{
+		return String.format("%s%012d%s", PREFIXO, indice, SUFIXO);
+	}
+
+	static long indice(Path segmento)
+	{
+		String nome = segmento.getFileName().toString();
+		return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+	}
+
+	private static boolean ehSegmento(Path arquivo)
+	{
+		String nome = arquivo.getFileName().toString();
+		return nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO)
+				&& nome.length() == PREFIXO.length() + 12 + SUFIXO.length();
+	}
+}
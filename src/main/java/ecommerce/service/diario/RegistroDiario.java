@@ -0,0 +1,18 @@
+package ecommerce.service.diario;
+
+import ecommerce.service.metricas.ResultadoCompra;
+
+/**
+ * Um desfecho de {@code finalizarCompra} lido do diário. Campos desconhecidos
+ * no momento do desfecho (total antes da precificação, transação antes do
+ * pagamento, ids nulos) valem {@link #AUSENTE}.
+ *
+ * @param sequencia          posição no diário, crescente e sem lacunas entre reinícios
+ * @param concluidaEmMillis  instante do desfecho, em milissegundos desde a época
+ * @param duracaoMicros      duração de {@code finalizarCompra}
+ */
+public record RegistroDiario(long sequencia, long carrinhoId, long clienteId, long totalCentavos, long transacaoId,
+		ResultadoCompra resultado, long concluidaEmMillis, int duracaoMicros)
+{
+	public static final long AUSENTE = -1L;
+}
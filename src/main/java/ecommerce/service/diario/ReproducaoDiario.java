@@ -0,0 +1,56 @@
+package ecommerce.service.diario;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+
+import ecommerce.service.metricas.ResultadoCompra;
+
+/**
+ * Ferramenta de reprodução do diário: lê todos os segmentos e reconstrói o
+ * {@link EstadoCompras}. Roda fora da aplicação, só com as classes compiladas:
+ *
+ * <pre>
+ * java -cp target/classes ecommerce.service.diario.ReproducaoDiario [diretório] [carrinho...]
+ * </pre>
+ *
+ * Imprime o resumo e, para cada carrinho informado, o último desfecho.
+ */
+public final class ReproducaoDiario
+{
+	private ReproducaoDiario()
+	{
+	}
+
+	public static EstadoCompras reproduzir(Path diretorio)
+	{
+		EstadoCompras estado = new EstadoCompras();
+		LeitorDiario.ler(diretorio, estado::aplicar);
+		return estado;
+	}
+
+	public static void main(String[] args)
+	{
+		Path diretorio = Path.of(args.length > 0 ? args[0] : "diario");
+		long inicio = System.nanoTime();
+		EstadoCompras estado = reproduzir(diretorio);
+		long millis = (System.nanoTime() - inicio) / 1_000_000;
+
+		System.out.printf("Diário          : %s%n", diretorio.toAbsolutePath());
+		System.out.printf("Registros       : %d em %d ms (última sequência %d, %d lacunas)%n", estado.getRegistros(),
+				millis, estado.getUltimaSequencia(), estado.getLacunas());
+		System.out.printf("Carrinhos       : %d%n", estado.getCarrinhos());
+		for (Map.Entry<ResultadoCompra, Long> entrada : estado.getPorResultado().entrySet())
+		{
+			System.out.printf("  %-22s: %d%n", entrada.getKey().getTag(), entrada.getValue());
+		}
+		System.out.printf("Total vendido   : R$ %s%n", BigDecimal.valueOf(estado.getTotalVendidoCentavos(), 2));
+
+		for (int i = 1; i < args.length; i++)
+		{
+			long carrinhoId = Long.parseLong(args[i]);
+			System.out.printf("Carrinho %d: %s%n", carrinhoId,
+					estado.ultimo(carrinhoId).map(RegistroDiario::toString).orElse("sem registros"));
+		}
+	}
+}
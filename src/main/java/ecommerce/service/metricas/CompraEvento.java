@@ -0,0 +1,95 @@
+package ecommerce.service.metricas;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR de um checkout. Desligado por padrão: só é gravado com o perfil
+ * {@code jfr/ecommerce.jfc} (ou {@code ecommerce.Compra#enabled=true}); sem
+ * gravação ativa, o custo é o de um objeto que o JIT elimina.
+ */
+@Name("ecommerce.Compra")
+@Label("Compra")
+@Category({ "E-commerce", "Checkout" })
+@Description("Execução de finalizarCompra, com as durações das chamadas externas")
+@Enabled(false)
+@StackTrace(false)
+public class CompraEvento extends Event
+{
+	@Label("Carrinho")
+	long carrinhoId;
+
+	@Label("Cliente")
+	long clienteId;
+
+	@Label("Itens")
+	int quantidadeItens;
+
+	@Label("Peso Total (g)")
+	long pesoTotalGramas;
+
+	@Label("Faixa de Peso")
+	String faixaPeso;
+
+	@Label("Reserva de Estoque")
+	@Timespan
+	long duracaoReserva;
+
+	@Label("Autorização de Pagamento")
+	@Timespan
+	long duracaoPagamento;
+
+	@Label("Baixa de Estoque")
+	@Timespan
+	long duracaoBaixa;
+
+	@Label("Resultado")
+	String resultado;
+
+	public CompraEvento(Long carrinhoId, Long clienteId)
+	{
+		this.carrinhoId = ResumoCarrinho.id(carrinhoId);
+		this.clienteId = ResumoCarrinho.id(clienteId);
+	}
+
+	public void descreverCarrinho(CarrinhoDeCompras carrinho)
+	{
+		if (isEnabled())
+		{
+			quantidadeItens = ResumoCarrinho.quantidadeItens(carrinho);
+			pesoTotalGramas = ResumoCarrinho.pesoGramas(carrinho);
+			faixaPeso = ResumoCarrinho.faixaPeso(pesoTotalGramas);
+		}
+	}
+
+	/** Guarda a duração das etapas que chamam serviços externos; as demais são ignoradas. */
+	void registrarEtapa(EtapaCompra etapa, long nanos)
+	{
+		switch (etapa)
+		{
+		case RESERVA_ESTOQUE -> duracaoReserva = nanos;
+		case AUTORIZACAO_PAGAMENTO -> duracaoPagamento = nanos;
+		case BAIXA_ESTOQUE -> duracaoBaixa = nanos;
+		default ->
+		{
+		}
+		}
+	}
+
+	public void concluir(ResultadoCompra resultado)
+	{
+		end();
+		if (shouldCommit())
+		{
+			this.resultado = resultado.getTag();
+			commit();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package ecommerce.service.metricas;
+
+/** Etapas de {@code finalizarCompra} medidas em {@code compra.etapa}. */
+public enum EtapaCompra
+{
+	CLIENTE("cliente"),
+	CARRINHO("carrinho"),
+	RESERVA_ESTOQUE("reserva-estoque"),
+	PRECIFICACAO("precificacao"),
+	AUTORIZACAO_PAGAMENTO("autorizacao-pagamento"),
+	BAIXA_ESTOQUE("baixa-estoque");
+
+	private final String tag;
+
+	EtapaCompra(String tag)
+	{
+		this.tag = tag;
+	}
+
+	public String getTag()
+	{
+		return tag;
+	}
+}
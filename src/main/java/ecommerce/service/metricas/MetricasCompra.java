@@ -0,0 +1,87 @@
+package ecommerce.service.metricas;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Timers do checkout: {@code compra.etapa} (tag {@code etapa}) por etapa e
+ * {@code compra.finalizacao} (tag {@code resultado}) pela compra inteira. Todos
+ * são registrados na construção, com histograma de percentis para o
+ * Prometheus; no caminho quente resta só a consulta ao {@link EnumMap} e o registro no
+ * timer, sem busca por nome e tags.
+ */
+@Component
+public class MetricasCompra
+{
+	private final Map<EtapaCompra, Timer> etapas = new EnumMap<>(EtapaCompra.class);
+	private final Map<ResultadoCompra, Timer> resultados = new EnumMap<>(ResultadoCompra.class);
+
+	@Autowired
+	public MetricasCompra(MeterRegistry registry)
+	{
+		for (EtapaCompra etapa : EtapaCompra.values())
+		{
+			etapas.put(etapa, Timer.builder("compra.etapa").description("Duração de cada etapa do checkout")
+					.tag("etapa", etapa.getTag()).publishPercentileHistogram().register(registry));
+		}
+		for (ResultadoCompra resultado : ResultadoCompra.values())
+		{
+			resultados.put(resultado, Timer.builder("compra.finalizacao").description("Duração do checkout por desfecho")
+					.tag("resultado", resultado.getTag()).publishPercentileHistogram().register(registry));
+		}
+	}
+
+	/** Métricas que não publicam nada, para uso fora do contexto Spring. */
+	public static MetricasCompra desligadas()
+	{
+		return new MetricasCompra(new CompositeMeterRegistry());
+	}
+
+	/** Executa a etapa e registra sua duração, inclusive quando ela lança exceção. */
+	public <T> T medir(EtapaCompra etapa, Supplier<T> operacao)
+	{
+		long inicio = System.nanoTime();
+		try
+		{
+			return operacao.get();
+		}
+		finally
+		{
+			etapas.get(etapa).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Como {@link #medir(EtapaCompra, Supplier)}, guardando também a duração da
+	 * etapa no evento JFR da compra.
+	 */
+	public <T> T medir(EtapaCompra etapa, CompraEvento evento, Supplier<T> operacao)
+	{
+		long inicio = System.nanoTime();
+		try
+		{
+			return operacao.get();
+		}
+		finally
+		{
+			long nanos = System.nanoTime() - inicio;
+			etapas.get(etapa).record(nanos, TimeUnit.NANOSECONDS);
+			evento.registrarEtapa(etapa, nanos);
+		}
+	}
+
+	/** Registra a compra desde {@code inicioNanos} (de {@link System#nanoTime()}). */
+	public void registrarCompra(ResultadoCompra resultado, long inicioNanos)
+	{
+		resultados.get(resultado).record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+	}
+}
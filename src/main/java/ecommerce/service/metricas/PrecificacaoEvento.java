@@ -0,0 +1,65 @@
+package ecommerce.service.metricas;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Evento JFR de um cálculo de custo total; desligado por padrão, como {@link CompraEvento}. */
+@Name("ecommerce.Precificacao")
+@Label("Precificação")
+@Category({ "E-commerce", "Checkout" })
+@Description("Execução de calcularCustoTotal")
+@Enabled(false)
+@StackTrace(false)
+public class PrecificacaoEvento extends Event
+{
+	@Label("Carrinho")
+	long carrinhoId;
+
+	@Label("Itens")
+	int quantidadeItens;
+
+	@Label("Peso Total (g)")
+	long pesoTotalGramas;
+
+	@Label("Faixa de Peso")
+	String faixaPeso;
+
+	@Label("Região")
+	String regiao;
+
+	@Label("Tipo de Cliente")
+	String tipoCliente;
+
+	@Label("Motor")
+	String motor;
+
+	@Label("Resultado")
+	String resultado;
+
+	/** Encerra o evento e, se ele deve ser gravado, preenche os campos e grava. */
+	public void concluir(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente, Object motor,
+			boolean sucesso)
+	{
+		end();
+		if (shouldCommit())
+		{
+			this.carrinhoId = carrinho == null ? 0 : ResumoCarrinho.id(carrinho.getId());
+			this.quantidadeItens = ResumoCarrinho.quantidadeItens(carrinho);
+			this.pesoTotalGramas = ResumoCarrinho.pesoGramas(carrinho);
+			this.faixaPeso = ResumoCarrinho.faixaPeso(pesoTotalGramas);
+			this.regiao = regiao == null ? null : regiao.name();
+			this.tipoCliente = tipoCliente == null ? null : tipoCliente.name();
+			this.motor = motor.getClass().getSimpleName();
+			this.resultado = sucesso ? "sucesso" : "erro";
+			commit();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package ecommerce.service.metricas;
+
+/** Desfecho de {@code finalizarCompra}, usado como tag em {@code compra.finalizacao}. */
+public enum ResultadoCompra
+{
+	SUCESSO("sucesso"),
+	FORA_DE_ESTOQUE("fora-de-estoque"),
+	PAGAMENTO_RECUSADO("pagamento-recusado"),
+	BAIXA_COMPENSADA("baixa-compensada"),
+	ERRO("erro");
+
+	private final String tag;
+
+	ResultadoCompra(String tag)
+	{
+		this.tag = tag;
+	}
+
+	public String getTag()
+	{
+		return tag;
+	}
+}
@@ -0,0 +1,60 @@
+package ecommerce.service.metricas;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TotaisCarrinho;
+
+/** Resumo do carrinho gravado nos eventos JFR; só é calculado com o evento ativo. */
+final class ResumoCarrinho
+{
+	/** Peso não representável em gramas (ver {@link Produto#NAO_REPRESENTAVEL}). */
+	static final long PESO_DESCONHECIDO = -1;
+
+	private ResumoCarrinho()
+	{
+	}
+
+	static int quantidadeItens(CarrinhoDeCompras carrinho)
+	{
+		return carrinho == null || carrinho.getItens() == null ? 0 : carrinho.getItens().size();
+	}
+
+	static long pesoGramas(CarrinhoDeCompras carrinho)
+	{
+		if (quantidadeItens(carrinho) == 0)
+		{
+			return 0;
+		}
+
+		TotaisCarrinho totais = carrinho.getTotais();
+		long gramas = totais.isCompleto() ? totais.getPesoTotalGramas() : Produto.NAO_REPRESENTAVEL;
+		return gramas == Produto.NAO_REPRESENTAVEL ? PESO_DESCONHECIDO : gramas;
+	}
+
+	/** Faixas das regras de frete padrão; servem só para agrupar eventos. */
+	static String faixaPeso(long gramas)
+	{
+		if (gramas == PESO_DESCONHECIDO)
+		{
+			return "desconhecida";
+		}
+		if (gramas <= 5_000)
+		{
+			return "ate-5kg";
+		}
+		if (gramas <= 10_000)
+		{
+			return "5-10kg";
+		}
+		if (gramas <= 50_000)
+		{
+			return "10-50kg";
+		}
+		return "acima-50kg";
+	}
+
+	static long id(Long id)
+	{
+		return id == null ? 0 : id;
+	}
+}
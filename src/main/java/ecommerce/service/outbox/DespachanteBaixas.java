@@ -0,0 +1,371 @@
+package ecommerce.service.outbox;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.entity.BaixaPendente;
+import ecommerce.entity.SituacaoBaixa;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.BaixaPendenteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Despacha as {@link BaixaPendente} do outbox ao serviço de estoque, em lotes
+ * de até {@code tamanhoLote} na ordem de gravação.
+ * <ul>
+ * <li><b>Ordem por produto.</b> Uma baixa esperando nova tentativa segura as
+ * baixas seguintes que tocam algum dos mesmos produtos; as demais seguem.</li>
+ * <li><b>Falhas passageiras.</b> Exceções que não sejam
+ * {@link IllegalArgumentException} (tempo limite, circuito aberto, rede) são
+ * repetidas com espera exponencial, de {@code esperaInicial} até
+ * {@code esperaMaxima}, por no máximo {@code maximoTentativas}.</li>
+ * <li><b>Falhas definitivas.</b> Baixa recusada, pedido inválido ou tentativas
+ * esgotadas compensam a compra: o pagamento é cancelado, pela
+ * {@link FilaCompensacao} quando houver, e a reserva liberada.</li>
+ * </ul>
+ * A entrega é pelo menos uma vez: se o processo cair entre a chamada e a
+ * gravação do lote, a baixa é enviada de novo, e o serviço de estoque deve
+ * tratar a confirmação repetida do mesmo token.
+ * <p>
+ * Nenhuma chamada remota acontece dentro de transação. Numa transação curta o
+ * despachante reivindica o lote: trava as baixas vencidas, pulando as que outro
+ * despachante travou, e as marca {@link SituacaoBaixa#EM_ANDAMENTO} por
+ * {@code prazoReivindicacao}. Depois chama o estoque (e o pagamento, na
+ * compensação) fora de transação e grava o resultado de cada baixa na sua
+ * própria transação. Se o despachante cair, as baixas voltam a ser
+ * despachadas quando o prazo vence; se ele só demorar além do prazo, a baixa
+ * pode ser confirmada duas vezes, e a versão otimista descarta o resultado
+ * que chegou por último.
+ * <p>
+ * As tentativas de uma baixa precisam caber no TTL da reserva
+ * ({@code ecommerce.compra.reserva.ttl}): depois dele a reserva expira e a
+ * confirmação só pode falhar. Configurações em que a soma das esperas e dos
+ * intervalos de despacho chega ao TTL são rejeitadas na inicialização.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.compra.outbox.habilitado", havingValue = "true")
+public class DespachanteBaixas
+{
+	private static final Logger log = LoggerFactory.getLogger(DespachanteBaixas.class);
+
+	/** Baixas ainda não encerradas: pendentes ou reivindicadas por algum despachante. */
+	private static final Set<SituacaoBaixa> ABERTAS = EnumSet.of(SituacaoBaixa.PENDENTE, SituacaoBaixa.EM_ANDAMENTO);
+
+	private final BaixaPendenteRepository repositorio;
+	private final TransactionTemplate transacoes;
+	private final IEstoqueExternal estoque;
+	private final IPagamentoExternal pagamento;
+	private final int tamanhoLote;
+	private final int maximoTentativas;
+	private final EsperaExponencial espera;
+	private final Duration prazoReivindicacao;
+	private final Clock relogio;
+
+	/** Fila de compensação; {@code null} cancela o pagamento na hora. */
+	private final FilaCompensacao compensacoes;
+
+	private final Counter concluidas;
+	private final Counter reagendadas;
+	private final Counter compensadas;
+	private final Counter falhasCompensacao;
+
+	@Autowired
+	public DespachanteBaixas(BaixaPendenteRepository repositorio, PlatformTransactionManager transacoes,
+			IEstoqueExternal estoque, IPagamentoExternal pagamento,
+			@Value("${ecommerce.compra.outbox.tamanho-lote:100}") int tamanhoLote,
+			@Value("${ecommerce.compra.outbox.maximo-tentativas:8}") int maximoTentativas,
+			@Value("${ecommerce.compra.outbox.espera-inicial:200ms}") Duration esperaInicial,
+			@Value("${ecommerce.compra.outbox.espera-maxima:30s}") Duration esperaMaxima,
+			@Value("${ecommerce.compra.outbox.prazo-reivindicacao:10s}") Duration prazoReivindicacao,
+			@Value("${ecommerce.compra.outbox.intervalo-ms:100}") long intervaloMs,
+			@Value("${ecommerce.compra.reserva.ttl:30s}") Duration ttlReserva, MeterRegistry registry,
+			ObjectProvider<FilaCompensacao> compensacoes)
+	{
+		this(repositorio, transacoes, estoque, pagamento, tamanhoLote, maximoTentativas, esperaInicial,
+				esperaMaxima, prazoReivindicacao, Clock.systemUTC(), registry, compensacoes.getIfAvailable());
+
+		Duration janela = janelaTentativas(Duration.ofMillis(intervaloMs));
+		if (janela.compareTo(ttlReserva) >= 0)
+		{
+			throw new IllegalArgumentException("As tentativas do outbox levam até " + janela
+					+ ", mais que o TTL da reserva (" + ttlReserva + "); reduza maximo-tentativas ou "
+					+ "espera-maxima, ou aumente ecommerce.compra.reserva.ttl.");
+		}
+	}
+
+	public DespachanteBaixas(BaixaPendenteRepository repositorio, PlatformTransactionManager transacoes,
+			IEstoqueExternal estoque, IPagamentoExternal pagamento, int tamanhoLote, int maximoTentativas,
+			Duration esperaInicial, Duration esperaMaxima, Duration prazoReivindicacao, Clock relogio,
+			MeterRegistry registry)
+	{
+		this(repositorio, transacoes, estoque, pagamento, tamanhoLote, maximoTentativas, esperaInicial,
+				esperaMaxima, prazoReivindicacao, relogio, registry, null);
+	}
+
+	public DespachanteBaixas(BaixaPendenteRepository repositorio, PlatformTransactionManager transacoes,
+			IEstoqueExternal estoque, IPagamentoExternal pagamento, int tamanhoLote, int maximoTentativas,
+			Duration esperaInicial, Duration esperaMaxima, Duration prazoReivindicacao, Clock relogio,
+			MeterRegistry registry, FilaCompensacao compensacoes)
+	{
+		if (tamanhoLote <= 0 || maximoTentativas <= 0)
+		{
+			throw new IllegalArgumentException("Tamanho do lote e máximo de tentativas devem ser positivos.");
+		}
+		if (prazoReivindicacao.isNegative() || prazoReivindicacao.isZero())
+		{
+			throw new IllegalArgumentException("O prazo da reivindicação deve ser positivo.");
+		}
+		this.repositorio = repositorio;
+		this.transacoes = new TransactionTemplate(transacoes);
+		this.estoque = estoque;
+		this.pagamento = pagamento;
+		this.tamanhoLote = tamanhoLote;
+		this.maximoTentativas = maximoTentativas;
+		this.espera = new EsperaExponencial(esperaInicial, esperaMaxima);
+		this.prazoReivindicacao = prazoReivindicacao;
+		this.relogio = relogio;
+		this.compensacoes = compensacoes;
+
+		this.concluidas = contador(registry, "concluida");
+		this.reagendadas = contador(registry, "reagendada");
+		this.compensadas = contador(registry, "compensada");
+		this.falhasCompensacao = contador(registry, "falha-compensacao");
+		Gauge.builder("compra.outbox.pendentes", repositorio, r -> r.countBySituacaoIn(ABERTAS))
+				.description("Baixas de estoque aguardando despacho")
+				.register(registry);
+	}
+
+	private static Counter contador(MeterRegistry registry, String resultado)
+	{
+		return Counter.builder("compra.outbox.baixas")
+				.description("Baixas de estoque despachadas do outbox, por resultado")
+				.tag("resultado", resultado)
+				.register(registry);
+	}
+
+	/**
+	 * Reivindica um lote, despacha as baixas fora de transação e grava o
+	 * resultado de cada uma.
+	 *
+	 * @return quantas baixas foram tentadas
+	 */
+	@Scheduled(fixedDelayString = "${ecommerce.compra.outbox.intervalo-ms:100}")
+	public int despachar()
+	{
+		Instant agora = relogio.instant();
+		List<BaixaPendente> lote = transacoes.execute(status -> reivindicar(agora));
+		Set<Long> produtosRetidos = new HashSet<>();
+		int tentadas = 0;
+
+		for (BaixaPendente baixa : lote)
+		{
+			LoteEstoqueDTO itens = baixa.getItens();
+			if (algumRetido(itens, produtosRetidos))
+			{
+				// Uma baixa anterior do lote foi reagendada: esta volta para a fila, atrás dela
+				reter(itens, produtosRetidos);
+				baixa.devolver();
+				gravar(baixa);
+				continue;
+			}
+
+			despachar(baixa, agora);
+			tentadas++;
+			gravar(baixa);
+			if (baixa.getSituacao() == SituacaoBaixa.PENDENTE)
+			{
+				reter(itens, produtosRetidos);
+			}
+		}
+		return tentadas;
+	}
+
+	/**
+	 * Trava até {@code tamanhoLote} baixas vencidas e marca como em andamento as
+	 * que não ficam atrás de uma baixa anterior dos mesmos produtos (esperando
+	 * nova tentativa, em andamento em outro despachante ou travada por ele).
+	 */
+	private List<BaixaPendente> reivindicar(Instant agora)
+	{
+		List<BaixaPendente> vencidas = repositorio.buscarDespachaveis(ABERTAS, agora, PageRequest.of(0, tamanhoLote));
+		if (vencidas.isEmpty())
+		{
+			return List.of();
+		}
+
+		Set<Long> idsVencidas = new HashSet<>();
+		for (BaixaPendente baixa : vencidas)
+		{
+			idsVencidas.add(baixa.getId());
+		}
+
+		Instant prazo = agora.plus(prazoReivindicacao);
+		Set<Long> produtosRetidos = new HashSet<>();
+		List<BaixaPendente> reivindicadas = new ArrayList<>(vencidas.size());
+		Long ultima = vencidas.get(vencidas.size() - 1).getId();
+
+		for (BaixaPendente baixa : repositorio.findBySituacaoInAndIdLessThanEqualOrderByIdAsc(ABERTAS, ultima))
+		{
+			LoteEstoqueDTO itens = baixa.getItens();
+			if (!idsVencidas.contains(baixa.getId()) || algumRetido(itens, produtosRetidos))
+			{
+				reter(itens, produtosRetidos);
+				continue;
+			}
+			baixa.reivindicar(prazo);
+			reivindicadas.add(baixa);
+		}
+		return repositorio.saveAll(reivindicadas);
+	}
+
+	/** Grava o resultado numa transação própria. */
+	private void gravar(BaixaPendente baixa)
+	{
+		try
+		{
+			repositorio.save(baixa);
+		}
+		catch (OptimisticLockingFailureException e)
+		{
+			log.warn("Baixa {} retomada por outro despachante depois do prazo da reivindicação; resultado "
+					+ "descartado ({}).", baixa.getId(), baixa.getSituacao());
+		}
+	}
+
+	private void despachar(BaixaPendente baixa, Instant agora)
+	{
+		EstoqueBaixaDTO resposta;
+		try
+		{
+			resposta = estoque.confirmarReserva(baixa.getReserva());
+		}
+		catch (IllegalArgumentException e)
+		{
+			compensar(baixa, e.getMessage());
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			if (baixa.getTentativas() + 1 >= maximoTentativas)
+			{
+				compensar(baixa, "Tentativas esgotadas: " + e.getMessage());
+			}
+			else
+			{
+				baixa.reagendar(agora.plus(espera(baixa.getTentativas())), e.getMessage());
+				reagendadas.increment();
+			}
+			return;
+		}
+
+		if (Boolean.TRUE.equals(resposta.sucesso()))
+		{
+			baixa.concluir();
+			concluidas.increment();
+		}
+		else
+		{
+			compensar(baixa, "Baixa recusada pelo serviço de estoque.");
+		}
+	}
+
+	/** Espera antes da tentativa seguinte a {@code falhasAnteriores} falhas: dobra a cada falha, até o máximo. */
+	Duration espera(int falhasAnteriores)
+	{
+		return espera.depois(falhasAnteriores);
+	}
+
+	/**
+	 * Tempo máximo entre a gravação da baixa e a última tentativa, sem contar a
+	 * duração das chamadas: cada tentativa pode esperar um intervalo de despacho
+	 * inteiro, e entre elas vão as esperas exponenciais.
+	 */
+	Duration janelaTentativas(Duration intervalo)
+	{
+		Duration janela = intervalo.multipliedBy(maximoTentativas);
+		for (int falhas = 0; falhas < maximoTentativas - 1; falhas++)
+		{
+			janela = janela.plus(espera(falhas));
+		}
+		return janela;
+	}
+
+	private void compensar(BaixaPendente baixa, String motivo)
+	{
+		boolean cancelado;
+		try
+		{
+			if (compensacoes != null)
+			{
+				compensacoes.agendar(baixa.getClienteId(), baixa.getTransacaoId(), motivo);
+			}
+			else
+			{
+				pagamento.cancelarPagamento(baixa.getClienteId(), baixa.getTransacaoId());
+			}
+			cancelado = true;
+			compensadas.increment();
+		}
+		catch (RuntimeException e)
+		{
+			log.error("Falha ao cancelar o pagamento {} da baixa {} ({}).", baixa.getTransacaoId(), baixa.getId(),
+					motivo, e);
+			cancelado = false;
+			falhasCompensacao.increment();
+		}
+
+		try
+		{
+			estoque.liberarReserva(baixa.getReserva());
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Falha ao liberar a reserva de estoque {}; ela expira pelo TTL.", baixa.getTokenReserva(), e);
+		}
+		baixa.compensar(cancelado, motivo);
+	}
+
+	private static boolean algumRetido(LoteEstoqueDTO itens, Set<Long> produtosRetidos)
+	{
+		for (int i = 0; i < itens.tamanho(); i++)
+		{
+			if (produtosRetidos.contains(itens.id(i)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void reter(LoteEstoqueDTO itens, Set<Long> produtosRetidos)
+	{
+		for (int i = 0; i < itens.tamanho(); i++)
+		{
+			produtosRetidos.add(itens.id(i));
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package ecommerce.service.outbox;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import ecommerce.entity.CancelamentoPendente;
+import ecommerce.entity.SituacaoCancelamento;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CancelamentoPendenteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Processa a {@link FilaCompensacao}: a cada rodada lê até {@code tamanhoLote}
+ * cancelamentos vencidos e os envia ao gateway de pagamento em
+ * {@code workers} threads, que limitam quantas chamadas de cancelamento ficam
+ * abertas ao mesmo tempo.
+ * <ul>
+ * <li><b>Falhas passageiras.</b> Exceções que não sejam
+ * {@link IllegalArgumentException} são repetidas com espera exponencial, de
+ * {@code esperaInicial} até {@code esperaMaxima}, por no máximo
+ * {@code maximoTentativas}.</li>
+ * <li><b>Falhas definitivas.</b> Pedido inválido ou tentativas esgotadas
+ * deixam o cancelamento {@link SituacaoCancelamento#ABANDONADO}, com log de
+ * erro, para tratamento manual.</li>
+ * </ul>
+ * Publica a profundidade da fila ({@code compra.compensacao.profundidade}) e a
+ * idade do cancelamento pendente mais antigo ({@code compra.compensacao.idade}).
+ * A entrega é pelo menos uma vez: o gateway deve aceitar o cancelamento
+ * repetido da mesma transação.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.compra.compensacao.habilitado", havingValue = "true")
+public class DespachanteCompensacoes
+{
+	private static final Logger log = LoggerFactory.getLogger(DespachanteCompensacoes.class);
+
+	private final CancelamentoPendenteRepository repositorio;
+	private final IPagamentoExternal pagamento;
+	private final ExecutorService workers;
+	private final int tamanhoLote;
+	private final int maximoTentativas;
+	private final EsperaExponencial espera;
+	private final Clock relogio;
+
+	private final Counter concluidos;
+	private final Counter reagendados;
+	private final Counter abandonados;
+
+	@Autowired
+	public DespachanteCompensacoes(CancelamentoPendenteRepository repositorio, IPagamentoExternal pagamento,
+			@Value("${ecommerce.compra.compensacao.workers:4}") int workers,
+			@Value("${ecommerce.compra.compensacao.tamanho-lote:100}") int tamanhoLote,
+			@Value("${ecommerce.compra.compensacao.maximo-tentativas:12}") int maximoTentativas,
+			@Value("${ecommerce.compra.compensacao.espera-inicial:500ms}") Duration esperaInicial,
+			@Value("${ecommerce.compra.compensacao.espera-maxima:5m}") Duration esperaMaxima, MeterRegistry registry)
+	{
+		this(repositorio, pagamento, workers, tamanhoLote, maximoTentativas, esperaInicial, esperaMaxima,
+				Clock.systemUTC(), registry);
+	}
+
+	public DespachanteCompensacoes(CancelamentoPendenteRepository repositorio, IPagamentoExternal pagamento,
+			int workers, int tamanhoLote, int maximoTentativas, Duration esperaInicial, Duration esperaMaxima,
+			Clock relogio, MeterRegistry registry)
+	{
+		if (workers <= 0 || tamanhoLote <= 0 || maximoTentativas <= 0)
+		{
+			throw new IllegalArgumentException("Workers, tamanho do lote e máximo de tentativas devem ser positivos.");
+		}
+		this.repositorio = repositorio;
+		this.pagamento = pagamento;
+		this.tamanhoLote = tamanhoLote;
+		this.maximoTentativas = maximoTentativas;
+		this.espera = new EsperaExponencial(esperaInicial, esperaMaxima);
+		this.relogio = relogio;
+		this.workers = criarWorkers(workers, tamanhoLote);
+
+		this.concluidos = contador(registry, "concluido");
+		this.reagendados = contador(registry, "reagendado");
+		this.abandonados = contador(registry, "abandonado");
+		Gauge.builder("compra.compensacao.profundidade", repositorio,
+				r -> r.countBySituacao(SituacaoCancelamento.PENDENTE))
+				.description("Cancelamentos de pagamento aguardando o gateway")
+				.register(registry);
+		TimeGauge.builder("compra.compensacao.idade", this, TimeUnit.MILLISECONDS,
+				DespachanteCompensacoes::idadeMaisAntigoMillis)
+				.description("Idade do cancelamento de pagamento pendente mais antigo")
+				.register(registry);
+	}
+
+	private static Counter contador(MeterRegistry registry, String resultado)
+	{
+		return Counter.builder("compra.compensacao.cancelamentos")
+				.description("Cancelamentos de pagamento tentados pela fila de compensação, por resultado")
+				.tag("resultado", resultado)
+				.register(registry);
+	}
+
+	/**
+	 * Pool fixo; a fila comporta um lote inteiro, e a rodada só termina quando
+	 * todos os cancelamentos do lote voltaram.
+	 */
+	private static ExecutorService criarWorkers(int workers, int tamanhoLote)
+	{
+		CustomizableThreadFactory fabrica = new CustomizableThreadFactory("compensacao-");
+		fabrica.setDaemon(true);
+
+		return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(tamanhoLote), fabrica);
+	}
+
+	/**
+	 * Tenta um lote de cancelamentos vencidos e grava o resultado de cada um.
+	 *
+	 * @return quantos cancelamentos foram tentados
+	 */
+	@Scheduled(fixedDelayString = "${ecommerce.compra.compensacao.intervalo-ms:200}")
+	public int despachar()
+	{
+		Instant agora = relogio.instant();
+		List<CancelamentoPendente> lote = repositorio.findBySituacaoAndProximaTentativaLessThanEqualOrderByProximaTentativaAsc(
+				SituacaoCancelamento.PENDENTE, agora, PageRequest.of(0, tamanhoLote));
+
+		List<Future<?>> tarefas = new ArrayList<>(lote.size());
+		for (CancelamentoPendente cancelamento : lote)
+		{
+			tarefas.add(workers.submit(() -> cancelar(cancelamento, agora)));
+		}
+		for (Future<?> tarefa : tarefas)
+		{
+			aguardar(tarefa);
+		}
+
+		repositorio.saveAll(lote);
+		return lote.size();
+	}
+
+	private void cancelar(CancelamentoPendente cancelamento, Instant agora)
+	{
+		try
+		{
+			pagamento.cancelarPagamento(cancelamento.getClienteId(), cancelamento.getTransacaoId());
+		}
+		catch (IllegalArgumentException e)
+		{
+			abandonar(cancelamento, e.getMessage());
+			return;
+		}
+		catch (RuntimeException e)
+		{
+			if (cancelamento.getTentativas() + 1 >= maximoTentativas)
+			{
+				abandonar(cancelamento, "Tentativas esgotadas: " + e.getMessage());
+			}
+			else
+			{
+				cancelamento.reagendar(agora.plus(espera.depois(cancelamento.getTentativas())), e.getMessage());
+				reagendados.increment();
+			}
+			return;
+		}
+		cancelamento.concluir();
+		concluidos.increment();
+	}
+
+	private void abandonar(CancelamentoPendente cancelamento, String erro)
+	{
+		log.error("Cancelamento do pagamento {} abandonado; cancele manualmente ({}).", cancelamento.getTransacaoId(),
+				erro);
+		cancelamento.abandonar(erro);
+		abandonados.increment();
+	}
+
+	/** Espera o cancelamento; uma falha inesperada da tarefa interrompe a rodada sem gravar o lote. */
+	private static void aguardar(Future<?> tarefa)
+	{
+		try
+		{
+			tarefa.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Despacho de compensações interrompido.", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Falha inesperada ao cancelar um pagamento.", e.getCause());
+		}
+	}
+
+	private double idadeMaisAntigoMillis()
+	{
+		return repositorio.findFirstBySituacaoOrderByCriadoEmAsc(SituacaoCancelamento.PENDENTE)
+				.map(c -> Duration.between(c.getCriadoEm(), relogio.instant()).toMillis())
+				.orElse(0L);
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		workers.shutdown();
+	}
+}
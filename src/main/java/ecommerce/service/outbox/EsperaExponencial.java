@@ -0,0 +1,22 @@
+package ecommerce.service.outbox;
+
+import java.time.Duration;
+
+/** Espera entre tentativas que dobra a cada falha, de {@code inicial} até {@code maxima}. */
+record EsperaExponencial(Duration inicial, Duration maxima)
+{
+	EsperaExponencial
+	{
+		if (inicial.isNegative() || maxima.compareTo(inicial) < 0)
+		{
+			throw new IllegalArgumentException("Espera inicial deve ser não negativa e no máximo a espera máxima.");
+		}
+	}
+
+	/** Espera antes da tentativa seguinte a {@code falhasAnteriores} falhas. */
+	Duration depois(int falhasAnteriores)
+	{
+		Duration espera = inicial.multipliedBy(1L << Math.min(falhasAnteriores, 30));
+		return espera.compareTo(maxima) > 0 ? maxima : espera;
+	}
+}
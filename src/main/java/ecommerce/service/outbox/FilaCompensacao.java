@@ -0,0 +1,47 @@
+package ecommerce.service.outbox;
+
+import java.time.Clock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.entity.CancelamentoPendente;
+import ecommerce.repository.CancelamentoPendenteRepository;
+import jakarta.transaction.Transactional;
+
+/**
+ * Fila de compensação do checkout ({@code ecommerce.compra.compensacao.habilitado}):
+ * em vez de cancelar o pagamento no gateway durante a requisição, grava um
+ * {@link CancelamentoPendente}, e o {@link DespachanteCompensacoes} faz o
+ * cancelamento depois, com novas tentativas.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.compra.compensacao.habilitado", havingValue = "true")
+public class FilaCompensacao
+{
+	private final CancelamentoPendenteRepository repositorio;
+	private final Clock relogio;
+
+	@Autowired
+	public FilaCompensacao(CancelamentoPendenteRepository repositorio)
+	{
+		this(repositorio, Clock.systemUTC());
+	}
+
+	public FilaCompensacao(CancelamentoPendenteRepository repositorio, Clock relogio)
+	{
+		this.repositorio = repositorio;
+		this.relogio = relogio;
+	}
+
+	/**
+	 * Grava o cancelamento numa transação própria: a compra que o pede vai
+	 * falhar, e o rollback dela não pode levar junto o cancelamento.
+	 */
+	@Transactional(Transactional.TxType.REQUIRES_NEW)
+	public void agendar(Long clienteId, Long transacaoId, String motivo)
+	{
+		repositorio.save(new CancelamentoPendente(clienteId, transacaoId, motivo, relogio.instant()));
+	}
+}
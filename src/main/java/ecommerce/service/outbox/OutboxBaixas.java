@@ -0,0 +1,49 @@
+package ecommerce.service.outbox;
+
+import java.time.Clock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.entity.BaixaPendente;
+import ecommerce.repository.BaixaPendenteRepository;
+
+/**
+ * Modo outbox do checkout ({@code ecommerce.compra.outbox.habilitado}): em vez
+ * de confirmar a reserva no serviço de estoque durante a requisição, grava uma
+ * {@link BaixaPendente} na transação da compra, e o {@link DespachanteBaixas}
+ * faz a confirmação depois.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.compra.outbox.habilitado", havingValue = "true")
+public class OutboxBaixas
+{
+	private final BaixaPendenteRepository repositorio;
+	private final Clock relogio;
+
+	@Autowired
+	public OutboxBaixas(BaixaPendenteRepository repositorio)
+	{
+		this(repositorio, Clock.systemUTC());
+	}
+
+	public OutboxBaixas(BaixaPendenteRepository repositorio, Clock relogio)
+	{
+		this.repositorio = repositorio;
+		this.relogio = relogio;
+	}
+
+	/**
+	 * Grava a baixa na transação corrente. O id é gerado pelo banco, então a
+	 * inserção acontece aqui e uma falha aparece antes da compra ser dada como
+	 * concluída. A resposta é sempre de sucesso: a baixa foi aceita, não feita.
+	 */
+	public EstoqueBaixaDTO registrar(Long carrinhoId, Long clienteId, Long transacaoId, ReservaEstoqueDTO reserva)
+	{
+		repositorio.save(new BaixaPendente(carrinhoId, clienteId, transacaoId, reserva, relogio.instant()));
+		return new EstoqueBaixaDTO(true);
+	}
+}
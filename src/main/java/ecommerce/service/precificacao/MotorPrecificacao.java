@@ -0,0 +1,24 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Calcula o custo total de um carrinho. A implementação ativa é escolhida pela
+ * propriedade {@code ecommerce.precificacao.motor} ({@code bigdecimal} ou
+ * {@code ponto-fixo}); todas devem produzir exatamente o mesmo resultado.
+ */
+public interface MotorPrecificacao
+{
+
+	BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente);
+
+	/**
+	 * O mesmo cálculo, com subtotal, desconto e frete separados; o total é
+	 * idêntico (valor e escala) ao de {@link #calcularCustoTotal}.
+	 */
+	PrecoDetalhado detalhar(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente);
+}
@@ -0,0 +1,146 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TotaisCarrinho;
+
+/**
+ * Motor de referência: o cálculo é feito com {@link BigDecimal} e o
+ * arredondamento (half-up, 2 casas) ocorre só no total. O peso total, como no
+ * cálculo original, é somado em {@code double} item a item (ver
+ * {@link #pesoTotal(List)}). Faixas e taxas vêm da {@link TabelaRegras}
+ * vigente. Subtotal e frágeis vêm dos {@link TotaisCarrinho} quando estão
+ * completos; senão, dos itens.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.precificacao.motor", havingValue = "bigdecimal", matchIfMissing = true)
+public class MotorPrecificacaoBigDecimal implements MotorPrecificacao
+{
+	private final RegrasPrecificacao regras;
+
+	public MotorPrecificacaoBigDecimal()
+	{
+		this(new RegrasPrecificacao(TabelaRegras.padrao()));
+	}
+
+	@Autowired
+	public MotorPrecificacaoBigDecimal(RegrasPrecificacao regras)
+	{
+		this.regras = regras;
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		return calcularCustoTotal(carrinho, regiao, tipoCliente, regras.atual());
+	}
+
+	/** Calcula com uma tabela específica (o motor de ponto fixo repassa a que já leu). */
+	BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente,
+			TabelaRegras tabela)
+	{
+		return detalhar(carrinho, regiao, tipoCliente, tabela).total();
+	}
+
+	@Override
+	public PrecoDetalhado detalhar(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		return detalhar(carrinho, regiao, tipoCliente, regras.atual());
+	}
+
+	/** Detalha com uma tabela específica (o motor de ponto fixo repassa a que já leu). */
+	PrecoDetalhado detalhar(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente,
+			TabelaRegras tabela)
+	{
+		if (carrinho == null|| carrinho.getItens() == null || carrinho.getItens().isEmpty()){
+			return PrecoDetalhado.ZERO;
+		}
+
+		// 1. Calcular Subtotal (Soma: Preço * Quantidade)
+		BigDecimal subtotal = BigDecimal.ZERO;
+		double pesoTotal = 0.0;
+		long quantidadeFrageis = 0;
+
+		TotaisCarrinho totais = carrinho.getTotais();
+		if (totais.isCompleto()) {
+			// Totais mantidos pelo carrinho: sem as contas decimais item a item
+			subtotal = totais.getSubtotal();
+			pesoTotal = totais.getPesoSomadoEmDouble();
+			quantidadeFrageis = totais.getQuantidadeFrageis();
+		} else {
+			for (var item : carrinho.getItens()) {
+				BigDecimal preco = item.getProduto().getPreco();
+				BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
+
+				subtotal = subtotal.add(preco.multiply(quantidade));
+
+				// Acumular peso físico total (em double, como no cálculo original)
+				pesoTotal += item.getProduto().getPesoFisico().doubleValue() * item.getQuantidade();
+
+				// Contar itens frágeis
+				if (Boolean.TRUE.equals(item.getProduto().isFragil())) {
+					quantidadeFrageis += item.getQuantidade();
+				}
+			}
+		}
+
+		// 2. Aplicar Desconto por Valor Total
+		// Padrão: >= 1000: 20% | >= 500 e < 1000: 10% | Outros: 0%
+		BigDecimal desconto = BigDecimal.ZERO;
+		int faixaDesconto = tabela.indiceDesconto(subtotal);
+		if (faixaDesconto >= 0) {
+			desconto = subtotal.multiply(tabela.percentualDesconto(faixaDesconto));
+		}
+
+		BigDecimal subtotalComDesconto = subtotal.subtract(desconto);
+
+		// 3. Calcular Frete por Peso
+		// Padrão: Faixa B (5-10kg) R$ 2/kg | Faixa C (10-50kg) R$ 4/kg | Faixa D (> 50kg) R$ 7/kg
+		BigDecimal Valorfrete = BigDecimal.ZERO;
+
+		BigDecimal peso = BigDecimal.valueOf(pesoTotal);
+		int faixaPeso = tabela.indiceFaixaPeso(peso);
+		if (faixaPeso >= 0){
+			Valorfrete = peso.multiply(tabela.valorPorKg(faixaPeso));
+		}
+		// Faixa de A (0-5kg) está isenta de frete
+
+
+		BigDecimal adicionalFragil = BigDecimal.valueOf(quantidadeFrageis).multiply(tabela.getTaxaFragil());
+		Valorfrete = Valorfrete.add(adicionalFragil);
+
+		// Multiplicador da região e benefício do nível do cliente
+		Valorfrete = Valorfrete.multiply(tabela.fatorFrete(regiao, tipoCliente));
+
+
+		//4. Total Final arrendodado
+		BigDecimal totalFinal = subtotalComDesconto.add(Valorfrete);
+		return new PrecoDetalhado(subtotal, desconto, Valorfrete, totalFinal.setScale(2, RoundingMode.HALF_UP));
+	}
+
+	/**
+	 * Peso físico total somado em {@code double}, na ordem dos itens, como no
+	 * cálculo original: a soma pode se afastar do valor decimal exato (3 × 0,1 kg
+	 * não dá 0,3), e é esse o peso que decide a faixa e o frete.
+	 */
+	static double pesoTotal(List<ItemCompra> itens)
+	{
+		double pesoTotal = 0.0;
+		for (int i = 0, n = itens.size(); i < n; i++)
+		{
+			ItemCompra item = itens.get(i);
+			pesoTotal += item.getProduto().getPesoFisico().doubleValue() * item.getQuantidade();
+		}
+		return pesoTotal;
+	}
+}
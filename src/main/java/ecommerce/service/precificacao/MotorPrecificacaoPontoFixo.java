@@ -0,0 +1,254 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TotaisCarrinho;
+
+/**
+ * Motor em ponto fixo: acumula centavos e gramas em {@code long}, sem alocar
+ * objetos por item. Valores que não cabem em centavos/gramas, regras com mais
+ * casas do que o ponto fixo comporta, contas que estourariam um {@code long},
+ * ou carrinhos cujo peso somado em {@code double} pelo motor de referência não
+ * dá exatamente os gramas, são repassados ao motor de referência, de modo que
+ * o resultado é sempre idêntico ao de {@link MotorPrecificacaoBigDecimal}. Com
+ * os {@link TotaisCarrinho} completos, subtotal e frágeis vêm deles.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.precificacao.motor", havingValue = "ponto-fixo")
+public class MotorPrecificacaoPontoFixo implements MotorPrecificacao
+{
+	// Posições das somas do carrinho
+	private static final int SUBTOTAL = 0;
+	private static final int PESO = 1;
+	private static final int FRAGEIS = 2;
+
+	/**
+	 * Acima de 2^50 g o espaçamento entre {@code double}s próximos passa de
+	 * 0,25 g e a soma em {@code double} já não distingue os gramas com folga.
+	 */
+	private static final long LIMITE_PESO_GRAMAS = 1L << 50;
+
+	private final RegrasPrecificacao regras;
+	private final MotorPrecificacaoBigDecimal referencia;
+
+	public MotorPrecificacaoPontoFixo()
+	{
+		this(new RegrasPrecificacao(TabelaRegras.padrao()));
+	}
+
+	@Autowired
+	public MotorPrecificacaoPontoFixo(RegrasPrecificacao regras)
+	{
+		this.regras = regras;
+		this.referencia = new MotorPrecificacaoBigDecimal(regras);
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		if (carrinho == null || carrinho.getItens() == null || carrinho.getItens().isEmpty())
+		{
+			return BigDecimal.ZERO;
+		}
+
+		TabelaRegras tabela = regras.atual();
+		if (tabela.suportaPontoFixo())
+		{
+			try
+			{
+				long[] somas = somar(carrinho);
+				if (somas != null)
+				{
+					long total = calcularTotal(somas[SUBTOTAL], somas[PESO], somas[FRAGEIS], tabela,
+							tabela.fatorFretePontoFixo(regiao, tipoCliente));
+					return BigDecimal.valueOf(total, 2);
+				}
+			}
+			catch (ArithmeticException e)
+			{
+				// Estouro de long: segue para o motor de referência
+			}
+		}
+
+		return referencia.calcularCustoTotal(carrinho, regiao, tipoCliente, tabela);
+	}
+
+	/**
+	 * As parcelas saem exatas das mesmas contas em ponto fixo: subtotal em
+	 * centavos, desconto e frete em escala 6 (frete com fator de região ou nível
+	 * em escala 10).
+	 */
+	@Override
+	public PrecoDetalhado detalhar(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente)
+	{
+		if (carrinho == null || carrinho.getItens() == null || carrinho.getItens().isEmpty())
+		{
+			return PrecoDetalhado.ZERO;
+		}
+
+		TabelaRegras tabela = regras.atual();
+		if (tabela.suportaPontoFixo())
+		{
+			try
+			{
+				long[] somas = somar(carrinho);
+				if (somas != null)
+				{
+					return detalhar(somas[SUBTOTAL], somas[PESO], somas[FRAGEIS], tabela,
+							tabela.fatorFretePontoFixo(regiao, tipoCliente));
+				}
+			}
+			catch (ArithmeticException e)
+			{
+				// Estouro de long: segue para o motor de referência
+			}
+		}
+
+		return referencia.detalhar(carrinho, regiao, tipoCliente, tabela);
+	}
+
+	/**
+	 * Subtotal em centavos, peso em gramas e unidades frágeis, dos totais
+	 * mantidos pelo carrinho ou dos itens; {@code null} se algum valor não couber
+	 * em ponto fixo ou se o peso em gramas não for o que o motor de referência
+	 * obtém somando em {@code double}.
+	 */
+	private static long[] somar(CarrinhoDeCompras carrinho)
+	{
+		TotaisCarrinho totais = carrinho.getTotais();
+		long[] somas;
+		double pesoEmDouble;
+		if (totais.isCompleto())
+		{
+			somas = somar(totais);
+			pesoEmDouble = totais.getPesoSomadoEmDouble();
+		}
+		else
+		{
+			somas = somar(carrinho.getItens());
+			pesoEmDouble = somas == null ? 0.0 : MotorPrecificacaoBigDecimal.pesoTotal(carrinho.getItens());
+		}
+		if (somas == null || Math.abs(somas[PESO]) > LIMITE_PESO_GRAMAS || pesoEmDouble != somas[PESO] / 1000.0)
+		{
+			return null;
+		}
+		return somas;
+	}
+
+	private static long[] somar(TotaisCarrinho totais)
+	{
+		long subtotalCentavos = totais.getSubtotalCentavos();
+		long pesoGramas = totais.getPesoTotalGramas();
+		if (subtotalCentavos == Produto.NAO_REPRESENTAVEL || pesoGramas == Produto.NAO_REPRESENTAVEL)
+		{
+			return null;
+		}
+		return new long[] { subtotalCentavos, pesoGramas, totais.getQuantidadeFrageis() };
+	}
+
+	private static long[] somar(List<ItemCompra> itens)
+	{
+		long subtotalCentavos = 0;
+		long pesoGramas = 0;
+		long quantidadeFrageis = 0;
+
+		for (int i = 0, n = itens.size(); i < n; i++)
+		{
+			ItemCompra item = itens.get(i);
+			Produto produto = item.getProduto();
+			long preco = produto.getPrecoCentavos();
+			long peso = produto.getPesoGramas();
+			long quantidade = item.getQuantidade();
+
+			if (preco == Produto.NAO_REPRESENTAVEL || peso == Produto.NAO_REPRESENTAVEL)
+			{
+				return null;
+			}
+
+			subtotalCentavos = Math.addExact(subtotalCentavos, Math.multiplyExact(preco, quantidade));
+			pesoGramas = Math.addExact(pesoGramas, Math.multiplyExact(peso, quantidade));
+
+			if (Boolean.TRUE.equals(produto.isFragil()))
+			{
+				quantidadeFrageis = Math.addExact(quantidadeFrageis, quantidade);
+			}
+		}
+
+		return new long[] { subtotalCentavos, pesoGramas, quantidadeFrageis };
+	}
+
+	/** Retorna o total já arredondado, em centavos. */
+	private static long calcularTotal(long subtotalCentavos, long pesoGramas, long quantidadeFrageis,
+			TabelaRegras tabela, long fatorFrete)
+	{
+		// centavos (escala 2) * fator do subtotal (escala 4) = escala 6
+		int faixaDesconto = tabela.indiceDesconto(subtotalCentavos);
+		long fatorSubtotal = faixaDesconto >= 0 ? tabela.fatorSubtotal(faixaDesconto) : TabelaRegras.FATOR_NEUTRO;
+		long subtotalComDesconto = Math.multiplyExact(subtotalCentavos, fatorSubtotal);
+
+		long frete = freteSemFator(pesoGramas, quantidadeFrageis, tabela);
+
+		if (fatorFrete == TabelaRegras.FATOR_NEUTRO)
+		{
+			return arredondarMeioParaCima(Math.addExact(subtotalComDesconto, frete), 10_000);
+		}
+
+		// Com fator de frete (escala 4) o total passa para a escala 10
+		long total = Math.addExact(Math.multiplyExact(subtotalComDesconto, 10_000), Math.multiplyExact(frete, fatorFrete));
+		return arredondarMeioParaCima(total, 100_000_000);
+	}
+
+	private static PrecoDetalhado detalhar(long subtotalCentavos, long pesoGramas, long quantidadeFrageis,
+			TabelaRegras tabela, long fatorFrete)
+	{
+		long total = calcularTotal(subtotalCentavos, pesoGramas, quantidadeFrageis, tabela, fatorFrete);
+
+		// Percentual de desconto (escala 4) = 1 - fator do subtotal
+		int faixaDesconto = tabela.indiceDesconto(subtotalCentavos);
+		long percentual = faixaDesconto >= 0 ? TabelaRegras.FATOR_NEUTRO - tabela.fatorSubtotal(faixaDesconto) : 0;
+		long desconto = Math.multiplyExact(subtotalCentavos, percentual);
+
+		long frete = freteSemFator(pesoGramas, quantidadeFrageis, tabela);
+		BigDecimal freteFinal = fatorFrete == TabelaRegras.FATOR_NEUTRO ? BigDecimal.valueOf(frete, 6)
+				: BigDecimal.valueOf(Math.multiplyExact(frete, fatorFrete), 10);
+
+		return new PrecoDetalhado(BigDecimal.valueOf(subtotalCentavos, 2), BigDecimal.valueOf(desconto, 6), freteFinal,
+				BigDecimal.valueOf(total, 2));
+	}
+
+	/** Frete por peso mais a taxa de frágeis, antes do fator de região e nível, em escala 6. */
+	private static long freteSemFator(long pesoGramas, long quantidadeFrageis, TabelaRegras tabela)
+	{
+		// gramas (escala 3) * centavos por kg (escala 2) = escala 5; * 10 = escala 6
+		long frete = 0;
+		int faixaPeso = tabela.indiceFaixaPeso(pesoGramas);
+		if (faixaPeso >= 0)
+		{
+			frete = Math.multiplyExact(Math.multiplyExact(pesoGramas, tabela.valorPorKgCentavos(faixaPeso)), 10);
+		}
+		return Math.addExact(frete,
+				Math.multiplyExact(Math.multiplyExact(quantidadeFrageis, tabela.getTaxaFragilCentavos()), 10_000));
+	}
+
+	/** Divide com arredondamento half-up (afastando do zero), como {@code RoundingMode.HALF_UP}. */
+	static long arredondarMeioParaCima(long valor, long divisor)
+	{
+		long quociente = valor / divisor;
+		long resto = valor % divisor;
+		if (Math.abs(resto) * 2 >= divisor)
+		{
+			quociente += Long.signum(valor);
+		}
+		return quociente;
+	}
+}
@@ -0,0 +1,15 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Composição do custo total calculada por um {@link MotorPrecificacao}:
+ * subtotal dos itens, desconto por valor e frete (já com a taxa de frágeis, a
+ * região e o nível do cliente). As parcelas são exatas; só o total é
+ * arredondado.
+ */
+public record PrecoDetalhado(BigDecimal subtotal, BigDecimal desconto, BigDecimal frete, BigDecimal total)
+{
+	static final PrecoDetalhado ZERO = new PrecoDetalhado(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+			BigDecimal.ZERO);
+}
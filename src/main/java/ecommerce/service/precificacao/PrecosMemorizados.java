@@ -0,0 +1,95 @@
+package ecommerce.service.precificacao;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import ecommerce.config.CacheConfig;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Memoriza o {@link PrecoDetalhado} por carrinho, versão do carrinho, região, nível do
+ * cliente e versão da {@link TabelaRegras}. Qualquer mudança em um deles muda
+ * a chave, então uma entrada nunca fica desatualizada: ela só deixa de ser
+ * consultada e sai pelo despejo do cache {@link CacheConfig#PRECOS}.
+ * <p>
+ * Carrinhos sem id ou versão (ainda não gravados), alterados em memória desde
+ * a última gravação ou com totais incompletos são calculados sem memorização.
+ * Um produto alterado depois da gravação do carrinho não muda a versão dele,
+ * mas faz o carrinho corrigir os totais ao ser carregado e se marcar como
+ * alterado, o que também tira o cálculo da memorização.
+ * A taxa de acerto é publicada em {@code precificacao.cache.taxa.acerto}, além
+ * de {@code cache.gets{cache=precos}} do actuator.
+ */
+@Component
+public class PrecosMemorizados
+{
+	private final Cache<Object, Object> cache;
+	private final RegrasPrecificacao regras;
+
+	@Autowired
+	public PrecosMemorizados(CacheManager cacheManager, RegrasPrecificacao regras, MeterRegistry registry)
+	{
+		this(((CaffeineCache) cacheManager.getCache(CacheConfig.PRECOS)).getNativeCache(), regras);
+		Gauge.builder("precificacao.cache.taxa.acerto", cache, c -> c.stats().hitRate())
+				.description("Fração dos cálculos de custo total servidos pela memorização").register(registry);
+	}
+
+	public PrecosMemorizados(Cache<Object, Object> cache, RegrasPrecificacao regras)
+	{
+		this.cache = cache;
+		this.regras = regras;
+	}
+
+	/** Sem memorização, para uso fora do contexto Spring. */
+	public static PrecosMemorizados desligados()
+	{
+		return new PrecosMemorizados(null, null);
+	}
+
+	public PrecoDetalhado calcular(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente,
+			Supplier<PrecoDetalhado> calculo)
+	{
+		if (cache == null || !memorizavel(carrinho))
+		{
+			return calculo.get();
+		}
+
+		long versaoRegras = regras.atual().getVersao();
+		Chave chave = new Chave(carrinho.getId(), carrinho.getVersao(), regiao, tipoCliente, versaoRegras);
+		PrecoDetalhado preco = (PrecoDetalhado) cache.getIfPresent(chave);
+		if (preco != null)
+		{
+			return preco;
+		}
+
+		preco = calculo.get();
+		// Se as regras foram recarregadas durante o cálculo, ele pode ter usado a
+		// tabela nova; guardá-lo sob a versão antiga serviria um preço errado
+		if (preco != null && regras.atual().getVersao() == versaoRegras)
+		{
+			cache.put(chave, preco);
+		}
+		return preco;
+	}
+
+	private static boolean memorizavel(CarrinhoDeCompras carrinho)
+	{
+		return carrinho != null && carrinho.getId() != null && carrinho.getVersao() != null
+				&& carrinho.getTotais().isCompleto() && !carrinho.isAlteradoEmMemoria();
+	}
+
+	private record Chave(long carrinhoId, long versaoCarrinho, Regiao regiao, TipoCliente tipoCliente,
+			long versaoRegras)
+	{
+	}
+}
@@ -0,0 +1,131 @@
+package ecommerce.service.precificacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém a {@link TabelaRegras} vigente. Os motores leem a tabela uma vez por
+ * cálculo; a recarga monta uma tabela nova e a troca atomicamente, sem travar
+ * os cálculos em andamento, que terminam com a tabela que já tinham lido.
+ */
+@Component
+public class RegrasPrecificacao
+{
+	private static final Logger log = LoggerFactory.getLogger(RegrasPrecificacao.class);
+
+	private final AtomicReference<TabelaRegras> tabela;
+
+	private final Environment environment;
+	private final Path arquivo;
+	/** Escrita em {@link #recarregar} e lida pela verificação agendada, fora da trava. */
+	private volatile long ultimaModificacao;
+
+	/** Tabela fixa, sem recarga (usada fora do contexto Spring). */
+	public RegrasPrecificacao(TabelaRegras tabela)
+	{
+		this.tabela = new AtomicReference<>(tabela);
+		this.environment = null;
+		this.arquivo = null;
+	}
+
+	/**
+	 * Carrega as regras de {@code application.properties}; se
+	 * {@code ecommerce.precificacao.regras.arquivo} estiver definido, as chaves
+	 * desse arquivo têm precedência.
+	 */
+	@Autowired
+	public RegrasPrecificacao(Environment environment,
+			@Value("${" + TabelaRegras.PREFIXO + "arquivo:}") String arquivo)
+	{
+		this.environment = environment;
+		this.arquivo = arquivo.isBlank() ? null : Path.of(arquivo);
+		this.tabela = new AtomicReference<>();
+		recarregar();
+	}
+
+	public TabelaRegras atual()
+	{
+		return tabela.get();
+	}
+
+	/**
+	 * Relê as regras e publica uma nova versão da tabela. A tabela nova é
+	 * validada antes da troca (faixas crescentes, percentuais e benefícios entre
+	 * 0 e 1, valores não negativos); em caso de regra inválida a tabela vigente é
+	 * mantida e a exceção é propagada.
+	 */
+	public synchronized TabelaRegras recarregar()
+	{
+		if (environment == null)
+		{
+			return tabela.get();
+		}
+
+		Properties doArquivo = lerArquivo();
+		TabelaRegras anterior = tabela.get();
+		long versao = anterior == null ? 1 : anterior.getVersao() + 1;
+
+		TabelaRegras nova = TabelaRegras.carregar(chave -> doArquivo.getProperty(chave, environment.getProperty(chave)),
+				versao);
+		tabela.set(nova);
+
+		log.info("Regras de precificação carregadas (versão {}).", versao);
+		return nova;
+	}
+
+	/** Recarrega automaticamente quando o arquivo de regras é alterado. */
+	@Scheduled(fixedDelayString = "${" + TabelaRegras.PREFIXO + "intervalo-verificacao-ms:5000}")
+	public void verificarArquivo()
+	{
+		if (arquivo == null)
+		{
+			return;
+		}
+		try
+		{
+			long modificacao = Files.getLastModifiedTime(arquivo).toMillis();
+			if (modificacao != ultimaModificacao)
+			{
+				recarregar();
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.warn("Falha ao recarregar regras de precificação de {}; mantendo a versão {}.", arquivo,
+					tabela.get().getVersao(), e);
+		}
+	}
+
+	private Properties lerArquivo()
+	{
+		Properties propriedades = new Properties();
+		if (arquivo == null)
+		{
+			return propriedades;
+		}
+
+		try (InputStream entrada = Files.newInputStream(arquivo))
+		{
+			ultimaModificacao = Files.getLastModifiedTime(arquivo).toMillis();
+			propriedades.load(entrada);
+			return propriedades;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Não foi possível ler as regras de " + arquivo, e);
+		}
+	}
+}
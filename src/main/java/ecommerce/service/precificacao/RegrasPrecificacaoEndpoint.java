@@ -0,0 +1,41 @@
+package ecommerce.service.precificacao;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/regrasprecificacao}: GET mostra a versão vigente e POST
+ * recarrega as regras sem reiniciar a aplicação.
+ */
+@Component
+@Endpoint(id = "regrasprecificacao")
+public class RegrasPrecificacaoEndpoint
+{
+	private final RegrasPrecificacao regras;
+
+	public RegrasPrecificacaoEndpoint(RegrasPrecificacao regras)
+	{
+		this.regras = regras;
+	}
+
+	@ReadOperation
+	public Map<String, Object> versaoAtual()
+	{
+		return descrever(regras.atual());
+	}
+
+	@WriteOperation
+	public Map<String, Object> recarregar()
+	{
+		return descrever(regras.recarregar());
+	}
+
+	private static Map<String, Object> descrever(TabelaRegras tabela)
+	{
+		return Map.of("versao", tabela.getVersao(), "pontoFixo", tabela.suportaPontoFixo());
+	}
+}
@@ -0,0 +1,324 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Regras de precificação pré-compiladas e imutáveis: faixas ordenadas
+ * (consultadas por busca binária), taxa de item frágil e o fator de frete de
+ * cada {@link Regiao} × {@link TipoCliente}. Guarda também as mesmas regras em
+ * ponto fixo para o {@link MotorPrecificacaoPontoFixo}.
+ */
+public final class TabelaRegras
+{
+	public static final String PREFIXO = "ecommerce.precificacao.regras.";
+
+	/** Fator de frete 1,0000 em escala 4. */
+	static final long FATOR_NEUTRO = 10_000;
+
+	private final long versao;
+
+	// Desconto por valor: subtotal >= limite aplica o percentual da faixa
+	private final BigDecimal[] limitesDesconto;
+	private final BigDecimal[] percentuaisDesconto;
+
+	// Frete por peso: peso > limite (kg) cobra o valor por kg da faixa
+	private final BigDecimal[] limitesPeso;
+	private final BigDecimal[] valoresPorKg;
+
+	private final BigDecimal taxaFragil;
+
+	/** Multiplicador da região × (1 - benefício do nível), já multiplicados. */
+	private final EnumMap<Regiao, EnumMap<TipoCliente, BigDecimal>> fatoresFrete;
+
+	// Cópias em ponto fixo (centavos, gramas e fatores em escala 4)
+	private final boolean pontoFixo;
+	private final long[] limitesDescontoCentavos;
+	private final long[] fatoresSubtotal;
+	private final long[] limitesPesoGramas;
+	private final long[] valoresPorKgCentavos;
+	private final long taxaFragilCentavos;
+	private final long[][] fatoresFretePontoFixo;
+
+	public TabelaRegras(long versao, BigDecimal[] limitesDesconto, BigDecimal[] percentuaisDesconto,
+			BigDecimal[] limitesPeso, BigDecimal[] valoresPorKg, BigDecimal taxaFragil,
+			Map<Regiao, BigDecimal> multiplicadoresRegiao, Map<TipoCliente, BigDecimal> beneficiosFrete)
+	{
+		validarFaixas("desconto", limitesDesconto, percentuaisDesconto);
+		validarFaixas("frete", limitesPeso, valoresPorKg);
+		for (BigDecimal percentual : percentuaisDesconto)
+		{
+			validarIntervalo(percentual, BigDecimal.ONE, "percentual de desconto");
+		}
+		for (BigDecimal valor : valoresPorKg)
+		{
+			validarIntervalo(valor, null, "valor de frete por kg");
+		}
+		validarIntervalo(exigir(taxaFragil, "taxa de item frágil"), null, "taxa de item frágil");
+		multiplicadoresRegiao.values().forEach(m -> validarIntervalo(m, null, "multiplicador de região"));
+		beneficiosFrete.values().forEach(b -> validarIntervalo(b, BigDecimal.ONE, "benefício de frete"));
+
+		this.versao = versao;
+		this.limitesDesconto = limitesDesconto.clone();
+		this.percentuaisDesconto = percentuaisDesconto.clone();
+		this.limitesPeso = limitesPeso.clone();
+		this.valoresPorKg = valoresPorKg.clone();
+		this.taxaFragil = exigir(taxaFragil, "taxa de item frágil");
+
+		this.fatoresFrete = new EnumMap<>(Regiao.class);
+		for (Regiao regiao : Regiao.values())
+		{
+			BigDecimal multiplicador = multiplicadoresRegiao.getOrDefault(regiao, BigDecimal.ONE);
+			EnumMap<TipoCliente, BigDecimal> porNivel = new EnumMap<>(TipoCliente.class);
+			for (TipoCliente tipo : TipoCliente.values())
+			{
+				BigDecimal beneficio = beneficiosFrete.getOrDefault(tipo, BigDecimal.ZERO);
+				porNivel.put(tipo, multiplicador.multiply(BigDecimal.ONE.subtract(beneficio)));
+			}
+			fatoresFrete.put(regiao, porNivel);
+		}
+
+		long[] limitesDescontoCentavos = new long[limitesDesconto.length];
+		long[] fatoresSubtotal = new long[limitesDesconto.length];
+		long[] limitesPesoGramas = new long[limitesPeso.length];
+		long[] valoresPorKgCentavos = new long[limitesPeso.length];
+		long taxaFragilCentavos = 0;
+		long[][] fatoresFretePontoFixo = new long[Regiao.values().length][TipoCliente.values().length];
+		boolean pontoFixo = true;
+
+		try
+		{
+			for (int i = 0; i < limitesDesconto.length; i++)
+			{
+				limitesDescontoCentavos[i] = paraPontoFixo(limitesDesconto[i], 2);
+				fatoresSubtotal[i] = paraPontoFixo(BigDecimal.ONE.subtract(percentuaisDesconto[i]), 4);
+			}
+			for (int i = 0; i < limitesPeso.length; i++)
+			{
+				limitesPesoGramas[i] = paraPontoFixo(limitesPeso[i], 3);
+				valoresPorKgCentavos[i] = paraPontoFixo(valoresPorKg[i], 2);
+			}
+			taxaFragilCentavos = paraPontoFixo(taxaFragil, 2);
+			for (Regiao regiao : Regiao.values())
+			{
+				for (TipoCliente tipo : TipoCliente.values())
+				{
+					fatoresFretePontoFixo[regiao.ordinal()][tipo.ordinal()] = paraPontoFixo(
+							fatoresFrete.get(regiao).get(tipo), 4);
+				}
+			}
+		}
+		catch (ArithmeticException e)
+		{
+			// Alguma regra tem mais casas do que o ponto fixo comporta
+			pontoFixo = false;
+		}
+
+		this.pontoFixo = pontoFixo;
+		this.limitesDescontoCentavos = limitesDescontoCentavos;
+		this.fatoresSubtotal = fatoresSubtotal;
+		this.limitesPesoGramas = limitesPesoGramas;
+		this.valoresPorKgCentavos = valoresPorKgCentavos;
+		this.taxaFragilCentavos = taxaFragilCentavos;
+		this.fatoresFretePontoFixo = fatoresFretePontoFixo;
+	}
+
+	/** Regras vigentes antes da tabela: 10%/20% a partir de R$ 500/1000, R$ 2/4/7 por kg acima de 5/10/50 kg. */
+	public static TabelaRegras padrao()
+	{
+		return carregar(chave -> null, 0);
+	}
+
+	/**
+	 * Monta a tabela a partir de propriedades com o prefixo {@link #PREFIXO};
+	 * propriedades ausentes assumem os valores de {@link #padrao()}.
+	 */
+	public static TabelaRegras carregar(Function<String, String> propriedades, long versao)
+	{
+		Map<Regiao, BigDecimal> multiplicadores = new EnumMap<>(Regiao.class);
+		for (Regiao regiao : Regiao.values())
+		{
+			multiplicadores.put(regiao, decimal(propriedades, "multiplicador-regiao." + regiao.name(), "1.00"));
+		}
+
+		Map<TipoCliente, BigDecimal> beneficios = new EnumMap<>(TipoCliente.class);
+		for (TipoCliente tipo : TipoCliente.values())
+		{
+			beneficios.put(tipo, decimal(propriedades, "beneficio-frete." + tipo.name(), "0.00"));
+		}
+
+		return new TabelaRegras(versao,
+				decimais(propriedades, "desconto.limites", "500.00,1000.00"),
+				decimais(propriedades, "desconto.percentuais", "0.10,0.20"),
+				decimais(propriedades, "frete.limites-kg", "5,10,50"),
+				decimais(propriedades, "frete.valores-por-kg", "2.00,4.00,7.00"),
+				decimal(propriedades, "frete.taxa-fragil", "5.00"), multiplicadores, beneficios);
+	}
+
+	public long getVersao()
+	{
+		return versao;
+	}
+
+	/** Índice da faixa de desconto do subtotal, ou -1 se não houver desconto. */
+	public int indiceDesconto(BigDecimal subtotal)
+	{
+		int indice = Arrays.binarySearch(limitesDesconto, subtotal);
+		return indice >= 0 ? indice : -indice - 2;
+	}
+
+	public BigDecimal percentualDesconto(int indice)
+	{
+		return percentuaisDesconto[indice];
+	}
+
+	/** Índice da faixa de frete do peso (kg), ou -1 se isento. */
+	public int indiceFaixaPeso(BigDecimal peso)
+	{
+		int indice = Arrays.binarySearch(limitesPeso, peso);
+		return indice >= 0 ? indice - 1 : -indice - 2;
+	}
+
+	public BigDecimal valorPorKg(int indice)
+	{
+		return valoresPorKg[indice];
+	}
+
+	public BigDecimal getTaxaFragil()
+	{
+		return taxaFragil;
+	}
+
+	/** Fator aplicado ao frete; 1 quando a região ou o nível não são informados. */
+	public BigDecimal fatorFrete(Regiao regiao, TipoCliente tipoCliente)
+	{
+		if (regiao == null || tipoCliente == null)
+		{
+			return BigDecimal.ONE;
+		}
+		return fatoresFrete.get(regiao).get(tipoCliente);
+	}
+
+	public boolean suportaPontoFixo()
+	{
+		return pontoFixo;
+	}
+
+	int indiceDesconto(long subtotalCentavos)
+	{
+		int indice = Arrays.binarySearch(limitesDescontoCentavos, subtotalCentavos);
+		return indice >= 0 ? indice : -indice - 2;
+	}
+
+	/** 1 - percentual de desconto da faixa, em escala 4. */
+	long fatorSubtotal(int indice)
+	{
+		return fatoresSubtotal[indice];
+	}
+
+	int indiceFaixaPeso(long pesoGramas)
+	{
+		int indice = Arrays.binarySearch(limitesPesoGramas, pesoGramas);
+		return indice >= 0 ? indice - 1 : -indice - 2;
+	}
+
+	long valorPorKgCentavos(int indice)
+	{
+		return valoresPorKgCentavos[indice];
+	}
+
+	long getTaxaFragilCentavos()
+	{
+		return taxaFragilCentavos;
+	}
+
+	/** Fator de frete em escala 4. */
+	long fatorFretePontoFixo(Regiao regiao, TipoCliente tipoCliente)
+	{
+		if (regiao == null || tipoCliente == null)
+		{
+			return FATOR_NEUTRO;
+		}
+		return fatoresFretePontoFixo[regiao.ordinal()][tipoCliente.ordinal()];
+	}
+
+	private static void validarFaixas(String nome, BigDecimal[] limites, BigDecimal[] valores)
+	{
+		if (limites == null || valores == null || limites.length != valores.length)
+		{
+			throw new IllegalArgumentException("Faixas de " + nome + " com limites e valores de tamanhos diferentes.");
+		}
+		for (int i = 0; i < limites.length; i++)
+		{
+			exigir(limites[i], "limite de " + nome);
+			exigir(valores[i], "valor de " + nome);
+			validarIntervalo(limites[i], null, "limite de " + nome);
+			if (i > 0 && limites[i].compareTo(limites[i - 1]) <= 0)
+			{
+				throw new IllegalArgumentException("Limites de " + nome + " devem ser estritamente crescentes.");
+			}
+		}
+	}
+
+	/** Exige {@code 0 <= valor <= maximo}; sem máximo, só que não seja negativo. */
+	private static void validarIntervalo(BigDecimal valor, BigDecimal maximo, String nome)
+	{
+		if (exigir(valor, nome).signum() < 0 || (maximo != null && valor.compareTo(maximo) > 0))
+		{
+			throw new IllegalArgumentException("Regra de precificação fora do intervalo: " + nome + " = " + valor
+					+ (maximo == null ? " (deve ser >= 0)." : " (deve estar entre 0 e " + maximo + ")."));
+		}
+	}
+
+	private static BigDecimal exigir(BigDecimal valor, String nome)
+	{
+		if (valor == null)
+		{
+			throw new IllegalArgumentException("Regra de precificação ausente: " + nome + ".");
+		}
+		return valor;
+	}
+
+	private static long paraPontoFixo(BigDecimal valor, int escala)
+	{
+		return valor.setScale(escala, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+	}
+
+	private static BigDecimal decimal(Function<String, String> propriedades, String chave, String padrao)
+	{
+		String valor = propriedades.apply(PREFIXO + chave);
+		try
+		{
+			return new BigDecimal(valor == null || valor.isBlank() ? padrao : valor.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Valor inválido para " + PREFIXO + chave + ": " + valor);
+		}
+	}
+
+	private static BigDecimal[] decimais(Function<String, String> propriedades, String chave, String padrao)
+	{
+		String valor = propriedades.apply(PREFIXO + chave);
+		String lista = valor == null ? padrao : valor;
+		if (lista.isBlank())
+		{
+			return new BigDecimal[0];
+		}
+		try
+		{
+			return Arrays.stream(lista.split(",")).map(String::trim).map(BigDecimal::new).toArray(BigDecimal[]::new);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Valor inválido para " + PREFIXO + chave + ": " + valor);
+		}
+	}
+}
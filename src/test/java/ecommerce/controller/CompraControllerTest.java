@@ -0,0 +1,71 @@
+package ecommerce.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.service.CompraRecusadaException;
+import ecommerce.service.CompraService;
+import ecommerce.service.IdempotenciaService;
+import ecommerce.service.metricas.ResultadoCompra;
+
+class CompraControllerTest {
+
+    private final CompraService compraService = mock(CompraService.class);
+    private final CompraController controller = new CompraController(compraService,
+        new IdempotenciaService(1_000, Duration.ofHours(24), Duration.ofSeconds(5)));
+
+    @Test
+    @DisplayName("Falha passageira libera a chave: a repetição executa de novo e guarda o sucesso")
+    void finalizar_FalhaPassageiraNaoGuardada() {
+        when(compraService.finalizarCompra(1L, 1L))
+            .thenThrow(new IllegalStateException("Tempo limite do gateway de pagamento excedido."))
+            .thenReturn(new CompraDTO(true, 42L, "Compra finalizada com sucesso."));
+
+        ResponseEntity<CompraDTO> primeira = controller.finalizarCompra(1L, 1L, "k1");
+        ResponseEntity<CompraDTO> segunda = controller.finalizarCompra(1L, 1L, "k1");
+        ResponseEntity<CompraDTO> terceira = controller.finalizarCompra(1L, 1L, "k1");
+
+        assertThat(primeira.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(segunda.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(terceira.getBody()).isEqualTo(segunda.getBody());
+        verify(compraService, times(2)).finalizarCompra(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("Recusa de negócio e pedido inválido são definitivos e ficam guardados")
+    void finalizar_DesfechosDefinitivosGuardados() {
+        when(compraService.finalizarCompra(1L, 1L))
+            .thenThrow(new CompraRecusadaException(ResultadoCompra.PAGAMENTO_RECUSADO, "Pagamento não autorizado."));
+        when(compraService.finalizarCompra(2L, 1L)).thenThrow(new IllegalArgumentException("Carrinho não encontrado."));
+
+        assertThat(controller.finalizarCompra(1L, 1L, "k2").getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(controller.finalizarCompra(1L, 1L, "k2").getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(controller.finalizarCompra(2L, 1L, "k3").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(controller.finalizarCompra(2L, 1L, "k3").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        verify(compraService, times(1)).finalizarCompra(1L, 1L);
+        verify(compraService, times(1)).finalizarCompra(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("Erro interno não é guardado")
+    void finalizar_ErroInternoNaoGuardado() {
+        when(compraService.finalizarCompra(1L, 1L)).thenThrow(new RuntimeException("falha"))
+            .thenReturn(new CompraDTO(true, 7L, "Compra finalizada com sucesso."));
+
+        assertThat(controller.finalizarCompra(1L, 1L, "k4").getStatusCode())
+            .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(controller.finalizarCompra(1L, 1L, "k4").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,164 @@
+package ecommerce.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.MotorPrecificacaoPontoFixo;
+
+class CarrinhoDeComprasTest {
+
+    @Test
+    @DisplayName("Totais acompanham inclusões, remoções e alterações de quantidade")
+    void totais_AcompanhamAlteracoes() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null, new ArrayList<>(), LocalDate.now());
+        ItemCompra livro = new ItemCompra(1L, produto("10.50", "1.25", true, TipoProduto.LIVRO), 2L);
+        ItemCompra movel = new ItemCompra(2L, produto("300.00", "40.00", false, TipoProduto.MOVEL), 1L);
+
+        carrinho.adicionarItem(livro);
+        carrinho.adicionarItem(movel);
+        carrinho.alterarQuantidade(livro, 3L);
+        carrinho.removerItem(movel);
+
+        TotaisCarrinho totais = carrinho.getTotais();
+        assertThat(totais.isCompleto()).isTrue();
+        assertThat(totais.getSubtotal()).isEqualByComparingTo("31.50");
+        assertThat(totais.getPesoTotal()).isEqualByComparingTo("3.75");
+        assertThat(totais.getSubtotalCentavos()).isEqualTo(3_150L);
+        assertThat(totais.getPesoTotalGramas()).isEqualTo(3_750L);
+        assertThat(totais.getQuantidadeFrageis()).isEqualTo(3L);
+        assertThat(totais.getPesoSomadoEmDouble()).isEqualTo(3.75);
+        assertThat(totais).isEqualTo(TotaisCarrinho.de(carrinho.getItens()));
+    }
+
+    @Test
+    @DisplayName("Sequência aleatória de alterações mantém os totais iguais ao recálculo do zero")
+    void totais_ConsistentesComRecalculo() {
+        SplittableRandom random = new SplittableRandom(7);
+        TipoProduto[] tipos = TipoProduto.values();
+        List<Produto> catalogo = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            catalogo.add(produto(BigDecimal.valueOf(random.nextLong(1, 50_000), 2),
+                BigDecimal.valueOf(random.nextLong(1, 30_000), 3), random.nextBoolean(), tipos[random.nextInt(tipos.length)]));
+        }
+        // Um produto sem preço deixa os totais incompletos enquanto estiver no carrinho
+        catalogo.add(produto(null, BigDecimal.ONE, false, TipoProduto.ROUPA));
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null, new ArrayList<>(), LocalDate.now());
+        MotorPrecificacaoBigDecimal referencia = new MotorPrecificacaoBigDecimal();
+        MotorPrecificacaoPontoFixo pontoFixo = new MotorPrecificacaoPontoFixo();
+
+        for (int passo = 0; passo < 2_000; passo++) {
+            List<ItemCompra> itens = carrinho.getItens();
+            int operacao = itens.isEmpty() ? 0 : random.nextInt(3);
+            if (operacao == 0) {
+                carrinho.adicionarItem(new ItemCompra((long) passo,
+                    catalogo.get(random.nextInt(catalogo.size())), random.nextLong(1, 10)));
+            } else if (operacao == 1) {
+                carrinho.removerItem(itens.get(random.nextInt(itens.size())));
+            } else {
+                carrinho.alterarQuantidade(itens.get(random.nextInt(itens.size())), random.nextLong(1, 10));
+            }
+
+            TotaisCarrinho recalculados = TotaisCarrinho.de(carrinho.getItens());
+            assertThat(carrinho.getTotais()).as("passo %d", passo).isEqualTo(recalculados);
+
+            if (recalculados.isCompleto() && !carrinho.getItens().isEmpty()) {
+                CarrinhoDeCompras copia = new CarrinhoDeCompras();
+                copia.setItens(new ArrayList<>(carrinho.getItens()));
+                assertThat(pontoFixo.calcularCustoTotal(carrinho, Regiao.NORTE, TipoCliente.PRATA))
+                    .isEqualTo(referencia.calcularCustoTotal(copia, Regiao.NORTE, TipoCliente.PRATA));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Item incompleto deixa os totais incompletos até ser removido")
+    void totais_ItemIncompleto() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null, new ArrayList<>(), LocalDate.now());
+        ItemCompra semQuantidade = new ItemCompra(1L, produto("1.00", "1.00", false, TipoProduto.ROUPA), null);
+
+        carrinho.adicionarItem(semQuantidade);
+        assertThat(carrinho.getTotais().isCompleto()).isFalse();
+
+        carrinho.removerItem(semQuantidade);
+        assertThat(carrinho.getTotais().isCompleto()).isTrue();
+        assertThat(carrinho.getTotais()).isEqualTo(new TotaisCarrinho());
+    }
+
+    @Test
+    @DisplayName("Peso em double segue a ordem dos itens depois de remover e incluir de novo")
+    void totais_PesoEmDoubleNaOrdemDosItens() {
+        ItemCompra leve = new ItemCompra(1L, produto("1.00", "0.2", false, TipoProduto.ROUPA), 1L);
+        ItemCompra pesado = new ItemCompra(2L, produto("1.00", "4.4", false, TipoProduto.ROUPA), 1L);
+        ItemCompra medio = new ItemCompra(3L, produto("1.00", "0.4", false, TipoProduto.ROUPA), 1L);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null, new ArrayList<>(), LocalDate.now());
+        carrinho.adicionarItem(leve);
+        carrinho.adicionarItem(pesado);
+        carrinho.adicionarItem(medio);
+        assertThat(carrinho.getTotais().getPesoSomadoEmDouble()).isEqualTo(0.0 + 0.2 + 4.4 + 0.4);
+
+        carrinho.removerItem(leve);
+        carrinho.adicionarItem(leve);
+
+        assertThat(carrinho.getTotais().getPesoSomadoEmDouble()).isEqualTo(0.0 + 4.4 + 0.4 + 0.2);
+        assertThat(carrinho.getTotais().getPesoTotalGramas()).isEqualTo(5_000L);
+    }
+
+    @Test
+    @DisplayName("getTotais só lê; mudanças feitas por fora valem depois de recalcularTotais")
+    void getTotais_MudancasPorFora() {
+        Produto produto = produto("10.00", "1.00", false, TipoProduto.ELETRONICO);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null,
+            new ArrayList<>(List.of(new ItemCompra(1L, produto, 2L))), LocalDate.now());
+        TotaisCarrinho antes = carrinho.getTotais();
+
+        produto.setPreco(new BigDecimal("12.00"));
+        carrinho.getItens().add(new ItemCompra(2L, produto("5.00", "0.50", true, TipoProduto.LIVRO), 1L));
+        assertThat(carrinho.getTotais()).isSameAs(antes);
+        assertThat(carrinho.getTotais().getSubtotal()).isEqualByComparingTo("20.00");
+        assertThat(carrinho.isAlteradoEmMemoria()).isFalse();
+
+        carrinho.recalcularTotais();
+        assertThat(carrinho.getTotais().getSubtotal()).isEqualByComparingTo("29.00");
+        assertThat(carrinho.getTotais().getQuantidadeFrageis()).isEqualTo(1L);
+        assertThat(carrinho.getTotais()).isEqualTo(TotaisCarrinho.de(carrinho.getItens()));
+        assertThat(carrinho.isAlteradoEmMemoria()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Preço fora de centavos ou peso fora de gramas não entram nas colunas arredondadas")
+    void totais_ValoresForaDaEscalaDasColunas() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(1L, null, new ArrayList<>(), LocalDate.now());
+        ItemCompra precoMilesimal = new ItemCompra(1L, produto("10.005", "1.000", false, TipoProduto.ROUPA), 1L);
+        ItemCompra pesoDecimiligrama = new ItemCompra(2L, produto("1.00", "0.0005", false, TipoProduto.ROUPA), 1L);
+
+        carrinho.adicionarItem(precoMilesimal);
+        assertThat(carrinho.getTotais().isCompleto()).isFalse();
+        carrinho.removerItem(precoMilesimal);
+        carrinho.adicionarItem(pesoDecimiligrama);
+        assertThat(carrinho.getTotais().isCompleto()).isFalse();
+
+        pesoDecimiligrama.getProduto().setPesoFisico(new BigDecimal("0.001"));
+        carrinho.recalcularTotais();
+        assertThat(carrinho.getTotais().isCompleto()).isTrue();
+        assertThat(carrinho.getTotais().getPesoTotalGramas()).isEqualTo(1L);
+    }
+
+    private static Produto produto(String preco, String peso, boolean fragil, TipoProduto tipo) {
+        return produto(preco == null ? null : new BigDecimal(preco), new BigDecimal(peso), fragil, tipo);
+    }
+
+    private static Produto produto(BigDecimal preco, BigDecimal peso, boolean fragil, TipoProduto tipo) {
+        return new Produto(null, "Produto", null, preco, peso, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE,
+            fragil, tipo);
+    }
+}
@@ -0,0 +1,214 @@
+package ecommerce.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.external.fake.EstoqueSimulado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EstoqueAgrupadoTest {
+
+    private final EstoqueSimulado simulado = new EstoqueSimulado(64, 0);
+    private final EstoqueContado contado = new EstoqueContado(simulado);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService clientes = Executors.newFixedThreadPool(8);
+    private EstoqueAgrupado agrupado;
+
+    @AfterEach
+    void encerrar() {
+        clientes.shutdownNow();
+        if (agrupado != null) {
+            agrupado.encerrar();
+        }
+    }
+
+    @Test
+    @DisplayName("Verificações concorrentes viram uma chamada e cada carrinho recebe a própria resposta")
+    void verificarDisponibilidade_AgrupaEReparte() throws Exception {
+        simulado.repor(1L, 10);
+        simulado.repor(2L, 1);
+        agrupado = new EstoqueAgrupado(contado, Duration.ofSeconds(5), 4, 16, 1, registry);
+
+        List<LoteEstoqueDTO> lotes = List.of(
+            new LoteEstoqueDTO(2).adicionar(1L, 2).adicionar(2L, 1),
+            new LoteEstoqueDTO(1).adicionar(1L, 2),
+            new LoteEstoqueDTO(2).adicionar(2L, 1).adicionar(3L, 1),
+            new LoteEstoqueDTO(2).adicionar(1L, 1).adicionar(1L, 1));
+
+        List<DisponibilidadeLoteDTO> respostas = verificarEmParalelo(lotes);
+
+        assertThat(contado.chamadas).hasValue(1);
+        for (int i = 0; i < lotes.size(); i++) {
+            DisponibilidadeLoteDTO esperada = simulado.verificarDisponibilidade(lotes.get(i));
+            assertThat(respostas.get(i).disponivel()).as("carrinho %d", i).isEqualTo(esperada.disponivel());
+            assertThat(respostas.get(i).posicoesIndisponiveis()).isEqualTo(esperada.posicoesIndisponiveis());
+        }
+        assertThat(respostas.get(2).idsIndisponiveis()).containsExactly(3L);
+        assertThat(registry.get("estoque.agrupamento.lote").summary().max()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Demandas diferentes pelo mesmo produto são separadas por busca entre os níveis")
+    void verificarDisponibilidade_DemandasDiferentes() throws Exception {
+        simulado.repor(1L, 5);
+        agrupado = new EstoqueAgrupado(contado, Duration.ofSeconds(5), 4, 16, 1, registry);
+
+        List<LoteEstoqueDTO> lotes = List.of(
+            new LoteEstoqueDTO(1).adicionar(1L, 3),
+            new LoteEstoqueDTO(1).adicionar(1L, 5),
+            new LoteEstoqueDTO(1).adicionar(1L, 7),
+            new LoteEstoqueDTO(2).adicionar(1L, 4).adicionar(1L, 4));
+
+        List<DisponibilidadeLoteDTO> respostas = verificarEmParalelo(lotes);
+
+        assertThat(respostas).extracting(DisponibilidadeLoteDTO::disponivel).containsExactly(true, true, false, false);
+        // Níveis 3, 5, 7, 8: consulta 8, depois 5 e 7 na busca binária
+        assertThat(contado.chamadas.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Pedido sozinho espera no máximo a janela")
+    void verificarDisponibilidade_JanelaLimitaEspera() {
+        simulado.repor(1L, 1);
+        agrupado = new EstoqueAgrupado(contado, Duration.ofMillis(20), 64, 16, 1, registry);
+
+        long inicio = System.nanoTime();
+        DisponibilidadeDTO resposta = agrupado.verificarDisponibilidade(List.of(1L), List.of(1L));
+
+        assertThat(resposta.disponivel()).isTrue();
+        assertThat(System.nanoTime() - inicio).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    @DisplayName("Falha da chamada combinada chega a todos os carrinhos do grupo")
+    void verificarDisponibilidade_FalhaPropagada() throws Exception {
+        agrupado = new EstoqueAgrupado(new EstoqueContado(null), Duration.ofSeconds(5), 2, 16, 1, registry);
+
+        Future<?> primeiro = clientes.submit(
+            () -> agrupado.verificarDisponibilidade(new LoteEstoqueDTO(1).adicionar(1L, 1)));
+        Future<?> segundo = clientes.submit(
+            () -> agrupado.verificarDisponibilidade(new LoteEstoqueDTO(1).adicionar(2L, 1)));
+
+        for (Future<?> futuro : List.of(primeiro, segundo)) {
+            Exception ex = assertThrows(Exception.class, () -> futuro.get(5, TimeUnit.SECONDS));
+            assertThat(ex).hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Com as threads ocupadas, cada pedido verifica direto na própria thread, e não no despachante")
+    void verificarDisponibilidade_ThreadsOcupadas_VerificaDireto() throws Exception {
+        simulado.repor(1L, 10);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        EstoqueContado lento = new EstoqueContado(simulado) {
+            @Override
+            public DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote) {
+                String thread = Thread.currentThread().getName();
+                threads.add(thread);
+                if (thread.startsWith("estoque-agrupado-")) {
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.verificarDisponibilidade(lote);
+            }
+        };
+        // Uma thread e um grupo à espera: do terceiro pedido em diante, o pool recusa
+        agrupado = new EstoqueAgrupado(lento, Duration.ZERO, 1, 16, 1, registry);
+
+        List<Future<DisponibilidadeLoteDTO>> futuros = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futuros.add(clientes.submit(() -> agrupado.verificarDisponibilidade(new LoteEstoqueDTO(1).adicionar(1L, 1))));
+        }
+
+        long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (futuros.stream().filter(Future::isDone).count() < 3 && System.nanoTime() < prazo) {
+            Thread.sleep(5);
+        }
+        assertThat(futuros.stream().filter(Future::isDone).count()).isGreaterThanOrEqualTo(3);
+        assertThat(registry.get("estoque.agrupamento.desvios").counter().count()).isGreaterThanOrEqualTo(3);
+
+        liberar.countDown();
+        for (Future<DisponibilidadeLoteDTO> futuro : futuros) {
+            assertThat(futuro.get(5, TimeUnit.SECONDS).disponivel()).isTrue();
+        }
+        assertThat(threads).doesNotContain("estoque-agrupador");
+    }
+
+    @Test
+    @DisplayName("Reserva nativa e baixa são repassadas sem agrupamento")
+    void reservar_RepassaReservaNativa() {
+        simulado.repor(1L, 5);
+        agrupado = new EstoqueAgrupado(simulado, Duration.ofSeconds(5), 64, 16, 1, registry);
+
+        assertThat(agrupado.reservar(new LoteEstoqueDTO(1).adicionar(1L, 2), Duration.ofMinutes(1)).token())
+            .isNotNull();
+        assertThat(agrupado.darBaixa(List.of(1L), List.of(3L)).sucesso()).isTrue();
+        assertThat(simulado.saldo(1L)).isZero();
+    }
+
+    private List<DisponibilidadeLoteDTO> verificarEmParalelo(List<LoteEstoqueDTO> lotes) throws Exception {
+        List<Future<DisponibilidadeLoteDTO>> futuros = new ArrayList<>();
+        for (LoteEstoqueDTO lote : lotes) {
+            futuros.add(clientes.submit(() -> agrupado.verificarDisponibilidade(lote)));
+        }
+        List<DisponibilidadeLoteDTO> respostas = new ArrayList<>();
+        for (Future<DisponibilidadeLoteDTO> futuro : futuros) {
+            respostas.add(futuro.get(10, TimeUnit.SECONDS));
+        }
+        return respostas;
+    }
+
+    /** Conta as verificações que chegam ao serviço; sem estoque, falha. */
+    private static class EstoqueContado implements IEstoqueExternal {
+
+        private final EstoqueSimulado estoque;
+        private final AtomicInteger chamadas = new AtomicInteger();
+
+        EstoqueContado(EstoqueSimulado estoque) {
+            this.estoque = estoque;
+        }
+
+        @Override
+        public DisponibilidadeLoteDTO verificarDisponibilidade(LoteEstoqueDTO lote) {
+            chamadas.incrementAndGet();
+            if (estoque == null) {
+                throw new IllegalStateException("Estoque fora do ar.");
+            }
+            return estoque.verificarDisponibilidade(lote);
+        }
+
+        @Override
+        public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+            return verificarDisponibilidade(LoteEstoqueDTO.de(produtosIds, produtosQuantidades)).paraDTO();
+        }
+
+        @Override
+        public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+            return estoque.darBaixa(produtosIds, produtosQuantidades);
+        }
+    }
+}
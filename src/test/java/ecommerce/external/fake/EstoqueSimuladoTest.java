@@ -0,0 +1,257 @@
+package ecommerce.external.fake;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.DisponibilidadeLoteDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+
+class EstoqueSimuladoTest {
+
+    @Test
+    @DisplayName("Baixa com saldo suficiente deve decrementar todos os produtos")
+    void darBaixa_Sucesso() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+        estoque.repor(2L, 3);
+
+        assertThat(estoque.darBaixa(List.of(1L, 2L), List.of(2L, 3L)).sucesso()).isTrue();
+
+        assertThat(estoque.saldo(1L)).isEqualTo(3);
+        assertThat(estoque.saldo(2L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Baixa é tudo-ou-nada: um produto sem saldo devolve os demais")
+    void darBaixa_TudoOuNada() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+        estoque.repor(2L, 1);
+
+        assertThat(estoque.darBaixa(List.of(1L, 2L), List.of(2L, 2L)).sucesso()).isFalse();
+
+        assertThat(estoque.saldo(1L)).isEqualTo(5);
+        assertThat(estoque.saldo(2L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ids repetidos somam as quantidades na baixa e na verificação")
+    void idsRepetidos_SomamQuantidades() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 3);
+
+        DisponibilidadeDTO disponibilidade = estoque.verificarDisponibilidade(List.of(1L, 1L), List.of(2L, 2L));
+
+        assertThat(disponibilidade.disponivel()).isFalse();
+        assertThat(disponibilidade.idsProdutosIndisponiveis()).containsExactly(1L);
+        assertThat(estoque.darBaixa(List.of(1L, 1L), List.of(2L, 2L)).sucesso()).isFalse();
+        assertThat(estoque.saldo(1L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Lote marca no bitset todas as posições de um produto sem saldo")
+    void verificarDisponibilidade_LoteMarcaPosicoes() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 3);
+        estoque.repor(2L, 10);
+        LoteEstoqueDTO lote = new LoteEstoqueDTO(2).adicionar(1L, 2).adicionar(2L, 1).adicionar(1L, 2).adicionar(3L, 0);
+
+        DisponibilidadeLoteDTO disponibilidade = estoque.verificarDisponibilidade(lote);
+
+        assertThat(disponibilidade.disponivel()).isFalse();
+        assertThat(disponibilidade.posicoesIndisponiveis().stream()).containsExactly(0, 2);
+        assertThat(disponibilidade.idsIndisponiveis()).containsExactly(1L);
+        assertThat(estoque.reservar(lote, Duration.ofMinutes(1)).idsProdutosIndisponiveis()).containsExactly(1L);
+        assertThat(estoque.saldo(1L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Visões em lista do lote voltam ao lote sem cópia e funcionam como listas comuns")
+    void lote_VisoesEmLista() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(7L, 5);
+        LoteEstoqueDTO lote = new LoteEstoqueDTO(1).adicionar(7L, 2);
+
+        assertThat(LoteEstoqueDTO.de(lote.produtosIds(), lote.produtosQuantidades())).isSameAs(lote);
+        assertThat(lote.produtosIds()).isEqualTo(List.of(7L));
+        assertThat(lote.produtosQuantidades()).isEqualTo(List.of(2L));
+
+        ReservaEstoqueDTO reserva = estoque.reservar(lote.produtosIds(), lote.produtosQuantidades(),
+            Duration.ofMinutes(1));
+        estoque.liberarReserva(reserva);
+        assertThat(estoque.darBaixa(lote).sucesso()).isTrue();
+        assertThat(estoque.saldo(7L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Produto desconhecido fica indisponível, salvo com saldo inicial configurado")
+    void produtoDesconhecido() {
+        EstoqueSimulado semSaldoInicial = new EstoqueSimulado(16, 0);
+        EstoqueSimulado comSaldoInicial = new EstoqueSimulado(16, 10);
+
+        assertThat(semSaldoInicial.verificarDisponibilidade(List.of(99L), List.of(1L)).idsProdutosIndisponiveis())
+            .containsExactly(99L);
+        assertThat(comSaldoInicial.darBaixa(List.of(99L), List.of(4L)).sucesso()).isTrue();
+        assertThat(comSaldoInicial.saldo(99L)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Entradas inconsistentes devem ser rejeitadas")
+    void entradasInvalidas() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> estoque.darBaixa(List.of(1L), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> estoque.darBaixa(List.of(1L), List.of(-1L)));
+        assertThrows(IllegalArgumentException.class, () -> estoque.repor(1L, -1));
+    }
+
+    @Test
+    @DisplayName("Índice cheio deve falhar ao cadastrar novo produto")
+    void capacidadeEsgotada() {
+        EstoqueSimulado estoque = new EstoqueSimulado(1, 0);
+        estoque.repor(1L, 1);
+        estoque.repor(2L, 1);
+
+        assertThrows(IllegalStateException.class, () -> estoque.repor(3L, 1));
+        assertThat(estoque.saldo(3L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Reserva retira o saldo na hora; confirmação efetiva sem nova baixa")
+    void reservar_Confirmar() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L), List.of(3L), Duration.ofMinutes(1));
+
+        assertThat(reserva.reservado()).isTrue();
+        assertThat(reserva.token()).isNotNull();
+        assertThat(estoque.saldo(1L)).isEqualTo(2);
+        assertThat(estoque.reservar(List.of(1L), List.of(3L), Duration.ofMinutes(1)).reservado()).isFalse();
+
+        assertThat(estoque.confirmarReserva(reserva).sucesso()).isTrue();
+        assertThat(estoque.saldo(1L)).isEqualTo(2);
+        assertThat(estoque.getQuantidadeReservasAtivas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Reserva recusada informa os produtos sem saldo e não retira nada")
+    void reservar_SemSaldo() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+        estoque.repor(2L, 1);
+
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L, 2L), List.of(1L, 2L), Duration.ofMinutes(1));
+
+        assertThat(reserva.reservado()).isFalse();
+        assertThat(reserva.idsProdutosIndisponiveis()).containsExactly(2L);
+        assertThat(estoque.saldo(1L)).isEqualTo(5);
+        assertThat(estoque.getQuantidadeReservasAtivas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Liberar a reserva devolve o saldo uma única vez")
+    void liberarReserva_DevolveSaldo() {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L), List.of(4L), Duration.ofMinutes(1));
+
+        estoque.liberarReserva(reserva);
+        estoque.liberarReserva(reserva);
+
+        assertThat(estoque.saldo(1L)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Reserva vencida é devolvida pela varredura; confirmação tardia tenta baixa direta")
+    void expirarReservas_DevolveSaldoVencido() throws InterruptedException {
+        EstoqueSimulado estoque = new EstoqueSimulado(16, 0);
+        estoque.repor(1L, 5);
+        ReservaEstoqueDTO vencida = estoque.reservar(List.of(1L), List.of(4L), Duration.ofMillis(1));
+        ReservaEstoqueDTO vigente = estoque.reservar(List.of(1L), List.of(1L), Duration.ofMinutes(1));
+
+        Thread.sleep(10);
+        estoque.expirarReservas();
+
+        assertThat(estoque.saldo(1L)).isEqualTo(4);
+        assertThat(estoque.getQuantidadeReservasAtivas()).isEqualTo(1);
+
+        assertThat(estoque.darBaixa(List.of(1L), List.of(2L)).sucesso()).isTrue();
+        assertThat(estoque.confirmarReserva(vencida).sucesso()).isFalse();
+        assertThat(estoque.confirmarReserva(vigente).sucesso()).isTrue();
+        assertThat(estoque.saldo(1L)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Estresse: baixas concorrentes de vários produtos nunca vendem além do saldo")
+    void darBaixa_ConcorrenteNuncaVendeAMais() throws Exception {
+        int produtos = 64;
+        long saldoPorProduto = 500;
+        int threads = 16;
+        int comprasPorThread = 20_000;
+
+        EstoqueSimulado estoque = new EstoqueSimulado(produtos, 0);
+        for (long id = 1; id <= produtos; id++) {
+            estoque.repor(id, saldoPorProduto);
+        }
+
+        AtomicLongArray vendidos = new AtomicLongArray(produtos + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int c = 0; c < comprasPorThread; c++) {
+                    int itens = 1 + random.nextInt(4);
+                    List<Long> ids = new ArrayList<>(itens);
+                    List<Long> quantidades = new ArrayList<>(itens);
+                    for (int i = 0; i < itens; i++) {
+                        ids.add(1L + random.nextInt(produtos));
+                        quantidades.add(1L + random.nextInt(3));
+                    }
+                    if (estoque.darBaixa(ids, quantidades).sucesso()) {
+                        for (int i = 0; i < itens; i++) {
+                            vendidos.addAndGet(ids.get(i).intValue(), quantidades.get(i));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long totalVendido = 0;
+        for (long id = 1; id <= produtos; id++) {
+            long saldo = estoque.saldo(id);
+            assertThat(saldo).as("saldo do produto %d", id).isGreaterThanOrEqualTo(0);
+            assertThat(vendidos.get((int) id) + saldo).as("conservação do produto %d", id).isEqualTo(saldoPorProduto);
+            totalVendido += vendidos.get((int) id);
+        }
+        // A demanda supera o estoque com folga: tudo que pode ser vendido deve ter saído
+        assertThat(totalVendido).isGreaterThan(produtos * saldoPorProduto * 9 / 10);
+    }
+}
@@ -0,0 +1,136 @@
+package ecommerce.external.fake;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.PagamentoDTO;
+
+class PagamentoSimuladoTest {
+
+    @Test
+    @DisplayName("Configuração padrão autoriza tudo com transacaoId crescente")
+    void autorizarPagamento_Padrao() {
+        PagamentoSimulado pagamento = new PagamentoSimulado();
+
+        PagamentoDTO primeiro = pagamento.autorizarPagamento(1L, 10.0);
+        PagamentoDTO segundo = pagamento.autorizarPagamento(1L, 10.0);
+
+        assertThat(primeiro.autorizado()).isTrue();
+        assertThat(segundo.autorizado()).isTrue();
+        assertThat(segundo.transacaoId()).isGreaterThan(primeiro.transacaoId());
+    }
+
+    @Test
+    @DisplayName("transacaoId deve ser único sob concorrência")
+    void autorizarPagamento_IdsUnicosConcorrentes() {
+        PagamentoSimulado pagamento = new PagamentoSimulado();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 10_000).parallel()
+            .forEach(i -> ids.add(pagamento.autorizarPagamento(1L, 1.0).transacaoId()));
+
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    @DisplayName("Taxa de recusa 100% deve recusar sem gerar transação")
+    void autorizarPagamento_Recusa() {
+        PagamentoSimulado pagamento = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 1.0, 0, Duration.ZERO);
+
+        PagamentoDTO resultado = pagamento.autorizarPagamento(1L, 10.0);
+
+        assertThat(resultado.autorizado()).isFalse();
+        assertThat(resultado.transacaoId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Timeout injetado deve esperar o tempo limite e falhar")
+    void autorizarPagamento_TimeoutInjetado() {
+        PagamentoSimulado pagamento = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 0, 1.0,
+            Duration.ofMillis(20));
+
+        long inicio = System.nanoTime();
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> pagamento.autorizarPagamento(1L, 10.0));
+
+        assertThat(ex.getMessage()).contains("Tempo limite");
+        assertThat(System.nanoTime() - inicio).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+    }
+
+    @Test
+    @DisplayName("Latência sorteada acima do tempo limite deve falhar")
+    void autorizarPagamento_LatenciaAcimaDoTimeout() {
+        PagamentoSimulado pagamento = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ofSeconds(10)), 0, 0,
+            Duration.ofMillis(5));
+
+        assertThrows(IllegalStateException.class, () -> pagamento.autorizarPagamento(1L, 10.0));
+    }
+
+    @Test
+    @DisplayName("cancelarPagamento deve registrar a transação cancelada")
+    void cancelarPagamento_Registra() {
+        PagamentoSimulado pagamento = new PagamentoSimulado();
+        Long transacaoId = pagamento.autorizarPagamento(1L, 10.0).transacaoId();
+
+        pagamento.cancelarPagamento(1L, transacaoId);
+
+        assertThat(pagamento.foiCancelado(transacaoId)).isTrue();
+        assertThat(pagamento.getQuantidadeCancelamentos()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Uniforme deve sortear dentro do intervalo")
+    void modeloUniforme_DentroDoIntervalo() {
+        ModeloLatencia modelo = ModeloLatencia.uniforme(Duration.ofMillis(5), Duration.ofMillis(10));
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(modelo.amostrarNanos(random)).isBetween(5_000_000L, 10_000_000L);
+        }
+    }
+
+    @Test
+    @DisplayName("Log-normal deve respeitar a mediana e gerar picos na proporção configurada")
+    void modeloLogNormal_MedianaEPicos() {
+        ModeloLatencia modelo = ModeloLatencia.logNormal(Duration.ofMillis(20), 0.5, 0.05, Duration.ofSeconds(1));
+        SplittableRandom random = new SplittableRandom(7);
+
+        long[] amostras = new long[100_000];
+        for (int i = 0; i < amostras.length; i++) {
+            amostras[i] = modelo.amostrarNanos(random);
+        }
+        Arrays.sort(amostras);
+
+        long picos = Arrays.stream(amostras).filter(n -> n >= Duration.ofSeconds(1).toNanos()).count();
+        // O pico desloca a mediana um pouco para cima; 5% de picos afetam pouco
+        assertThat(amostras[amostras.length / 2]).isBetween(19_000_000L, 23_000_000L);
+        assertThat(picos).isBetween(4_500L, 5_500L);
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos devem ser rejeitados")
+    void parametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> ModeloLatencia.porNome("exponencial", Duration.ZERO,
+            Duration.ZERO, Duration.ZERO, Duration.ZERO, 0, 0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+            () -> ModeloLatencia.uniforme(Duration.ofMillis(10), Duration.ofMillis(5)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 1.5, 0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 0, 0.1, Duration.ZERO));
+        assertThat(List.of("fixa", "uniforme", "log-normal")).allSatisfy(nome -> assertThat(ModeloLatencia
+            .porNome(nome, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ofMillis(1), 0, 0, Duration.ZERO))
+            .isNotNull());
+    }
+}
@@ -0,0 +1,146 @@
+package ecommerce.external.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.external.fake.ModeloLatencia;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.external.fake.ServidorExternoSimulado;
+
+class ClientesHttpTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final EstoqueSimulado estoque = new EstoqueSimulado(64, 0);
+    private final List<ServidorExternoSimulado> servidores = new ArrayList<>();
+    private final List<ClientesHttp> clientes = new ArrayList<>();
+
+    @AfterEach
+    void encerrar() {
+        clientes.forEach(ClientesHttp::encerrar);
+        servidores.forEach(ServidorExternoSimulado::encerrar);
+    }
+
+    @Test
+    @DisplayName("Reserva, confirmação e liberação passam pelo HTTP e chegam ao estoque simulado")
+    void estoque_ReservaConfirmaELibera() {
+        estoque.repor(1L, 5);
+        ServidorExternoSimulado servidor = servidor(new PagamentoSimulado(), 0);
+        EstoqueHttp http = clientes(true).estoque(servidor.getUrl(), Duration.ofSeconds(2));
+
+        ReservaEstoqueDTO reserva = http.reservar(new LoteEstoqueDTO(1).adicionar(1L, 2), Duration.ofMinutes(1));
+        assertThat(reserva.reservado()).isTrue();
+        assertThat(reserva.token()).isNotNull();
+        assertThat(http.confirmarReserva(reserva).sucesso()).isTrue();
+
+        ReservaEstoqueDTO liberada = http.reservar(List.of(1L), List.of(1L), Duration.ofMinutes(1));
+        http.liberarReserva(liberada);
+
+        assertThat(estoque.saldo(1L)).isEqualTo(3);
+        assertThat(estoque.getQuantidadeReservasAtivas()).isZero();
+        assertThat(http.verificarDisponibilidade(List.of(1L, 2L), List.of(3L, 1L)).idsProdutosIndisponiveis())
+            .containsExactly(2L);
+        // Com mínimo zero, toda resposta com corpo volta compactada
+        assertThat(servidor.getRespostasCompactadas()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Pagamento autorizado e cancelado pelo HTTP")
+    void pagamento_AutorizaECancela() {
+        PagamentoSimulado pagamento = new PagamentoSimulado();
+        ServidorExternoSimulado servidor = servidor(pagamento, 256);
+        PagamentoHttp http = clientes(true).pagamento(servidor.getUrl(), Duration.ofSeconds(2));
+
+        PagamentoDTO autorizado = http.autorizarPagamento(7L, 99.9);
+        http.cancelarPagamento(7L, autorizado.transacaoId());
+
+        assertThat(autorizado.autorizado()).isTrue();
+        assertThat(pagamento.foiCancelado(autorizado.transacaoId())).isTrue();
+        assertThat(servidor.getRespostasCompactadas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Chamadas seguidas reusam a mesma conexão do pool")
+    void conexoes_Reusadas() {
+        ServidorExternoSimulado servidor = servidor(new PagamentoSimulado(), 256);
+        PagamentoHttp comPool = clientes(true).pagamento(servidor.getUrl(), Duration.ofSeconds(2));
+
+        for (int i = 0; i < 50; i++) {
+            comPool.autorizarPagamento(1L, 1.0);
+        }
+        assertThat(servidor.getConexoes()).isEqualTo(1);
+
+        PagamentoHttp semReuso = clientes(false).pagamento(servidor.getUrl(), Duration.ofSeconds(2));
+        for (int i = 0; i < 10; i++) {
+            semReuso.autorizarPagamento(1L, 1.0);
+        }
+        assertThat(servidor.getConexoes()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("400 vira IllegalArgumentException e 409 vira IllegalStateException com a mensagem do serviço")
+    void erros_TraduzidosComMensagem() {
+        PagamentoSimulado foraDoAr = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 0, 1.0,
+            Duration.ofMillis(1));
+        ServidorExternoSimulado servidor = servidor(foraDoAr, 256);
+        ClientesHttp fabrica = clientes(true);
+
+        IllegalArgumentException invalido = assertThrows(IllegalArgumentException.class,
+            () -> fabrica.estoque(servidor.getUrl(), Duration.ofSeconds(2)).darBaixa(List.of(1L), List.of(-1L)));
+        IllegalStateException conflito = assertThrows(IllegalStateException.class,
+            () -> fabrica.pagamento(servidor.getUrl(), Duration.ofSeconds(2)).autorizarPagamento(1L, 1.0));
+
+        assertThat(invalido.getMessage()).isEqualTo("Quantidade inválida: -1");
+        assertThat(conflito.getMessage()).isEqualTo("Tempo limite do gateway de pagamento excedido.");
+    }
+
+    @Test
+    @DisplayName("Tempo de leitura estourado ou servidor fora do ar falham com IllegalStateException")
+    void falhasDeRede_ViramIllegalStateException() {
+        PagamentoSimulado lento = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ofMillis(500)), 0, 0,
+            Duration.ZERO);
+        ServidorExternoSimulado servidor = servidor(lento, 256);
+        ClientesHttp fabrica = clientes(true);
+
+        long inicio = System.nanoTime();
+        IllegalStateException leitura = assertThrows(IllegalStateException.class,
+            () -> fabrica.pagamento(servidor.getUrl(), Duration.ofMillis(100)).autorizarPagamento(1L, 1.0));
+        assertThat(System.nanoTime() - inicio).isLessThan(TimeUnit.MILLISECONDS.toNanos(450));
+
+        String url = servidor.getUrl();
+        servidor.encerrar();
+        IllegalStateException foraDoAr = assertThrows(IllegalStateException.class,
+            () -> fabrica.pagamento(url, Duration.ofSeconds(1)).autorizarPagamento(1L, 1.0));
+
+        assertThat(leitura.getMessage()).isEqualTo("Falha na chamada ao serviço de pagamento.");
+        assertThat(foraDoAr.getMessage()).isEqualTo("Falha na chamada ao serviço de pagamento.");
+    }
+
+    private ServidorExternoSimulado servidor(PagamentoSimulado pagamento, int tamanhoMinimoCompressao) {
+        ServidorExternoSimulado servidor = new ServidorExternoSimulado(estoque, pagamento, json,
+            tamanhoMinimoCompressao).iniciar(0, 4);
+        servidores.add(servidor);
+        return servidor;
+    }
+
+    private ClientesHttp clientes(boolean reusarConexoes) {
+        ClientesHttp fabrica = new ClientesHttp(json, Duration.ofMillis(500), 16, 16, Duration.ofSeconds(30),
+            reusarConexoes);
+        clientes.add(fabrica);
+        return fabrica;
+    }
+}
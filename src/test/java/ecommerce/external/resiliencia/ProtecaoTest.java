@@ -0,0 +1,227 @@
+package ecommerce.external.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.fake.ModeloLatencia;
+import ecommerce.external.fake.PagamentoSimulado;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProtecaoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Protecao> criadas = new ArrayList<>();
+
+    @AfterEach
+    void encerrar() {
+        criadas.forEach(Protecao::encerrar);
+    }
+
+    @Test
+    @DisplayName("Gateway lento: a requisição desiste no tempo limite com IllegalStateException")
+    void tempoLimite_GatewayLento() {
+        Protecao protecao = protecao(Duration.ofMillis(50), 4, 4, 10);
+        PagamentoResiliente pagamento = new PagamentoResiliente(lento(Duration.ofMillis(500)), protecao);
+
+        long inicio = System.nanoTime();
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> pagamento.autorizarPagamento(1L, 10.0));
+
+        assertThat(ex.getMessage()).isEqualTo("Tempo limite do serviço de pagamento excedido.");
+        assertThat(System.nanoTime() - inicio).isLessThan(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(rejeicoes("tempo-limite")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Autorização que chega depois do tempo limite é cancelada no gateway")
+    void tempoLimite_AutorizacaoTardiaCancelada() throws InterruptedException {
+        Protecao protecao = protecao(Duration.ofMillis(50), 4, 4, 10);
+        CountDownLatch cancelada = new CountDownLatch(1);
+        List<Long> cancelamentos = new CopyOnWriteArrayList<>();
+        IPagamentoExternal gateway = new IPagamentoExternal() {
+            @Override
+            public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+                dormir(200);
+                return new PagamentoDTO(true, 42L);
+            }
+
+            @Override
+            public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                cancelamentos.add(pagamentoTransacaoId);
+                cancelada.countDown();
+            }
+        };
+        PagamentoResiliente pagamento = new PagamentoResiliente(gateway, protecao);
+
+        assertThrows(IllegalStateException.class, () -> pagamento.autorizarPagamento(1L, 10.0));
+
+        assertThat(cancelada.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cancelamentos).containsExactly(42L);
+    }
+
+    @Test
+    @DisplayName("Reserva que chega depois do tempo limite é liberada no estoque")
+    void tempoLimite_ReservaTardiaLiberada() throws InterruptedException {
+        Protecao protecao = protecao(Duration.ofMillis(50), 4, 4, 10);
+        CountDownLatch liberada = new CountDownLatch(1);
+        List<String> liberacoes = new CopyOnWriteArrayList<>();
+        IEstoqueExternal estoque = new IEstoqueExternal() {
+            @Override
+            public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration ttl) {
+                dormir(200);
+                return new ReservaEstoqueDTO(true, "r-1", List.of(), produtosIds, produtosQuantidades);
+            }
+
+            @Override
+            public void liberarReserva(ReservaEstoqueDTO reserva) {
+                liberacoes.add(reserva.token());
+                liberada.countDown();
+            }
+
+            @Override
+            public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds,
+                List<Long> produtosQuantidades) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        EstoqueResiliente resiliente = new EstoqueResiliente(estoque, protecao);
+
+        assertThrows(IllegalStateException.class,
+            () -> resiliente.reservar(new LoteEstoqueDTO(1).adicionar(1L, 1), Duration.ofMinutes(1)));
+
+        assertThat(liberada.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(liberacoes).containsExactly("r-1");
+    }
+
+    @Test
+    @DisplayName("Sem tempo limite, a chamada espera o desfecho real mesmo passando do limite")
+    void semTempoLimite_EsperaDesfecho() {
+        Protecao protecao = protecao(Duration.ofMillis(50), 4, 4, 10);
+
+        String resultado = protecao.executarSemTempoLimite(() -> {
+            dormir(150);
+            return "confirmada";
+        });
+
+        assertThat(resultado).isEqualTo("confirmada");
+        assertThat(rejeicoes("tempo-limite")).isZero();
+        assertThrows(IllegalArgumentException.class, () -> protecao.executarSemTempoLimite(() -> {
+            throw new IllegalArgumentException("Reserva inválida");
+        }));
+    }
+
+    @Test
+    @DisplayName("Falhas seguidas abrem o circuito, que rejeita na hora e fecha depois de uma chamada boa")
+    void circuito_AbreERecupera() throws InterruptedException {
+        Protecao protecao = protecao(Duration.ofSeconds(2), 4, 4, 4);
+        // Gateway que sempre estoura o próprio tempo limite de 5 ms
+        PagamentoSimulado fora = new PagamentoSimulado(ModeloLatencia.fixa(Duration.ZERO), 0, 1.0,
+            Duration.ofMillis(5));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> protecao.executar(() -> fora.autorizarPagamento(1L, 1.0)));
+        }
+        assertThat(protecao.getEstadoCircuito()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        IllegalStateException rejeitada = assertThrows(IllegalStateException.class,
+            () -> protecao.executar(() -> "não deveria chamar"));
+        assertThat(rejeitada.getMessage()).contains("circuito aberto");
+        assertThat(rejeicoes("circuito-aberto")).isEqualTo(1);
+
+        Thread.sleep(60);
+        assertThat(protecao.executar(() -> "ok")).isEqualTo("ok");
+
+        assertThat(protecao.getEstadoCircuito()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(transicoes("closed", "open")).isEqualTo(1);
+        assertThat(transicoes("open", "half-open")).isEqualTo(1);
+        assertThat(transicoes("half-open", "closed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Bulkhead cheio rejeita na hora sem contar como falha da dependência")
+    void bulkhead_CheioRejeita() throws Exception {
+        Protecao protecao = protecao(Duration.ofSeconds(2), 1, 0, 2);
+        PagamentoSimulado lento = lento(Duration.ofMillis(300));
+
+        CompletableFuture<Object> ocupando = CompletableFuture
+            .supplyAsync(() -> protecao.executar(() -> lento.autorizarPagamento(1L, 1.0)));
+        Thread.sleep(100);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> protecao.executar(() -> lento.autorizarPagamento(1L, 1.0)));
+
+        assertThat(ex.getMessage()).contains("saturado");
+        assertThat(ocupando.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(rejeicoes("bulkhead-cheio")).isEqualTo(1);
+        assertThat(protecao.getEstadoCircuito()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Erro do pedido (IllegalArgumentException) não abre o circuito")
+    void circuito_IgnoraErroDoPedido() {
+        Protecao protecao = protecao(Duration.ofSeconds(2), 4, 4, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalArgumentException.class, () -> protecao.executar(() -> {
+                throw new IllegalArgumentException("Quantidade inválida: -1");
+            }));
+        }
+
+        assertThat(protecao.getEstadoCircuito()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    /** Circuito com janela e mínimo iguais, abre com 50% de falhas e espera 50 ms aberto. */
+    private Protecao protecao(Duration tempoLimite, int concorrencia, int fila, int janela) {
+        Protecao protecao = new Protecao("pagamento",
+            new ConfiguracaoProtecao(tempoLimite, concorrencia, fila, 50f, janela, janela, Duration.ofMillis(50), 1),
+            registry);
+        criadas.add(protecao);
+        return protecao;
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PagamentoSimulado lento(Duration latencia) {
+        return new PagamentoSimulado(ModeloLatencia.fixa(latencia), 0, 0, Duration.ZERO);
+    }
+
+    private double rejeicoes(String motivo) {
+        return registry.get("resiliencia.rejeicoes").tag("dependencia", "pagamento").tag("motivo", motivo)
+            .counter().count();
+    }
+
+    private double transicoes(String de, String para) {
+        return registry.get("resiliencia.circuito.transicoes").tag("de", de).tag("para", para).counter().count();
+    }
+}
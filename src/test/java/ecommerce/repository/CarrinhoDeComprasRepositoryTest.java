@@ -0,0 +1,171 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.entity.TotaisCarrinho;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.ClienteService;
+import ecommerce.service.CompraService;
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.RegrasPrecificacao;
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ CompraService.class, CarrinhoDeComprasService.class, ClienteService.class,
+    MotorPrecificacaoBigDecimal.class, RegrasPrecificacao.class })
+class CarrinhoDeComprasRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CompraService compraService;
+
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @MockBean
+    private IPagamentoExternal pagamentoExternal;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setup() {
+        estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(anyLong(), anyDouble()))
+            .thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(anyList(), anyList()))
+            .thenReturn(new EstoqueBaixaDTO(true));
+    }
+
+    @ParameterizedTest(name = "{0} itens")
+    @ValueSource(ints = { 1, 10, 100 })
+    @DisplayName("finalizarCompra deve carregar cliente, carrinho, itens e produtos com número fixo de consultas")
+    void finalizarCompra_QuantidadeDeConsultasNaoCresceComOCarrinho(int quantidadeItens) {
+        CarrinhoDeCompras carrinho = persistirCarrinho(quantidadeItens);
+        Long clienteId = carrinho.getCliente().getId();
+
+        entityManager.flush();
+        entityManager.clear();
+        estatisticas.clear();
+
+        CompraDTO resultado = compraService.finalizarCompra(carrinho.getId(), clienteId);
+
+        assertThat(resultado.sucesso()).isTrue();
+        // 1 consulta para o cliente + 1 para carrinho, itens e produtos
+        assertThat(estatisticas.getPrepareStatementCount())
+            .as("consultas para um carrinho com %d itens", quantidadeItens)
+            .isEqualTo(2);
+    }
+
+    @ParameterizedTest(name = "{0} itens")
+    @ValueSource(ints = { 1, 10 })
+    @DisplayName("Totais gravados com o carrinho devem voltar iguais ao recálculo a partir dos itens")
+    void totais_PersistidosComOCarrinho(int quantidadeItens) {
+        CarrinhoDeCompras carrinho = persistirCarrinho(quantidadeItens);
+        entityManager.flush();
+        Long versaoInicial = carrinho.getVersao();
+        Produto extra = new Produto(null, "Extra", null, new BigDecimal("99.90"), new BigDecimal("12.50"),
+            BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, true, TipoProduto.MOVEL);
+        entityManager.persist(extra);
+        carrinho.adicionarItem(new ItemCompra(null, extra, 2L));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        CarrinhoDeCompras lido = entityManager.find(CarrinhoDeCompras.class, carrinho.getId());
+        assertThat(lido.getTotais()).isEqualTo(carrinho.getTotais());
+        assertThat(lido.getTotais()).isEqualTo(TotaisCarrinho.de(lido.getItens()));
+        assertThat(lido.getTotais().getPesoSomadoEmDouble()).isEqualTo(quantidadeItens + 12.5 * 2);
+        assertThat(lido.getVersao()).isEqualTo(versaoInicial + 1);
+        assertThat(lido.isAlteradoEmMemoria()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Produto alterado depois da gravação do carrinho deve ser percebido na leitura, sem gravar o carrinho")
+    void totais_ProdutoAlteradoDepoisDaGravacao() {
+        CarrinhoDeCompras carrinho = persistirCarrinho(2);
+        entityManager.flush();
+        Long versao = carrinho.getVersao();
+        entityManager.clear();
+
+        Produto produto = entityManager.find(Produto.class, carrinho.getItens().get(0).getProduto().getId());
+        produto.setPreco(new BigDecimal("15.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        CarrinhoDeCompras lido = entityManager.find(CarrinhoDeCompras.class, carrinho.getId());
+        assertThat(lido.getTotais().getSubtotal()).isEqualByComparingTo("25.00");
+        assertThat(lido.getTotais()).isEqualTo(TotaisCarrinho.de(lido.getItens()));
+        assertThat(lido.isAlteradoEmMemoria()).isTrue();
+
+        entityManager.flush();
+        assertThat(lido.getVersao()).isEqualTo(versao);
+
+        // A correção vai para o banco com a próxima alteração de itens
+        lido.alterarQuantidade(lido.getItens().get(1), 2L);
+        entityManager.flush();
+        entityManager.clear();
+
+        CarrinhoDeCompras relido = entityManager.find(CarrinhoDeCompras.class, carrinho.getId());
+        assertThat(relido.getTotais().getSubtotal()).isEqualByComparingTo("35.00");
+        assertThat(relido.isAlteradoEmMemoria()).isFalse();
+        assertThat(relido.getVersao()).isEqualTo(versao + 1);
+    }
+
+    private CarrinhoDeCompras persistirCarrinho(int quantidadeItens) {
+        Cliente cliente = new Cliente(null, "Cliente", Regiao.SUL, TipoCliente.BRONZE);
+        entityManager.persist(cliente);
+
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < quantidadeItens; i++) {
+            Produto produto = new Produto(null, "Produto " + i, null, BigDecimal.TEN, BigDecimal.ONE,
+                BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, i % 2 == 0, TipoProduto.LIVRO);
+            entityManager.persist(produto);
+            itens.add(new ItemCompra(null, produto, 1L));
+        }
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, LocalDate.now());
+        entityManager.persist(carrinho);
+        return carrinho;
+    }
+}
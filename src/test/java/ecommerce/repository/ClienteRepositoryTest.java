@@ -0,0 +1,108 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Import;
+
+import ecommerce.config.CacheConfig;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.ClienteService;
+
+@DataJpaTest(properties = { "ecommerce.cache.clientes.ttl=10m", "ecommerce.cache.clientes.ttl-negativo=200ms" })
+@Import({ CacheConfig.class, ClienteService.class })
+class ClienteRepositoryTest {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private CaffeineCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = (CaffeineCache) cacheManager.getCache(CacheConfig.CLIENTES);
+        cache.clear();
+    }
+
+    @Test
+    @DisplayName("buscarPorId repetido deve ser servido pelo cache")
+    void buscarPorId_SegundaLeituraVemDoCache() {
+        Long id = clienteRepository.save(novoCliente()).getId();
+        long acertosAntes = cache.getNativeCache().stats().hitCount();
+
+        clienteService.buscarPorId(id);
+        clienteService.buscarPorId(id);
+
+        assertThat(cache.getNativeCache().stats().hitCount() - acertosAntes).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Cada leitura recebe uma instância própria; alterá-la não muda o que está em cache")
+    void buscarPorId_InstanciaPropria() {
+        Long id = clienteRepository.save(novoCliente()).getId();
+
+        Cliente primeiro = clienteService.buscarPorId(id);
+        primeiro.setTipo(TipoCliente.OURO);
+        Cliente segundo = clienteService.buscarPorId(id);
+
+        assertThat(segundo).isNotSameAs(primeiro);
+        assertThat(segundo.getTipo()).isEqualTo(TipoCliente.PRATA);
+    }
+
+    @Test
+    @DisplayName("Atualizar o cliente deve invalidar a entrada do cache")
+    void atualizar_InvalidaEntrada() {
+        Cliente cliente = clienteRepository.save(novoCliente());
+        clienteService.buscarPorId(cliente.getId());
+
+        cliente.setTipo(TipoCliente.OURO);
+        clienteService.atualizar(cliente);
+
+        assertThat(cache.getNativeCache().getIfPresent(cliente.getId())).isNull();
+        assertThat(clienteService.buscarPorId(cliente.getId()).getTipo()).isEqualTo(TipoCliente.OURO);
+    }
+
+    @Test
+    @DisplayName("Invalidação explícita deve remover a entrada do cache")
+    void invalidar_RemoveEntrada() {
+        Long id = clienteRepository.save(novoCliente()).getId();
+        clienteService.buscarPorId(id);
+
+        clienteService.invalidar(id);
+
+        assertThat(cache.getNativeCache().getIfPresent(id)).isNull();
+    }
+
+    @Test
+    @DisplayName("Id inexistente deve ficar em cache negativo e expirar pelo TTL negativo")
+    void buscarDados_CacheNegativoExpira() throws InterruptedException {
+        long acertosAntes = cache.getNativeCache().stats().hitCount();
+
+        assertThat(clienteRepository.buscarDados(-1L)).isEmpty();
+        assertThat(clienteRepository.buscarDados(-1L)).isEmpty();
+
+        assertThat(cache.getNativeCache().stats().hitCount() - acertosAntes).isEqualTo(1);
+
+        Thread.sleep(400);
+
+        assertThat(cache.getNativeCache().getIfPresent(-1L)).isNull();
+    }
+
+    private static Cliente novoCliente() {
+        return new Cliente(null, "Cliente", Regiao.NORDESTE, TipoCliente.PRATA);
+    }
+}
@@ -0,0 +1,145 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Compra;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.LinhaCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.ClienteService;
+import ecommerce.service.CompraService;
+import ecommerce.service.RegistroCompras;
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.RegrasPrecificacao;
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ CompraService.class, CarrinhoDeComprasService.class, ClienteService.class, RegistroCompras.class,
+    MotorPrecificacaoBigDecimal.class, RegrasPrecificacao.class })
+class CompraRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private CompraRepository compraRepository;
+
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @MockBean
+    private IPagamentoExternal pagamentoExternal;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setup() {
+        estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(anyLong(), anyDouble()))
+            .thenReturn(new PagamentoDTO(true, 4242L));
+        when(estoqueExternal.darBaixa(anyList(), anyList()))
+            .thenReturn(new EstoqueBaixaDTO(true));
+    }
+
+    @ParameterizedTest(name = "{0} itens")
+    @ValueSource(ints = { 1, 10, 200 })
+    @DisplayName("finalizarCompra grava a compra e as linhas em lotes JDBC, não um insert por linha")
+    void finalizarCompra_GravaCompraEmLotes(int quantidadeItens) {
+        CarrinhoDeCompras carrinho = persistirCarrinho(quantidadeItens);
+
+        entityManager.flush();
+        entityManager.clear();
+        estatisticas.clear();
+
+        compraService.finalizarCompra(carrinho.getId(), carrinho.getCliente().getId());
+
+        assertThat(estatisticas.getEntityInsertCount()).isEqualTo(quantidadeItens + 1);
+        // 2 consultas (cliente; carrinho com itens e produtos) + sequência e insert da compra
+        // + no máximo uma chamada à sequência e um lote de insert a cada 50 linhas
+        long lotes = (quantidadeItens + 49) / 50;
+        assertThat(estatisticas.getPrepareStatementCount())
+            .as("statements para uma compra com %d linhas", quantidadeItens)
+            .isLessThanOrEqualTo(2 + 2 + 2 * lotes);
+    }
+
+    @Test
+    @DisplayName("A compra gravada guarda o carrinho, a composição do preço e a transação do pagamento")
+    void finalizarCompra_GravaComposicaoDoPreco() {
+        // 10 × R$ 60,00 = 600,00 (desconto de 10%); 10 kg a R$ 2,00/kg + 5 frágeis × R$ 5,00
+        CarrinhoDeCompras carrinho = persistirCarrinho(10);
+
+        compraService.finalizarCompra(carrinho.getId(), carrinho.getCliente().getId());
+        entityManager.clear();
+
+        Compra compra = compraRepository.findByTransacaoId(4242L).orElseThrow();
+        assertThat(compra.getCarrinhoId()).isEqualTo(carrinho.getId());
+        assertThat(compra.getClienteId()).isEqualTo(carrinho.getCliente().getId());
+        assertThat(compra.getRegiao()).isEqualTo(Regiao.SUL);
+        assertThat(compra.getTipoCliente()).isEqualTo(TipoCliente.BRONZE);
+        assertThat(compra.getSubtotal()).isEqualByComparingTo("600.00");
+        assertThat(compra.getDesconto()).isEqualByComparingTo("60.00");
+        assertThat(compra.getFrete()).isEqualByComparingTo("45.00");
+        assertThat(compra.getTotal()).isEqualByComparingTo("585.00");
+        assertThat(compra.getCriadaEm()).isNotNull();
+        assertThat(compra.getLinhas()).hasSize(10);
+        assertThat(compra.getLinhas()).extracting(LinhaCompra::getNomeProduto).startsWith("Produto 0", "Produto 1");
+        assertThat(compra.getLinhas()).extracting(LinhaCompra::getFragil).filteredOn(Boolean.TRUE::equals).hasSize(5);
+    }
+
+    private CarrinhoDeCompras persistirCarrinho(int quantidadeItens) {
+        Cliente cliente = new Cliente(null, "Cliente", Regiao.SUL, TipoCliente.BRONZE);
+        entityManager.persist(cliente);
+
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < quantidadeItens; i++) {
+            Produto produto = new Produto(null, "Produto " + i, null, new BigDecimal("60.00"), BigDecimal.ONE,
+                BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, i % 2 == 0, TipoProduto.LIVRO);
+            entityManager.persist(produto);
+            itens.add(new ItemCompra(null, produto, 1L));
+        }
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, LocalDate.now());
+        entityManager.persist(carrinho);
+        return carrinho;
+    }
+}
@@ -0,0 +1,153 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import ecommerce.config.CacheConfig;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+// Sem a transação de cada teste: a invalidação só acontece no commit
+@DataJpaTest(properties = { "ecommerce.cache.produtos.tamanho-maximo=100", "ecommerce.cache.produtos.ttl=200ms" })
+@Import(CacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProdutoRepositoryTest {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CaffeineCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = (CaffeineCache) ((TransactionAwareCacheDecorator) cacheManager.getCache(CacheConfig.PRODUTOS))
+            .getTargetCache();
+        cache.clear();
+    }
+
+    @Test
+    @DisplayName("Leituras repetidas por id devem ser servidas pelo cache")
+    void buscarDados_SegundaLeituraVemDoCache() {
+        Long id = produtoRepository.save(novoProduto("10.00")).getId();
+        long acertosAntes = estatisticas().hitCount();
+
+        produtoRepository.buscarDados(id);
+        produtoRepository.buscarDados(id);
+
+        assertThat(estatisticas().hitCount() - acertosAntes).isEqualTo(1);
+        assertThat(cache.getNativeCache().getIfPresent(id)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Dentro de uma transação, a gravação só invalida a entrada depois do commit")
+    void save_InvalidaEntradaAposCommit() {
+        Produto produto = produtoRepository.save(novoProduto("10.00"));
+        produtoRepository.buscarDados(produto.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            produto.setPreco(new BigDecimal("12.50"));
+            produtoRepository.save(produto);
+
+            assertThat(cache.getNativeCache().getIfPresent(produto.getId())).isNotNull();
+        });
+
+        assertThat(cache.getNativeCache().getIfPresent(produto.getId())).isNull();
+        assertThat(produtoRepository.buscarDados(produto.getId())).get()
+            .extracting(DadosProduto::preco).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    @DisplayName("Rollback não deve invalidar a entrada do cache")
+    void save_Rollback_MantemEntrada() {
+        Produto produto = produtoRepository.save(novoProduto("10.00"));
+        produtoRepository.buscarDados(produto.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            produto.setPreco(new BigDecimal("12.50"));
+            produtoRepository.save(produto);
+            status.setRollbackOnly();
+        });
+
+        assertThat(produtoRepository.buscarDados(produto.getId())).get()
+            .extracting(DadosProduto::preco).isEqualTo(new BigDecimal("10.00"));
+    }
+
+    @Test
+    @DisplayName("Id inexistente também fica em cache até o produto ser criado")
+    void buscarDados_IdInexistente() {
+        long acertosAntes = estatisticas().hitCount();
+
+        assertThat(produtoRepository.buscarDados(-1L)).isEmpty();
+        assertThat(produtoRepository.buscarDados(-1L)).isEmpty();
+
+        assertThat(estatisticas().hitCount() - acertosAntes).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Remover o produto deve invalidar a entrada do cache")
+    void deleteById_InvalidaEntrada() {
+        Long id = produtoRepository.save(novoProduto("10.00")).getId();
+        produtoRepository.buscarDados(id);
+
+        produtoRepository.deleteById(id);
+
+        assertThat(cache.getNativeCache().getIfPresent(id)).isNull();
+        assertThat(produtoRepository.buscarDados(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Entradas expiram após o ttl, mesmo sem gravação pelo repositório")
+    void buscarDados_ExpiraAposTtl() throws InterruptedException {
+        Long id = produtoRepository.save(novoProduto("10.00")).getId();
+        produtoRepository.buscarDados(id);
+
+        Thread.sleep(300);
+
+        assertThat(cache.getNativeCache().getIfPresent(id)).isNull();
+    }
+
+    @Test
+    @DisplayName("Cada chamada a novoProduto devolve uma instância própria")
+    void novoProduto_InstanciaPropria() {
+        Long id = produtoRepository.save(novoProduto("10.00")).getId();
+
+        Produto primeiro = produtoRepository.buscarDados(id).orElseThrow().novoProduto();
+        primeiro.setPreco(new BigDecimal("99.00"));
+        Produto segundo = produtoRepository.buscarDados(id).orElseThrow().novoProduto();
+
+        assertThat(segundo).isNotSameAs(primeiro);
+        assertThat(segundo.getPreco()).isEqualByComparingTo("10.00");
+    }
+
+    private CacheStats estatisticas() {
+        return cache.getNativeCache().stats();
+    }
+
+    private static Produto novoProduto(String preco) {
+        return new Produto(null, "Produto", null, new BigDecimal(preco), BigDecimal.ONE, BigDecimal.ONE,
+            BigDecimal.ONE, BigDecimal.ONE, false, TipoProduto.LIVRO);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -27,7 +28,8 @@ public class CompraServiceBaseTest {
     @Mock
     protected ClienteService clienteService;
 
-    @Mock
+    // Os métodos default (reserva) delegam para verificarDisponibilidade/darBaixa do mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     protected IEstoqueExternal estoqueExternal;
 
     @Mock
@@ -51,7 +53,8 @@ public class CompraServiceBaseTest {
 
         // 2. Inicialização Padrão do Serviço (com Mocks)
         // As subclasses que usam Fakes irão sobrescrever esta variável após chamar super.setup()
-        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .construir();
     }
 
     // --------------------------------------------------------------------------
@@ -36,7 +36,7 @@ class CompraServiceCenario1Test extends CompraServiceBaseTest {
 
         // Sobrescreve o compraService injetando Mocks Internos (da Base) e Fakes Externos (Locais)
         // carrinhoService e clienteService são herdados da Base
-        compraService = new CompraService(carrinhoService, clienteService, estoqueFake, pagamentoFake);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueFake, pagamentoFake).construir();
     }
 
     @Test
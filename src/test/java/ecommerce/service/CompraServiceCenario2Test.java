@@ -36,7 +36,8 @@ class CompraServiceCenario2Test extends CompraServiceBaseTest {
         clienteServiceFake = new FakeClienteService(null);
 
         // Sobrescreve o serviço com Fakes Internos e Mocks Externos (da Base)
-        compraService = new CompraService(carrinhoServiceFake, clienteServiceFake, estoqueExternal, pagamentoExternal);
+        compraService = CompraService.construtor(carrinhoServiceFake, clienteServiceFake, estoqueExternal, pagamentoExternal)
+            .construir();
     }
 
     @Test
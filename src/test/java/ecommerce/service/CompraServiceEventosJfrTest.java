@@ -0,0 +1,127 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class CompraServiceEventosJfrTest extends CompraServiceBaseTest {
+
+    @TempDir
+    Path diretorio;
+
+    @BeforeEach
+    @Override
+    public void setup() {
+        super.setup();
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        // 2 x 3,5 kg = 7 kg
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, new BigDecimal("3.5"), false, 2L));
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+    }
+
+    @Test
+    @DisplayName("Perfil ecommerce.jfc grava a compra com carrinho, durações externas e resultado")
+    void finalizarCompra_GravaEventoCompra() throws Exception {
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        List<RecordedEvent> eventos = gravar(perfilCheckout(), () -> compraService.finalizarCompra(1L, 1L));
+
+        RecordedEvent compra = unico(eventos, "ecommerce.Compra");
+        assertThat(compra.getLong("carrinhoId")).isEqualTo(1L);
+        assertThat(compra.getLong("clienteId")).isEqualTo(1L);
+        assertThat(compra.getInt("quantidadeItens")).isEqualTo(1);
+        assertThat(compra.getLong("pesoTotalGramas")).isEqualTo(7_000L);
+        assertThat(compra.getString("faixaPeso")).isEqualTo("5-10kg");
+        assertThat(compra.getDuration("duracaoReserva")).isPositive();
+        assertThat(compra.getDuration("duracaoPagamento")).isPositive();
+        assertThat(compra.getDuration("duracaoBaixa")).isPositive();
+        assertThat(compra.getString("resultado")).isEqualTo("sucesso");
+
+        RecordedEvent precificacao = unico(eventos, "ecommerce.Precificacao");
+        assertThat(precificacao.getLong("carrinhoId")).isEqualTo(1L);
+        assertThat(precificacao.getString("regiao")).isEqualTo("SUL");
+        assertThat(precificacao.getString("tipoCliente")).isEqualTo("OURO");
+        assertThat(precificacao.getString("motor")).isEqualTo("MotorPrecificacaoBigDecimal");
+        assertThat(precificacao.getString("resultado")).isEqualTo("sucesso");
+    }
+
+    @Test
+    @DisplayName("Compra recusada grava o desfecho e zera as etapas não executadas")
+    void finalizarCompra_Recusada_GravaResultado() throws Exception {
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(false, null));
+
+        List<RecordedEvent> eventos = gravar(perfilCheckout(),
+            () -> assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L)));
+
+        RecordedEvent compra = unico(eventos, "ecommerce.Compra");
+        assertThat(compra.getString("resultado")).isEqualTo("pagamento-recusado");
+        assertThat(compra.getDuration("duracaoBaixa")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Sem o perfil os eventos do checkout ficam desligados")
+    void finalizarCompra_PerfilPadrao_NaoGrava() throws Exception {
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        List<RecordedEvent> eventos = gravar(Configuration.getConfiguration("default"),
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(eventos).noneMatch(e -> e.getEventType().getName().startsWith("ecommerce."));
+    }
+
+    private static Configuration perfilCheckout() throws Exception {
+        try (Reader reader = new InputStreamReader(
+            CompraServiceEventosJfrTest.class.getResourceAsStream("/jfr/ecommerce.jfc"), StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    private List<RecordedEvent> gravar(Configuration configuracao, Runnable acao) throws Exception {
+        Path arquivo = diretorio.resolve("checkout.jfr");
+        try (Recording recording = new Recording(configuracao)) {
+            recording.start();
+            acao.run();
+            recording.stop();
+            recording.dump(arquivo);
+        }
+        return RecordingFile.readAllEvents(arquivo);
+    }
+
+    private static RecordedEvent unico(List<RecordedEvent> eventos, String nome) {
+        List<RecordedEvent> filtrados = eventos.stream().filter(e -> e.getEventType().getName().equals(nome))
+            .collect(Collectors.toList());
+        assertThat(filtrados).hasSize(1);
+        return filtrados.get(0);
+    }
+}
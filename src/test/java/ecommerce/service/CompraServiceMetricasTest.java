@@ -0,0 +1,118 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.service.metricas.EtapaCompra;
+import ecommerce.service.metricas.MetricasCompra;
+import ecommerce.service.metricas.ResultadoCompra;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CompraServiceMetricasTest extends CompraServiceBaseTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    @Override
+    public void setup() {
+        super.setup();
+
+        registry = new SimpleMeterRegistry();
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .metricas(new MetricasCompra(registry))
+            .construir();
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+    }
+
+    @Test
+    @DisplayName("Compra com sucesso deve medir todas as etapas e o desfecho sucesso")
+    void finalizarCompra_Sucesso_MedeEtapas() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        compraService.finalizarCompra(1L, 1L);
+
+        for (EtapaCompra etapa : EtapaCompra.values()) {
+            assertThat(contagemEtapa(etapa)).as("etapa %s", etapa).isEqualTo(1);
+        }
+        assertThat(contagemResultado(ResultadoCompra.SUCESSO)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Fora de estoque deve ser registrado com o desfecho próprio")
+    void finalizarCompra_ForaDeEstoque() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(false, List.of(10L)));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(contagemResultado(ResultadoCompra.FORA_DE_ESTOQUE)).isEqualTo(1);
+        assertThat(contagemEtapa(EtapaCompra.AUTORIZACAO_PAGAMENTO)).isZero();
+    }
+
+    @Test
+    @DisplayName("Pagamento recusado deve ser registrado com o desfecho próprio")
+    void finalizarCompra_PagamentoRecusado() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(false, null));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(contagemResultado(ResultadoCompra.PAGAMENTO_RECUSADO)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Falha na baixa compensada deve ser registrada com o desfecho próprio")
+    void finalizarCompra_BaixaCompensada() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 9L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(contagemResultado(ResultadoCompra.BAIXA_COMPENSADA)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Exceção inesperada deve ser registrada como erro, com a etapa medida")
+    void finalizarCompra_Erro() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenThrow(new RuntimeException("gateway"));
+
+        assertThrows(RuntimeException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(contagemResultado(ResultadoCompra.ERRO)).isEqualTo(1);
+        assertThat(contagemEtapa(EtapaCompra.AUTORIZACAO_PAGAMENTO)).isEqualTo(1);
+    }
+
+    private long contagemEtapa(EtapaCompra etapa) {
+        return registry.get("compra.etapa").tag("etapa", etapa.getTag()).timer().count();
+    }
+
+    private long contagemResultado(ResultadoCompra resultado) {
+        return registry.get("compra.finalizacao").tag("resultado", resultado.getTag()).timer().count();
+    }
+}
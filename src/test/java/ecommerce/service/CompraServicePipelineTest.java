@@ -0,0 +1,193 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.precificacao.MotorPrecificacao;
+import ecommerce.service.precificacao.MotorPrecificacaoBigDecimal;
+import ecommerce.service.precificacao.PrecoDetalhado;
+
+class CompraServicePipelineTest extends CompraServiceBaseTest {
+
+    private ExecutorService executorEstoque;
+
+    @BeforeEach
+    @Override
+    public void setup() {
+        super.setup();
+
+        executorEstoque = Executors.newFixedThreadPool(2);
+        compraService = criarServico(new MotorPrecificacaoBigDecimal());
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        configurarItensNoCarrinho(criarItem(new BigDecimal("100.00"), BigDecimal.ONE, false, 1L));
+    }
+
+    @AfterEach
+    void encerrar() {
+        executorEstoque.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Pipeline: verificação de estoque e precificação devem rodar ao mesmo tempo")
+    void finalizarCompra_VerificacaoConcorrenteComPrecificacao() {
+        CountDownLatch verificacaoIniciada = new CountDownLatch(1);
+        MotorPrecificacao motorQueEsperaEstoque = motor(() -> {
+            try {
+                // Só termina se a verificação de estoque já estiver em andamento em outra thread
+                assertThat(verificacaoIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new BigDecimal("100.00");
+        });
+        compraService = criarServico(motorQueEsperaEstoque);
+
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenAnswer(invocacao -> {
+            verificacaoIniciada.countDown();
+            return new DisponibilidadeDTO(true, Collections.emptyList());
+        });
+        when(pagamentoExternal.autorizarPagamento(1L, 100.00)).thenReturn(new PagamentoDTO(true, 55L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(1L, 1L);
+
+        assertThat(resultado.sucesso()).isTrue();
+        assertThat(resultado.transacaoPagamentoId()).isEqualTo(55L);
+    }
+
+    @Test
+    @DisplayName("Pipeline: fora de estoque não deve autorizar pagamento")
+    void finalizarCompra_ForaDeEstoque() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(false, List.of(10L)));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Itens fora de estoque.");
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Pipeline: falta de estoque tem precedência sobre erro de precificação")
+    void finalizarCompra_ForaDeEstoquePrevaleceSobreErroDePrecificacao() {
+        compraService = criarServico(motor(() -> {
+            throw new IllegalArgumentException("Quantidade inválida");
+        }));
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(false, List.of(10L)));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Itens fora de estoque.");
+    }
+
+    @Test
+    @DisplayName("Pipeline: erro de precificação é relançado quando há estoque")
+    void finalizarCompra_ErroDePrecificacaoComEstoque() {
+        compraService = criarServico(motor(() -> {
+            throw new IllegalArgumentException("Quantidade inválida");
+        }));
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+
+        assertThrows(IllegalArgumentException.class, () -> compraService.finalizarCompra(1L, 1L));
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Pipeline: exceção do cliente de estoque deve ser relançada sem embrulho")
+    void finalizarCompra_FalhaNaVerificacao() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenThrow(new IllegalStateException("Estoque indisponível"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Estoque indisponível");
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Pipeline: pagamento não autorizado não deve dar baixa")
+    void finalizarCompra_PagamentoNaoAutorizado() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(1L, 100.00)).thenReturn(new PagamentoDTO(false, null));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Pagamento não autorizado.");
+        verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("Pipeline: falha na baixa deve cancelar o pagamento")
+    void finalizarCompra_FalhaNaBaixaCancelaPagamento() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+            .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+        when(pagamentoExternal.autorizarPagamento(1L, 100.00)).thenReturn(new PagamentoDTO(true, 77L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Erro ao dar baixa no estoque.");
+        verify(pagamentoExternal).cancelarPagamento(eq(1L), eq(77L));
+    }
+
+    private CompraService criarServico(MotorPrecificacao motor) {
+        return CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .motorPrecificacao(motor)
+            .executorEstoque(executorEstoque)
+            .construir();
+    }
+
+    /** Motor de teste cujo total vem do cálculo informado. */
+    private static MotorPrecificacao motor(Supplier<BigDecimal> calculo) {
+        return new MotorPrecificacao() {
+            @Override
+            public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipo) {
+                return calculo.get();
+            }
+
+            @Override
+            public PrecoDetalhado detalhar(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipo) {
+                BigDecimal total = calculo.get();
+                return new PrecoDetalhado(total, BigDecimal.ZERO, BigDecimal.ZERO, total);
+            }
+        };
+    }
+}
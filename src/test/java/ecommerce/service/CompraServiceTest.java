@@ -5,7 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,13 +21,22 @@ import java.util.List;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import ecommerce.dto.CompraDTO;
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoqueDTO;
 import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 import ecommerce.entity.Regiao;
 import ecommerce.entity.TipoCliente;
+import ecommerce.service.diario.DiarioCompras;
+import ecommerce.service.metricas.ResultadoCompra;
+import ecommerce.service.outbox.FilaCompensacao;
+import ecommerce.service.outbox.OutboxBaixas;
 
 class CompraServiceTest extends CompraServiceBaseTest {
 
@@ -204,6 +218,206 @@ class CompraServiceTest extends CompraServiceBaseTest {
         verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
     }
 
+    @Test
+    @DisplayName("Reserva nativa: deve confirmar a reserva em vez de dar baixa direta")
+    void finalizarCompra_ReservaConfirmada() {
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 2L));
+        // Com CALLS_REAL_METHODS os métodos default são estubados com doReturn, sem executá-los
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R1", List.of(), List.of(10L), List.of(2L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(
+            argThat(lote -> lote.produtosIds().equals(List.of(10L)) && lote.produtosQuantidades().equals(List.of(2L))),
+            any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        doReturn(new EstoqueBaixaDTO(true)).when(estoqueExternal).confirmarReserva(reserva);
+
+        CompraDTO resultado = compraService.finalizarCompra(1L, 1L);
+
+        assertThat(resultado.sucesso()).isTrue();
+        verify(estoqueExternal, never()).verificarDisponibilidade(anyList(), anyList());
+        verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
+        verify(estoqueExternal, never()).liberarReserva(any());
+    }
+
+    @Test
+    @DisplayName("Reserva nativa: pagamento recusado deve liberar a reserva")
+    void finalizarCompra_PagamentoRecusadoLiberaReserva() {
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R2", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(false, null));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        verify(estoqueExternal).liberarReserva(reserva);
+        verify(estoqueExternal, never()).confirmarReserva(any());
+    }
+
+    @Test
+    @DisplayName("Reserva nativa: falha do gateway deve liberar a reserva e propagar o erro")
+    void finalizarCompra_FalhaNoGatewayLiberaReserva() {
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R3", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble()))
+            .thenThrow(new IllegalStateException("Tempo limite do gateway de pagamento excedido."));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).contains("Tempo limite");
+        verify(estoqueExternal).liberarReserva(reserva);
+    }
+
+    @Test
+    @DisplayName("Reserva nativa: falha na confirmação cancela o pagamento e libera a reserva")
+    void finalizarCompra_FalhaNaConfirmacaoCompensa() {
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R4", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 321L));
+        doReturn(new EstoqueBaixaDTO(false)).when(estoqueExternal).confirmarReserva(reserva);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Erro ao dar baixa no estoque.");
+        verify(pagamentoExternal).cancelarPagamento(1L, 321L);
+        verify(estoqueExternal).liberarReserva(reserva);
+    }
+
+    @Test
+    @DisplayName("Reserva nativa: erro na confirmação (ex.: tempo limite) cancela o pagamento e propaga o erro")
+    void finalizarCompra_ErroNaConfirmacaoCompensa() {
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R5", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 654L));
+        doThrow(new IllegalStateException("Tempo limite do serviço de estoque excedido.")).when(estoqueExternal)
+            .confirmarReserva(reserva);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).contains("Tempo limite");
+        verify(pagamentoExternal).cancelarPagamento(1L, 654L);
+        verify(estoqueExternal).liberarReserva(reserva);
+    }
+
+    @Test
+    @DisplayName("Modo outbox: a baixa é gravada para depois e a reserva não é confirmada na requisição")
+    void finalizarCompra_OutboxGravaBaixa() {
+        OutboxBaixas outbox = mock(OutboxBaixas.class);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .outbox(outbox)
+            .construir();
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R6", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 321L));
+        when(outbox.registrar(1L, 1L, 321L, reserva)).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(1L, 1L);
+
+        assertThat(resultado.sucesso()).isTrue();
+        verify(outbox).registrar(1L, 1L, 321L, reserva);
+        verify(estoqueExternal, never()).confirmarReserva(any());
+    }
+
+    @Test
+    @DisplayName("Com a fila de compensação, a baixa recusada agenda o cancelamento em vez de chamar o gateway")
+    void finalizarCompra_BaixaRecusadaAgendaCancelamento() {
+        FilaCompensacao compensacoes = mock(FilaCompensacao.class);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .compensacoes(compensacoes)
+            .construir();
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R7", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 987L));
+        doReturn(new EstoqueBaixaDTO(false)).when(estoqueExternal).confirmarReserva(reserva);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> compraService.finalizarCompra(1L, 1L));
+
+        assertThat(ex.getMessage()).isEqualTo("Erro ao dar baixa no estoque.");
+        verify(compensacoes).agendar(1L, 987L, "Baixa de estoque recusada.");
+        verify(pagamentoExternal, never()).cancelarPagamento(any(), any());
+        verify(estoqueExternal).liberarReserva(reserva);
+    }
+
+    @Test
+    @DisplayName("Com o diário, o desfecho vai com o total em centavos e a transação já autorizada")
+    void finalizarCompra_RegistraDesfechoNoDiario() {
+        DiarioCompras diario = mock(DiarioCompras.class);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .diario(diario)
+            .construir();
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R8", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 987L));
+        doReturn(new EstoqueBaixaDTO(false)).when(estoqueExternal).confirmarReserva(reserva);
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(1L, 1L));
+
+        verify(diario).registrar(eq(1L), eq(1L), eq(1000L), eq(987L), eq(ResultadoCompra.BAIXA_COMPENSADA),
+            anyLong());
+    }
+
+    @ParameterizedTest(name = "transação {0} -> {1}")
+    @CsvSource({ "0, SUCESSO", "1, ERRO" })
+    @DisplayName("Com transação, o sucesso só vai para o diário no commit; no rollback vai como erro")
+    void finalizarCompra_SucessoNoDiarioDepoisDoCommit(int status, ResultadoCompra esperado) {
+        DiarioCompras diario = mock(DiarioCompras.class);
+        compraService = CompraService.construtor(carrinhoService, clienteService, estoqueExternal, pagamentoExternal)
+            .diario(diario)
+            .construir();
+        configurarItensNoCarrinho(criarItem(BigDecimal.TEN, BigDecimal.ONE, false, 1L));
+        ReservaEstoqueDTO reserva = new ReservaEstoqueDTO(true, "R9", List.of(), List.of(10L), List.of(1L));
+
+        when(clienteService.buscarPorId(1L)).thenReturn(clientePadrao);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clientePadrao)).thenReturn(carrinhoPadrao);
+        doReturn(reserva).when(estoqueExternal).reservar(any(LoteEstoqueDTO.class), any());
+        when(pagamentoExternal.autorizarPagamento(eq(1L), anyDouble())).thenReturn(new PagamentoDTO(true, 987L));
+        doReturn(new EstoqueBaixaDTO(true)).when(estoqueExternal).confirmarReserva(reserva);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(compraService.finalizarCompra(1L, 1L).sucesso()).isTrue();
+            verify(diario, never()).registrar(any(), any(), anyLong(), anyLong(), any(), anyLong());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(diario).registrar(eq(1L), eq(1L), eq(1000L), eq(987L), eq(esperado), anyLong());
+    }
+
     // --------------------------------------------------------------------------
     // TESTES DE BORDA E MUTAÇÃO (VALORES EXATOS)
     // --------------------------------------------------------------------------
@@ -0,0 +1,159 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.SolicitacaoCotacaoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+@ExtendWith(MockitoExtension.class)
+class CotacaoServiceTest {
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    private CotacaoService cotacaoService;
+
+    @BeforeEach
+    void setup() {
+        CompraService compraService = CompraService.construtor(carrinhoService, clienteService, null, null).construir();
+        cotacaoService = new CotacaoService(carrinhoService, clienteService, compraService, 4, 1000);
+    }
+
+    @AfterEach
+    void encerrar() {
+        cotacaoService.encerrar();
+    }
+
+    @Test
+    @DisplayName("Deve cotar cada carrinho do lote mantendo a ordem da requisição")
+    void cotar_LoteGrande_MantemOrdemETotais() {
+        Map<Long, Cliente> clientes = new HashMap<>();
+        Map<Long, CarrinhoDeCompras> carrinhos = new HashMap<>();
+        List<SolicitacaoCotacaoDTO> solicitacoes = new ArrayList<>();
+
+        for (long id = 1; id <= 500; id++) {
+            Cliente cliente = new Cliente(id, "Cliente " + id, Regiao.SUL, TipoCliente.BRONZE);
+            clientes.put(id, cliente);
+            // Preço = id reais, 1 kg: sem desconto nem frete até R$ 499
+            carrinhos.put(id, criarCarrinho(id, cliente, BigDecimal.valueOf(id)));
+            solicitacoes.add(new SolicitacaoCotacaoDTO(id, id));
+        }
+
+        when(clienteService.buscarPorIds(anyCollection())).thenReturn(clientes);
+        when(carrinhoService.buscarPorIds(anyCollection())).thenReturn(carrinhos);
+
+        List<CotacaoDTO> cotacoes = cotacaoService.cotar(solicitacoes);
+
+        assertThat(cotacoes).hasSize(500);
+        for (int i = 0; i < 499; i++) {
+            CotacaoDTO cotacao = cotacoes.get(i);
+            assertThat(cotacao.carrinhoId()).isEqualTo(i + 1L);
+            assertThat(cotacao.erro()).isNull();
+            assertThat(cotacao.custoTotal()).isEqualByComparingTo(BigDecimal.valueOf(i + 1L));
+        }
+        // R$ 500,00 já recebe 10% de desconto
+        assertThat(cotacoes.get(499).custoTotal()).isEqualByComparingTo("450.00");
+    }
+
+    @Test
+    @DisplayName("Erros devem ser reportados por carrinho sem interromper o lote")
+    void cotar_ErrosPorCarrinho() {
+        Cliente cliente = new Cliente(1L, "Cliente", Regiao.SUL, TipoCliente.OURO);
+        Cliente outroCliente = new Cliente(2L, "Outro", Regiao.NORTE, TipoCliente.BRONZE);
+
+        when(clienteService.buscarPorIds(anyCollection())).thenReturn(Map.of(1L, cliente, 2L, outroCliente));
+        when(carrinhoService.buscarPorIds(anyCollection()))
+            .thenReturn(Map.of(10L, criarCarrinho(10L, cliente, BigDecimal.TEN)));
+
+        List<CotacaoDTO> cotacoes = cotacaoService.cotar(List.of(
+            new SolicitacaoCotacaoDTO(10L, 1L),
+            new SolicitacaoCotacaoDTO(10L, 99L),
+            new SolicitacaoCotacaoDTO(10L, 2L),
+            new SolicitacaoCotacaoDTO(77L, 1L)
+        ));
+
+        assertThat(cotacoes.get(0).custoTotal()).isEqualByComparingTo("10.00");
+        assertThat(cotacoes.get(1).erro()).isEqualTo("Cliente não encontrado");
+        // Carrinho de outro cliente é tratado como inexistente, como em finalizarCompra
+        assertThat(cotacoes.get(2).erro()).isEqualTo("Carrinho não encontrado.");
+        assertThat(cotacoes.get(3).erro()).isEqualTo("Carrinho não encontrado.");
+    }
+
+    @Test
+    @DisplayName("Carrinho repetido no lote deve ser cotado uma vez e a cotação repetida nas posições dele")
+    void cotar_CarrinhoRepetido_CotadoUmaVez() {
+        Cliente cliente = new Cliente(1L, "Cliente", Regiao.SUL, TipoCliente.OURO);
+        when(clienteService.buscarPorIds(anyCollection())).thenReturn(Map.of(1L, cliente));
+        when(carrinhoService.buscarPorIds(anyCollection()))
+            .thenReturn(Map.of(10L, criarCarrinho(10L, cliente, BigDecimal.TEN),
+                20L, criarCarrinho(20L, cliente, BigDecimal.ONE)));
+
+        List<SolicitacaoCotacaoDTO> solicitacoes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            solicitacoes.add(new SolicitacaoCotacaoDTO(i % 3 == 0 ? 20L : 10L, 1L));
+        }
+
+        List<CotacaoDTO> cotacoes = cotacaoService.cotar(solicitacoes);
+
+        assertThat(cotacoes).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(cotacoes.get(i)).isSameAs(cotacoes.get(i % 3 == 0 ? 0 : 1));
+        }
+        assertThat(cotacoes.get(0).custoTotal()).isEqualByComparingTo("1.00");
+        assertThat(cotacoes.get(1).custoTotal()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lote vazio, acima do limite ou com carrinho nulo")
+    void cotar_LoteInvalido() {
+        CotacaoService limitado = new CotacaoService(carrinhoService, clienteService, null, 1, 2);
+        try {
+            List<SolicitacaoCotacaoDTO> tres = List.of(new SolicitacaoCotacaoDTO(1L, 1L),
+                new SolicitacaoCotacaoDTO(2L, 1L), new SolicitacaoCotacaoDTO(3L, 1L));
+
+            assertThrows(IllegalArgumentException.class, () -> limitado.cotar(List.of()));
+            assertThrows(IllegalArgumentException.class, () -> limitado.cotar(tres));
+            assertThrows(IllegalArgumentException.class,
+                () -> limitado.cotar(Arrays.asList(new SolicitacaoCotacaoDTO(1L, 1L), null)));
+        } finally {
+            limitado.encerrar();
+        }
+    }
+
+    private static CarrinhoDeCompras criarCarrinho(Long id, Cliente cliente, BigDecimal preco) {
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setPreco(preco);
+        produto.setPesoFisico(BigDecimal.ONE);
+        produto.setFragil(false);
+
+        return new CarrinhoDeCompras(id, cliente, List.of(new ItemCompra(id, produto, 1L)), null);
+    }
+}
@@ -0,0 +1,121 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IdempotenciaServiceTest {
+
+    private final IdempotenciaService idempotencia =
+        new IdempotenciaService(1_000, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+    @Test
+    @DisplayName("Repetição concluída deve devolver o resultado original sem executar de novo")
+    void executar_RepeticaoConcluida() {
+        AtomicInteger execucoes = new AtomicInteger();
+
+        String primeiro = idempotencia.executar("k1", "1:1", () -> "compra-" + execucoes.incrementAndGet(), r -> true);
+        String segundo = idempotencia.executar("k1", "1:1", () -> "compra-" + execucoes.incrementAndGet(), r -> true);
+
+        assertThat(primeiro).isEqualTo("compra-1");
+        assertThat(segundo).isEqualTo("compra-1");
+        assertThat(execucoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Repetições concorrentes devem esperar a execução original")
+    void executar_RepeticoesConcorrentesEsperamOriginal() throws Exception {
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch originalIniciada = new CountDownLatch(1);
+        CountDownLatch liberarOriginal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        Future<String> original = executor.submit(() -> idempotencia.executar("k2", "1:1", () -> {
+            execucoes.incrementAndGet();
+            originalIniciada.countDown();
+            aguardar(liberarOriginal);
+            return "ok";
+        }, r -> true));
+        assertThat(originalIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> repeticoes = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            repeticoes.add(executor.submit(
+                () -> idempotencia.executar("k2", "1:1", () -> "repetida-" + execucoes.incrementAndGet(), r -> true)));
+        }
+        liberarOriginal.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        for (Future<String> repeticao : repeticoes) {
+            assertThat(repeticao.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        }
+        assertThat(execucoes).hasValue(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Mesma chave com outra requisição deve ser rejeitada")
+    void executar_ImpressaoDiferente() {
+        idempotencia.executar("k3", "1:1", () -> "ok", r -> true);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> idempotencia.executar("k3", "2:1", () -> "outra", r -> true));
+    }
+
+    @Test
+    @DisplayName("Resultado não guardável ou exceção liberam a chave para nova tentativa")
+    void executar_ResultadoNaoGuardadoPermiteNovaTentativa() {
+        AtomicInteger execucoes = new AtomicInteger();
+
+        idempotencia.executar("k4", "1:1", () -> "erro-" + execucoes.incrementAndGet(), r -> false);
+        assertThrows(IllegalStateException.class, () -> idempotencia.executar("k4", "1:1", () -> {
+            execucoes.incrementAndGet();
+            throw new IllegalStateException("falha");
+        }, r -> true));
+        String terceiro = idempotencia.executar("k4", "1:1", () -> "ok-" + execucoes.incrementAndGet(), r -> true);
+
+        assertThat(terceiro).isEqualTo("ok-3");
+    }
+
+    @Test
+    @DisplayName("Repetição que espera além do limite deve falhar sem executar")
+    void executar_EsperaMaximaExcedida() throws Exception {
+        IdempotenciaService curta = new IdempotenciaService(10, Duration.ofMinutes(1), Duration.ofMillis(50));
+        CountDownLatch originalIniciada = new CountDownLatch(1);
+        CountDownLatch liberarOriginal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<String> original = executor.submit(() -> curta.executar("k5", "1:1", () -> {
+            originalIniciada.countDown();
+            aguardar(liberarOriginal);
+            return "ok";
+        }, r -> true));
+        assertThat(originalIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThrows(IllegalStateException.class, () -> curta.executar("k5", "1:1", () -> "repetida", r -> true));
+
+        liberarOriginal.countDown();
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        executor.shutdown();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ecommerce.service.diario;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.service.metricas.ResultadoCompra;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DiarioComprasTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Anel cheio recusa o registro em vez de esperar; drenar libera as posições")
+    void anel_CheioRecusa() {
+        AnelDiario anel = new AnelDiario(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(oferecer(anel, i)).isTrue();
+        }
+        assertThat(oferecer(anel, 4)).isFalse();
+
+        List<Long> carrinhos = new ArrayList<>();
+        assertThat(anel.drenar((carrinho, cliente, total, transacao, resultado, conclusao, duracao) ->
+            carrinhos.add(carrinho), 3)).isEqualTo(3);
+        assertThat(carrinhos).containsExactly(0L, 1L, 2L);
+        assertThat(anel.pendentes()).isEqualTo(1);
+        assertThat(oferecer(anel, 5)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Registros gravados voltam na reprodução com todos os campos e o estado reconstruído")
+    void escritor_GravaEReproduz() {
+        try (EscritorDiario escritor = new EscritorDiario(diretorio, 4096)) {
+            escritor.aceitar(10L, 1L, 55_600L, 900L, ResultadoCompra.SUCESSO.ordinal(), 1_000L, 1_500);
+            escritor.aceitar(11L, 2L, 1_000L, RegistroDiario.AUSENTE, ResultadoCompra.FORA_DE_ESTOQUE.ordinal(),
+                2_000L, 300);
+            escritor.aceitar(10L, 1L, 55_600L, 901L, ResultadoCompra.BAIXA_COMPENSADA.ordinal(), 3_000L, 2_000);
+        }
+
+        EstadoCompras estado = ReproducaoDiario.reproduzir(diretorio);
+
+        assertThat(estado.getRegistros()).isEqualTo(3);
+        assertThat(estado.getLacunas()).isZero();
+        assertThat(estado.getUltimaSequencia()).isEqualTo(2);
+        assertThat(estado.getTotalVendidoCentavos()).isEqualTo(55_600L);
+        assertThat(estado.concluida(900L)).map(RegistroDiario::carrinhoId).contains(10L);
+        assertThat(estado.ultimo(10L)).contains(
+            new RegistroDiario(2, 10L, 1L, 55_600L, 901L, ResultadoCompra.BAIXA_COMPENSADA, 3_000L, 2_000));
+        assertThat(estado.quantidade(ResultadoCompra.FORA_DE_ESTOQUE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Segmento cheio rotaciona para o seguinte sem quebrar a sequência")
+    void escritor_RotacionaSegmentos() {
+        // 4 registros por segmento; o tamanho é arredondado para baixo ao múltiplo de 64
+        try (EscritorDiario escritor = new EscritorDiario(diretorio, 4 * 64 + 10)) {
+            for (int i = 0; i < 10; i++) {
+                escritor.aceitar(i, 1L, 100L, i, ResultadoCompra.SUCESSO.ordinal(), i, 1);
+            }
+        }
+
+        assertThat(LeitorDiario.segmentos(diretorio)).extracting(LeitorDiario::indice).containsExactly(1L, 2L, 3L);
+        EstadoCompras estado = ReproducaoDiario.reproduzir(diretorio);
+        assertThat(estado.getRegistros()).isEqualTo(10);
+        assertThat(estado.getLacunas()).isZero();
+        assertThat(estado.getTotalVendidoCentavos()).isEqualTo(1_000L);
+    }
+
+    @Test
+    @DisplayName("Reaberto após uma queda, continua da sequência seguinte e sobrescreve o registro cortado")
+    void escritor_RetomaAposRegistroCortado() throws IOException {
+        try (EscritorDiario escritor = new EscritorDiario(diretorio, 4096)) {
+            for (int i = 0; i < 3; i++) {
+                escritor.aceitar(i, 1L, 100L, i, ResultadoCompra.SUCESSO.ordinal(), i, 1);
+            }
+        }
+        // Simula a queda no meio do terceiro registro: o CRC deixa de conferir
+        Path segmento = LeitorDiario.segmentos(diretorio).get(0);
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[] { 0x7F }), 2 * 64 + 20);
+        }
+        assertThat(ReproducaoDiario.reproduzir(diretorio).getRegistros()).isEqualTo(2);
+
+        try (EscritorDiario escritor = new EscritorDiario(diretorio, 4096)) {
+            assertThat(escritor.getProximaSequencia()).isEqualTo(2);
+            escritor.aceitar(7L, 1L, 100L, 7L, ResultadoCompra.ERRO.ordinal(), 7L, 1);
+        }
+
+        EstadoCompras estado = ReproducaoDiario.reproduzir(diretorio);
+        assertThat(estado.getRegistros()).isEqualTo(3);
+        assertThat(estado.getLacunas()).isZero();
+        assertThat(estado.ultimo(7L)).map(RegistroDiario::sequencia).contains(2L);
+        assertThat(Files.size(segmento)).isEqualTo(4096);
+    }
+
+    @Test
+    @DisplayName("A thread do diário grava o que as requisições registram e tudo está no disco ao encerrar")
+    void diario_GravaPelaThreadDoDiario() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DiarioCompras diario = new DiarioCompras(diretorio, DataSize.ofKilobytes(64),
+            1024, Duration.ofMillis(10), registry);
+        List<Thread> produtoras = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = t * 1_000L;
+            Thread produtora = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    while (!diario.registrar(base + i, 1L, 100L, base + i, ResultadoCompra.SUCESSO, 1_000L)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            produtora.start();
+            produtoras.add(produtora);
+        }
+        for (Thread produtora : produtoras) {
+            produtora.join();
+        }
+        diario.encerrar();
+
+        assertThat(diario.registrar(1L, 1L, 1L, 1L, ResultadoCompra.ERRO, 0L)).isFalse();
+        assertThat(diario.getGravados()).isEqualTo(2_000);
+        assertThat(registry.get("compra.diario.registros").tag("destino", "gravado").functionCounter().count())
+            .isEqualTo(2_000);
+
+        EstadoCompras estado = ReproducaoDiario.reproduzir(diretorio);
+        assertThat(estado.getRegistros()).isEqualTo(2_000);
+        assertThat(estado.getLacunas()).isZero();
+        assertThat(estado.getCarrinhos()).isEqualTo(2_000);
+        assertThat(estado.ultimo(3_499L)).map(RegistroDiario::duracaoMicros).contains(1);
+    }
+
+    private static boolean oferecer(AnelDiario anel, long carrinhoId) {
+        return anel.oferecer(carrinhoId, 1L, 100L, carrinhoId, ResultadoCompra.SUCESSO.ordinal(), 0L, 0);
+    }
+}
@@ -0,0 +1,304 @@
+package ecommerce.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.entity.BaixaPendente;
+import ecommerce.entity.SituacaoBaixa;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.repository.BaixaPendenteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class DespachanteBaixasTest {
+
+    private static final Instant INICIO = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration PRAZO = Duration.ofSeconds(10);
+
+    @Autowired
+    private BaixaPendenteRepository repositorio;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Relogio relogio = new Relogio();
+    private final EstoqueRoteirizado estoque = new EstoqueRoteirizado();
+    private final PagamentoSimulado pagamento = new PagamentoSimulado();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OutboxBaixas outbox;
+
+    @BeforeEach
+    void setup() {
+        outbox = new OutboxBaixas(repositorio, relogio);
+    }
+
+    @Test
+    @DisplayName("Baixas gravadas no outbox são confirmadas na ordem de gravação")
+    void despachar_ConfirmaNaOrdem() {
+        registrar("A", 1L, 1L);
+        registrar("B", 2L, 2L);
+        registrar("C", 3L, 1L);
+
+        assertThat(despachante(8).despachar()).isEqualTo(3);
+
+        assertThat(estoque.chamadas).containsExactly("A", "B", "C");
+        assertThat(repositorio.findAll()).extracting(BaixaPendente::getSituacao).containsOnly(SituacaoBaixa.CONCLUIDA);
+        assertThat(contagem("concluida")).isEqualTo(3);
+        assertThat(registry.get("compra.outbox.pendentes").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Falha passageira reagenda com espera e retém só as baixas seguintes do mesmo produto")
+    void despachar_FalhaPassageiraRetemMesmoProduto() {
+        estoque.roteiro("A", new IllegalStateException("Tempo limite do serviço de estoque excedido."));
+        BaixaPendente a = registrar("A", 1L, 1L);
+        BaixaPendente b = registrar("B", 2L, 1L);
+        BaixaPendente c = registrar("C", 3L, 2L);
+        DespachanteBaixas despachante = despachante(8);
+
+        assertThat(despachante.despachar()).isEqualTo(2);
+        assertThat(estoque.chamadas).containsExactly("A", "C");
+        assertThat(a.getTentativas()).isEqualTo(1);
+        assertThat(a.getProximaTentativa()).isEqualTo(INICIO.plusMillis(200));
+        assertThat(a.getUltimoErro()).contains("Tempo limite");
+        assertThat(b.getSituacao()).isEqualTo(SituacaoBaixa.PENDENTE);
+        assertThat(c.getSituacao()).isEqualTo(SituacaoBaixa.CONCLUIDA);
+
+        // Antes da espera, nem A nem B (retida por A) saem
+        assertThat(despachante.despachar()).isZero();
+
+        relogio.avancar(Duration.ofMillis(200));
+        assertThat(despachante.despachar()).isEqualTo(2);
+        assertThat(estoque.chamadas).containsExactly("A", "C", "A", "B");
+        assertThat(List.of(a.getSituacao(), b.getSituacao())).containsOnly(SituacaoBaixa.CONCLUIDA);
+        assertThat(contagem("reagendada")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Baixa recusada cancela o pagamento e libera a reserva")
+    void despachar_RecusaCompensa() {
+        estoque.roteiro("A", new EstoqueBaixaDTO(false));
+        BaixaPendente a = registrar("A", 77L, 1L);
+
+        despachante(8).despachar();
+
+        assertThat(a.getSituacao()).isEqualTo(SituacaoBaixa.COMPENSADA);
+        assertThat(pagamento.foiCancelado(77L)).isTrue();
+        assertThat(estoque.liberadas).containsExactly("A");
+        assertThat(contagem("compensada")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Tentativas esgotadas compensam a compra; espera dobra até o máximo")
+    void despachar_TentativasEsgotadas() {
+        IllegalStateException foraDoAr = new IllegalStateException("Serviço de estoque indisponível no momento.");
+        estoque.roteiro("A", foraDoAr, foraDoAr);
+        BaixaPendente a = registrar("A", 88L, 1L);
+        DespachanteBaixas despachante = despachante(2);
+
+        despachante.despachar();
+        relogio.avancar(Duration.ofSeconds(1));
+        despachante.despachar();
+
+        assertThat(a.getSituacao()).isEqualTo(SituacaoBaixa.COMPENSADA);
+        assertThat(a.getTentativas()).isEqualTo(2);
+        assertThat(a.getUltimoErro()).startsWith("Tentativas esgotadas");
+        assertThat(pagamento.foiCancelado(88L)).isTrue();
+        assertThat(despachante.espera(0)).isEqualTo(Duration.ofMillis(200));
+        assertThat(despachante.espera(3)).isEqualTo(Duration.ofMillis(1600));
+        assertThat(despachante.espera(20)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Baixas esperando nova tentativa não ocupam o lote: as mais novas seguem sendo tentadas")
+    void despachar_EsperandoNaoOcupamOLote() {
+        IllegalStateException foraDoAr = new IllegalStateException("Serviço de estoque indisponível no momento.");
+        estoque.roteiro("A", foraDoAr);
+        estoque.roteiro("B", foraDoAr);
+        registrar("A", 1L, 1L);
+        registrar("B", 2L, 2L);
+        DespachanteBaixas despachante = despachante(2, 8);
+        assertThat(despachante.despachar()).isEqualTo(2);
+
+        BaixaPendente c = registrar("C", 3L, 3L);
+
+        assertThat(despachante.despachar()).isEqualTo(1);
+        assertThat(estoque.chamadas).containsExactly("A", "B", "C");
+        assertThat(c.getSituacao()).isEqualTo(SituacaoBaixa.CONCLUIDA);
+    }
+
+    @Test
+    @DisplayName("Baixa em andamento em outro despachante não é tentada de novo antes do prazo e retém o mesmo produto")
+    void despachar_EmAndamentoRespeitaPrazo() {
+        BaixaPendente a = registrar("A", 1L, 1L);
+        a.reivindicar(INICIO.plus(PRAZO));
+        repositorio.saveAndFlush(a);
+        BaixaPendente b = registrar("B", 2L, 1L);
+        registrar("C", 3L, 2L);
+        DespachanteBaixas despachante = despachante(8);
+
+        assertThat(despachante.despachar()).isEqualTo(1);
+        assertThat(estoque.chamadas).containsExactly("C");
+        assertThat(b.getSituacao()).isEqualTo(SituacaoBaixa.PENDENTE);
+
+        // O outro despachante caiu: vencido o prazo, A é retomada e B segue atrás dela
+        relogio.avancar(PRAZO);
+        assertThat(despachante.despachar()).isEqualTo(2);
+        assertThat(estoque.chamadas).containsExactly("C", "A", "B");
+        assertThat(List.of(a.getSituacao(), b.getSituacao())).containsOnly(SituacaoBaixa.CONCLUIDA);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Estoque e pagamento são chamados fora de transação; cada resultado é gravado em seguida")
+    void despachar_ChamadasForaDeTransacao() {
+        estoque.roteiro("B", new EstoqueBaixaDTO(false));
+        try {
+            registrar("A", 1L, 1L);
+            registrar("B", 2L, 2L);
+
+            assertThat(despachante(8).despachar()).isEqualTo(2);
+
+            assertThat(estoque.chamadasEmTransacao).isZero();
+            assertThat(repositorio.findAll()).extracting(BaixaPendente::getTokenReserva, BaixaPendente::getSituacao)
+                .containsExactlyInAnyOrder(tuple("A", SituacaoBaixa.CONCLUIDA), tuple("B", SituacaoBaixa.COMPENSADA));
+            assertThat(pagamento.foiCancelado(2L)).isTrue();
+        } finally {
+            repositorio.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Tentativas que não cabem no TTL da reserva impedem a inicialização")
+    void construtor_TentativasAlemDoTtlDaReserva() {
+        assertThat(despachante(8).janelaTentativas(Duration.ofMillis(100))).isEqualTo(Duration.ofMillis(26_200));
+
+        ObjectProvider<FilaCompensacao> semFila = new StaticListableBeanFactory().getBeanProvider(FilaCompensacao.class);
+        assertThat(new DespachanteBaixas(repositorio, transactionManager, estoque, pagamento, 10, 8,
+            Duration.ofMillis(200), Duration.ofSeconds(30), PRAZO, 100, Duration.ofSeconds(30), registry, semFila))
+            .isNotNull();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> new DespachanteBaixas(repositorio, transactionManager, estoque, pagamento, 10, 9,
+                Duration.ofMillis(200), Duration.ofSeconds(30), PRAZO, 100, Duration.ofSeconds(30), registry,
+                semFila));
+        assertThat(ex.getMessage()).contains("TTL da reserva");
+    }
+
+    private BaixaPendente registrar(String token, Long transacaoId, Long produtoId) {
+        outbox.registrar(10L, 1L, transacaoId,
+            new ReservaEstoqueDTO(true, token, List.of(), List.of(produtoId), List.of(2L)));
+        return repositorio.findAll().stream().filter(b -> token.equals(b.getTokenReserva())).findFirst().orElseThrow();
+    }
+
+    private DespachanteBaixas despachante(int maximoTentativas) {
+        return despachante(10, maximoTentativas);
+    }
+
+    private DespachanteBaixas despachante(int tamanhoLote, int maximoTentativas) {
+        return new DespachanteBaixas(repositorio, transactionManager, estoque, pagamento, tamanhoLote,
+            maximoTentativas, Duration.ofMillis(200), Duration.ofSeconds(30), PRAZO, relogio, registry);
+    }
+
+    private double contagem(String resultado) {
+        return registry.get("compra.outbox.baixas").tag("resultado", resultado).counter().count();
+    }
+
+    /** Confirma tudo, salvo o roteiro de respostas e exceções definido por token. */
+    private static class EstoqueRoteirizado implements IEstoqueExternal {
+
+        private final Map<String, Deque<Object>> roteiros = new HashMap<>();
+        private final List<String> chamadas = new ArrayList<>();
+        private final List<String> liberadas = new ArrayList<>();
+        private int chamadasEmTransacao;
+
+        void roteiro(String token, Object... respostas) {
+            roteiros.put(token, new ArrayDeque<>(List.of(respostas)));
+        }
+
+        @Override
+        public EstoqueBaixaDTO confirmarReserva(ReservaEstoqueDTO reserva) {
+            chamadas.add(reserva.token());
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                chamadasEmTransacao++;
+            }
+            Object resposta = roteiros.getOrDefault(reserva.token(), new ArrayDeque<>()).poll();
+            if (resposta instanceof RuntimeException e) {
+                throw e;
+            }
+            return resposta == null ? new EstoqueBaixaDTO(true) : (EstoqueBaixaDTO) resposta;
+        }
+
+        @Override
+        public void liberarReserva(ReservaEstoqueDTO reserva) {
+            liberadas.add(reserva.token());
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                chamadasEmTransacao++;
+            }
+        }
+
+        @Override
+        public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Relogio extends Clock {
+
+        private Instant agora = INICIO;
+
+        void avancar(Duration tempo) {
+            agora = agora.plus(tempo);
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+    }
+}
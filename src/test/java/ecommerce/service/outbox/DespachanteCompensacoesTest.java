@@ -0,0 +1,217 @@
+package ecommerce.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CancelamentoPendente;
+import ecommerce.entity.SituacaoCancelamento;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CancelamentoPendenteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class DespachanteCompensacoesTest {
+
+    private static final Instant INICIO = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Autowired
+    private CancelamentoPendenteRepository repositorio;
+
+    private final Relogio relogio = new Relogio();
+    private final PagamentoRoteirizado pagamento = new PagamentoRoteirizado();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private FilaCompensacao fila;
+    private DespachanteCompensacoes despachante;
+
+    @BeforeEach
+    void setup() {
+        fila = new FilaCompensacao(repositorio, relogio);
+    }
+
+    @AfterEach
+    void encerrar() {
+        if (despachante != null) {
+            despachante.encerrar();
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelamentos agendados são feitos no gateway; profundidade e idade da fila são publicadas")
+    void despachar_CancelaEPublicaProfundidadeEIdade() {
+        despachante = despachante(4, 8);
+        fila.agendar(1L, 10L, "Baixa de estoque recusada.");
+        relogio.avancar(Duration.ofSeconds(3));
+        fila.agendar(2L, 20L, "Baixa de estoque recusada.");
+
+        assertThat(registry.get("compra.compensacao.profundidade").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("compra.compensacao.idade").timeGauge().value(TimeUnit.MILLISECONDS)).isEqualTo(3000);
+
+        assertThat(despachante.despachar()).isEqualTo(2);
+
+        assertThat(pagamento.cancelados).containsExactlyInAnyOrder(10L, 20L);
+        assertThat(repositorio.findAll()).extracting(CancelamentoPendente::getSituacao)
+            .containsOnly(SituacaoCancelamento.CONCLUIDO);
+        assertThat(contagem("concluido")).isEqualTo(2);
+        assertThat(registry.get("compra.compensacao.profundidade").gauge().value()).isZero();
+        assertThat(registry.get("compra.compensacao.idade").timeGauge().value(TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    @Test
+    @DisplayName("Falha passageira reagenda com espera exponencial até o gateway voltar")
+    void despachar_FalhaPassageiraReagenda() {
+        despachante = despachante(2, 8);
+        IllegalStateException foraDoAr = new IllegalStateException("Tempo limite do gateway de pagamento excedido.");
+        pagamento.roteiro(30L, foraDoAr, foraDoAr);
+        fila.agendar(3L, 30L, "Erro na baixa de estoque: tempo limite");
+        CancelamentoPendente cancelamento = repositorio.findAll().get(0);
+
+        despachante.despachar();
+        assertThat(cancelamento.getProximaTentativa()).isEqualTo(INICIO.plusMillis(100));
+        assertThat(cancelamento.getUltimoErro()).contains("Tempo limite");
+
+        // Antes da espera, o cancelamento não sai de novo
+        assertThat(despachante.despachar()).isZero();
+
+        relogio.avancar(Duration.ofMillis(100));
+        despachante.despachar();
+        assertThat(cancelamento.getProximaTentativa()).isEqualTo(INICIO.plusMillis(300));
+
+        relogio.avancar(Duration.ofMillis(200));
+        despachante.despachar();
+        assertThat(cancelamento.getSituacao()).isEqualTo(SituacaoCancelamento.CONCLUIDO);
+        assertThat(cancelamento.getTentativas()).isEqualTo(3);
+        assertThat(pagamento.cancelados).containsExactly(30L);
+        assertThat(contagem("reagendado")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Pedido inválido ou tentativas esgotadas abandonam o cancelamento")
+    void despachar_Abandona() {
+        despachante = despachante(2, 2);
+        IllegalStateException foraDoAr = new IllegalStateException("Gateway de pagamento indisponível.");
+        pagamento.roteiro(40L, new IllegalArgumentException("Transação desconhecida: 40"));
+        pagamento.roteiro(50L, foraDoAr, foraDoAr);
+        fila.agendar(4L, 40L, "Baixa de estoque recusada.");
+        fila.agendar(5L, 50L, "Baixa de estoque recusada.");
+
+        despachante.despachar();
+        relogio.avancar(Duration.ofSeconds(1));
+        despachante.despachar();
+
+        assertThat(repositorio.findAll()).extracting(CancelamentoPendente::getSituacao)
+            .containsOnly(SituacaoCancelamento.ABANDONADO);
+        assertThat(repositorio.findAll()).extracting(CancelamentoPendente::getUltimoErro)
+            .containsExactlyInAnyOrder("Transação desconhecida: 40",
+                "Tentativas esgotadas: Gateway de pagamento indisponível.");
+        assertThat(contagem("abandonado")).isEqualTo(2);
+        assertThat(pagamento.cancelados).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Os workers limitam quantos cancelamentos ficam abertos no gateway ao mesmo tempo")
+    void despachar_WorkersLimitamConcorrencia() {
+        despachante = despachante(2, 8);
+        pagamento.demora = Duration.ofMillis(20);
+        for (long i = 1; i <= 6; i++) {
+            fila.agendar(i, 100L + i, "Baixa de estoque recusada.");
+        }
+
+        assertThat(despachante.despachar()).isEqualTo(6);
+
+        assertThat(pagamento.cancelados).hasSize(6);
+        assertThat(pagamento.maximoSimultaneos.get()).isEqualTo(2);
+    }
+
+    private DespachanteCompensacoes despachante(int workers, int maximoTentativas) {
+        return new DespachanteCompensacoes(repositorio, pagamento, workers, 10, maximoTentativas,
+            Duration.ofMillis(100), Duration.ofSeconds(10), relogio, registry);
+    }
+
+    private double contagem(String resultado) {
+        return registry.get("compra.compensacao.cancelamentos").tag("resultado", resultado).counter().count();
+    }
+
+    /** Cancela tudo, salvo o roteiro de exceções definido por transação; chamado pelos workers. */
+    private static class PagamentoRoteirizado implements IPagamentoExternal {
+
+        private final Map<Long, Deque<RuntimeException>> roteiros = new ConcurrentHashMap<>();
+        private final List<Long> cancelados = new CopyOnWriteArrayList<>();
+        private final AtomicInteger simultaneos = new AtomicInteger();
+        private final AtomicInteger maximoSimultaneos = new AtomicInteger();
+        private volatile Duration demora = Duration.ZERO;
+
+        void roteiro(Long transacaoId, RuntimeException... falhas) {
+            roteiros.put(transacaoId, new ArrayDeque<>(List.of(falhas)));
+        }
+
+        @Override
+        public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+            maximoSimultaneos.accumulateAndGet(simultaneos.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(demora.toMillis());
+                Deque<RuntimeException> roteiro = roteiros.get(pagamentoTransacaoId);
+                RuntimeException falha = roteiro == null ? null : roteiro.poll();
+                if (falha != null) {
+                    throw falha;
+                }
+                cancelados.add(pagamentoTransacaoId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                simultaneos.decrementAndGet();
+            }
+        }
+    }
+
+    private static class Relogio extends Clock {
+
+        private volatile Instant agora = INICIO;
+
+        void avancar(Duration tempo) {
+            agora = agora.plus(tempo);
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+class MotorPrecificacaoPontoFixoTest {
+
+    // Carrinhos da amostra do mvn test e do diferencial completo (mvn -Pdiferencial test)
+    private static final int AMOSTRA = 10_000;
+    private static final int CARRINHOS = Integer.getInteger("precificacao.diferencial.carrinhos", 1_000_000);
+    private static final long SEMENTE = Long.getLong("precificacao.diferencial.semente", 20240501L);
+
+    // Multiplicadores de região e benefícios de nível do enunciado
+    private static final RegrasPrecificacao REGRAS_COM_FATORES = new RegrasPrecificacao(TabelaRegras.carregar(
+        Map.of(
+            TabelaRegras.PREFIXO + "multiplicador-regiao.SUL", "1.05",
+            TabelaRegras.PREFIXO + "multiplicador-regiao.NORDESTE", "1.10",
+            TabelaRegras.PREFIXO + "multiplicador-regiao.CENTRO_OESTE", "1.20",
+            TabelaRegras.PREFIXO + "multiplicador-regiao.NORTE", "1.30",
+            TabelaRegras.PREFIXO + "beneficio-frete.PRATA", "0.50",
+            TabelaRegras.PREFIXO + "beneficio-frete.OURO", "1.00")::get, 1));
+
+    private final MotorPrecificacao referencia = new MotorPrecificacaoBigDecimal();
+    private final MotorPrecificacao pontoFixo = new MotorPrecificacaoPontoFixo();
+
+    private final MotorPrecificacao referenciaComFatores = new MotorPrecificacaoBigDecimal(REGRAS_COM_FATORES);
+    private final MotorPrecificacao pontoFixoComFatores = new MotorPrecificacaoPontoFixo(REGRAS_COM_FATORES);
+
+    @Test
+    @DisplayName("Amostra: ponto fixo deve ser idêntico (valor e escala) ao BigDecimal em carrinhos aleatórios")
+    void calcularCustoTotal_AmostraAleatoria_IdenticoAoReferencia() {
+        compararTotais(AMOSTRA);
+    }
+
+    @Test
+    @Tag("diferencial")
+    @DisplayName("Diferencial: ponto fixo deve ser idêntico (valor e escala) ao BigDecimal em 1.000.000 de carrinhos")
+    void calcularCustoTotal_CarrinhosAleatorios_IdenticoAoReferencia() {
+        compararTotais(CARRINHOS);
+    }
+
+    private void compararTotais(int carrinhos) {
+        SplittableRandom random = new SplittableRandom(SEMENTE);
+        Regiao[] regioes = Regiao.values();
+        TipoCliente[] tipos = TipoCliente.values();
+
+        for (int i = 0; i < carrinhos; i++) {
+            CarrinhoDeCompras carrinho = carrinhoAleatorio(random);
+            Regiao regiao = regioes[random.nextInt(regioes.length)];
+            TipoCliente tipo = tipos[random.nextInt(tipos.length)];
+            boolean comFatores = random.nextBoolean();
+
+            BigDecimal esperado = (comFatores ? referenciaComFatores : referencia)
+                .calcularCustoTotal(carrinho, regiao, tipo);
+            BigDecimal obtido = (comFatores ? pontoFixoComFatores : pontoFixo)
+                .calcularCustoTotal(carrinho, regiao, tipo);
+
+            assertThat(obtido)
+                .as("carrinho #%d (semente %d, fatores de frete: %s)", i, SEMENTE, comFatores)
+                .isEqualTo(esperado);
+        }
+    }
+
+    @Test
+    @DisplayName("Diferencial: parcelas do detalhamento em ponto fixo devem ter o valor das do BigDecimal")
+    void detalhar_CarrinhosAleatorios_IgualAoReferencia() {
+        SplittableRandom random = new SplittableRandom(SEMENTE);
+        Regiao[] regioes = Regiao.values();
+        TipoCliente[] tipos = TipoCliente.values();
+
+        for (int i = 0; i < AMOSTRA; i++) {
+            CarrinhoDeCompras carrinho = carrinhoAleatorio(random);
+            Regiao regiao = regioes[random.nextInt(regioes.length)];
+            TipoCliente tipo = tipos[random.nextInt(tipos.length)];
+            boolean comFatores = random.nextBoolean();
+
+            PrecoDetalhado esperado = (comFatores ? referenciaComFatores : referencia).detalhar(carrinho, regiao, tipo);
+            PrecoDetalhado obtido = (comFatores ? pontoFixoComFatores : pontoFixo).detalhar(carrinho, regiao, tipo);
+
+            String descricao = String.format("carrinho #%d (semente %d, fatores de frete: %s)", i, SEMENTE, comFatores);
+            assertThat(obtido.subtotal()).as(descricao).isEqualByComparingTo(esperado.subtotal());
+            assertThat(obtido.desconto()).as(descricao).isEqualByComparingTo(esperado.desconto());
+            assertThat(obtido.frete()).as(descricao).isEqualByComparingTo(esperado.frete());
+            assertThat(obtido.total()).as(descricao).isEqualTo(esperado.total())
+                .isEqualTo((comFatores ? pontoFixoComFatores : pontoFixo).calcularCustoTotal(carrinho, regiao, tipo));
+        }
+    }
+
+    @ParameterizedTest(name = "preço {0} x {2}, peso {1} kg, frágil {3} -> {4}")
+    @CsvSource({
+        // Limites de desconto (500 e 1000) e de faixa de peso (5, 10 e 50 kg)
+        "499.99, 5.000, 1, false, 499.99",
+        "500.00, 5.001, 1, false, 460.00",
+        "999.99, 10.000, 1, false, 919.99",
+        "1000.00, 10.001, 1, false, 840.00",
+        "100.00, 50.000, 1, true, 305.00",
+        "100.00, 50.001, 1, false, 450.01",
+        // Meio centavo (555,55 - 10% = 499,995) deve arredondar para cima
+        "555.55, 1.000, 1, false, 500.00",
+        // Preço com mais de 2 casas ou peso com mais de 3 casas caem no motor de referência
+        "10.005, 1.000, 1, false, 10.01",
+        "0.05, 5.0005, 1, false, 10.05",
+    })
+    @DisplayName("Limites das faixas devem coincidir com o motor de referência")
+    void calcularCustoTotal_Limites_IdenticoAoReferencia(String preco, String peso, long quantidade, boolean fragil,
+            String esperado) {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(List.of(criarItem(new BigDecimal(preco), new BigDecimal(peso), fragil, quantidade)));
+
+        BigDecimal obtido = pontoFixo.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE);
+
+        assertThat(obtido).isEqualTo(referencia.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE));
+        assertThat(obtido).isEqualByComparingTo(esperado);
+    }
+
+    @Test
+    @DisplayName("Peso somado em double, como no cálculo original: 0,2 + 4,4 + 0,4 kg passa de 5 kg e paga frete")
+    void calcularCustoTotal_PesoSomadoEmDouble_MantemCalculoOriginal() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(List.of(
+            criarItem(new BigDecimal("10.00"), new BigDecimal("0.200"), false, 1L),
+            criarItem(new BigDecimal("10.00"), new BigDecimal("4.400"), false, 1L),
+            criarItem(new BigDecimal("10.00"), new BigDecimal("0.400"), false, 1L)
+        ));
+
+        // 5.000000000000001 kg cai na faixa B: 30,00 + R$ 2/kg de frete
+        assertThat(referencia.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualTo("40.00");
+        assertThat(pontoFixo.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualTo("40.00");
+        assertThat(pontoFixo.detalhar(carrinho, Regiao.SUL, TipoCliente.BRONZE))
+            .isEqualTo(referencia.detalhar(carrinho, Regiao.SUL, TipoCliente.BRONZE));
+    }
+
+    @Test
+    @DisplayName("Carrinho vazio deve retornar BigDecimal.ZERO (escala 0), como o motor de referência")
+    void calcularCustoTotal_CarrinhoVazio() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(Collections.emptyList());
+
+        assertThat(pontoFixo.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.OURO)).isEqualTo(BigDecimal.ZERO);
+        assertThat(pontoFixo.calcularCustoTotal(null, Regiao.SUL, TipoCliente.OURO)).isEqualTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Estouro de long deve cair no motor de referência")
+    void calcularCustoTotal_Estouro_UsaReferencia() {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(List.of(
+            criarItem(new BigDecimal("92233720368547758.07"), BigDecimal.ONE, false, 2L)
+        ));
+
+        assertThat(pontoFixo.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE))
+            .isEqualTo(referencia.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE));
+    }
+
+    @Test
+    @DisplayName("Arredondamento half-up deve afastar do zero também para negativos")
+    void arredondarMeioParaCima_Sinais() {
+        assertThat(MotorPrecificacaoPontoFixo.arredondarMeioParaCima(15, 10)).isEqualTo(2);
+        assertThat(MotorPrecificacaoPontoFixo.arredondarMeioParaCima(14, 10)).isEqualTo(1);
+        assertThat(MotorPrecificacaoPontoFixo.arredondarMeioParaCima(-15, 10)).isEqualTo(-2);
+        assertThat(MotorPrecificacaoPontoFixo.arredondarMeioParaCima(-14, 10)).isEqualTo(-1);
+    }
+
+    // --------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // --------------------------------------------------------------------------
+
+    private static CarrinhoDeCompras carrinhoAleatorio(SplittableRandom random) {
+        int quantidadeItens = random.nextInt(1, 9);
+        List<ItemCompra> itens = new ArrayList<>(quantidadeItens);
+
+        for (int i = 0; i < quantidadeItens; i++) {
+            itens.add(criarItem(precoAleatorio(random), pesoAleatorio(random), random.nextInt(4) == 0,
+                random.nextLong(1, 6)));
+        }
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(itens);
+        return carrinho;
+    }
+
+    private static BigDecimal precoAleatorio(SplittableRandom random) {
+        return switch (random.nextInt(10)) {
+            // Perto dos limites de desconto
+            case 0 -> BigDecimal.valueOf(random.nextLong(49_990, 50_010), 2);
+            case 1 -> BigDecimal.valueOf(random.nextLong(99_990, 100_010), 2);
+            // Escalas diferentes de 2 (inclusive não representáveis em centavos)
+            case 2 -> BigDecimal.valueOf(random.nextLong(1, 2_000), random.nextInt(0, 4));
+            default -> BigDecimal.valueOf(random.nextLong(1, 40_000), 2);
+        };
+    }
+
+    private static BigDecimal pesoAleatorio(SplittableRandom random) {
+        return switch (random.nextInt(10)) {
+            // Perto dos limites de faixa (5, 10 e 50 kg)
+            case 0 -> BigDecimal.valueOf(4_990 + random.nextLong(20), 3);
+            case 1 -> BigDecimal.valueOf(9_990 + random.nextLong(20), 3);
+            case 2 -> BigDecimal.valueOf(49_990 + random.nextLong(20), 3);
+            // Escalas diferentes de 3 (inclusive não representáveis em gramas)
+            case 3 -> BigDecimal.valueOf(random.nextLong(1, 100_000), random.nextInt(0, 5));
+            default -> BigDecimal.valueOf(random.nextLong(1, 15_000), 3);
+        };
+    }
+
+    private static ItemCompra criarItem(BigDecimal preco, BigDecimal peso, boolean fragil, long quantidade) {
+        Produto produto = new Produto();
+        produto.setPreco(preco);
+        produto.setPesoFisico(peso);
+        produto.setFragil(fragil);
+
+        ItemCompra item = new ItemCompra();
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        return item;
+    }
+}
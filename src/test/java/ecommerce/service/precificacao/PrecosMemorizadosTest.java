@@ -0,0 +1,124 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.config.CacheConfig;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PrecosMemorizadosTest {
+
+    private final AtomicInteger calculos = new AtomicInteger();
+    private final Supplier<PrecoDetalhado> calculo = () -> preco(calculos.incrementAndGet());
+
+    private RegrasPrecificacao regras;
+    private SimpleMeterRegistry registry;
+    private PrecosMemorizados precos;
+    private CarrinhoDeCompras carrinho;
+
+    @BeforeEach
+    void setup() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CacheConfig.PRECOS, Caffeine.newBuilder().recordStats().build());
+        regras = new RegrasPrecificacao(new MockEnvironment(), "");
+        registry = new SimpleMeterRegistry();
+        precos = new PrecosMemorizados(cacheManager, regras, registry);
+
+        Produto produto = new Produto();
+        produto.setId(10L);
+        produto.setPreco(BigDecimal.TEN);
+        produto.setPesoFisico(BigDecimal.ONE);
+        ItemCompra item = new ItemCompra();
+        item.setProduto(produto);
+        item.setQuantidade(1L);
+
+        carrinho = new CarrinhoDeCompras();
+        carrinho.setId(1L);
+        carrinho.setItens(List.of(item));
+        gravado(carrinho, 0L);
+    }
+
+    @Test
+    @DisplayName("Mesma versão do carrinho e das regras deve reaproveitar o cálculo")
+    void calcular_MesmaChaveReaproveita() {
+        PrecoDetalhado primeiro = precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+        PrecoDetalhado segundo = precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+
+        assertThat(segundo).isEqualTo(primeiro);
+        assertThat(calculos).hasValue(1);
+        assertThat(registry.get("precificacao.cache.taxa.acerto").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Nova versão do carrinho, das regras, outra região ou nível devem recalcular")
+    void calcular_QualquerVersaoNovaRecalcula() {
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+
+        gravado(carrinho, 1L);
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+        regras.recarregar();
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+        precos.calcular(carrinho, Regiao.NORTE, TipoCliente.OURO, calculo);
+        PrecoDetalhado ultimo = precos.calcular(carrinho, Regiao.NORTE, TipoCliente.PRATA, calculo);
+
+        assertThat(calculos).hasValue(5);
+        assertThat(ultimo.total()).isEqualTo(BigDecimal.valueOf(5));
+    }
+
+    @Test
+    @DisplayName("Carrinho alterado em memória ou não gravado não deve ser memorizado")
+    void calcular_CarrinhoNaoGravadoNaoMemoriza() {
+        carrinho.recalcularTotais();
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+
+        CarrinhoDeCompras novo = new CarrinhoDeCompras();
+        novo.setId(2L);
+        precos.calcular(novo, Regiao.SUL, TipoCliente.OURO, calculo);
+
+        assertThat(calculos).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Recarga das regras durante o cálculo não deve guardar o resultado")
+    void calcular_RecargaDuranteCalculoNaoGuarda() {
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, () -> {
+            regras.recarregar();
+            return calculo.get();
+        });
+        regras.recarregar();
+        // A chave antiga nunca foi gravada; a atual ainda não existe
+        precos.calcular(carrinho, Regiao.SUL, TipoCliente.OURO, calculo);
+
+        assertThat(calculos).hasValue(2);
+    }
+
+    private static PrecoDetalhado preco(long total) {
+        BigDecimal valor = BigDecimal.valueOf(total);
+        return new PrecoDetalhado(valor, BigDecimal.ZERO, BigDecimal.ZERO, valor);
+    }
+
+    /** Simula o carrinho como lido do banco na versão informada. */
+    private static void gravado(CarrinhoDeCompras carrinho, long versao) {
+        ReflectionTestUtils.setField(carrinho, "versao", versao);
+        ReflectionTestUtils.setField(carrinho, "alteradoEmMemoria", false);
+    }
+}
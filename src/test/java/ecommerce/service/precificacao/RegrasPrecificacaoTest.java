@@ -0,0 +1,144 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.env.MockEnvironment;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+class RegrasPrecificacaoTest {
+
+    private final TabelaRegras padrao = TabelaRegras.padrao();
+
+    @ParameterizedTest(name = "subtotal {0} -> faixa {1}")
+    @CsvSource({ "0, -1", "499.99, -1", "500.00, 0", "500, 0", "999.99, 0", "1000.00, 1", "50000, 1" })
+    @DisplayName("Busca binária de desconto: limite é inclusivo")
+    void indiceDesconto(String subtotal, int faixa) {
+        assertThat(padrao.indiceDesconto(new BigDecimal(subtotal))).isEqualTo(faixa);
+        assertThat(padrao.indiceDesconto(new BigDecimal(subtotal).movePointRight(2).longValueExact()))
+            .isEqualTo(faixa);
+    }
+
+    @ParameterizedTest(name = "peso {0} kg -> faixa {1}")
+    @CsvSource({ "0, -1", "5.000, -1", "5.001, 0", "10, 0", "10.001, 1", "50.0, 1", "50.001, 2", "900, 2" })
+    @DisplayName("Busca binária de frete: limite é exclusivo")
+    void indiceFaixaPeso(String peso, int faixa) {
+        assertThat(padrao.indiceFaixaPeso(new BigDecimal(peso))).isEqualTo(faixa);
+        assertThat(padrao.indiceFaixaPeso(new BigDecimal(peso).movePointRight(3).longValueExact()))
+            .isEqualTo(faixa);
+    }
+
+    @Test
+    @DisplayName("Fator de frete combina multiplicador da região e benefício do nível")
+    void fatorFrete_RegiaoENivel() {
+        TabelaRegras tabela = TabelaRegras.carregar(Map.of(
+            TabelaRegras.PREFIXO + "multiplicador-regiao.NORTE", "1.30",
+            TabelaRegras.PREFIXO + "beneficio-frete.PRATA", "0.50")::get, 1);
+
+        assertThat(tabela.fatorFrete(Regiao.NORTE, TipoCliente.PRATA)).isEqualByComparingTo("0.65");
+        assertThat(tabela.fatorFrete(Regiao.NORTE, TipoCliente.BRONZE)).isEqualByComparingTo("1.30");
+        assertThat(tabela.fatorFrete(Regiao.SUDESTE, TipoCliente.OURO)).isEqualByComparingTo("1");
+        assertThat(tabela.suportaPontoFixo()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Regras com mais casas do que o ponto fixo comporta desativam o ponto fixo")
+    void carregar_RegraSemPontoFixo() {
+        TabelaRegras tabela = TabelaRegras.carregar(Map.of(
+            TabelaRegras.PREFIXO + "frete.taxa-fragil", "5.005")::get, 1);
+
+        assertThat(tabela.suportaPontoFixo()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Limites fora de ordem, listas de tamanhos diferentes ou valores fora do intervalo são rejeitados")
+    void carregar_RegrasInvalidas() {
+        assertThrows(IllegalArgumentException.class, () -> TabelaRegras.carregar(Map.of(
+            TabelaRegras.PREFIXO + "frete.limites-kg", "10,5,50")::get, 1));
+        assertThrows(IllegalArgumentException.class, () -> TabelaRegras.carregar(Map.of(
+            TabelaRegras.PREFIXO + "desconto.percentuais", "0.10")::get, 1));
+        assertThrows(IllegalArgumentException.class, () -> TabelaRegras.carregar(Map.of(
+            TabelaRegras.PREFIXO + "frete.taxa-fragil", "cinco")::get, 1));
+    }
+
+    @ParameterizedTest(name = "{0} = {1}")
+    @CsvSource(delimiter = ';', value = {
+        "desconto.percentuais; 0.10,1.20",
+        "desconto.percentuais; -0.10,0.20",
+        "desconto.limites; -500.00,1000.00",
+        "frete.valores-por-kg; 2.00,-4.00,7.00",
+        "frete.limites-kg; -5,10,50",
+        "frete.taxa-fragil; -5.00",
+        "multiplicador-regiao.NORTE; -1.30",
+        "beneficio-frete.OURO; 1.50" })
+    @DisplayName("Percentuais e benefícios fora de [0, 1] ou valores negativos são rejeitados")
+    void carregar_ForaDoIntervalo(String chave, String valor) {
+        assertThrows(IllegalArgumentException.class,
+            () -> TabelaRegras.carregar(Map.of(TabelaRegras.PREFIXO + chave, valor)::get, 1));
+    }
+
+    @Test
+    @DisplayName("Recarga do arquivo publica nova versão; regra inválida mantém a versão vigente")
+    void recarregar_Arquivo(@TempDir Path diretorio) throws IOException {
+        Path arquivo = diretorio.resolve("regras.properties");
+        Files.writeString(arquivo, TabelaRegras.PREFIXO + "frete.taxa-fragil=5.00\n");
+
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty(TabelaRegras.PREFIXO + "desconto.limites", "500.00,1000.00");
+        RegrasPrecificacao regras = new RegrasPrecificacao(environment, arquivo.toString());
+        MotorPrecificacao motor = new MotorPrecificacaoPontoFixo(regras);
+        CarrinhoDeCompras carrinho = carrinhoFragil();
+
+        assertThat(regras.atual().getVersao()).isEqualTo(1);
+        assertThat(motor.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualByComparingTo("15.00");
+
+        Files.writeString(arquivo, TabelaRegras.PREFIXO + "frete.taxa-fragil=8.00\n");
+        regras.recarregar();
+
+        assertThat(regras.atual().getVersao()).isEqualTo(2);
+        assertThat(motor.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualByComparingTo("18.00");
+
+        Files.writeString(arquivo, TabelaRegras.PREFIXO + "frete.limites-kg=10,5\n");
+
+        assertThrows(IllegalArgumentException.class, regras::recarregar);
+        assertThat(regras.atual().getVersao()).isEqualTo(2);
+        assertThat(motor.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualByComparingTo("18.00");
+
+        // Edição com percentual fora do intervalo detectada pela verificação agendada
+        Files.writeString(arquivo, TabelaRegras.PREFIXO + "desconto.percentuais=0.10,2.00\n");
+        Files.setLastModifiedTime(arquivo, FileTime.fromMillis(Files.getLastModifiedTime(arquivo).toMillis() + 1000));
+        regras.verificarArquivo();
+
+        assertThat(regras.atual().getVersao()).isEqualTo(2);
+        assertThat(motor.calcularCustoTotal(carrinho, Regiao.SUL, TipoCliente.BRONZE)).isEqualByComparingTo("18.00");
+    }
+
+    private static CarrinhoDeCompras carrinhoFragil() {
+        Produto produto = new Produto();
+        produto.setPreco(BigDecimal.TEN);
+        produto.setPesoFisico(BigDecimal.ONE);
+        produto.setFragil(true);
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setItens(List.of(new ItemCompra(1L, produto, 1L)));
+        return carrinho;
+    }
+}